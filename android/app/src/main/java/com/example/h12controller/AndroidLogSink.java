@@ -0,0 +1,20 @@
+package com.example.h12controller;
+
+import android.util.Log;
+
+/**
+ * 把 RCLog 输出到 android.util.Log
+ */
+public class AndroidLogSink implements RCLog.Sink {
+    public static final AndroidLogSink INSTANCE = new AndroidLogSink();
+
+    @Override
+    public void d(String tag, String message) {
+        Log.d(tag, message);
+    }
+
+    @Override
+    public void e(String tag, String message, Throwable error) {
+        Log.e(tag, message, error);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.h12controller;
+
+/**
+ * 遥控器通道数据源
+ * 输入路径只通过该接口获取通道值，实际来源可以是遥控器 SDK（RCChannelSampler）、
+ * 飞行记录回放（ReplayChannelSource）或脚本化的合成数据（SyntheticChannelSource）
+ *
+ * 同一时刻只在一个线程上回调监听器，回调线程由实现决定
+ */
+public interface ChannelSource {
+
+    /**
+     * 通道帧监听器
+     */
+    interface FrameListener {
+        /**
+         * 产生一帧通道值时调用
+         * @param channels 通道值数组，仅在回调期间有效
+         * @param captureNanos 帧的采集时间（纳秒，单调时钟）；回放时为记录中的原始时间
+         */
+        void onChannelFrame(int[] channels, long captureNanos);
+    }
+
+    void setFrameListener(FrameListener listener);
+
+    /**
+     * 设置输出频率，频率由数据本身决定的实现可以忽略
+     */
+    void setRateHz(int rateHz);
+
+    int getRateHz();
+
+    /**
+     * 开始连续输出，重复调用无副作用
+     */
+    void start();
+
+    /**
+     * 停止连续输出，返回后不会再回调监听器
+     */
+    void stop();
+
+    boolean isRunning();
+
+    /**
+     * captureNanos 是否为 SystemClock.elapsedRealtimeNanos 给出的实时采集时间
+     * 回放和合成数据源的时间戳是虚拟时间，不参与延迟统计
+     */
+    boolean isLiveClock();
+
+    /**
+     * 单次读取当前通道值，与连续输出互不影响
+     * @param callback 读取完成时调用，失败时 channels 为空数组
+     */
+    void requestFrame(FrameListener callback);
+}
@@ -0,0 +1,105 @@
+package com.example.h12controller;
+
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * 本地环回数传链路：写入的数据在链路线程上原样作为收到的数据回调，也可以用 inject 注入收到的数据
+ * 与合成 / 回放数据源配合，在没有遥控器硬件时验证多设备的数传解析、批量推送和发送队列
+ */
+public class LoopbackLinkPort implements RCLinkPort {
+    private static final byte[] STOP = new byte[0];
+
+    private final String name;
+    private final boolean echo;
+    private final LinkedBlockingQueue<byte[]> queue = new LinkedBlockingQueue<>();
+    private volatile Listener listener;
+    private Thread thread;
+
+    /**
+     * @param echo 写入的数据是否回送为收到的数据
+     */
+    public LoopbackLinkPort(String name, boolean echo) {
+        this.name = name;
+        this.echo = echo;
+    }
+
+    @Override
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public synchronized void connect() {
+        if (thread != null) {
+            return;
+        }
+        queue.clear();
+        thread = new Thread(this::run, "rc-loopback-" + name);
+        thread.start();
+    }
+
+    @Override
+    public synchronized void disconnect() {
+        Thread current = thread;
+        if (current == null) {
+            return;
+        }
+        thread = null;
+        queue.offer(STOP);
+        if (Thread.currentThread() != current) {
+            try {
+                current.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void write(byte[] data) {
+        if (echo) {
+            inject(data);
+        }
+    }
+
+    /**
+     * 注入一段收到的数据，未连接时丢弃
+     */
+    public void inject(byte[] data) {
+        if (thread != null && data.length > 0) {
+            queue.offer(data.clone());
+        }
+    }
+
+    @Override
+    public boolean needsRcConnection() {
+        return false;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    private void run() {
+        Listener target = listener;
+        if (target != null) {
+            target.onConnected();
+        }
+        try {
+            byte[] data;
+            while ((data = queue.take()) != STOP) {
+                target = listener;
+                if (target != null) {
+                    target.onReadData(data);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        target = listener;
+        if (target != null) {
+            target.onDisconnected();
+        }
+    }
+}
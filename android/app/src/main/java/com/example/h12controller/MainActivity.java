@@ -3,17 +3,33 @@ package com.example.h12controller;
 import android.os.Bundle;
 import android.view.KeyEvent;
 
+import com.skydroid.rcsdk.common.Uart;
+
 import io.flutter.embedding.android.FlutterActivity;
 import io.flutter.embedding.engine.FlutterEngine;
+import io.flutter.plugin.common.BasicMessageChannel;
+import io.flutter.plugin.common.BinaryCodec;
+import io.flutter.plugin.common.BinaryMessenger;
 import io.flutter.plugin.common.MethodChannel;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class MainActivity extends FlutterActivity {
 
     private static final String RC_CHANNEL = "com.skydroid2.rcsdk2";
+    private static final String RC_KEY_FRAME_CHANNEL = RC_CHANNEL + "/keyFrames";
+    private static final String RC_LINK_MESSAGE_CHANNEL = RC_CHANNEL + "/linkMessages";
+    private static final String RC_DEVICE_CHANNEL = RC_CHANNEL + "/devices";
 
+    private BinaryMessenger binaryMessenger;
     private MethodChannel rcChannel;
+    private BasicMessageChannel<ByteBuffer> keyFrameChannel;
+    private BasicMessageChannel<ByteBuffer> linkMessageChannel;
     private RCControllerManager rcControllerManager;
 
     @Override
@@ -23,9 +39,20 @@ public class MainActivity extends FlutterActivity {
         // ⚠️ 重要：注册所有 Flutter 插件
         io.flutter.plugins.GeneratedPluginRegistrant.registerWith(flutterEngine);
         
-        rcChannel = new MethodChannel(flutterEngine.getDartExecutor().getBinaryMessenger(), RC_CHANNEL);
+        binaryMessenger = flutterEngine.getDartExecutor().getBinaryMessenger();
+        rcChannel = new MethodChannel(binaryMessenger, RC_CHANNEL);
         
+        // 通道帧二进制推送通道，帧格式见 RCFrameCodec
+        keyFrameChannel = new BasicMessageChannel<>(binaryMessenger,
+                RC_KEY_FRAME_CHANNEL, BinaryCodec.INSTANCE_DIRECT);
+
+        // 数传消息批量推送通道，批次格式见 RCLinkBatcher
+        linkMessageChannel = new BasicMessageChannel<>(binaryMessenger,
+                RC_LINK_MESSAGE_CHANNEL, BinaryCodec.INSTANCE_DIRECT);
+
         rcControllerManager = new RCControllerManager(this);
+        // 不等 Dart 端调用 setupRc，引擎配置完成后立即在连接线程上初始化 SDK 并连接
+        rcControllerManager.initRCSdk();
 
         rcControllerManager.setButtonEventListener(new ButtonEventListener() {
             @Override
@@ -43,17 +70,336 @@ public class MainActivity extends FlutterActivity {
         rcChannel.setMethodCallHandler(
             (call, result) -> {
                 if ("setupRc".equals(call.method)) {
+                    // 已在连接或已连接时不做任何事
                     rcControllerManager.initRCSdk();
                     result.success(null);
+                } else if ("configureReconnect".equals(call.method)) {
+                    try {
+                        rcControllerManager.configureReconnect(call.argument("initialBackoffMs"),
+                                call.argument("maxBackoffMs"));
+                        result.success(null);
+                    } catch (IllegalArgumentException e) {
+                        result.error("INVALID_RECONNECT", e.getMessage(), null);
+                    }
+                } else if ("getConnectionStats".equals(call.method)) {
+                    result.success(rcControllerManager.getConnectionStats());
+                } else if ("estimateChannels".equals(call.method)) {
+                    final Object aheadMs = call.argument("aheadMs");
+                    long aheadNanos = aheadMs instanceof Number
+                            ? (long) (((Number) aheadMs).doubleValue() * 1_000_000) : 0;
+                    result.success(rcControllerManager.estimateChannels(aheadNanos));
+                } else if ("configureEstimator".equals(call.method)) {
+                    try {
+                        rcControllerManager.configureEstimator(call.argument("maxExtrapolationMs"),
+                                call.argument("errorChannelMask"));
+                        result.success(null);
+                    } catch (IllegalArgumentException e) {
+                        result.error("INVALID_ESTIMATOR", e.getMessage(), null);
+                    }
+                } else if ("getEstimatorStats".equals(call.method)) {
+                    result.success(rcControllerManager.getEstimatorStats());
                 } else if ("getRemoteControllerKeyChannel".equals(call.method)) {
-                    final List<Integer> values = rcControllerManager.getRemoteControllerKeyChannel();
-                    result.success(values);
+                    // int[] 由 StandardMessageCodec 直接编码为 Int32List，无需逐个装箱
+                    rcControllerManager.getRemoteControllerKeyChannel(
+                            (channels, captureNanos) -> result.success(channels));
+                } else if ("startKeyChannelStream".equals(call.method)) {
+                    rcControllerManager.startKeyChannelStream(getRateHz(call.arguments));
+                    result.success(null);
+                } else if ("stopKeyChannelStream".equals(call.method)) {
+                    rcControllerManager.stopKeyChannelStream();
+                    result.success(null);
+                } else if ("configureChangeDetector".equals(call.method)) {
+                    final List<Integer> deadbands = call.argument("deadbands");
+                    final Integer keyframeIntervalMs = call.argument("keyframeIntervalMs");
+                    rcControllerManager.configureChangeDetector(toIntArray(deadbands), keyframeIntervalMs);
+                    result.success(null);
+                } else if ("configureAdaptiveSampling".equals(call.method)) {
+                    try {
+                        rcControllerManager.configureAdaptiveSampling(call.argument("enabled"),
+                                call.argument("idleRateHz"), call.argument("activeRateHz"),
+                                call.argument("threshold"), call.argument("quietMs"), call.argument("decayStepMs"));
+                        result.success(null);
+                    } catch (IllegalArgumentException e) {
+                        result.error("INVALID_SAMPLING", e.getMessage(), null);
+                    }
+                } else if ("getSamplingStats".equals(call.method)) {
+                    result.success(rcControllerManager.getSamplingStats());
+                } else if ("configureKeyRepeat".equals(call.method)) {
+                    try {
+                        rcControllerManager.configureKeyRepeat(call.argument("repeatDelayMs"),
+                                call.argument("repeatIntervalMs"));
+                        result.success(null);
+                    } catch (IllegalArgumentException e) {
+                        result.error("INVALID_KEY_REPEAT", e.getMessage(), null);
+                    }
+                } else if ("getKeyStats".equals(call.method)) {
+                    result.success(rcControllerManager.getKeyStats());
+                } else if ("setEventLogLevel".equals(call.method)) {
+                    try {
+                        rcControllerManager.setEventLogLevel(call.arguments instanceof Integer
+                                ? (Integer) call.arguments : RCEventLog.DEFAULT_LEVEL);
+                        result.success(null);
+                    } catch (IllegalArgumentException e) {
+                        result.error("INVALID_LEVEL", e.getMessage(), null);
+                    }
+                } else if ("dumpEventLog".equals(call.method)) {
+                    result.success(rcControllerManager.dumpEventLog(Boolean.TRUE.equals(call.argument("crash"))));
+                } else if ("getEventLogStats".equals(call.method)) {
+                    result.success(rcControllerManager.getEventLogStats());
+                } else if ("attachFrameSnapshot".equals(call.method)) {
+                    try {
+                        result.success(rcControllerManager.attachFrameSnapshot());
+                    } catch (IOException e) {
+                        result.error("SNAPSHOT_UNAVAILABLE", e.getMessage(), null);
+                    }
+                } else if ("readFrameSnapshot".equals(call.method)) {
+                    result.success(rcControllerManager.readFrameSnapshot());
+                } else if ("subscribeFrames".equals(call.method)) {
+                    try {
+                        result.success(rcControllerManager.subscribeFrames(
+                                intArgument(call.argument("channelMask"), -1),
+                                intArgument(call.argument("maxRateHz"), 0),
+                                intArgument(call.argument("mode"), RCSubscription.MODE_EVERY_FRAME),
+                                intArgument(call.argument("deadband"), 0)));
+                    } catch (IllegalArgumentException | IllegalStateException e) {
+                        result.error("INVALID_SUBSCRIPTION", e.getMessage(), null);
+                    }
+                } else if ("unsubscribeFrames".equals(call.method)) {
+                    result.success(call.arguments instanceof Integer
+                            && rcControllerManager.unsubscribeFrames((Integer) call.arguments));
+                } else if ("getSubscriptionStats".equals(call.method)) {
+                    result.success(rcControllerManager.getSubscriptionStats());
+                } else if ("loadZoneProfile".equals(call.method)) {
+                    try {
+                        final RCZoneQuantizer.Profile profile = call.arguments instanceof Map
+                                ? RCZoneQuantizer.Profile.fromMap((Map<?, ?>) call.arguments)
+                                : RCZoneQuantizer.Profile.defaultProfile();
+                        rcControllerManager.loadZoneProfile(profile);
+                        result.success(null);
+                    } catch (IllegalArgumentException e) {
+                        result.error("INVALID_PROFILE", e.getMessage(), null);
+                    }
+                } else if ("loadConditioningProfile".equals(call.method)) {
+                    try {
+                        final RCSignalConditioner.Profile profile = call.arguments instanceof Map
+                                ? RCSignalConditioner.Profile.fromMap((Map<?, ?>) call.arguments)
+                                : RCSignalConditioner.Profile.defaultProfile();
+                        rcControllerManager.loadConditioningProfile(profile);
+                        result.success(null);
+                    } catch (IllegalArgumentException e) {
+                        result.error("INVALID_PROFILE", e.getMessage(), null);
+                    }
+                } else if ("loadEdgeProfile".equals(call.method)) {
+                    try {
+                        final RCEdgeDetector.Profile profile = call.arguments instanceof Map
+                                ? RCEdgeDetector.Profile.fromMap((Map<?, ?>) call.arguments)
+                                : RCEdgeDetector.Profile.defaultProfile();
+                        rcControllerManager.loadEdgeProfile(profile);
+                        result.success(null);
+                    } catch (IllegalArgumentException e) {
+                        result.error("INVALID_PROFILE", e.getMessage(), null);
+                    }
+                } else if ("loadComboProfile".equals(call.method)) {
+                    try {
+                        final RCComboRecognizer.Profile profile = call.arguments instanceof Map
+                                ? RCComboRecognizer.Profile.fromMap((Map<?, ?>) call.arguments)
+                                : RCComboRecognizer.Profile.defaultProfile();
+                        rcControllerManager.loadComboProfile(profile);
+                        result.success(null);
+                    } catch (IllegalArgumentException e) {
+                        result.error("INVALID_PROFILE", e.getMessage(), null);
+                    }
+                } else if ("getComboStats".equals(call.method)) {
+                    result.success(rcControllerManager.getComboStats());
+                } else if ("setDebugLogging".equals(call.method)) {
+                    rcControllerManager.setDebugLogging(Boolean.TRUE.equals(call.arguments));
+                    result.success(null);
+                } else if ("sendPipelineData".equals(call.method)) {
+                    final byte[] data = call.argument("data");
+                    final Integer tag = call.argument("tag");
+                    final boolean accepted = rcControllerManager.sendPipelineData(data, tag);
+                    final Map<String, Object> reply = rcControllerManager.getPipelineStats();
+                    reply.put("accepted", accepted);
+                    result.success(reply);
+                } else if ("getPipelineStats".equals(call.method)) {
+                    result.success(rcControllerManager.getPipelineStats());
+                } else if ("startFlightRecorder".equals(call.method)) {
+                    final Integer segmentBytes = call.argument("segmentBytes");
+                    final Number maxBytes = call.argument("maxBytes");
+                    final String path = rcControllerManager.startFlightRecorder(
+                            segmentBytes != null ? segmentBytes : RCFlightRecorder.DEFAULT_SEGMENT_BYTES,
+                            maxBytes != null ? maxBytes.longValue() : RCFlightRecorder.DEFAULT_MAX_BYTES);
+                    if (path != null) {
+                        result.success(path);
+                    } else {
+                        result.error("RECORDER_ERROR", "Cannot open flight recorder", null);
+                    }
+                } else if ("stopFlightRecorder".equals(call.method)) {
+                    rcControllerManager.stopFlightRecorder();
+                    result.success(null);
+                } else if ("flushFlightRecorder".equals(call.method)) {
+                    rcControllerManager.flushFlightRecorder();
+                    result.success(null);
+                } else if ("getFlightRecorderStats".equals(call.method)) {
+                    result.success(rcControllerManager.getFlightRecorderStats());
+                } else if ("setChannelSource".equals(call.method)) {
+                    try {
+                        rcControllerManager.setChannelSource(createChannelSource(call.arguments));
+                        result.success(null);
+                    } catch (IllegalArgumentException | IOException e) {
+                        result.error("INVALID_SOURCE", e.getMessage(), null);
+                    }
+                } else if ("setSourceSpeed".equals(call.method)) {
+                    result.success(call.arguments instanceof Number
+                            && rcControllerManager.setSourceSpeed(((Number) call.arguments).doubleValue()));
+                } else if ("addDevice".equals(call.method)) {
+                    try {
+                        addDevice(call.arguments);
+                        result.success(null);
+                    } catch (IllegalArgumentException | IOException e) {
+                        result.error("INVALID_DEVICE", e.getMessage(), null);
+                    }
+                } else if ("removeDevice".equals(call.method)) {
+                    result.success(call.arguments instanceof Integer
+                            && rcControllerManager.removeDevice((Integer) call.arguments));
+                } else if ("sendDeviceData".equals(call.method)) {
+                    try {
+                        result.success(rcControllerManager.sendDeviceData(intArgument(call.argument("id"), -1),
+                                call.argument("data"), call.argument("tag")));
+                    } catch (IllegalArgumentException e) {
+                        result.error("INVALID_DEVICE", e.getMessage(), null);
+                    }
+                } else if ("getDeviceStats".equals(call.method)) {
+                    result.success(rcControllerManager.getDeviceStats());
+                } else if ("setMavlinkCrcExtras".equals(call.method)) {
+                    try {
+                        rcControllerManager.setMavlinkCrcExtras(toCrcExtras(call.arguments));
+                        result.success(null);
+                    } catch (IllegalArgumentException e) {
+                        result.error("INVALID_CRC_EXTRA", e.getMessage(), null);
+                    }
+                } else if ("getLinkStats".equals(call.method)) {
+                    result.success(rcControllerManager.getLinkStats());
+                } else if ("getRcLatencyStats".equals(call.method)) {
+                    result.success(rcControllerManager.getLatencyStats());
+                } else if ("resetRcLatencyStats".equals(call.method)) {
+                    rcControllerManager.resetLatencyStats();
+                    result.success(null);
+                } else if ("setKeyChannelRate".equals(call.method)) {
+                    rcControllerManager.setKeyChannelRate(getRateHz(call.arguments));
+                    result.success(null);
                 } else {
                     result.notImplemented();
                 }
             });
     }
 
+    private static int getRateHz(Object arguments) {
+        if (arguments instanceof Map) {
+            Object rateHz = ((Map<?, ?>) arguments).get("rateHz");
+            if (rateHz instanceof Number) {
+                return ((Number) rateHz).intValue();
+            }
+        }
+        return RCChannelSampler.DEFAULT_RATE_HZ;
+    }
+
+    /**
+     * 根据 Flutter 传来的配置创建通道数据源
+     * {'type': 'sdk'}：遥控器 SDK（默认）
+     * {'type': 'replay', 'path': ..., 'speed': 1.0, 'loop': false}：回放飞行记录，path 为段文件或目录（其中所有会话），
+     *     默认为飞行记录目录中最近一次结束的会话
+     * {'type': 'synthetic', ...}：合成数据，格式见 SyntheticChannelSource.fromMap
+     */
+    private ChannelSource createChannelSource(Object arguments) throws IOException {
+        if (!(arguments instanceof Map)) {
+            return new RCChannelSampler();
+        }
+        Map<?, ?> config = (Map<?, ?>) arguments;
+        Object type = config.get("type");
+        if (type == null || "sdk".equals(type)) {
+            return new RCChannelSampler();
+        } else if ("replay".equals(type)) {
+            Object path = config.get("path");
+            Object speed = config.get("speed");
+            File[] segments = rcControllerManager.getReplaySegments(
+                    path instanceof String ? new File((String) path) : null);
+            return new ReplayChannelSource(segments,
+                    speed instanceof Number ? ((Number) speed).doubleValue() : 1.0,
+                    Boolean.TRUE.equals(config.get("loop")));
+        } else if ("synthetic".equals(type)) {
+            return SyntheticChannelSource.fromMap(config);
+        }
+        throw new IllegalArgumentException("unknown source type: " + type);
+    }
+
+    /**
+     * 根据 Flutter 传来的配置添加附加设备
+     * {'id': 1, 'source': {...}, 'link': 'uart1'|'loopback'|null, 'edgeProfile': {...}, 'comboProfile': {...}}
+     * source 格式见 createChannelSource，不能是 sdk；profile 格式见 RCEdgeDetector / RCComboRecognizer.Profile.fromMap
+     */
+    private void addDevice(Object arguments) throws IOException {
+        if (!(arguments instanceof Map)) {
+            throw new IllegalArgumentException("device config must be a map");
+        }
+        Map<?, ?> config = (Map<?, ?>) arguments;
+        int id = intArgument(config.get("id"), -1);
+        if (!(config.get("source") instanceof Map)) {
+            throw new IllegalArgumentException("device source is required");
+        }
+        Object link = config.get("link");
+        RCLinkPort port;
+        if (link == null) {
+            port = null;
+        } else if ("uart1".equals(link)) {
+            port = new SdkLinkPort(Uart.UART1);
+        } else if ("loopback".equals(link)) {
+            port = new LoopbackLinkPort("device-" + id, true);
+        } else {
+            throw new IllegalArgumentException("unknown link: " + link);
+        }
+        Object edgeProfile = config.get("edgeProfile");
+        Object comboProfile = config.get("comboProfile");
+        rcControllerManager.addDevice(id, createChannelSource(config.get("source")), port,
+                edgeProfile instanceof Map ? RCEdgeDetector.Profile.fromMap((Map<?, ?>) edgeProfile) : null,
+                comboProfile instanceof Map ? RCComboRecognizer.Profile.fromMap((Map<?, ?>) comboProfile) : null);
+    }
+
+    /**
+     * 32 位掩码的最高位为 1 时 StandardMessageCodec 会按 Long 传入，这里按低 32 位截取
+     */
+    private static int intArgument(Object value, int defaultValue) {
+        return value instanceof Number ? ((Number) value).intValue() : defaultValue;
+    }
+
+    /**
+     * Flutter 传来的 {消息 ID: CRC_EXTRA}
+     */
+    private static Map<Integer, Integer> toCrcExtras(Object arguments) {
+        if (!(arguments instanceof Map)) {
+            throw new IllegalArgumentException("crc extras must be a map");
+        }
+        Map<Integer, Integer> crcExtras = new LinkedHashMap<>();
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) arguments).entrySet()) {
+            if (!(entry.getKey() instanceof Integer) || !(entry.getValue() instanceof Integer)) {
+                throw new IllegalArgumentException("invalid crc extra entry: " + entry);
+            }
+            crcExtras.put((Integer) entry.getKey(), (Integer) entry.getValue());
+        }
+        return crcExtras;
+    }
+
+    private static int[] toIntArray(List<Integer> values) {
+        if (values == null) {
+            return null;
+        }
+        int[] array = new int[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i);
+        }
+        return array;
+    }
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -75,4 +421,28 @@ public class MainActivity extends FlutterActivity {
         return rcChannel;
     }
 
+    public BasicMessageChannel<ByteBuffer> getKeyFrameChannel() {
+        return keyFrameChannel;
+    }
+
+    public BasicMessageChannel<ByteBuffer> getLinkMessageChannel() {
+        return linkMessageChannel;
+    }
+
+    public BinaryMessenger getBinaryMessenger() {
+        return binaryMessenger;
+    }
+
+    public String getKeyFrameChannelName() {
+        return RC_KEY_FRAME_CHANNEL;
+    }
+
+    public String getLinkMessageChannelName() {
+        return RC_LINK_MESSAGE_CHANNEL;
+    }
+
+    public String getDeviceChannelName() {
+        return RC_DEVICE_CHANNEL;
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,263 @@
+package com.example.h12controller;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * MAVLink v1 / v2 帧解码器
+ *
+ * v1：0xFE len seq sysid compid msgid payload[len] crc[2]
+ * v2：0xFD len incompat compat seq sysid compid msgid[3] payload[len] crc[2] (signature[13])
+ *
+ * CRC 需要每种消息的 CRC_EXTRA，这里内置 common.xml（含其包含的 standard / minimal）全部消息的值，
+ * 方言（如 ardupilotmega）中的其他消息用 setCrcExtra 注册；
+ * 未知消息默认丢弃并单独计数，否则线路噪声中的一个 0xFE / 0xFD 就可能被当作一帧吞掉后面的真实帧，
+ * 只校验帧结构的宽松模式需要显式打开
+ *
+ * setCrcExtra 可以在解析期间从其他线程调用，表在修改时整体替换
+ */
+public class MavlinkFrameDecoder implements RCLinkParser.FrameDecoder {
+    public static final int PROTOCOL_V1 = 1;
+    public static final int PROTOCOL_V2 = 2;
+
+    private static final int STX_V1 = 0xFE;
+    private static final int STX_V2 = 0xFD;
+    // 头部长度，包含起始字节
+    private static final int HEADER_V1 = 6;
+    private static final int HEADER_V2 = 10;
+    private static final int CHECKSUM_LENGTH = 2;
+    private static final int SIGNATURE_LENGTH = 13;
+    private static final int INCOMPAT_FLAG_SIGNED = 0x01;
+
+    private static final int UNKNOWN_CRC_EXTRA = -1;
+    private static final int NO_MESSAGE_ID = -1;
+
+    // common.xml 的 CRC_EXTRA，每两个数为一组：消息 ID、CRC_EXTRA，按 ID 升序排列
+    private static final int[] COMMON_CRC_EXTRA = {
+            0, 50, 1, 124, 2, 137, 4, 237, 5, 217, 6, 104, 7, 119, 8, 117,
+            11, 89, 20, 214, 21, 159, 22, 220, 23, 168, 24, 24, 25, 23, 26, 170,
+            27, 144, 28, 67, 29, 115, 30, 39, 31, 246, 32, 185, 33, 104, 34, 237,
+            35, 244, 36, 222, 37, 212, 38, 9, 39, 254, 40, 230, 41, 28, 42, 28,
+            43, 132, 44, 221, 45, 232, 46, 11, 47, 153, 48, 41, 49, 39, 50, 78,
+            51, 196, 54, 15, 55, 3, 61, 167, 62, 183, 63, 119, 64, 191, 65, 118,
+            66, 148, 67, 21, 69, 243, 70, 124, 73, 38, 74, 20, 75, 158, 76, 152,
+            77, 143, 80, 14, 81, 106, 82, 49, 83, 22, 84, 143, 85, 140, 86, 5,
+            87, 150, 89, 231, 90, 183, 91, 63, 92, 54, 93, 47, 100, 175, 101, 102,
+            102, 158, 103, 208, 104, 56, 105, 93, 106, 138, 107, 108, 108, 32, 109, 185,
+            110, 84, 111, 34, 112, 174, 113, 124, 114, 237, 115, 4, 116, 76, 117, 128,
+            118, 56, 119, 116, 120, 134, 121, 237, 122, 203, 123, 250, 124, 87, 125, 203,
+            126, 220, 127, 25, 128, 226, 129, 46, 130, 29, 131, 223, 132, 85, 133, 6,
+            134, 229, 135, 203, 136, 1, 137, 195, 138, 109, 139, 168, 140, 181, 141, 47,
+            142, 72, 143, 131, 144, 127, 146, 103, 147, 154, 148, 178, 149, 200, 162, 189,
+            192, 36, 225, 208, 230, 163, 231, 105, 232, 151, 233, 35, 234, 150, 235, 179,
+            241, 90, 242, 104, 243, 85, 244, 95, 245, 130, 246, 184, 247, 81, 248, 8,
+            249, 204, 250, 49, 251, 170, 252, 44, 253, 83, 254, 46, 256, 71, 257, 131,
+            258, 187, 259, 92, 260, 146, 261, 179, 262, 12, 263, 133, 264, 49, 265, 26,
+            266, 193, 267, 35, 268, 14, 269, 109, 270, 59, 271, 22, 275, 126, 276, 18,
+            280, 70, 281, 48, 282, 123, 283, 74, 284, 99, 285, 137, 286, 210, 287, 1,
+            288, 20, 290, 251, 291, 10, 299, 19, 300, 217, 301, 243, 310, 28, 311, 95,
+            320, 243, 321, 88, 322, 243, 323, 78, 324, 132, 330, 23, 331, 91, 332, 236,
+            333, 231, 334, 72, 335, 225, 336, 245, 339, 199, 340, 99, 350, 232, 360, 11,
+            370, 75, 373, 117, 375, 251, 380, 232, 385, 147, 386, 132, 387, 4, 388, 8,
+            390, 156, 395, 0, 396, 50, 397, 182, 400, 110, 401, 183, 410, 160, 411, 106,
+            412, 33, 413, 77, 9000, 113, 9005, 117, 12900, 114, 12901, 254, 12902, 140, 12903, 249,
+            12904, 77, 12905, 49, 12915, 94, 12918, 139, 12919, 7, 12920, 20
+    };
+
+    // 消息 ID 0~255 的 CRC_EXTRA，未知为 UNKNOWN_CRC_EXTRA
+    private volatile int[] crcExtra;
+    // 消息 ID 大于 255（仅 MAVLink v2）：(id << 8) | extra，按 ID 升序排列，解码时二分查找
+    private volatile long[] extendedExtras;
+    private final boolean strict;
+    private volatile int lastUnknownMessageId = NO_MESSAGE_ID;
+
+    public MavlinkFrameDecoder() {
+        this(true);
+    }
+
+    /**
+     * @param strict 为 true 时丢弃没有 CRC_EXTRA 的消息；为 false 时这些消息不校验 CRC，
+     *               只适合确认链路上没有噪声、又无法提供完整 CRC_EXTRA 表的场景
+     */
+    public MavlinkFrameDecoder(boolean strict) {
+        this.strict = strict;
+        int[] base = new int[256];
+        Arrays.fill(base, UNKNOWN_CRC_EXTRA);
+        int extendedCount = 0;
+        for (int i = 0; i < COMMON_CRC_EXTRA.length; i += 2) {
+            if (COMMON_CRC_EXTRA[i] < base.length) {
+                base[COMMON_CRC_EXTRA[i]] = COMMON_CRC_EXTRA[i + 1];
+            } else {
+                extendedCount++;
+            }
+        }
+        long[] extended = new long[extendedCount];
+        int index = 0;
+        for (int i = 0; i < COMMON_CRC_EXTRA.length; i += 2) {
+            if (COMMON_CRC_EXTRA[i] >= base.length) {
+                extended[index++] = (long) COMMON_CRC_EXTRA[i] << 8 | COMMON_CRC_EXTRA[i + 1];
+            }
+        }
+        crcExtra = base;
+        extendedExtras = extended;
+    }
+
+    /**
+     * 注册或替换消息的 CRC_EXTRA，用于 common.xml 之外的消息
+     * @param messageId 0~0xFFFFFF
+     * @param extra 0~255
+     */
+    public synchronized void setCrcExtra(int messageId, int extra) {
+        if (messageId < 0 || messageId > 0xFFFFFF) {
+            throw new IllegalArgumentException("invalid message id: " + messageId);
+        }
+        if (extra < 0 || extra > 0xFF) {
+            throw new IllegalArgumentException("invalid crc extra: " + extra);
+        }
+        if (messageId < crcExtra.length) {
+            int[] base = crcExtra.clone();
+            base[messageId] = extra;
+            crcExtra = base;
+            return;
+        }
+        long[] extended = extendedExtras;
+        int index = findExtended(extended, messageId);
+        long entry = (long) messageId << 8 | extra;
+        if (index >= 0) {
+            extended = extended.clone();
+            extended[index] = entry;
+        } else {
+            int insert = -index - 1;
+            long[] grown = new long[extended.length + 1];
+            System.arraycopy(extended, 0, grown, 0, insert);
+            grown[insert] = entry;
+            System.arraycopy(extended, insert, grown, insert + 1, extended.length - insert);
+            extended = grown;
+        }
+        extendedExtras = extended;
+    }
+
+    /**
+     * 最近一次因没有 CRC_EXTRA 而丢弃的消息 ID，没有时为 -1
+     * 线路噪声中恰好像帧头的字节也会计入，同一个 ID 反复出现时通常是需要注册的方言消息
+     */
+    public int getLastUnknownMessageId() {
+        return lastUnknownMessageId;
+    }
+
+    @Override
+    public int frameLength(ByteBuffer ring, int mask, long start, int available) {
+        int stx = at(ring, mask, start, 0);
+        if (stx != STX_V1 && stx != STX_V2) {
+            return 0;
+        }
+        if (available < 2) {
+            return -1;
+        }
+        int payloadLength = at(ring, mask, start, 1);
+        int length;
+        if (stx == STX_V1) {
+            length = HEADER_V1 + payloadLength + CHECKSUM_LENGTH;
+        } else {
+            if (available < 3) {
+                return -1;
+            }
+            int incompatFlags = at(ring, mask, start, 2);
+            if ((incompatFlags & ~INCOMPAT_FLAG_SIGNED) != 0) {
+                // 不认识的不兼容标志，按协议要求丢弃
+                return 0;
+            }
+            length = HEADER_V2 + payloadLength + CHECKSUM_LENGTH;
+            if ((incompatFlags & INCOMPAT_FLAG_SIGNED) != 0) {
+                length += SIGNATURE_LENGTH;
+            }
+        }
+        return available < length ? -1 : length;
+    }
+
+    @Override
+    public int decode(ByteBuffer ring, int mask, long start, int length, RCLinkParser.MessageSink sink) {
+        boolean v2 = at(ring, mask, start, 0) == STX_V2;
+        int payloadLength = at(ring, mask, start, 1);
+        int header = v2 ? HEADER_V2 : HEADER_V1;
+        int sequence;
+        int systemId;
+        int componentId;
+        int messageId;
+        if (v2) {
+            sequence = at(ring, mask, start, 4);
+            systemId = at(ring, mask, start, 5);
+            componentId = at(ring, mask, start, 6);
+            messageId = at(ring, mask, start, 7) | (at(ring, mask, start, 8) << 8) | (at(ring, mask, start, 9) << 16);
+        } else {
+            sequence = at(ring, mask, start, 2);
+            systemId = at(ring, mask, start, 3);
+            componentId = at(ring, mask, start, 4);
+            messageId = at(ring, mask, start, 5);
+        }
+
+        int extra = crcExtraOf(messageId);
+        if (extra == UNKNOWN_CRC_EXTRA) {
+            if (strict) {
+                lastUnknownMessageId = messageId;
+                return RCLinkParser.FrameDecoder.UNKNOWN_MESSAGE;
+            }
+        } else {
+            // X.25 CRC 覆盖 STX 之后的头部和载荷，最后再累加 CRC_EXTRA
+            int crc = 0xFFFF;
+            int end = header + payloadLength;
+            for (int i = 1; i < end; i++) {
+                crc = accumulate(crc, at(ring, mask, start, i));
+            }
+            crc = accumulate(crc, extra);
+            int expected = at(ring, mask, start, end) | (at(ring, mask, start, end + 1) << 8);
+            if (crc != expected) {
+                return RCLinkParser.FrameDecoder.CHECKSUM_ERROR;
+            }
+        }
+
+        sink.onMessage(v2 ? PROTOCOL_V2 : PROTOCOL_V1, sequence, systemId, componentId, messageId,
+                ring, mask, start + header, payloadLength);
+        return RCLinkParser.FrameDecoder.DECODED;
+    }
+
+    private int crcExtraOf(int messageId) {
+        int[] base = crcExtra;
+        if (messageId < base.length) {
+            return base[messageId];
+        }
+        long[] extended = extendedExtras;
+        int index = findExtended(extended, messageId);
+        return index >= 0 ? (int) (extended[index] & 0xFF) : UNKNOWN_CRC_EXTRA;
+    }
+
+    /**
+     * @return 消息 ID 所在的下标；不存在时为 -(插入位置) - 1
+     */
+    private static int findExtended(long[] extended, int messageId) {
+        int low = 0;
+        int high = extended.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long id = extended[middle] >>> 8;
+            if (id < messageId) {
+                low = middle + 1;
+            } else if (id > messageId) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private static int at(ByteBuffer ring, int mask, long start, int offset) {
+        return ring.get((int) ((start + offset) & mask)) & 0xFF;
+    }
+
+    private static int accumulate(int crc, int b) {
+        int tmp = (b ^ crc) & 0xFF;
+        tmp = (tmp ^ (tmp << 4)) & 0xFF;
+        return ((crc >> 8) ^ (tmp << 8) ^ (tmp << 3) ^ (tmp >> 4)) & 0xFFFF;
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.h12controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 按帧时间戳定时输出的通道数据源基类，供回放和合成数据源使用
+ * 子类按顺序给出每一帧及其时间戳（虚拟时间），基类在独立线程上按 speed 倍速把虚拟时间映射到实际时间后回调监听器；
+ * speed 小于等于 0 时不等待，以最快速度输出
+ *
+ * 只依赖 JDK，可以在普通 JVM 上运行整个输入路径
+ */
+public abstract class PacedChannelSource implements ChannelSource {
+    /** advance() 返回该值表示没有更多帧 */
+    protected static final long END_OF_FRAMES = Long.MIN_VALUE;
+
+    private static final int[] EMPTY_CHANNELS = new int[0];
+    // 超过该时间的等待分段进行，便于及时响应停止和倍速调整
+    private static final long MAX_PARK_NANOS = 50_000_000L;
+
+    private final String threadName;
+    private volatile FrameListener listener;
+    private volatile double speed;
+    private volatile boolean speedChanged = false;
+    private volatile boolean running = false;
+    private Thread thread;
+
+    // 最近一次输出的帧，供 requestFrame 读取
+    private final Object lastFrameLock = new Object();
+    private int[] lastFrame = EMPTY_CHANNELS;
+    private long lastFrameNanos;
+    private long framesEmitted = 0;
+
+    protected PacedChannelSource(String threadName, double speed) {
+        this.threadName = threadName;
+        this.speed = speed;
+    }
+
+    /**
+     * 输出线程：回到第一帧
+     */
+    protected abstract void rewind();
+
+    /**
+     * 输出线程：生成下一帧
+     * @return 下一帧的虚拟时间戳（纳秒），没有更多帧时返回 END_OF_FRAMES
+     */
+    protected abstract long advance();
+
+    /**
+     * 输出线程：当前帧的通道值，在下一次 advance 之前有效
+     */
+    protected abstract int[] currentChannels();
+
+    @Override
+    public void setFrameListener(FrameListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 设置回放倍速，1 为原始速度，小于等于 0 为不限速
+     */
+    public void setSpeed(double speed) {
+        this.speed = speed;
+        speedChanged = true;
+    }
+
+    public double getSpeed() {
+        return speed;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        if (thread != null) {
+            // 上一次已输出完所有帧，等待线程退出后重新开始
+            stop();
+        }
+        running = true;
+        thread = new Thread(this::run, threadName);
+        thread.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (thread == null) {
+            return;
+        }
+        Thread current = thread;
+        running = false;
+        thread = null;
+        LockSupport.unpark(current);
+        if (Thread.currentThread() != current) {
+            try {
+                current.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 输出完所有帧后自动变为 false
+     */
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 输出的是记录或生成的虚拟时间
+     */
+    @Override
+    public boolean isLiveClock() {
+        return false;
+    }
+
+    private void run() {
+        rewind();
+        long baseVirtual = 0;
+        long baseWall = 0;
+        long previousVirtual = 0;
+        boolean first = true;
+        while (running) {
+            long virtualNanos = advance();
+            if (virtualNanos == END_OF_FRAMES) {
+                break;
+            }
+            if (first || speedChanged || virtualNanos < previousVirtual) {
+                // 以当前帧为基准重新对齐虚拟时间和实际时间；时间戳倒退时同样重新对齐，否则之后的帧都已过期、不再限速
+                first = false;
+                speedChanged = false;
+                baseVirtual = virtualNanos;
+                baseWall = System.nanoTime();
+            }
+            double currentSpeed = speed;
+            if (currentSpeed > 0) {
+                long target = baseWall + (long) ((virtualNanos - baseVirtual) / currentSpeed);
+                long remaining;
+                while (running && !speedChanged && (remaining = target - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(Math.min(remaining, MAX_PARK_NANOS));
+                }
+                if (!running) {
+                    break;
+                }
+            }
+            previousVirtual = virtualNanos;
+            emit(currentChannels(), virtualNanos);
+        }
+        running = false;
+    }
+
+    private void emit(int[] channels, long captureNanos) {
+        synchronized (lastFrameLock) {
+            if (lastFrame.length != channels.length) {
+                lastFrame = new int[channels.length];
+            }
+            System.arraycopy(channels, 0, lastFrame, 0, channels.length);
+            lastFrameNanos = captureNanos;
+            framesEmitted++;
+        }
+        FrameListener target = listener;
+        if (target != null) {
+            target.onChannelFrame(channels, captureNanos);
+        }
+    }
+
+    /**
+     * 返回最近一次输出的帧，尚未输出时返回空数组；回调在调用线程上执行
+     */
+    @Override
+    public void requestFrame(FrameListener callback) {
+        int[] channels;
+        long captureNanos;
+        synchronized (lastFrameLock) {
+            channels = lastFrame.clone();
+            captureNanos = lastFrameNanos;
+        }
+        callback.onChannelFrame(channels, captureNanos);
+    }
+
+    public long getFramesEmitted() {
+        synchronized (lastFrameLock) {
+            return framesEmitted;
+        }
+    }
+
+    /**
+     * 统计信息：倍速、是否在输出、已输出的帧数
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("speed", getSpeed());
+        stats.put("running", isRunning());
+        stats.put("framesEmitted", getFramesEmitted());
+        return stats;
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.h12controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 根据通道活动自动调整采样频率
+ * 任一通道相对上一帧的变化超过阈值时立即升到活动频率；持续安静 quietMs 后，
+ * 每隔 decayStepMs 把频率减半，直到空闲频率。遥控器放在桌上时采样唤醒降到每秒几次，
+ * 一旦拨动摇杆，最多一个空闲周期后恢复全速
+ *
+ * update 只在采样线程调用；配置可以在任意线程修改，下一次 update 生效
+ */
+public class RCAdaptiveRate {
+    public static final int STATE_ACTIVE = 0;
+    public static final int STATE_DECAYING = 1;
+    public static final int STATE_IDLE = 2;
+
+    public static final int DEFAULT_IDLE_RATE_HZ = 10;
+    public static final int DEFAULT_ACTIVE_RATE_HZ = 100;
+    public static final int DEFAULT_THRESHOLD = 10;
+    public static final int DEFAULT_QUIET_MS = 1000;
+    public static final int DEFAULT_DECAY_STEP_MS = 250;
+
+    private static final String[] STATE_NAMES = {"active", "decaying", "idle"};
+
+    private volatile int idleRateHz = DEFAULT_IDLE_RATE_HZ;
+    private volatile int activeRateHz = DEFAULT_ACTIVE_RATE_HZ;
+    private volatile int threshold = DEFAULT_THRESHOLD;
+    private volatile long quietNanos = DEFAULT_QUIET_MS * 1_000_000L;
+    private volatile long decayStepNanos = DEFAULT_DECAY_STEP_MS * 1_000_000L;
+
+    // 仅采样线程写
+    private final int[] lastChannels = new int[RCFrameCodec.MAX_CHANNELS];
+    private int lastCount = 0;
+    private long lastActivityNanos;
+    private long lastStepNanos;
+    private long lastUpdateNanos;
+    private final long[] stateNanos = new long[STATE_NAMES.length];
+
+    private volatile int rateHz = DEFAULT_ACTIVE_RATE_HZ;
+    private volatile int state = STATE_ACTIVE;
+    private volatile long samples = 0;
+    private volatile long rampUps = 0;
+    private volatile long decaySteps = 0;
+
+    /**
+     * @param idleRateHz 空闲频率
+     * @param activeRateHz 活动频率
+     */
+    public void setRates(int idleRateHz, int activeRateHz) {
+        if (idleRateHz <= 0 || activeRateHz < idleRateHz) {
+            throw new IllegalArgumentException("invalid rates: " + idleRateHz + "~" + activeRateHz);
+        }
+        this.idleRateHz = idleRateHz;
+        this.activeRateHz = activeRateHz;
+    }
+
+    public void setActiveRateHz(int activeRateHz) {
+        setRates(Math.min(idleRateHz, activeRateHz), activeRateHz);
+    }
+
+    /**
+     * @param threshold 通道值变化超过该值（不含）视为活动
+     */
+    public void setThreshold(int threshold) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("invalid threshold: " + threshold);
+        }
+        this.threshold = threshold;
+    }
+
+    /**
+     * @param quietMs 持续多久没有活动后开始降频
+     * @param decayStepMs 降频过程中每次减半的间隔
+     */
+    public void setDecay(int quietMs, int decayStepMs) {
+        if (quietMs < 0 || decayStepMs <= 0) {
+            throw new IllegalArgumentException("invalid decay: " + quietMs + "/" + decayStepMs);
+        }
+        this.quietNanos = quietMs * 1_000_000L;
+        this.decayStepNanos = decayStepMs * 1_000_000L;
+    }
+
+    /**
+     * 回到活动频率，下一帧作为比较基准
+     */
+    public void reset(long nowNanos) {
+        lastCount = 0;
+        lastActivityNanos = nowNanos;
+        lastStepNanos = nowNanos;
+        lastUpdateNanos = nowNanos;
+        rateHz = activeRateHz;
+        state = STATE_ACTIVE;
+    }
+
+    /**
+     * 采样线程：根据新一帧更新频率
+     * @param channels 通道值
+     * @param nowNanos 单调时钟时间
+     * @return 接下来应使用的采样频率
+     */
+    public int update(int[] channels, long nowNanos) {
+        int count = Math.min(channels.length, RCFrameCodec.MAX_CHANNELS);
+        int maxDelta = count != lastCount ? Integer.MAX_VALUE : 0;
+        for (int i = 0; i < count; i++) {
+            int delta = channels[i] - lastChannels[i];
+            if (delta < 0) {
+                delta = -delta;
+            }
+            if (delta > maxDelta) {
+                maxDelta = delta;
+            }
+            lastChannels[i] = channels[i];
+        }
+        lastCount = count;
+        if (lastUpdateNanos != 0) {
+            stateNanos[state] += nowNanos - lastUpdateNanos;
+        }
+        lastUpdateNanos = nowNanos;
+        samples++;
+
+        int active = activeRateHz;
+        int idle = idleRateHz;
+        int rate = rateHz;
+        if (maxDelta > threshold) {
+            lastActivityNanos = nowNanos;
+            if (rate != active) {
+                rampUps++;
+            }
+            rate = active;
+        } else if (nowNanos - lastActivityNanos >= quietNanos) {
+            if (rate > idle && nowNanos - lastStepNanos >= decayStepNanos) {
+                rate = Math.max(idle, rate / 2);
+                lastStepNanos = nowNanos;
+                decaySteps++;
+            }
+        } else {
+            lastStepNanos = nowNanos;
+        }
+        // 配置变化后保证落在范围内
+        rate = Math.max(idle, Math.min(active, rate));
+        rateHz = rate;
+        state = rate == active ? STATE_ACTIVE : rate == idle ? STATE_IDLE : STATE_DECAYING;
+        return rate;
+    }
+
+    public int getRateHz() {
+        return rateHz;
+    }
+
+    public int getIdleRateHz() {
+        return idleRateHz;
+    }
+
+    public int getActiveRateHz() {
+        return activeRateHz;
+    }
+
+    public int getQuietMs() {
+        return (int) (quietNanos / 1_000_000L);
+    }
+
+    public int getDecayStepMs() {
+        return (int) (decayStepNanos / 1_000_000L);
+    }
+
+    public int getState() {
+        return state;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("state", STATE_NAMES[state]);
+        stats.put("rateHz", rateHz);
+        stats.put("idleRateHz", idleRateHz);
+        stats.put("activeRateHz", activeRateHz);
+        stats.put("threshold", threshold);
+        stats.put("quietMs", getQuietMs());
+        stats.put("decayStepMs", getDecayStepMs());
+        stats.put("samples", samples);
+        stats.put("rampUps", rampUps);
+        stats.put("decaySteps", decaySteps);
+        stats.put("activeMs", stateNanos[STATE_ACTIVE] / 1_000_000L);
+        stats.put("decayingMs", stateNanos[STATE_DECAYING] / 1_000_000L);
+        stats.put("idleMs", stateNanos[STATE_IDLE] / 1_000_000L);
+        return stats;
+    }
+}
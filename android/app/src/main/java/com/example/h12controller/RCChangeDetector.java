@@ -0,0 +1,87 @@
+package com.example.h12controller;
+
+/**
+ * 通道变化检测器
+ * 每个通道有独立的死区阈值，只有与上次发送值的差超过阈值的通道才会被标记为变化；
+ * 每隔固定时间输出一次全量关键帧，保证接收端在任何情况下都能重新同步
+ *
+ * 检测过程不分配内存，配置通过整体替换数组的方式更新，可以在其他线程调用
+ */
+public class RCChangeDetector {
+    public static final int DEFAULT_STICK_DEADBAND = 3;
+    public static final int DEFAULT_KEYFRAME_INTERVAL_MS = 1000;
+
+    // 摇杆通道（0~3）默认有死区，其余拨杆/按钮/滚轮通道任何变化都发送
+    private static final int STICK_CHANNEL_COUNT = 4;
+
+    private volatile int[] deadbands = new int[RCFrameCodec.MAX_CHANNELS];
+    private volatile long keyframeIntervalNanos = DEFAULT_KEYFRAME_INTERVAL_MS * 1_000_000L;
+
+    private final int[] lastSent = new int[RCFrameCodec.MAX_CHANNELS];
+    private int lastChannelCount = -1;
+    private long lastKeyframeNanos;
+    private volatile boolean keyframeRequested = true;
+
+    public RCChangeDetector() {
+        int[] defaults = new int[RCFrameCodec.MAX_CHANNELS];
+        for (int i = 0; i < STICK_CHANNEL_COUNT; i++) {
+            defaults[i] = DEFAULT_STICK_DEADBAND;
+        }
+        deadbands = defaults;
+    }
+
+    /**
+     * 设置各通道死区阈值，数组长度不足的通道阈值为 0
+     * @param values 每个通道的阈值，变化量大于该值才发送
+     */
+    public void setDeadbands(int[] values) {
+        int[] next = new int[RCFrameCodec.MAX_CHANNELS];
+        System.arraycopy(values, 0, next, 0, Math.min(values.length, next.length));
+        deadbands = next;
+    }
+
+    /**
+     * 设置关键帧间隔，小于等于 0 表示只在首帧和通道数变化时发送关键帧
+     */
+    public void setKeyframeIntervalMs(int intervalMs) {
+        keyframeIntervalNanos = intervalMs > 0 ? intervalMs * 1_000_000L : Long.MAX_VALUE;
+    }
+
+    /**
+     * 要求下一帧输出全量关键帧，例如接收端刚订阅时
+     */
+    public void requestKeyframe() {
+        keyframeRequested = true;
+    }
+
+    /**
+     * 检测一帧中需要发送的通道
+     * @param channels 通道值
+     * @param nowNanos 单调时钟时间
+     * @return 需要发送的通道掩码，为 0 表示该帧无需发送
+     */
+    public int detect(int[] channels, long nowNanos) {
+        int count = Math.min(channels.length, RCFrameCodec.MAX_CHANNELS);
+        int[] thresholds = deadbands;
+
+        if (keyframeRequested || count != lastChannelCount
+                || nowNanos - lastKeyframeNanos >= keyframeIntervalNanos) {
+            keyframeRequested = false;
+            lastChannelCount = count;
+            lastKeyframeNanos = nowNanos;
+            System.arraycopy(channels, 0, lastSent, 0, count);
+            return RCFrameCodec.fullMask(count);
+        }
+
+        int mask = 0;
+        for (int i = 0; i < count; i++) {
+            int value = channels[i];
+            int delta = value - lastSent[i];
+            if (delta > thresholds[i] || -delta > thresholds[i]) {
+                lastSent[i] = value;
+                mask |= 1 << i;
+            }
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,280 @@
+package com.example.h12controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 通道值估计器：保存最近 HISTORY 帧及其采集时间，按任意时刻给出通道值
+ *   请求时刻在已有帧之间        线性插值
+ *   请求时刻晚于最新一帧        按最近两帧的斜率线性外推，外推距离不超过 maxExtrapolationNanos
+ *   请求时刻早于保存的最早一帧  返回最早一帧
+ * 控制循环可以按自己的时钟和频率读取，不受采样回调和主线程排队造成的帧间隔抖动影响
+ *
+ * 同时统计帧间隔（均值、分位数和 RFC 3550 抖动）和一步预测误差：每收到一帧，先用之前的帧外推到这一帧的时刻，
+ * 与实际值比较，取 errorMask 中各通道误差的最大值；回放飞行记录时即可得到该记录上的估计误差
+ *
+ * 只有一个写线程（输入线程）；读取用顺序锁，遇到正在写入时重试，同一时刻只有一个读线程
+ * 时间戳使用调用方给定的同一时钟（RCControllerManager 中为 System.nanoTime）
+ */
+public class RCChannelEstimator {
+    public static final int HISTORY = 16;
+    public static final long DEFAULT_MAX_EXTRAPOLATION_NANOS = 50_000_000L;
+    public static final int DEFAULT_ERROR_MASK = 0x000F;  // 通道 0~3：摇杆
+
+    // 外推结果限制在遥控器通道的取值范围内
+    public static final int MIN_VALUE = 1000;
+    public static final int MAX_VALUE = 2000;
+
+    public static final int RESULT_NONE = 0;
+    public static final int RESULT_INTERPOLATED = 1;
+    public static final int RESULT_EXTRAPOLATED = 2;
+    public static final int RESULT_HELD = 3;  // 早于最早一帧，或只有一帧时晚于它
+
+    private static final int MASK = HISTORY - 1;
+    private static final int MAX_READ_RETRIES = 16;
+
+    // 历史帧，下标为帧序号 & MASK
+    private final long[] times = new long[HISTORY];
+    private final int[] counts = new int[HISTORY];
+    private final int[] values = new int[HISTORY * RCFrameCodec.MAX_CHANNELS];
+
+    private volatile long sequence = 0;  // 奇数表示正在写
+    private long written = 0;  // 已保存的帧数，写线程在顺序锁内修改，读线程在顺序锁内读取
+    private volatile int fence;
+    private int fenceSink;
+
+    private volatile long maxExtrapolationNanos = DEFAULT_MAX_EXTRAPOLATION_NANOS;
+    private volatile int errorMask = DEFAULT_ERROR_MASK;
+
+    // 写线程
+    private final int[] predicted = new int[RCFrameCodec.MAX_CHANNELS];
+    private final RCLatencyHistogram intervals = new RCLatencyHistogram();
+    private final RCLatencyHistogram predictionErrors = new RCLatencyHistogram();
+    private volatile long resets = 0;
+
+    // 读线程
+    private final int[] rowA = new int[RCFrameCodec.MAX_CHANNELS];
+    private final int[] rowB = new int[RCFrameCodec.MAX_CHANNELS];
+    private int lastResult = RESULT_NONE;
+    private volatile long interpolated = 0;
+    private volatile long extrapolated = 0;
+    private volatile long horizonClamped = 0;
+    private volatile long held = 0;
+    private volatile long readRetries = 0;
+
+    /**
+     * @param maxExtrapolationNanos 最大外推距离，超过时按该距离外推
+     */
+    public void setMaxExtrapolationNanos(long maxExtrapolationNanos) {
+        if (maxExtrapolationNanos < 0) {
+            throw new IllegalArgumentException("invalid max extrapolation: " + maxExtrapolationNanos);
+        }
+        this.maxExtrapolationNanos = maxExtrapolationNanos;
+    }
+
+    /**
+     * @param mask 统计一步预测误差的通道
+     */
+    public void setErrorMask(int mask) {
+        this.errorMask = mask;
+    }
+
+    /**
+     * 写线程：保存一帧；时间戳回退（切换数据源）时清空历史
+     */
+    public void record(int[] channels, int count, long timestampNanos) {
+        count = Math.min(count, RCFrameCodec.MAX_CHANNELS);
+        long n = written;
+        if (n > 0) {
+            long lastTime = times[(int) ((n - 1) & MASK)];
+            if (timestampNanos <= lastTime) {
+                n = 0;
+                resets++;
+            } else {
+                intervals.record(timestampNanos - lastTime);
+                if (n >= 2) {
+                    recordPredictionError(channels, count, timestampNanos, n);
+                }
+            }
+        }
+
+        long next = sequence + 1;
+        sequence = next;
+        fullFence();
+        int slot = (int) (n & MASK);
+        times[slot] = timestampNanos;
+        counts[slot] = count;
+        System.arraycopy(channels, 0, values, slot * RCFrameCodec.MAX_CHANNELS, count);
+        written = n + 1;
+        fullFence();
+        sequence = next + 1;
+    }
+
+    /**
+     * 用最近两帧外推到新一帧的时刻，记录 errorMask 通道中的最大绝对误差
+     */
+    private void recordPredictionError(int[] channels, int count, long timestampNanos, long n) {
+        int b = (int) ((n - 1) & MASK);
+        int a = (int) ((n - 2) & MASK);
+        int usable = Math.min(count, Math.min(counts[a], counts[b]));
+        long horizon = Math.min(timestampNanos - times[b], maxExtrapolationNanos);
+        extrapolate(values, a * RCFrameCodec.MAX_CHANNELS, b * RCFrameCodec.MAX_CHANNELS, times[a], times[b],
+                horizon, usable, predicted);
+        long maxError = 0;
+        int remaining = errorMask & RCFrameCodec.fullMask(usable);
+        while (remaining != 0) {
+            int channel = Integer.numberOfTrailingZeros(remaining);
+            remaining &= remaining - 1;
+            maxError = Math.max(maxError, Math.abs((long) predicted[channel] - channels[channel]));
+        }
+        predictionErrors.record(maxError);
+    }
+
+    /**
+     * 读线程：估计 atNanos 时刻的通道值
+     * @param out 输出，长度至少为通道数
+     * @return 通道数，没有数据或连续重试仍读不到完整数据时返回 0；估计方式见 getLastResult
+     */
+    public int estimate(long atNanos, int[] out) {
+        for (int attempt = 0; attempt < MAX_READ_RETRIES; attempt++) {
+            long before = sequence;
+            if ((before & 1) != 0) {
+                continue;
+            }
+            fullFence();
+            long n = written;
+            if (n == 0) {
+                lastResult = RESULT_NONE;
+                return 0;
+            }
+            long oldest = Math.max(0, n - HISTORY + 1);  // 最早一帧的槽位可能正在被覆盖，不使用
+            int newestSlot = (int) ((n - 1) & MASK);
+            long newestTime = times[newestSlot];
+            int result;
+            int slotA;
+            int slotB;
+            if (atNanos >= newestTime) {
+                slotB = newestSlot;
+                slotA = n >= 2 ? (int) ((n - 2) & MASK) : newestSlot;
+                result = n >= 2 ? RESULT_EXTRAPOLATED : RESULT_HELD;
+            } else {
+                long index = n - 2;
+                while (index >= oldest && times[(int) (index & MASK)] > atNanos) {
+                    index--;
+                }
+                if (index < oldest) {
+                    slotA = slotB = (int) (oldest & MASK);
+                    result = RESULT_HELD;
+                } else {
+                    slotA = (int) (index & MASK);
+                    slotB = (int) ((index + 1) & MASK);
+                    result = RESULT_INTERPOLATED;
+                }
+            }
+            long timeA = times[slotA];
+            long timeB = times[slotB];
+            int count = Math.min(counts[slotA], counts[slotB]);
+            count = Math.min(count, out.length);
+            System.arraycopy(values, slotA * RCFrameCodec.MAX_CHANNELS, rowA, 0, count);
+            System.arraycopy(values, slotB * RCFrameCodec.MAX_CHANNELS, rowB, 0, count);
+            fullFence();
+            if (sequence != before) {
+                readRetries++;
+                continue;
+            }
+
+            if (result == RESULT_HELD) {
+                System.arraycopy(rowB, 0, out, 0, count);
+                held++;
+            } else if (result == RESULT_INTERPOLATED) {
+                interpolate(timeA, timeB, atNanos, count, out);
+                interpolated++;
+            } else {
+                long horizon = atNanos - timeB;
+                long limit = maxExtrapolationNanos;
+                if (horizon > limit) {
+                    horizon = limit;
+                    horizonClamped++;
+                }
+                extrapolate(rowA, 0, rowB, 0, timeA, timeB, horizon, count, out);
+                extrapolated++;
+            }
+            lastResult = result;
+            return count;
+        }
+        lastResult = RESULT_NONE;
+        return 0;
+    }
+
+    /**
+     * 最近一次 estimate 的估计方式，RESULT_*
+     */
+    public int getLastResult() {
+        return lastResult;
+    }
+
+    private void interpolate(long timeA, long timeB, long atNanos, int count, int[] out) {
+        long span = timeB - timeA;
+        long offset = atNanos - timeA;
+        for (int i = 0; i < count; i++) {
+            out[i] = rowA[i] + (int) ((rowB[i] - rowA[i]) * offset / span);
+        }
+    }
+
+    private static void extrapolate(int[] source, int offsetA, int offsetB, long timeA, long timeB,
+                                    long horizon, int count, int[] out) {
+        extrapolate(source, offsetA, source, offsetB, timeA, timeB, horizon, count, out);
+    }
+
+    private static void extrapolate(int[] rowA, int offsetA, int[] rowB, int offsetB, long timeA, long timeB,
+                                    long horizon, int count, int[] out) {
+        long span = timeB - timeA;
+        for (int i = 0; i < count; i++) {
+            int b = rowB[offsetB + i];
+            if (span <= 0) {
+                out[i] = b;
+                continue;
+            }
+            long value = b + (b - rowA[offsetA + i]) * horizon / span;
+            if (b >= MIN_VALUE && b <= MAX_VALUE) {
+                value = Math.max(MIN_VALUE, Math.min(MAX_VALUE, value));
+            }
+            out[i] = (int) value;
+        }
+    }
+
+    /**
+     * 帧间隔、一步预测误差和读取方式的统计
+     * intervals 为纳秒；predictionError 为通道值单位，jitter 为相邻误差之差的平滑值
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxExtrapolationMs", maxExtrapolationNanos / 1_000_000.0);
+        stats.put("errorMask", errorMask);
+        stats.put("intervals", intervals.toMap());
+        stats.put("predictionError", predictionErrors.toMap());
+        stats.put("resets", resets);
+        stats.put("interpolated", interpolated);
+        stats.put("extrapolated", extrapolated);
+        stats.put("horizonClamped", horizonClamped);
+        stats.put("held", held);
+        stats.put("readRetries", readRetries);
+        return stats;
+    }
+
+    /**
+     * 清空统计，历史帧保留
+     */
+    public void resetStats() {
+        intervals.reset();
+        predictionErrors.reset();
+    }
+
+    /**
+     * volatile 写之后的 volatile 读不能被重排到写之前，前后的普通读写也不能越过这一对操作
+     */
+    private void fullFence() {
+        fence = 0;
+        fenceSink = fence;
+    }
+}
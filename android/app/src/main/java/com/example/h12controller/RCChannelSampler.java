@@ -0,0 +1,434 @@
+package com.example.h12controller;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.skydroid.rcsdk.KeyManager;
+import com.skydroid.rcsdk.common.callback.CompletionCallbackWith;
+import com.skydroid.rcsdk.common.error.SkyException;
+import com.skydroid.rcsdk.key.RemoteControllerKey;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+/**
+ * 遥控器通道采样器，基于遥控器 SDK 的 ChannelSource 实现
+ * 在独立线程上按固定频率（50~200Hz）读取遥控器通道值，并把每一帧回调给监听器，
+ * 代替 Flutter 端每 300ms 一次的 MethodChannel 轮询
+ *
+ * SDK 回调不在主线程执行（setMainThreadCallBack(false)），回调中只拷贝通道值，
+ * 随后切换到采样线程回调监听器，解码等工作都在采样线程完成，不与 UI 渲染争抢主线程
+ *
+ * 连续采样和单次读取共用一个 RCSingleFlight：同一时刻最多一个未完成的 SDK 读取，
+ * 超时后迟到的响应按序号丢弃，不会把旧的摇杆位置当作最新值送出
+ *
+ * 设置 RCAdaptiveRate 后频率随通道活动在空闲频率和活动频率之间自动调整，
+ * 此时 setRateHz 设置的是活动频率
+ */
+public class RCChannelSampler implements ChannelSource {
+    private static final String TAG = "RCChannelSampler";
+
+    public static final int MIN_RATE_HZ = 50;
+    public static final int MAX_RATE_HZ = 200;
+    public static final int DEFAULT_RATE_HZ = 100;
+    // 自适应降频时允许的最低频率
+    public static final int MIN_IDLE_RATE_HZ = 5;
+
+    // 单次读取超过该时间仍未回调则认为丢失，允许发起下一次读取
+    private static final long REQUEST_TIMEOUT_MS = 100;
+    // 预分配的读取回调个数；回调丢失导致池空时临时创建
+    private static final int CALLBACK_POOL_SIZE = 4;
+
+    private static final int[] EMPTY_CHANNELS = new int[0];
+
+    private volatile FrameListener listener;
+    private HandlerThread samplerThread;
+    private volatile Handler samplerHandler;
+
+    private volatile int requestedRateHz;
+    private volatile long periodMicros;  // 当前实际使用的采样周期
+    private volatile RCAdaptiveRate adaptiveRate;
+    private long nextTickMicros;
+
+    // SDK 读取：单飞、序号、超时
+    private final RCSingleFlight reads = new RCSingleFlight(REQUEST_TIMEOUT_MS);
+    private final ReadCallback[] callbackPool = new ReadCallback[CALLBACK_POOL_SIZE];
+    private int pooledCallbacks = 0;
+
+    // 等待下一次读取结果的单次请求
+    private final ArrayList<FrameListener> waiters = new ArrayList<>();
+    private final Handler timeoutHandler = new Handler(Looper.getMainLooper());
+    private final Runnable waiterTimeoutRunnable = new Runnable() {
+        @Override
+        public void run() {
+            expireWaiters();
+        }
+    };
+
+    // SDK 回调线程写入、采样线程读取的通道缓冲，拷贝过程很短，用对象锁保护
+    private final Object pendingLock = new Object();
+    private int[] pendingFrame = new int[0];
+    private long pendingCaptureNanos;
+    private boolean framePending = false;
+    // 仅采样线程使用
+    private int[] deliverFrame = new int[0];
+
+    private final Runnable tickRunnable = new Runnable() {
+        @Override
+        public void run() {
+            tick();
+        }
+    };
+
+    private final Runnable deliverRunnable = new Runnable() {
+        @Override
+        public void run() {
+            deliver();
+        }
+    };
+
+    /**
+     * 一次 SDK 读取的回调，携带请求序号；对象在回调后回到池中复用
+     */
+    private final class ReadCallback implements CompletionCallbackWith<int[]> {
+        long sequence;
+
+        @Override
+        public void onSuccess(int[] value) {
+            long requestSequence = sequence;
+            releaseCallback(this);
+            long captureNanos = SystemClock.elapsedRealtimeNanos();
+            if (value == null) {
+                if (reads.fail(requestSequence)) {
+                    deliverToWaiters(EMPTY_CHANNELS, captureNanos);
+                }
+                return;
+            }
+            if (!reads.complete(requestSequence, captureNanos)) {
+                // 超时或被替代的请求的迟到响应
+                return;
+            }
+            deliverToWaiters(value, captureNanos);
+            Handler handler = samplerHandler;
+            if (handler == null) {
+                return;
+            }
+            synchronized (pendingLock) {
+                if (pendingFrame.length != value.length) {
+                    pendingFrame = new int[value.length];
+                }
+                System.arraycopy(value, 0, pendingFrame, 0, value.length);
+                pendingCaptureNanos = captureNanos;
+                framePending = true;
+            }
+            handler.post(deliverRunnable);
+        }
+
+        @Override
+        public void onFailure(SkyException e) {
+            long requestSequence = sequence;
+            releaseCallback(this);
+            if (reads.fail(requestSequence)) {
+                deliverToWaiters(EMPTY_CHANNELS, SystemClock.elapsedRealtimeNanos());
+            }
+            // 采样频率下每次失败都输出 logcat 代价太大，只记录事件
+            RCEventLog.log(RCEventLog.READ_FAILED, (int) requestSequence);
+        }
+    }
+
+    public RCChannelSampler() {
+        setRateHz(DEFAULT_RATE_HZ);
+        for (int i = 0; i < CALLBACK_POOL_SIZE; i++) {
+            callbackPool[pooledCallbacks++] = new ReadCallback();
+        }
+    }
+
+    @Override
+    public void setFrameListener(FrameListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 设置采样频率，超出范围会被限制在 [MIN_RATE_HZ, MAX_RATE_HZ]
+     * @param rateHz 采样频率
+     */
+    @Override
+    public void setRateHz(int rateHz) {
+        int clamped = Math.max(MIN_RATE_HZ, Math.min(MAX_RATE_HZ, rateHz));
+        requestedRateHz = clamped;
+        RCAdaptiveRate policy = adaptiveRate;
+        if (policy != null) {
+            policy.setActiveRateHz(clamped);
+        } else {
+            periodMicros = 1_000_000L / clamped;
+        }
+    }
+
+    /**
+     * 开关自适应采样频率
+     * @param policy 频率策略，为 null 时恢复为 setRateHz 设置的固定频率
+     */
+    public void setAdaptiveRate(RCAdaptiveRate policy) {
+        adaptiveRate = policy;
+        if (policy != null) {
+            policy.reset(SystemClock.elapsedRealtimeNanos());
+            periodMicros = 1_000_000L / clampAdaptive(policy.getRateHz());
+        } else {
+            periodMicros = 1_000_000L / requestedRateHz;
+        }
+    }
+
+    public RCAdaptiveRate getAdaptiveRate() {
+        return adaptiveRate;
+    }
+
+    private static int clampAdaptive(int rateHz) {
+        return Math.max(MIN_IDLE_RATE_HZ, Math.min(MAX_RATE_HZ, rateHz));
+    }
+
+    /**
+     * 当前实际的采样频率
+     */
+    @Override
+    public int getRateHz() {
+        return (int) (1_000_000L / periodMicros);
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return samplerThread != null;
+    }
+
+    @Override
+    public boolean isLiveClock() {
+        return true;
+    }
+
+    /**
+     * 启动采样线程，重复调用无副作用
+     */
+    @Override
+    public synchronized void start() {
+        if (samplerThread != null) {
+            return;
+        }
+        samplerThread = new HandlerThread("rc-channel-sampler", Process.THREAD_PRIORITY_URGENT_DISPLAY);
+        samplerThread.start();
+        samplerHandler = new Handler(samplerThread.getLooper());
+        RCAdaptiveRate policy = adaptiveRate;
+        if (policy != null) {
+            // 每次启动都从活动频率开始
+            policy.reset(SystemClock.elapsedRealtimeNanos());
+            periodMicros = 1_000_000L / clampAdaptive(policy.getRateHz());
+        }
+        nextTickMicros = SystemClock.uptimeMillis() * 1000L;
+        samplerHandler.post(tickRunnable);
+        RCEventLog.log(RCEventLog.SAMPLER_STARTED, getRateHz());
+    }
+
+    /**
+     * 停止采样线程，等待正在进行的回调结束
+     * 未完成的读取不再等待（有单次请求在等待时除外），之后迟到的响应作为过期响应丢弃，
+     * 重新启动后第一次采样立即发起读取，不必等到超时
+     */
+    @Override
+    public synchronized void stop() {
+        if (samplerThread == null) {
+            return;
+        }
+        HandlerThread thread = samplerThread;
+        samplerHandler.removeCallbacks(tickRunnable);
+        samplerHandler.removeCallbacks(deliverRunnable);
+        thread.quitSafely();
+        samplerThread = null;
+        samplerHandler = null;
+        // 不限时等待：返回后不会再回调监听器，切换数据源时输入路径上不会同时有两个线程；
+        // 采样线程不等待主线程，也不获取调用方持有的锁，不会死锁
+        if (Thread.currentThread() != thread) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (waiters) {
+            if (waiters.isEmpty()) {
+                reads.cancel();
+            }
+        }
+        RCEventLog.log(RCEventLog.SAMPLER_STOPPED);
+    }
+
+    /**
+     * 单次读取，回调在 SDK 回调线程上执行，超时时在主线程以空数组回调
+     * 已有读取未完成时不再发起新的读取，而是等待它的结果
+     */
+    @Override
+    public void requestFrame(FrameListener callback) {
+        synchronized (waiters) {
+            waiters.add(callback);
+        }
+        long sequence = reads.tryBegin(SystemClock.elapsedRealtimeNanos());
+        if (sequence != RCSingleFlight.NO_REQUEST) {
+            issueRead(sequence);
+        }
+        timeoutHandler.removeCallbacks(waiterTimeoutRunnable);
+        timeoutHandler.postDelayed(waiterTimeoutRunnable, REQUEST_TIMEOUT_MS);
+    }
+
+    /**
+     * SDK 读取统计：是否有未完成的读取、超时数、丢弃的过期响应数、读取耗时等
+     */
+    public Map<String, Object> getReadStats() {
+        return reads.getStats();
+    }
+
+    private void issueRead(long sequence) {
+        ReadCallback callback = acquireCallback();
+        callback.sequence = sequence;
+        try {
+            KeyManager.INSTANCE.get(RemoteControllerKey.INSTANCE.getKeyChannels(), callback);
+        } catch (Exception e) {
+            releaseCallback(callback);
+            if (reads.fail(sequence)) {
+                deliverToWaiters(EMPTY_CHANNELS, SystemClock.elapsedRealtimeNanos());
+            }
+            Log.e(TAG, "Error in issueRead: " + e.getMessage(), e);
+        }
+    }
+
+    private ReadCallback acquireCallback() {
+        synchronized (callbackPool) {
+            if (pooledCallbacks > 0) {
+                ReadCallback callback = callbackPool[--pooledCallbacks];
+                callbackPool[pooledCallbacks] = null;
+                return callback;
+            }
+        }
+        return new ReadCallback();
+    }
+
+    private void releaseCallback(ReadCallback callback) {
+        synchronized (callbackPool) {
+            if (pooledCallbacks < callbackPool.length) {
+                callbackPool[pooledCallbacks++] = callback;
+            }
+        }
+    }
+
+    /**
+     * 把读取结果交给所有等待中的单次请求
+     */
+    private void deliverToWaiters(int[] channels, long captureNanos) {
+        FrameListener[] targets;
+        synchronized (waiters) {
+            if (waiters.isEmpty()) {
+                return;
+            }
+            targets = waiters.toArray(new FrameListener[0]);
+            waiters.clear();
+        }
+        for (FrameListener target : targets) {
+            try {
+                target.onChannelFrame(channels, captureNanos);
+            } catch (Exception e) {
+                Log.e(TAG, "Error in requestFrame callback: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 主线程：等待中的单次请求超时
+     */
+    private void expireWaiters() {
+        if (reads.expire(SystemClock.elapsedRealtimeNanos())) {
+            RCEventLog.log(RCEventLog.READ_TIMED_OUT);
+            deliverToWaiters(EMPTY_CHANNELS, SystemClock.elapsedRealtimeNanos());
+            return;
+        }
+        if (!reads.isInFlight()) {
+            deliverToWaiters(EMPTY_CHANNELS, SystemClock.elapsedRealtimeNanos());
+            return;
+        }
+        // 当前读取是之后新发起的，继续等待它
+        synchronized (waiters) {
+            if (waiters.isEmpty()) {
+                return;
+            }
+        }
+        timeoutHandler.postDelayed(waiterTimeoutRunnable, REQUEST_TIMEOUT_MS);
+    }
+
+    private void deliver() {
+        long captureNanos;
+        synchronized (pendingLock) {
+            if (!framePending) {
+                return;
+            }
+            if (deliverFrame.length != pendingFrame.length) {
+                deliverFrame = new int[pendingFrame.length];
+            }
+            System.arraycopy(pendingFrame, 0, deliverFrame, 0, pendingFrame.length);
+            captureNanos = pendingCaptureNanos;
+            framePending = false;
+        }
+        RCAdaptiveRate policy = adaptiveRate;
+        if (policy != null) {
+            adaptRate(policy.update(deliverFrame, captureNanos));
+        }
+        FrameListener target = listener;
+        if (target == null) {
+            return;
+        }
+        try {
+            target.onChannelFrame(deliverFrame, captureNanos);
+        } catch (Exception e) {
+            Log.e(TAG, "Error in onChannelFrame: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 采样线程：应用新的频率；升频时立即重新安排下一次采样，不等空闲周期结束
+     */
+    private void adaptRate(int rateHz) {
+        long period = 1_000_000L / clampAdaptive(rateHz);
+        long previous = periodMicros;
+        periodMicros = period;
+        if (period != previous) {
+            RCEventLog.log(RCEventLog.RATE_CHANGED, (int) (1_000_000L / previous), (int) (1_000_000L / period));
+        }
+        if (period < previous) {
+            Handler handler = samplerHandler;
+            if (handler != null) {
+                handler.removeCallbacks(tickRunnable);
+                nextTickMicros = SystemClock.uptimeMillis() * 1000L + period;
+                handler.postAtTime(tickRunnable, nextTickMicros / 1000L);
+            }
+        }
+    }
+
+    private void tick() {
+        long nowMillis = SystemClock.uptimeMillis();
+        long sequence = reads.tryBegin(SystemClock.elapsedRealtimeNanos());
+        if (sequence != RCSingleFlight.NO_REQUEST) {
+            issueRead(sequence);
+        }
+
+        // 以微秒累加下一次的时间点，避免毫秒取整带来的频率漂移
+        long period = periodMicros;
+        nextTickMicros += period;
+        long nowMicros = nowMillis * 1000L;
+        if (nextTickMicros < nowMicros - period) {
+            // 落后超过一个周期时直接对齐，不做补偿性的连续采样
+            nextTickMicros = nowMicros + period;
+        }
+        Handler handler = samplerHandler;
+        if (handler != null) {
+            handler.postAtTime(tickRunnable, nextTickMicros / 1000L);
+        }
+    }
+}
@@ -0,0 +1,723 @@
+package com.example.h12controller;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 组合键 / 序列识别器
+ * 组合由若干步组成，每一步是一组必须同时满足的通道档位（和弦），可以要求保持一段时间（定时和弦），
+ * 并且要在上一步完成后的 withinMs 内出现；最后一步完成即识别出该组合，输出一个 int 事件（组合 id）
+ * 例如“按住左 C 再把右摇杆推到顶”为两步：{ch8 高} → {ch8 高, ch2 低}
+ *
+ * 所有组合在加载时编译为一棵共享前缀的状态树，节点之间的转移按（父节点, 通道档位）建立散列索引。
+ * 每帧先把用到的通道分为低 / 中 / 高三档（与 RCEdgeDetector 相同的阈值和滞回），
+ * 然后只推进活动状态，并只在档位变化的通道上查找新的转移：
+ * 每帧的开销与活动状态数和变化的通道数有关，与注册的组合数无关
+ *
+ * 某一步的档位组合由不满足变为满足时才进入这一步，保持不动不会重复触发；
+ * 同一个前缀在窗口内可以多次完成后续步骤，例如按住左 C 连续推两次右摇杆会识别两次
+ *
+ * 只在输入线程调用 advance，load 可以在任意线程调用
+ */
+public class RCComboRecognizer {
+    public static final int MAX_COMBOS = 1024;
+    public static final int MAX_STEPS = 8;
+    public static final int MAX_COMBO_ID = 0xFFFF;
+    public static final int MAX_ACTIVE = 64;
+    public static final int MAX_EVENTS = 16;
+    public static final int DEFAULT_WITHIN_MS = 1000;
+
+    private static final int POSITIONS = 3;
+    private static final int TERM_COUNT = RCFrameCodec.MAX_CHANNELS * POSITIONS;
+    private static final long POSITION_BITS = 3L;
+    private static final int ROOT = 0;
+
+    /**
+     * 组合中的一步
+     */
+    public static class Step {
+        private long mask;
+        private long value;
+        private int holdMs = 0;
+        private int withinMs = DEFAULT_WITHIN_MS;
+
+        /**
+         * 要求通道处于某一档
+         * @param position RCEdgeDetector.POSITION_*
+         */
+        public Step require(int channel, int position) {
+            if (channel < 0 || channel >= RCFrameCodec.MAX_CHANNELS) {
+                throw new IllegalArgumentException("invalid channel: " + channel);
+            }
+            if (position < RCEdgeDetector.POSITION_LOW || position > RCEdgeDetector.POSITION_HIGH) {
+                throw new IllegalArgumentException("invalid position: " + position);
+            }
+            int shift = channel << 1;
+            if ((mask >>> shift & POSITION_BITS) != 0 && (value >>> shift & POSITION_BITS) != position) {
+                throw new IllegalArgumentException("conflicting positions on channel " + channel);
+            }
+            mask |= POSITION_BITS << shift;
+            value |= (long) position << shift;
+            return this;
+        }
+
+        /**
+         * 档位组合需要连续保持 holdMs 才算完成这一步，0 表示满足即完成
+         */
+        public Step setHoldMs(int holdMs) {
+            if (holdMs < 0) {
+                throw new IllegalArgumentException("invalid hold: " + holdMs);
+            }
+            this.holdMs = holdMs;
+            return this;
+        }
+
+        /**
+         * 上一步完成后需要在 withinMs 内进入这一步；对第一步无效
+         */
+        public Step setWithinMs(int withinMs) {
+            if (withinMs <= 0) {
+                throw new IllegalArgumentException("invalid within: " + withinMs);
+            }
+            this.withinMs = withinMs;
+            return this;
+        }
+
+        private Step copy() {
+            Step step = new Step();
+            step.mask = mask;
+            step.value = value;
+            step.holdMs = holdMs;
+            step.withinMs = withinMs;
+            return step;
+        }
+    }
+
+    /**
+     * 识别配置
+     */
+    public static class Profile {
+        private final int[] lowThresholds = new int[RCFrameCodec.MAX_CHANNELS];
+        private final int[] highThresholds = new int[RCFrameCodec.MAX_CHANNELS];
+        private int hysteresis = RCEdgeDetector.DEFAULT_HYSTERESIS;
+        private final List<Integer> ids = new ArrayList<>();
+        private final List<Step[]> combos = new ArrayList<>();
+
+        public Profile() {
+            Arrays.fill(lowThresholds, RCEdgeDetector.DEFAULT_LOW_THRESHOLD);
+            Arrays.fill(highThresholds, RCEdgeDetector.DEFAULT_HIGH_THRESHOLD);
+        }
+
+        /**
+         * 设置通道的分档阈值
+         * @param lowThreshold 低于该值为低档
+         * @param highThreshold 高于该值为高档
+         */
+        public Profile setThresholds(int channel, int lowThreshold, int highThreshold) {
+            if (channel < 0 || channel >= RCFrameCodec.MAX_CHANNELS) {
+                throw new IllegalArgumentException("invalid channel: " + channel);
+            }
+            if (lowThreshold > highThreshold) {
+                throw new IllegalArgumentException("invalid thresholds: " + lowThreshold + ".." + highThreshold);
+            }
+            lowThresholds[channel] = lowThreshold;
+            highThresholds[channel] = highThreshold;
+            return this;
+        }
+
+        public Profile setHysteresis(int hysteresis) {
+            this.hysteresis = Math.max(0, hysteresis);
+            return this;
+        }
+
+        /**
+         * 添加一个组合
+         * @param id 识别后输出的事件，0~MAX_COMBO_ID，不能重复
+         */
+        public Profile addCombo(int id, Step... steps) {
+            if (id < 0 || id > MAX_COMBO_ID) {
+                throw new IllegalArgumentException("invalid combo id: " + id);
+            }
+            if (ids.contains(id)) {
+                throw new IllegalArgumentException("duplicate combo id: " + id);
+            }
+            if (ids.size() >= MAX_COMBOS) {
+                throw new IllegalArgumentException("too many combos");
+            }
+            if (steps.length == 0 || steps.length > MAX_STEPS) {
+                throw new IllegalArgumentException("invalid step count: " + steps.length);
+            }
+            for (Step step : steps) {
+                if (step.mask == 0) {
+                    throw new IllegalArgumentException("empty step in combo " + id);
+                }
+            }
+            // 保存副本，添加后再修改 Step 不影响配置
+            Step[] copies = new Step[steps.length];
+            for (int i = 0; i < steps.length; i++) {
+                copies[i] = steps[i].copy();
+            }
+            ids.add(id);
+            combos.add(copies);
+            return this;
+        }
+
+        /**
+         * 默认配置：没有组合
+         */
+        public static Profile defaultProfile() {
+            return new Profile();
+        }
+
+        /**
+         * 从 Flutter 传入的配置解析
+         * 格式：{hysteresis: int, channels: [{channel: int, low: int, high: int}],
+         *        combos: [{id: int, steps: [{require: [{channel: int, position: 'low'|'mid'|'high'}],
+         *                                     holdMs: int, withinMs: int}]}]}
+         */
+        public static Profile fromMap(Map<?, ?> map) {
+            Profile profile = new Profile();
+            Object value = map.get("hysteresis");
+            if (value instanceof Number) {
+                profile.setHysteresis(((Number) value).intValue());
+            }
+            Object channels = map.get("channels");
+            if (channels instanceof List) {
+                for (Object item : (List<?>) channels) {
+                    if (!(item instanceof Map)) {
+                        throw new IllegalArgumentException("invalid channel: " + item);
+                    }
+                    Map<?, ?> channel = (Map<?, ?>) item;
+                    Object low = channel.get("low");
+                    Object high = channel.get("high");
+                    profile.setThresholds(requireInt(channel, "channel"),
+                            low instanceof Number ? ((Number) low).intValue() : RCEdgeDetector.DEFAULT_LOW_THRESHOLD,
+                            high instanceof Number ? ((Number) high).intValue() : RCEdgeDetector.DEFAULT_HIGH_THRESHOLD);
+                }
+            }
+            Object combos = map.get("combos");
+            if (!(combos instanceof List)) {
+                throw new IllegalArgumentException("combos is required");
+            }
+            for (Object item : (List<?>) combos) {
+                if (!(item instanceof Map)) {
+                    throw new IllegalArgumentException("invalid combo: " + item);
+                }
+                Map<?, ?> combo = (Map<?, ?>) item;
+                Object steps = combo.get("steps");
+                if (!(steps instanceof List)) {
+                    throw new IllegalArgumentException("steps is required");
+                }
+                List<?> stepList = (List<?>) steps;
+                Step[] parsed = new Step[stepList.size()];
+                for (int i = 0; i < parsed.length; i++) {
+                    parsed[i] = parseStep(stepList.get(i));
+                }
+                profile.addCombo(requireInt(combo, "id"), parsed);
+            }
+            return profile;
+        }
+
+        private static Step parseStep(Object item) {
+            if (!(item instanceof Map)) {
+                throw new IllegalArgumentException("invalid step: " + item);
+            }
+            Map<?, ?> map = (Map<?, ?>) item;
+            Step step = new Step();
+            Object terms = map.get("require");
+            if (!(terms instanceof List)) {
+                throw new IllegalArgumentException("require is required");
+            }
+            for (Object term : (List<?>) terms) {
+                if (!(term instanceof Map)) {
+                    throw new IllegalArgumentException("invalid term: " + term);
+                }
+                Map<?, ?> termMap = (Map<?, ?>) term;
+                step.require(requireInt(termMap, "channel"), parsePosition(termMap.get("position")));
+            }
+            Object holdMs = map.get("holdMs");
+            if (holdMs instanceof Number) {
+                step.setHoldMs(((Number) holdMs).intValue());
+            }
+            Object withinMs = map.get("withinMs");
+            if (withinMs instanceof Number) {
+                step.setWithinMs(((Number) withinMs).intValue());
+            }
+            return step;
+        }
+
+        private static int requireInt(Map<?, ?> map, String key) {
+            Object value = map.get(key);
+            if (!(value instanceof Number)) {
+                throw new IllegalArgumentException(key + " is required");
+            }
+            return ((Number) value).intValue();
+        }
+
+        private static int parsePosition(Object position) {
+            if ("low".equals(position)) {
+                return RCEdgeDetector.POSITION_LOW;
+            }
+            if ("mid".equals(position)) {
+                return RCEdgeDetector.POSITION_MID;
+            }
+            if ("high".equals(position)) {
+                return RCEdgeDetector.POSITION_HIGH;
+            }
+            throw new IllegalArgumentException("invalid position: " + position);
+        }
+    }
+
+    /**
+     * 编译后的状态树，创建后不再修改，可以整体替换
+     * 节点 0 为根，始终处于活动状态；其余每个节点对应某个组合前缀的最后一步
+     */
+    private static final class Table {
+        final int comboCount;
+        final int usedMask;  // 需要分档的通道
+        final int[] lowThresholds;
+        final int[] highThresholds;
+        final int hysteresis;
+
+        final int nodeCount;
+        final long[] nodeMasks;
+        final long[] nodeValues;
+        final int[] nodeChannels;  // 条件涉及的通道
+        final long[] holdNanos;
+        final long[] withinNanos;
+        final long[] windowNanos;  // 完成后等待子节点的时间，没有子节点为 -1
+        final int[] accepts;  // 完成时输出的组合 id，-1 表示不是任何组合的最后一步
+
+        // 转移索引：key = 父节点 · TERM_COUNT + 通道 · 3 + 档位 + 1，0 为空槽
+        final int[] indexKeys;
+        final int[] indexStarts;
+        final int[] indexEnds;
+        final int[] children;
+        final int indexMask;
+
+        Table(Profile profile) {
+            comboCount = profile.ids.size();
+            lowThresholds = profile.lowThresholds.clone();
+            highThresholds = profile.highThresholds.clone();
+            hysteresis = profile.hysteresis;
+
+            // 合并相同前缀
+            List<long[]> nodes = new ArrayList<>();
+            List<Integer> parents = new ArrayList<>();
+            List<Integer> acceptList = new ArrayList<>();
+            Map<String, Integer> lookup = new HashMap<>();
+            nodes.add(new long[] {0, 0, 0, 0});
+            parents.add(-1);
+            acceptList.add(-1);
+            int used = 0;
+            for (int c = 0; c < comboCount; c++) {
+                int node = ROOT;
+                for (Step step : profile.combos.get(c)) {
+                    long within = step.withinMs * 1_000_000L;
+                    long hold = step.holdMs * 1_000_000L;
+                    String key = node + ":" + step.mask + ":" + step.value + ":" + hold + ":" + within;
+                    Integer child = lookup.get(key);
+                    if (child == null) {
+                        child = nodes.size();
+                        nodes.add(new long[] {step.mask, step.value, hold, within});
+                        parents.add(node);
+                        acceptList.add(-1);
+                        lookup.put(key, child);
+                    }
+                    node = child;
+                    for (int channel = 0; channel < RCFrameCodec.MAX_CHANNELS; channel++) {
+                        if ((step.mask >>> (channel << 1) & POSITION_BITS) != 0) {
+                            used |= 1 << channel;
+                        }
+                    }
+                }
+                if (acceptList.get(node) >= 0) {
+                    throw new IllegalArgumentException("combo " + profile.ids.get(c)
+                            + " has the same steps as combo " + acceptList.get(node));
+                }
+                acceptList.set(node, profile.ids.get(c));
+            }
+            usedMask = used;
+
+            nodeCount = nodes.size();
+            nodeMasks = new long[nodeCount];
+            nodeValues = new long[nodeCount];
+            nodeChannels = new int[nodeCount];
+            holdNanos = new long[nodeCount];
+            withinNanos = new long[nodeCount];
+            windowNanos = new long[nodeCount];
+            accepts = new int[nodeCount];
+            Arrays.fill(windowNanos, -1);
+            Map<Integer, List<Integer>> transitions = new HashMap<>();
+            for (int n = 0; n < nodeCount; n++) {
+                long[] node = nodes.get(n);
+                nodeMasks[n] = node[0];
+                nodeValues[n] = node[1];
+                holdNanos[n] = node[2];
+                withinNanos[n] = node[3];
+                accepts[n] = acceptList.get(n);
+                int parent = parents.get(n);
+                if (parent < 0) {
+                    continue;
+                }
+                windowNanos[parent] = Math.max(windowNanos[parent], node[3]);
+                // 子节点登记在其每一个档位条件下，任一条件刚刚满足时检查整个档位组合
+                for (int channel = 0; channel < RCFrameCodec.MAX_CHANNELS; channel++) {
+                    int shift = channel << 1;
+                    if ((node[0] >>> shift & POSITION_BITS) != 0) {
+                        nodeChannels[n] |= 1 << channel;
+                        int term = channel * POSITIONS + (int) (node[1] >>> shift & POSITION_BITS);
+                        int key = parent * TERM_COUNT + term + 1;
+                        List<Integer> list = transitions.get(key);
+                        if (list == null) {
+                            list = new ArrayList<>();
+                            transitions.put(key, list);
+                        }
+                        list.add(n);
+                    }
+                }
+            }
+
+            int capacity = Integer.highestOneBit(Math.max(1, transitions.size()) * 2 - 1) << 1;
+            indexMask = capacity - 1;
+            indexKeys = new int[capacity];
+            indexStarts = new int[capacity];
+            indexEnds = new int[capacity];
+            int total = 0;
+            for (List<Integer> list : transitions.values()) {
+                total += list.size();
+            }
+            children = new int[total];
+            int offset = 0;
+            for (Map.Entry<Integer, List<Integer>> entry : transitions.entrySet()) {
+                int slot = slot(entry.getKey());
+                while (indexKeys[slot] != 0) {
+                    slot = (slot + 1) & indexMask;
+                }
+                indexKeys[slot] = entry.getKey();
+                indexStarts[slot] = offset;
+                for (int child : entry.getValue()) {
+                    children[offset++] = child;
+                }
+                indexEnds[slot] = offset;
+            }
+        }
+
+        int slot(int key) {
+            int hash = key * 0x9E3779B9;
+            return (hash ^ hash >>> 16) & indexMask;
+        }
+
+        /**
+         * @return 转移在 indexStarts / indexEnds 中的槽位，没有时返回 -1
+         */
+        int find(int parent, int term) {
+            int key = parent * TERM_COUNT + term + 1;
+            int slot = slot(key);
+            int k;
+            while ((k = indexKeys[slot]) != 0) {
+                if (k == key) {
+                    return slot;
+                }
+                slot = (slot + 1) & indexMask;
+            }
+            return -1;
+        }
+    }
+
+    private volatile Table table;
+    private Table stateTable;
+
+    // 以下状态仅输入线程使用
+    private long positions = 0;  // 每通道 2 位的档位
+    private boolean initialized = false;
+    private long lastNanos = 0;
+    private long frameIndex = 0;
+    private int[] tokenOfNode = new int[1];  // 节点对应的活动状态，-1 表示不活动
+
+    // 活动状态：所在节点、进入（保持中）或完成的时间、是否已完成、创建时的帧序号
+    private final int[] tokenNodes = new int[MAX_ACTIVE];
+    private final long[] tokenTimes = new long[MAX_ACTIVE];
+    private final boolean[] tokenDone = new boolean[MAX_ACTIVE];
+    private final long[] tokenFrames = new long[MAX_ACTIVE];
+    private int activeCount = 0;
+
+    private final int[] events = new int[MAX_EVENTS];
+    private int eventCount = 0;
+
+    // 统计，输入线程写
+    private volatile long recognized = 0;
+    private volatile long activeOverflows = 0;
+    private volatile long eventOverflows = 0;
+    private volatile int peakActive = 0;
+
+    public RCComboRecognizer() {
+        this(Profile.defaultProfile());
+    }
+
+    public RCComboRecognizer(Profile profile) {
+        load(profile);
+    }
+
+    /**
+     * 加载新配置，可以在采样过程中从其他线程调用；之后的第一帧重新建立基准，进行中的组合全部丢弃
+     */
+    public void load(Profile profile) {
+        table = new Table(profile);
+    }
+
+    /**
+     * 推进一帧
+     * @param channels 通道值
+     * @param count 有效通道数
+     * @param nowNanos 帧时间（单调时钟）
+     * @return 本帧识别出的组合个数，通过 getEvent 读取，下一次 advance 前有效
+     */
+    public int advance(int[] channels, int count, long nowNanos) {
+        Table t = table;
+        eventCount = 0;
+        if (t != stateTable) {
+            stateTable = t;
+            tokenOfNode = new int[t.nodeCount];
+            Arrays.fill(tokenOfNode, -1);
+            activeCount = 0;
+            initialized = false;
+        }
+        if (t.comboCount == 0) {
+            return 0;
+        }
+        if (initialized && nowNanos < lastNanos) {
+            // 时间戳回退（切换数据源），进行中的组合作废
+            clearTokens();
+            initialized = false;
+        }
+        lastNanos = nowNanos;
+        frameIndex++;
+
+        long previous = positions;
+        long state = quantize(t, channels, Math.min(count, RCFrameCodec.MAX_CHANNELS), previous);
+        positions = state;
+        if (!initialized) {
+            // 第一帧只建立基准，已经满足的档位组合不算刚刚满足
+            initialized = true;
+            return 0;
+        }
+        int changedChannels = changedChannels(previous ^ state);
+
+        int existing = activeCount;
+        for (int i = 0; i < existing; i++) {
+            int node = tokenNodes[i];
+            if (node < 0 || tokenFrames[i] == frameIndex) {
+                continue;
+            }
+            if (!tokenDone[i]) {
+                if ((state & t.nodeMasks[node]) != t.nodeValues[node]) {
+                    // 定时和弦提前松开
+                    kill(i);
+                } else if (nowNanos - tokenTimes[i] >= t.holdNanos[node]) {
+                    complete(t, i, node, nowNanos);
+                }
+            } else if (nowNanos - tokenTimes[i] > t.windowNanos[node]) {
+                kill(i);
+            } else if (changedChannels != 0) {
+                expand(t, node, tokenTimes[i], state, changedChannels, nowNanos);
+            }
+        }
+        if (changedChannels != 0) {
+            expand(t, ROOT, nowNanos, state, changedChannels, nowNanos);
+        }
+        compact();
+        return eventCount;
+    }
+
+    private long quantize(Table t, int[] channels, int count, long previous) {
+        long state = previous;
+        int remaining = t.usedMask & RCFrameCodec.fullMask(count);
+        while (remaining != 0) {
+            int channel = Integer.numberOfTrailingZeros(remaining);
+            remaining &= remaining - 1;
+            int shift = channel << 1;
+            int current = (int) (previous >>> shift & POSITION_BITS);
+            int low = t.lowThresholds[channel];
+            int high = t.highThresholds[channel];
+            if (initialized) {
+                if (current == RCEdgeDetector.POSITION_LOW) {
+                    low += t.hysteresis;
+                } else if (current == RCEdgeDetector.POSITION_HIGH) {
+                    high -= t.hysteresis;
+                } else {
+                    low -= t.hysteresis;
+                    high += t.hysteresis;
+                }
+            }
+            int value = channels[channel];
+            long position = value < low ? RCEdgeDetector.POSITION_LOW
+                    : (value > high ? RCEdgeDetector.POSITION_HIGH : RCEdgeDetector.POSITION_MID);
+            state = (state & ~(POSITION_BITS << shift)) | (position << shift);
+        }
+        return state;
+    }
+
+    private static int changedChannels(long diff) {
+        // 每通道 2 位折叠为 1 位
+        long folded = (diff | diff >>> 1) & 0x5555555555555555L;
+        int mask = 0;
+        while (folded != 0) {
+            int bit = Long.numberOfTrailingZeros(folded);
+            folded &= folded - 1;
+            mask |= 1 << (bit >>> 1);
+        }
+        return mask;
+    }
+
+    /**
+     * 从 parent 出发，查找因本帧档位变化而刚刚满足的子节点
+     */
+    private void expand(Table t, int parent, long parentTime, long state, int changedChannels, long nowNanos) {
+        int remaining = changedChannels;
+        while (remaining != 0) {
+            int channel = Integer.numberOfTrailingZeros(remaining);
+            int handled = changedChannels & ((1 << channel) - 1);
+            remaining &= remaining - 1;
+            int term = channel * POSITIONS + (int) (state >>> (channel << 1) & POSITION_BITS);
+            int slot = t.find(parent, term);
+            if (slot < 0) {
+                continue;
+            }
+            for (int i = t.indexStarts[slot], end = t.indexEnds[slot]; i < end; i++) {
+                int child = t.children[i];
+                // 条件中的这个通道本帧才进入要求的档位，满足即为刚刚满足
+                if ((state & t.nodeMasks[child]) != t.nodeValues[child]
+                        || (t.nodeChannels[child] & handled) != 0) {
+                    // 不满足，或者已经在本帧变化的更小序号通道上检查过
+                    continue;
+                }
+                if (parent != ROOT && nowNanos - parentTime > t.withinNanos[child]) {
+                    continue;
+                }
+                spawn(t, child, nowNanos);
+            }
+        }
+    }
+
+    private void spawn(Table t, int node, long nowNanos) {
+        int index = tokenOfNode[node];
+        if (index >= 0) {
+            if (tokenFrames[index] == frameIndex) {
+                return;
+            }
+        } else {
+            if (t.holdNanos[node] == 0 && t.windowNanos[node] < 0) {
+                // 没有后续步骤的即时步骤，不需要占用活动状态
+                emit(t.accepts[node]);
+                return;
+            }
+            if (activeCount == MAX_ACTIVE) {
+                activeOverflows++;
+                return;
+            }
+            index = activeCount++;
+            tokenNodes[index] = node;
+            tokenOfNode[node] = index;
+            if (activeCount > peakActive) {
+                peakActive = activeCount;
+            }
+        }
+        // 已在该节点的状态重新开始计时
+        tokenFrames[index] = frameIndex;
+        tokenTimes[index] = nowNanos;
+        tokenDone[index] = false;
+        if (t.holdNanos[node] == 0) {
+            complete(t, index, node, nowNanos);
+        }
+    }
+
+    private void complete(Table t, int index, int node, long nowNanos) {
+        if (t.accepts[node] >= 0) {
+            emit(t.accepts[node]);
+        }
+        if (t.windowNanos[node] < 0) {
+            kill(index);
+            return;
+        }
+        tokenDone[index] = true;
+        tokenTimes[index] = nowNanos;
+    }
+
+    private void kill(int index) {
+        tokenOfNode[tokenNodes[index]] = -1;
+        tokenNodes[index] = -1;
+    }
+
+    private void compact() {
+        int write = 0;
+        for (int read = 0; read < activeCount; read++) {
+            int node = tokenNodes[read];
+            if (node < 0) {
+                continue;
+            }
+            if (write != read) {
+                tokenNodes[write] = node;
+                tokenTimes[write] = tokenTimes[read];
+                tokenDone[write] = tokenDone[read];
+                tokenFrames[write] = tokenFrames[read];
+                tokenOfNode[node] = write;
+            }
+            write++;
+        }
+        activeCount = write;
+    }
+
+    private void clearTokens() {
+        for (int i = 0; i < activeCount; i++) {
+            if (tokenNodes[i] >= 0) {
+                tokenOfNode[tokenNodes[i]] = -1;
+            }
+        }
+        activeCount = 0;
+    }
+
+    private void emit(int comboId) {
+        recognized++;
+        if (eventCount < MAX_EVENTS) {
+            events[eventCount++] = comboId;
+        } else {
+            eventOverflows++;
+        }
+    }
+
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * @return 识别出的组合 id
+     */
+    public int getEvent(int index) {
+        return events[index];
+    }
+
+    /**
+     * 当前的活动状态数（进行中的组合前缀）
+     */
+    public int getActiveCount() {
+        return activeCount;
+    }
+
+    public Map<String, Object> getStats() {
+        Table t = table;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("combos", t.comboCount);
+        stats.put("nodes", t.nodeCount - 1);
+        stats.put("channelMask", t.usedMask);
+        stats.put("recognized", recognized);
+        stats.put("peakActive", peakActive);
+        stats.put("activeOverflows", activeOverflows);
+        stats.put("eventOverflows", eventOverflows);
+        return stats;
+    }
+}
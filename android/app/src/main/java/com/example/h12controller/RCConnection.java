@@ -0,0 +1,324 @@
+package com.example.h12controller;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.skydroid.rcsdk.RCSDKManager;
+import com.skydroid.rcsdk.SDKManagerCallBack;
+import com.skydroid.rcsdk.common.error.SkyException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 遥控器连接状态机
+ * 所有状态转换都在独立的连接线程上串行执行：SDK 初始化不占用主线程，重复的 connect 调用没有副作用，
+ * 连接失败或断开后按带抖动的指数退避自动重连，直到 close
+ *
+ * 状态：
+ *   STATE_IDLE        尚未连接
+ *   STATE_CONNECTING  已调用 connectToRC，等待 SDK 回调
+ *   STATE_CONNECTED   已连接
+ *   STATE_BACKOFF     连接失败或断开，等待重连
+ *   STATE_CLOSED      已关闭，不再重连；再次 connect 重新开始
+ *
+ * 同时记录启动指标：从第一次 connect 到连接成功、到收到第一帧的时间，以及每次重连后的同样两个时间
+ */
+public class RCConnection {
+    private static final String TAG = "RCConnection";
+
+    public static final int STATE_IDLE = 0;
+    public static final int STATE_CONNECTING = 1;
+    public static final int STATE_CONNECTED = 2;
+    public static final int STATE_BACKOFF = 3;
+    public static final int STATE_CLOSED = 4;
+
+    private static final String[] STATE_NAMES = {"idle", "connecting", "connected", "backoff", "closed"};
+
+    public static final int DEFAULT_INITIAL_BACKOFF_MS = 250;
+    public static final int DEFAULT_MAX_BACKOFF_MS = 10_000;
+    // SDK 既不回调成功也不回调失败时，超过该时间按失败处理
+    public static final int CONNECT_TIMEOUT_MS = 5_000;
+
+    /**
+     * 连接状态回调，在连接线程上执行
+     */
+    public interface Listener {
+        void onConnected(boolean reconnect);
+
+        void onDisconnected();
+
+        void onStateChanged(int state);
+    }
+
+    private final Context context;
+    private final Listener listener;
+    private final HandlerThread thread;
+    private final Handler handler;
+    private final Random random = new Random();
+    private final Runnable connectRunnable = this::attemptConnect;
+    private final Runnable timeoutRunnable = this::onConnectTimeout;
+
+    // 以下状态仅连接线程使用
+    private int state = STATE_IDLE;
+    private boolean sdkInitialized = false;
+    private int attempt = 0;
+    private int initialBackoffMs = DEFAULT_INITIAL_BACKOFF_MS;
+    private int maxBackoffMs = DEFAULT_MAX_BACKOFF_MS;
+    private boolean everConnected = false;
+
+    // 统计，连接线程写，其他线程读
+    private volatile int publishedState = STATE_IDLE;
+    private volatile long connectRequests = 0;
+    private volatile long attempts = 0;
+    private volatile long failures = 0;
+    private volatile long disconnects = 0;
+    private volatile long reconnects = 0;
+    private volatile long lastBackoffMs = 0;
+    private volatile long sdkInitNanos = -1;
+
+    // 启动和重连计时（elapsedRealtimeNanos），connectStartNanos 为 0 表示当前没有计时
+    private volatile long connectStartNanos = 0;
+    private volatile boolean awaitingFirstFrame = false;
+    private volatile long coldConnectNanos = -1;
+    private volatile long coldFirstFrameNanos = -1;
+    private volatile long lastConnectNanos = -1;
+    private volatile long lastFirstFrameNanos = -1;
+
+    public RCConnection(Context context, Listener listener) {
+        this.context = context;
+        this.listener = listener;
+        thread = new HandlerThread("rc-connection", Process.THREAD_PRIORITY_BACKGROUND);
+        thread.start();
+        handler = new Handler(thread.getLooper());
+    }
+
+    /**
+     * 配置重连退避，参数为 null 时保持不变
+     * @param initialBackoffMs 第一次重连前的等待时间
+     * @param maxBackoffMs 等待时间上限
+     */
+    public void configureBackoff(Integer initialBackoffMs, Integer maxBackoffMs) {
+        int initial = initialBackoffMs != null ? initialBackoffMs : this.initialBackoffMs;
+        int max = maxBackoffMs != null ? maxBackoffMs : this.maxBackoffMs;
+        if (initial <= 0 || max < initial) {
+            throw new IllegalArgumentException("invalid backoff: " + initial + "/" + max);
+        }
+        handler.post(() -> {
+            this.initialBackoffMs = initial;
+            this.maxBackoffMs = max;
+        });
+    }
+
+    /**
+     * 开始连接，可以从任意线程重复调用；已在连接、已连接或等待重连时不做任何事
+     */
+    public void connect() {
+        handler.post(() -> {
+            connectRequests++;
+            if (state != STATE_IDLE && state != STATE_CLOSED) {
+                return;
+            }
+            connectStartNanos = SystemClock.elapsedRealtimeNanos();
+            attempt = 0;
+            attemptConnect();
+        });
+    }
+
+    /**
+     * 断开并停止重连
+     */
+    public void close() {
+        handler.post(() -> {
+            if (state == STATE_IDLE || state == STATE_CLOSED) {
+                return;
+            }
+            handler.removeCallbacks(connectRunnable);
+            handler.removeCallbacks(timeoutRunnable);
+            boolean wasConnected = state == STATE_CONNECTED;
+            setState(STATE_CLOSED);
+            connectStartNanos = 0;
+            awaitingFirstFrame = false;
+            RCSDKManager.INSTANCE.disconnectRC();
+            if (wasConnected) {
+                listener.onDisconnected();
+            }
+        });
+    }
+
+    /**
+     * 关闭连接并结束连接线程，之后不能再使用
+     */
+    public void release() {
+        close();
+        handler.post(thread::quitSafely);
+    }
+
+    /**
+     * 输入线程：收到一帧；只在连接后等待第一帧时做一次计时，其余时候只是一次 volatile 读
+     */
+    public void onFrame() {
+        if (!awaitingFirstFrame) {
+            return;
+        }
+        awaitingFirstFrame = false;
+        long start = connectStartNanos;
+        if (start == 0) {
+            return;
+        }
+        long elapsed = SystemClock.elapsedRealtimeNanos() - start;
+        lastFirstFrameNanos = elapsed;
+        if (coldFirstFrameNanos < 0) {
+            coldFirstFrameNanos = elapsed;
+        }
+        connectStartNanos = 0;
+        RCEventLog.log(RCEventLog.FIRST_FRAME, (int) (elapsed / 1_000_000));
+    }
+
+    public int getState() {
+        return publishedState;
+    }
+
+    public static String stateName(int state) {
+        return STATE_NAMES[state];
+    }
+
+    private void attemptConnect() {
+        if (!sdkInitialized) {
+            // SDK 只初始化一次，之后的重连只调用 connectToRC
+            long start = SystemClock.elapsedRealtimeNanos();
+            RCSDKManager.INSTANCE.initSDK(context, callBack);
+            // SDK 回调不切换到主线程，采样和解码在输入线程完成，只有最终分发才进入主线程
+            RCSDKManager.INSTANCE.setMainThreadCallBack(false);
+            sdkInitialized = true;
+            sdkInitNanos = SystemClock.elapsedRealtimeNanos() - start;
+        }
+        attempts++;
+        setState(STATE_CONNECTING);
+        RCEventLog.log(RCEventLog.CONNECT_ATTEMPT, attempt + 1);
+        handler.postDelayed(timeoutRunnable, CONNECT_TIMEOUT_MS);
+        RCSDKManager.INSTANCE.connectToRC();
+    }
+
+    private void onConnectTimeout() {
+        if (state == STATE_CONNECTING) {
+            Log.w(TAG, "RC connection timed out");
+            failures++;
+            scheduleReconnect();
+        }
+    }
+
+    /**
+     * 带抖动的指数退避：上限为 initial · 2^attempt，在上限的一半到上限之间随机取值，
+     * 多台设备或多次断开不会在同一时刻重连
+     */
+    private void scheduleReconnect() {
+        handler.removeCallbacks(timeoutRunnable);
+        int shift = Math.min(attempt, 16);
+        long ceiling = Math.min((long) maxBackoffMs, (long) initialBackoffMs << shift);
+        long delay = ceiling / 2 + (long) (random.nextDouble() * (ceiling - ceiling / 2));
+        attempt++;
+        lastBackoffMs = delay;
+        setState(STATE_BACKOFF);
+        RCEventLog.log(RCEventLog.RECONNECT_SCHEDULED, (int) delay, attempt);
+        handler.postDelayed(connectRunnable, delay);
+    }
+
+    private void setState(int next) {
+        if (state == next) {
+            return;
+        }
+        state = next;
+        publishedState = next;
+        listener.onStateChanged(next);
+    }
+
+    private final SDKManagerCallBack callBack = new SDKManagerCallBack() {
+        @Override
+        public void onRcConnected() {
+            handler.post(() -> {
+                if (state != STATE_CONNECTING) {
+                    return;
+                }
+                handler.removeCallbacks(timeoutRunnable);
+                boolean reconnect = everConnected;
+                everConnected = true;
+                attempt = 0;
+                if (reconnect) {
+                    reconnects++;
+                }
+                long start = connectStartNanos;
+                if (start != 0) {
+                    long elapsed = SystemClock.elapsedRealtimeNanos() - start;
+                    lastConnectNanos = elapsed;
+                    if (coldConnectNanos < 0) {
+                        coldConnectNanos = elapsed;
+                    }
+                    RCEventLog.log(RCEventLog.CONNECTED, (int) (elapsed / 1_000_000), reconnect ? 1 : 0);
+                }
+                setState(STATE_CONNECTED);
+                awaitingFirstFrame = true;
+                listener.onConnected(reconnect);
+            });
+        }
+
+        @Override
+        public void onRcConnectFail(SkyException e) {
+            Log.e(TAG, "RC connection failed: " + (e != null ? e.getMessage() : "unknown error"));
+            handler.post(() -> {
+                if (state != STATE_CONNECTING) {
+                    return;
+                }
+                failures++;
+                scheduleReconnect();
+            });
+        }
+
+        @Override
+        public void onRcDisconnect() {
+            handler.post(() -> {
+                if (state != STATE_CONNECTED) {
+                    return;
+                }
+                disconnects++;
+                RCEventLog.log(RCEventLog.DISCONNECTED);
+                awaitingFirstFrame = false;
+                listener.onDisconnected();
+                // 从断开开始计时，重连后记录恢复用时
+                connectStartNanos = SystemClock.elapsedRealtimeNanos();
+                scheduleReconnect();
+            });
+        }
+    };
+
+    /**
+     * 连接统计，时间单位为毫秒，-1 表示尚未发生
+     * coldConnectMs / coldFirstFrameMs 为第一次 connect 到第一次连接成功 / 收到第一帧；
+     * lastConnectMs / lastFirstFrameMs 为最近一次（含断开后重连）
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("state", STATE_NAMES[publishedState]);
+        stats.put("connectRequests", connectRequests);
+        stats.put("attempts", attempts);
+        stats.put("failures", failures);
+        stats.put("disconnects", disconnects);
+        stats.put("reconnects", reconnects);
+        stats.put("lastBackoffMs", lastBackoffMs);
+        stats.put("sdkInitMs", toMillis(sdkInitNanos));
+        stats.put("coldConnectMs", toMillis(coldConnectNanos));
+        stats.put("coldFirstFrameMs", toMillis(coldFirstFrameNanos));
+        stats.put("lastConnectMs", toMillis(lastConnectNanos));
+        stats.put("lastFirstFrameMs", toMillis(lastFirstFrameNanos));
+        return stats;
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos < 0 ? -1 : nanos / 1_000_000.0;
+    }
+}
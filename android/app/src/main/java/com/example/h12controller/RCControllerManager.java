@@ -1,269 +1,1066 @@
 package com.example.h12controller;
 
+import android.os.Handler;
+import android.os.Looper;
+import android.os.ParcelFileDescriptor;
 import android.os.SystemClock;
 import android.util.Log;
 import android.view.KeyEvent;
 
 import com.skydroid.rcsdk.*;
 import com.skydroid.rcsdk.common.callback.*;
-import com.skydroid.rcsdk.common.error.SkyException;
-import com.skydroid.rcsdk.common.pipeline.Pipeline;
-import com.skydroid.rcsdk.key.RemoteControllerKey;
 import com.skydroid.rcsdk.common.Uart;
-import com.skydroid.rcsdk.comm.CommListener;
 
+import io.flutter.plugin.common.BasicMessageChannel;
+import io.flutter.plugin.common.BinaryCodec;
+import io.flutter.plugin.common.BinaryMessenger;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class RCControllerManager {
     private static final String TAG = "RCControllerManager";
-    public interface ButtonEventListener {
-        void onLeftButtonPressed();
-        void onRightButtonPressed();
-    }
+    private static final int[] EMPTY_CHANNELS = new int[0];
+
+    private static final int FRAME_RING_CAPACITY = 64;
 
     private final MainActivity activity;
-    private Pipeline rcPipeline;
-    private int lastLeftCButtonValue = 0;  // 记录上一次的按钮值
-    private int lastRightCButtonValue = 0;
-    private ButtonEventListener buttonEventListener;  // 按钮事件监听器
+    // 遥控器连接：SDK 初始化、断开重连在连接线程上完成
+    private final RCConnection connection;
+    // 主设备的数传管道：第一次连接时创建，之后的重连复用
+    private final SdkLinkPort linkPort = new SdkLinkPort(Uart.UART0);
+    private boolean samplerPausedByDisconnect = false;  // SDK 采样器等待连接后再启动
+    private volatile ButtonEventListener buttonEventListener;  // 按钮事件监听器
+
+    // 输入线程：采样、解码、变化检测
+    private ChannelSource channelSource;
+    private volatile boolean liveClock;  // 数据源时间戳是否为实时采集时间
+    private final RCAdaptiveRate adaptiveRate = new RCAdaptiveRate();
+    private boolean adaptiveSampling = true;  // 仅对 RCChannelSampler 生效
+    private final RCSignalConditioner conditioner = new RCSignalConditioner();
+    // 按采集时间保存最近的帧，控制循环按自己的时刻读取插值 / 外推后的通道值；仅主线程读取
+    private final RCChannelEstimator estimator = new RCChannelEstimator();
+    private final int[] estimatedChannels = new int[RCFrameCodec.MAX_CHANNELS];
+    private final RCInputDecoder inputDecoder = new RCInputDecoder();
+    private final RCChangeDetector changeDetector = new RCChangeDetector();
+    private volatile boolean keyChannelStreaming = false;  // 是否向 Flutter 推送通道帧
+    // 最近发布的摇杆按键码，按住不动时不再唤醒主线程，重复由主线程定时产生
+    private int publishedLeftKeyCode = RCKeyCodes.KEYCODE_UNKNOWN;
+    private int publishedRightKeyCode = RCKeyCodes.KEYCODE_UNKNOWN;
+    private volatile boolean keyResyncRequested = false;
+
+    // 通道帧订阅者：输入线程按订阅者筛选和降频，主线程分别投递到各自的消息通道
+    private final RCSubscriptionRegistry subscriptions = new RCSubscriptionRegistry();
+    private int nextSubscriptionId = 1;  // 仅主线程
+
+    // 输入线程 → 主线程：解码后的帧
+    private final RCFrameRing frameRing = new RCFrameRing(FRAME_RING_CAPACITY);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+    private final Runnable drainRunnable = new Runnable() {
+        @Override
+        public void run() {
+            drainFrames();
+        }
+    };
+
+    // 主线程：按键分发、推送到 Flutter
+    private final RCFrameCodec frameCodec = new RCFrameCodec();
+    private final RCKeyStateTracker keyTracker = new RCKeyStateTracker();
+    private final Runnable keyRepeatRunnable = new Runnable() {
+        @Override
+        public void run() {
+            keyTracker.pollRepeats(SystemClock.uptimeMillis());
+            flushKeyEvents();
+        }
+    };
+
+    // 数传管道：SDK 回调线程解析，批量推送到 Flutter
+    private final RCLinkBatcher linkBatcher;
+    private final MavlinkFrameDecoder linkDecoder = new MavlinkFrameDecoder();
+    private final RCLinkParser linkParser;
+    private final RCLinkWriter linkWriter = new RCLinkWriter();
+    // Flutter 注册的 common.xml 之外的 CRC_EXTRA，之后添加的设备也使用，受 this 保护
+    private final Map<Integer, Integer> mavlinkCrcExtras = new LinkedHashMap<>();
+
+    // 飞行记录：采样线程写通道帧，SDK 回调线程和写线程写数传数据
+    private final RCFlightRecorder flightRecorder;
+
+    // 附加设备（id 1 ~ MAX_DEVICES - 1），各自在独立的工作线程上处理，受 this 保护；主设备不在其中
+    private final RCDeviceContext[] devices = new RCDeviceContext[RCDeviceContext.MAX_DEVICES];
+
+    // 崩溃时导出的事件日志
+    private final File crashEventLogFile;
+
+    // 共享内存中的最新一帧，Dart 端通过 dart:ffi 直接读取；第一次 attach 时创建
+    private volatile RCFrameSnapshot frameSnapshot;
+    private ParcelFileDescriptor frameSnapshotFd;
+    private final int[] snapshotChannels = new int[RCFrameCodec.MAX_CHANNELS];  // 仅主线程
+
+    // 各阶段延迟（System.nanoTime），input 在输入线程记录，其余在主线程记录
+    private final RCLatencyHistogram inputLatency = new RCLatencyHistogram();  // 采集 → 解码完成
+    private final RCLatencyHistogram handoffLatency = new RCLatencyHistogram();  // 解码完成 → 主线程开始分发
+    private final RCLatencyHistogram dispatchLatency = new RCLatencyHistogram();  // 开始分发 → 推送到 Flutter 返回
+    private final RCLatencyHistogram nativeLatency = new RCLatencyHistogram();  // 采集 → 推送到 Flutter 返回
 
     public RCControllerManager(MainActivity activity) {
-        this.activity = activity;
+        this(activity, new RCChannelSampler());
     }
-    
+
     /**
-     * 设置按钮事件监听器
-     * @param listener 按钮事件监听器
+     * @param channelSource 通道数据源，输入路径只从这里获取通道值
      */
-    public void setButtonEventListener(ButtonEventListener listener) {
-        this.buttonEventListener = listener;
-    }
+    public RCControllerManager(MainActivity activity, ChannelSource channelSource) {
+        RCLog.setSink(AndroidLogSink.INSTANCE);
+        this.activity = activity;
+        this.channelSource = channelSource;
+        this.liveClock = channelSource.isLiveClock();
+        applyAdaptiveRate(channelSource);
+        channelSource.setFrameListener(this::onChannelFrame);
+        this.linkBatcher = new RCLinkBatcher(activity.getLinkMessageChannel());
+        this.linkParser = new RCLinkParser(linkDecoder, linkBatcher);
+        this.flightRecorder = new RCFlightRecorder(new File(activity.getFilesDir(), "flight"));
+        this.crashEventLogFile = new File(activity.getFilesDir(), "rc-events-crash.log");
+        RCEventLog.installCrashDump(crashEventLogFile);
+        linkPort.setListener(new RCLinkPort.Listener() {
+            @Override
+            public void onConnected() {
+                linkParser.reset();
+            }
 
-    public void initRCSdk() {
-        RCSDKManager.INSTANCE.initSDK(activity, new SDKManagerCallBack() {
             @Override
-            public void onRcConnected() {
-                Log.d(TAG, "onRcConnected");
-                rcPipeline = PipelineManager.INSTANCE.createPipeline(Uart.UART0);
-                rcPipeline.setOnCommListener(getRCCommListener(0, "数传管道"));
-                PipelineManager.INSTANCE.connectPipeline(rcPipeline);
+            public void onReadData(byte[] bytes) {
+                flightRecorder.recordPipeline(RCFlightRecord.DIRECTION_RX, bytes);
+                // 数传数据按 MAVLink 解析后批量推送给 Flutter
+                linkParser.feed(bytes);
             }
 
             @Override
-            public void onRcConnectFail(SkyException e) {
-                Log.e(TAG, "RC connection failed: " + (e != null ? e.getMessage() : "unknown error"));
+            public void onDisconnected() {
+            }
+        });
+        this.connection = new RCConnection(activity.getApplicationContext(), new RCConnection.Listener() {
+            @Override
+            public void onConnected(boolean reconnect) {
+                armPipeline();
+                connectDeviceLinks(true);
+                resumeSampler();
             }
 
             @Override
-            public void onRcDisconnect() {
-                Log.d(TAG, "RC disconnected");
-                if (rcPipeline != null) {
-                    PipelineManager.INSTANCE.disconnectPipeline(rcPipeline);
-                    rcPipeline = null;
-                }
+            public void onDisconnected() {
+                disarmPipeline();
+                connectDeviceLinks(false);
+                pauseSampler();
+            }
+
+            @Override
+            public void onStateChanged(int state) {
+                String status = RCConnection.stateName(state);
+                mainHandler.post(() -> activity.getRcChannel().invokeMethod("onRcStatus", status));
             }
         });
+    }
+    
+    /**
+     * 设置按钮事件监听器，回调在主线程执行
+     * @param listener 按钮事件监听器
+     */
+    public void setButtonEventListener(ButtonEventListener listener) {
+        this.buttonEventListener = listener;
+    }
 
-        RCSDKManager.INSTANCE.setMainThreadCallBack(true);
-        RCSDKManager.INSTANCE.connectToRC();
+    /**
+     * 加载摇杆分区配置
+     * @param profile 分区配置，见 RCZoneQuantizer.Profile
+     */
+    public void loadZoneProfile(RCZoneQuantizer.Profile profile) {
+        inputDecoder.loadZoneProfile(profile);
     }
 
-    public List<Integer> getRemoteControllerKeyChannel() {
-        try {
-            KeyManager.INSTANCE.get(RemoteControllerKey.INSTANCE.getKeyChannels(), new CompletionCallbackWith<int[]>() {
-                @Override
-                public void onSuccess(int[] value) {
-                    try {
-                        List<Integer> result = new ArrayList<>();
-                        for (int i : value) {
-                            result.add(i);
-                        }
-                        
-                        if (value.length >= 12) {
-                            handleRCInput(value);
-                        }
-                        
-                        activity.getRcChannel().invokeMethod("onRcKeyChannels", result);
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error in onSuccess callback: " + e.getMessage(), e);
-                        activity.getRcChannel().invokeMethod("onRcKeyChannels", new ArrayList<Integer>());
-                    }
-                }
+    /**
+     * 加载通道调理配置（校准、死区、指数曲线、平滑、限速），采样过程中也可以调用
+     * @param profile 调理配置，见 RCSignalConditioner.Profile
+     */
+    public void loadConditioningProfile(RCSignalConditioner.Profile profile) {
+        conditioner.load(profile);
+    }
 
-                @Override
-                public void onFailure(SkyException e) {
-                    // 如果获取遥控器按键通道失败，不太影响实际获取。
-                    Log.e(TAG, "RC Key channels failure: " + e.getMessage(), e);
-                    activity.getRcChannel().invokeMethod("onRcKeyChannels", new ArrayList<Integer>());
-                }
-            });
-        } catch (Exception e) {
-            Log.e(TAG, "Error in getRemoteControllerKeyChannel: " + e.getMessage(), e);
-            return new ArrayList<Integer>();
+    /**
+     * 主线程：估计当前时刻之后 aheadNanos 的通道值（调理后），用于按自己节奏运行的控制循环补偿帧间隔抖动和传输延迟
+     * @param aheadNanos 向前预测的时间，0 表示当前时刻；超过最大外推距离时按最大外推距离计算
+     * @return 通道值，还没有收到任何帧时为空数组
+     */
+    public int[] estimateChannels(long aheadNanos) {
+        int count = estimator.estimate(System.nanoTime() + aheadNanos, estimatedChannels);
+        int[] channels = new int[count];
+        System.arraycopy(estimatedChannels, 0, channels, 0, count);
+        return channels;
+    }
+
+    /**
+     * 配置通道值估计，参数为 null 时保持不变
+     * @param maxExtrapolationMs 最大外推距离
+     * @param errorChannelMask 统计一步预测误差的通道
+     */
+    public void configureEstimator(Integer maxExtrapolationMs, Integer errorChannelMask) {
+        if (maxExtrapolationMs != null) {
+            estimator.setMaxExtrapolationNanos(maxExtrapolationMs * 1_000_000L);
         }
-        return new ArrayList<Integer>();
+        if (errorChannelMask != null) {
+            estimator.setErrorMask(errorChannelMask);
+        }
+        estimator.resetStats();
     }
 
-    private void handleRCInput(int[] value) {
-        try {
-            int leftX = value[3];
-            int leftY = value[1];
-            int rightX = value[0];
-            int rightY = value[2];
-
-            int LeftCButton = value[8];
-            int RightCButton = value[9];
-
-            long eventTime = SystemClock.uptimeMillis();
-            int keyCode = determineKeyCode(leftX, leftY, false);  // 左摇杆
-            int rightKeyCode = determineKeyCode(rightX, rightY, true);  // 右摇杆
-        
-            // 只有当按钮值发生变化时才处理
-            if (LeftCButton != lastLeftCButtonValue) {
-                if (LeftCButton == 1950 || LeftCButton == 1050) {
-
-                    if (buttonEventListener != null) {
-                        buttonEventListener.onLeftButtonPressed();
-                    }
-                    keyCode = KeyEvent.KEYCODE_BUTTON_L2;
-                    Log.d(TAG, "click event keycode: " + keyCode);
-                }
-                lastLeftCButtonValue = LeftCButton;
+    /**
+     * 通道值估计统计：帧间隔（纳秒）及其抖动、一步预测误差（通道值单位）、各估计方式的次数
+     */
+    public Map<String, Object> getEstimatorStats() {
+        return estimator.getStats();
+    }
+
+    /**
+     * 加载组合键 / 序列配置，采样过程中也可以调用，进行中的组合全部丢弃
+     * @param profile 组合配置，见 RCComboRecognizer.Profile
+     */
+    public void loadComboProfile(RCComboRecognizer.Profile profile) {
+        inputDecoder.loadComboProfile(profile);
+    }
+
+    /**
+     * 组合识别统计：组合数、状态树节点数、识别次数、活动状态峰值和溢出次数
+     */
+    public Map<String, Object> getComboStats() {
+        return inputDecoder.getComboStats();
+    }
+
+    /**
+     * 加载边沿检测配置（按键、拨杆、滚轮的分档、去抖、长按、双击）
+     * @param profile 检测配置，见 RCEdgeDetector.Profile
+     */
+    public void loadEdgeProfile(RCEdgeDetector.Profile profile) {
+        inputDecoder.loadEdgeProfile(profile);
+    }
+
+    /**
+     * 开关输入路径上的调试日志：打开时记录所有级别的事件并同时输出到 logcat，
+     * 关闭时恢复默认级别，只写入二进制事件日志
+     * @param enabled 是否输出调试日志
+     */
+    public void setDebugLogging(boolean enabled) {
+        RCEventLog.setLevel(enabled ? RCEventLog.LEVEL_TRACE : RCEventLog.DEFAULT_LEVEL);
+        RCEventLog.setEcho(enabled);
+    }
+
+    /**
+     * 设置事件日志级别，见 RCEventLog.LEVEL_*
+     */
+    public void setEventLogLevel(int level) {
+        RCEventLog.setLevel(level);
+    }
+
+    /**
+     * 导出事件日志，格式化在这里才发生
+     * @param crash 为 true 时读取上次崩溃时导出的日志
+     * @return 每条记录一行，没有崩溃日志时为空
+     */
+    public List<String> dumpEventLog(boolean crash) {
+        if (!crash) {
+            return RCEventLog.dump();
+        }
+        List<String> lines = new ArrayList<>();
+        if (!crashEventLogFile.isFile()) {
+            return lines;
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(crashEventLogFile))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
             }
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot read " + crashEventLogFile + ": " + e.getMessage(), e);
+        }
+        return lines;
+    }
 
-            if (RightCButton != lastRightCButtonValue) {
-                if (RightCButton == 1950 || RightCButton == 1050) {
-                    if (buttonEventListener != null) {
-                        buttonEventListener.onRightButtonPressed();
-                    }
-                    keyCode = KeyEvent.KEYCODE_BUTTON_R2;
-                    Log.d(TAG, "click event keycode: " + keyCode);
+    /**
+     * 创建（只创建一次）共享内存中的最新帧快照，返回给 Dart 端映射所需的信息
+     * 内存来自缓存目录中的一个文件：Java 端映射后保留一个只读文件描述符交给 Dart 映射同一块内存，
+     * 随后删除文件，之后只存在于这两个映射中
+     * @return fd、size、version，布局见 RCFrameSnapshot
+     */
+    public synchronized Map<String, Object> attachFrameSnapshot() throws IOException {
+        if (frameSnapshot == null) {
+            File file = new File(activity.getCacheDir(), "rc-frame-snapshot");
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(RCFrameSnapshot.SIZE);
+                MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, RCFrameSnapshot.SIZE);
+                frameSnapshotFd = ParcelFileDescriptor.open(file, ParcelFileDescriptor.MODE_READ_ONLY);
+                frameSnapshot = new RCFrameSnapshot(buffer);
+            } finally {
+                if (!file.delete()) {
+                    Log.e(TAG, "Cannot delete " + file);
                 }
-                lastRightCButtonValue = RightCButton;
             }
+        }
+        Map<String, Object> handle = new LinkedHashMap<>();
+        handle.put("fd", frameSnapshotFd.getFd());
+        handle.put("size", RCFrameSnapshot.SIZE);
+        handle.put("version", RCFrameSnapshot.VERSION);
+        return handle;
+    }
+
+    /**
+     * 主线程：从快照读取最新一帧，经平台通道返回；用于和 Dart 端直接读取共享内存对比延迟
+     * @return 通道值，快照未创建、尚无数据或读取失败时为空数组
+     */
+    public int[] readFrameSnapshot() {
+        RCFrameSnapshot snapshot = frameSnapshot;
+        if (snapshot == null || snapshot.read(snapshotChannels) <= 0) {
+            return EMPTY_CHANNELS;
+        }
+        return Arrays.copyOf(snapshotChannels, snapshot.getChannelCount());
+    }
+
+    public Map<String, Object> getEventLogStats() {
+        Map<String, Object> stats = RCEventLog.getStats();
+        stats.put("crashDump", crashEventLogFile.isFile());
+        return stats;
+    }
+
+    /**
+     * 连接遥控器，可以重复调用：已在连接、已连接或等待重连时不做任何事
+     * SDK 初始化在连接线程上执行；断开后按带抖动的指数退避自动重连
+     */
+    public void initRCSdk() {
+        connection.connect();
+    }
+
+    /**
+     * 配置重连退避，参数为 null 时保持不变
+     * @param initialBackoffMs 第一次重连前的等待时间
+     * @param maxBackoffMs 等待时间上限
+     */
+    public void configureReconnect(Integer initialBackoffMs, Integer maxBackoffMs) {
+        connection.configureBackoff(initialBackoffMs, maxBackoffMs);
+    }
+
+    /**
+     * 连接统计：状态、连接请求 / 尝试 / 失败 / 断开 / 重连次数、最近一次退避，
+     * 以及冷启动和最近一次重连的连接用时、首帧用时（毫秒）
+     */
+    public Map<String, Object> getConnectionStats() {
+        return connection.getStats();
+    }
+
+    /**
+     * 连接线程：连接成功后连接数传管道；管道只创建一次，重连时重新连接同一个管道，解析和发送缓冲保留
+     */
+    private void armPipeline() {
+        linkPort.connect();
+        linkWriter.setOutput(data -> {
+            flightRecorder.recordPipeline(RCFlightRecord.DIRECTION_TX, data);
+            linkPort.write(data);
+        });
+        linkWriter.start();
+    }
 
-            if (keyCode != KeyEvent.KEYCODE_UNKNOWN) {
-                sendKeyEvent(eventTime, keyCode);
+    /**
+     * 连接线程：断开后暂停发送并断开数传管道，发送队列保留到重连
+     */
+    private void disarmPipeline() {
+        linkWriter.setOutput(null);
+        linkPort.disconnect();
+    }
+
+    /**
+     * 连接线程：随遥控器连接 / 断开附加设备上经过 SDK 的数传管道，其他链路不受影响
+     */
+    private synchronized void connectDeviceLinks(boolean connected) {
+        for (RCDeviceContext device : devices) {
+            if (device == null || device.getLinkPort() == null || !device.getLinkPort().needsRcConnection()) {
+                continue;
             }
-            if (rightKeyCode != KeyEvent.KEYCODE_UNKNOWN) {
-                sendKeyEvent(eventTime, rightKeyCode);
+            if (connected) {
+                device.connectLink();
+            } else {
+                device.disconnectLink();
             }
-        } catch (Exception e) {
-            Log.e(TAG, "Error in handleRCInput: " + e.getMessage(), e);
         }
     }
 
-    private int determineKeyCode(int x, int y, boolean isRightJoystick) {
-        if (isRightJoystick) {
-            // 左
-            if (x < 1500 && x > 1350) {
-                // 1档位
-                return KeyEvent.KEYCODE_NUMPAD_7;
-            }
-            if (x < 1350 && x > 1200) {
-                 // 2档位
-                return KeyEvent.KEYCODE_NUMPAD_8;
+    /**
+     * 断开期间停止 SDK 采样，避免每个采样周期都读取失败；其他数据源不受影响
+     */
+    private synchronized void pauseSampler() {
+        if (channelSource instanceof RCChannelSampler && channelSource.isRunning()) {
+            channelSource.stop();
+            samplerPausedByDisconnect = true;
+            mainHandler.post(this::releaseKeys);
+        }
+    }
+
+    /**
+     * 重连后恢复采样，并发送关键帧让 Flutter 端重新同步
+     */
+    private synchronized void resumeSampler() {
+        if (samplerPausedByDisconnect) {
+            samplerPausedByDisconnect = false;
+            if (channelSource instanceof RCChannelSampler) {
+                changeDetector.requestKeyframe();
+                channelSource.start();
             }
-            if (x < 1200 && x >= 1050) {
-                // 3档位
-                return KeyEvent.KEYCODE_NUMPAD_9;
+        }
+    }
+
+    /**
+     * 单次读取通道值，结果在主线程回调
+     * 已有 SDK 读取未完成时复用它的结果，不会堆积请求；读取失败或超时时 channels 为空数组
+     * @param callback 结果回调
+     */
+    public void getRemoteControllerKeyChannel(ChannelSource.FrameListener callback) {
+        try {
+            // 按键解码由采样线程负责，这里只把通道值转发给 Flutter
+            getChannelSource().requestFrame((value, captureNanos) -> {
+                final int[] channels = value.length > 0 ? value.clone() : EMPTY_CHANNELS;
+                mainHandler.post(() -> callback.onChannelFrame(channels, captureNanos));
+            });
+        } catch (Exception e) {
+            Log.e(TAG, "Error in getRemoteControllerKeyChannel: " + e.getMessage(), e);
+            mainHandler.post(() -> callback.onChannelFrame(EMPTY_CHANNELS, SystemClock.elapsedRealtimeNanos()));
+        }
+    }
+
+    /**
+     * 切换通道数据源，例如改为回放飞行记录或合成数据
+     * 旧数据源停止后新数据源才开始输出，输入路径上不会同时有两个线程
+     * @param source 新的数据源
+     */
+    public synchronized void setChannelSource(ChannelSource source) {
+        ChannelSource previous = channelSource;
+        boolean running = previous.isRunning();
+        previous.stop();
+        previous.setFrameListener(null);
+        running |= samplerPausedByDisconnect;
+        samplerPausedByDisconnect = false;
+        channelSource = source;
+        if (running && source instanceof RCChannelSampler && connection.getState() != RCConnection.STATE_CONNECTED) {
+            // 切回 SDK 采样器时遥控器尚未连接，连接后再启动
+            samplerPausedByDisconnect = true;
+            running = false;
+        }
+        liveClock = source.isLiveClock();
+        RCEventLog.log(RCEventLog.SOURCE_CHANGED, liveClock ? 1 : 0);
+        applyAdaptiveRate(source);
+        source.setFrameListener(this::onChannelFrame);
+        // 新数据源的时间戳与之前不连续，重新发送关键帧
+        changeDetector.requestKeyframe();
+        if (running) {
+            source.start();
+        }
+    }
+
+    public synchronized ChannelSource getChannelSource() {
+        return channelSource;
+    }
+
+    /**
+     * 配置自适应采样频率，参数为 null 时保持不变
+     * 只有遥控器 SDK 采样器支持，回放和合成数据源的频率由数据本身决定
+     * @param enabled 是否启用
+     * @param idleRateHz 空闲频率，不低于 RCChannelSampler.MIN_IDLE_RATE_HZ
+     * @param activeRateHz 活动频率，范围 50~200Hz
+     * @param threshold 通道变化超过该值视为活动
+     * @param quietMs 没有活动多久后开始降频
+     * @param decayStepMs 降频时每次减半的间隔
+     */
+    public synchronized void configureAdaptiveSampling(Boolean enabled, Integer idleRateHz, Integer activeRateHz,
+                                                       Integer threshold, Integer quietMs, Integer decayStepMs) {
+        int idle = idleRateHz != null ? idleRateHz : adaptiveRate.getIdleRateHz();
+        int active = activeRateHz != null ? activeRateHz : adaptiveRate.getActiveRateHz();
+        idle = Math.max(RCChannelSampler.MIN_IDLE_RATE_HZ, idle);
+        active = Math.max(RCChannelSampler.MIN_RATE_HZ, Math.min(RCChannelSampler.MAX_RATE_HZ, active));
+        adaptiveRate.setRates(Math.min(idle, active), active);
+        if (threshold != null) {
+            adaptiveRate.setThreshold(threshold);
+        }
+        if (quietMs != null || decayStepMs != null) {
+            adaptiveRate.setDecay(
+                    quietMs != null ? quietMs : adaptiveRate.getQuietMs(),
+                    decayStepMs != null ? decayStepMs : adaptiveRate.getDecayStepMs());
+        }
+        if (enabled != null) {
+            adaptiveSampling = enabled;
+        }
+        applyAdaptiveRate(channelSource);
+    }
+
+    /**
+     * 采样频率统计：当前状态、频率、各状态累计时间等
+     */
+    public synchronized Map<String, Object> getSamplingStats() {
+        Map<String, Object> stats = adaptiveRate.getStats();
+        stats.put("enabled", adaptiveSampling && channelSource instanceof RCChannelSampler);
+        stats.put("currentRateHz", channelSource.getRateHz());
+        if (channelSource instanceof RCChannelSampler) {
+            stats.put("reads", ((RCChannelSampler) channelSource).getReadStats());
+        } else if (channelSource instanceof PacedChannelSource) {
+            stats.put("source", ((PacedChannelSource) channelSource).getStats());
+        }
+        return stats;
+    }
+
+    /**
+     * 运行时调整回放或合成数据源的倍速，1 为原始速度，小于等于 0 为不限速
+     * @return 当前数据源不支持倍速（遥控器 SDK）时返回 false
+     */
+    public synchronized boolean setSourceSpeed(double speed) {
+        if (!(channelSource instanceof PacedChannelSource)) {
+            return false;
+        }
+        ((PacedChannelSource) channelSource).setSpeed(speed);
+        return true;
+    }
+
+    private void applyAdaptiveRate(ChannelSource source) {
+        if (source instanceof RCChannelSampler) {
+            ((RCChannelSampler) source).setAdaptiveRate(adaptiveSampling ? adaptiveRate : null);
+        }
+    }
+
+    /**
+     * 开始向 Flutter 推送通道值
+     * 由数据源按固定频率输出通道，每帧编码为二进制后通过 BasicMessageChannel 推送一次，Flutter 端无需再轮询
+     * SDK 采样器在遥控器连接成功后才开始采样
+     * @param rateHz 采样频率，范围 50~200Hz；启用自适应采样时为活动频率
+     */
+    public synchronized void startKeyChannelStream(int rateHz) {
+        changeDetector.requestKeyframe();
+        keyChannelStreaming = true;
+        RCEventLog.log(RCEventLog.STREAM_STARTED, rateHz);
+        ChannelSource source = channelSource;
+        source.setRateHz(rateHz);
+        if (source instanceof RCChannelSampler && connection.getState() != RCConnection.STATE_CONNECTED) {
+            samplerPausedByDisconnect = true;
+            return;
+        }
+        source.start();
+    }
+
+    /**
+     * 停止推送通道值并停止数据源
+     */
+    public synchronized void stopKeyChannelStream() {
+        channelSource.stop();
+        samplerPausedByDisconnect = false;
+        keyChannelStreaming = false;
+        RCEventLog.log(RCEventLog.STREAM_STOPPED);
+        mainHandler.post(this::releaseKeys);
+    }
+
+    /**
+     * 运行时调整采样频率
+     * @param rateHz 采样频率，范围 50~200Hz；启用自适应采样时为活动频率
+     */
+    public void setKeyChannelRate(int rateHz) {
+        getChannelSource().setRateHz(rateHz);
+    }
+
+    /**
+     * 配置通道变化检测
+     * @param deadbands 各通道死区阈值，为 null 时保持不变
+     * @param keyframeIntervalMs 关键帧间隔（毫秒），为 null 时保持不变
+     */
+    public void configureChangeDetector(int[] deadbands, Integer keyframeIntervalMs) {
+        if (deadbands != null) {
+            changeDetector.setDeadbands(deadbands);
+        }
+        if (keyframeIntervalMs != null) {
+            changeDetector.setKeyframeIntervalMs(keyframeIntervalMs);
+        }
+        changeDetector.requestKeyframe();
+    }
+
+    /**
+     * 输入线程：解码一帧并发布到帧队列，由主线程统一分发
+     */
+    private void onChannelFrame(int[] raw, long captureNanos) {
+        // 采集时间换算到 System.nanoTime 的时钟，与主线程和 Dart 端的时间戳可以直接相减
+        long captureMonoNanos = liveClock
+                ? System.nanoTime() - (SystemClock.elapsedRealtimeNanos() - captureNanos) : 0;
+        // 飞行记录保存原始值，之后的处理都使用调理后的值；
+        // 只记录遥控器的实时数据，回放和合成数据写回记录目录会被当作实时数据再次回放
+        if (liveClock) {
+            flightRecorder.recordFrame(raw, captureNanos);
+            connection.onFrame();
+        }
+        int[] value = conditioner.condition(raw, captureNanos);
+        // 回放数据源的时间戳不是实时时间，按到达时间估计，回放按原始节奏进行时两者间隔一致
+        estimator.record(value, value.length, captureMonoNanos != 0 ? captureMonoNanos : System.nanoTime());
+        RCFrameSnapshot snapshot = frameSnapshot;
+        if (snapshot != null) {
+            snapshot.write(value, captureNanos, captureMonoNanos);
+        }
+        RCFrameRing.Frame frame = frameRing.claim();
+        if (frame == null) {
+            // 主线程积压，丢弃本帧；下一帧发送关键帧让 Flutter 端重新同步
+            changeDetector.requestKeyframe();
+            RCEventLog.log(RCEventLog.FRAME_DROPPED, (int) frameRing.getDroppedFrames());
+            return;
+        }
+        frame.timestampNanos = captureNanos;
+        // 按键事件时间使用采集时刻，不包含采样回调到这里的排队时间
+        long uptimeMillis = SystemClock.uptimeMillis();
+        frame.eventTime = captureMonoNanos != 0
+                ? uptimeMillis - (System.nanoTime() - captureMonoNanos) / 1_000_000 : uptimeMillis;
+        inputDecoder.decode(value, frame);
+        boolean keyChanged = frame.leftKeyCode != publishedLeftKeyCode
+                || frame.rightKeyCode != publishedRightKeyCode || keyResyncRequested;
+        // 只推送超出死区的通道，摇杆静止时不产生任何平台通道消息
+        frame.changedMask = keyChannelStreaming ? changeDetector.detect(value, captureNanos) : 0;
+        frame.captureMonoNanos = captureMonoNanos;
+        frame.decodedMonoNanos = System.nanoTime();
+        if (captureMonoNanos != 0) {
+            inputLatency.record(frame.decodedMonoNanos - captureMonoNanos);
+        }
+        frame.subscriberSlots = subscriptions.select(value, frame.channelCount, captureNanos,
+                frame.subscriberMasks, frame.subscriberIds);
+        if (frame.changedMask == 0 && frame.buttonFlags == 0 && frame.edgeEventCount == 0
+                && frame.comboEventCount == 0 && !keyChanged
+                && frame.subscriberSlots == 0) {
+            // 没有任何需要主线程处理的内容
+            return;
+        }
+        publishedLeftKeyCode = frame.leftKeyCode;
+        publishedRightKeyCode = frame.rightKeyCode;
+        keyResyncRequested = false;
+        frameRing.publish();
+        if (drainScheduled.compareAndSet(false, true)) {
+            mainHandler.post(drainRunnable);
+        }
+    }
+
+    /**
+     * 主线程：处理帧队列中的所有帧，其间产生的按键事件合并为一批分发
+     */
+    private void drainFrames() {
+        drainScheduled.set(false);
+        RCFrameRing.Frame frame;
+        while ((frame = frameRing.peek()) != null) {
+            try {
+                dispatchFrame(frame);
+            } catch (Exception e) {
+                Log.e(TAG, "Error in dispatchFrame: " + e.getMessage(), e);
             }
+            frameRing.release();
+        }
+        flushKeyEvents();
+    }
 
-            // 右
-            if (x > 1500 && x < 1650) {
-                // 1档位
-                return KeyEvent.KEYCODE_NUMPAD_DIVIDE;
+    private void dispatchFrame(RCFrameRing.Frame frame) {
+        long dispatchNanos = System.nanoTime();
+        handoffLatency.record(dispatchNanos - frame.decodedMonoNanos);
+        ButtonEventListener listener = buttonEventListener;
+        if (listener != null) {
+            if ((frame.buttonFlags & RCFrameRing.BUTTON_LEFT_PRESSED) != 0) {
+                listener.onLeftButtonPressed();
             }
-            if (x > 1650 && x < 1800) {
-                // 2档位
-                return KeyEvent.KEYCODE_NUMPAD_MULTIPLY;
+            if ((frame.buttonFlags & RCFrameRing.BUTTON_RIGHT_PRESSED) != 0) {
+                listener.onRightButtonPressed();
             }
-            if (x > 1800 && x <= 1950) {
-                // 3档位
-                return KeyEvent.KEYCODE_NUMPAD_SUBTRACT;
+        }
+        if (frame.edgeEventCount > 0) {
+            // 边沿事件很少出现，按需拷贝；int[] 由 StandardMessageCodec 编码为 Int32List
+            activity.getRcChannel().invokeMethod("onRcEdgeEvents",
+                    Arrays.copyOf(frame.edgeEvents, frame.edgeEventCount));
+        }
+        if (frame.comboEventCount > 0) {
+            activity.getRcChannel().invokeMethod("onRcCombos",
+                    Arrays.copyOf(frame.comboEvents, frame.comboEventCount));
+        }
+        if (keyTracker.getBatchSize() > RCKeyStateTracker.MAX_BATCH - RCKeyStateTracker.MAX_FRAME_EVENTS) {
+            flushKeyEvents();
+        }
+        keyTracker.update(RCKeyStateTracker.SLOT_LEFT_STICK, frame.leftKeyCode, frame.eventTime);
+        keyTracker.update(RCKeyStateTracker.SLOT_RIGHT_STICK, frame.rightKeyCode, frame.eventTime);
+        if ((frame.buttonFlags & RCFrameRing.BUTTON_LEFT_PRESSED) != 0) {
+            keyTracker.tap(RCKeyCodes.KEYCODE_BUTTON_L2, frame.eventTime);
+        }
+        if ((frame.buttonFlags & RCFrameRing.BUTTON_RIGHT_PRESSED) != 0) {
+            keyTracker.tap(RCKeyCodes.KEYCODE_BUTTON_R2, frame.eventTime);
+        }
+        if (frame.changedMask != 0 && keyChannelStreaming) {
+            ByteBuffer buffer = frameCodec.encode(frame.channels, frame.changedMask, frame.timestampNanos,
+                    frame.captureMonoNanos, System.nanoTime());
+            // send 会同步拷贝缓冲区内容，返回后即可复用
+            activity.getKeyFrameChannel().send(buffer);
+        }
+        int slots = frame.subscriberSlots;
+        while (slots != 0) {
+            int slot = Integer.numberOfTrailingZeros(slots);
+            slots &= slots - 1;
+            RCSubscription subscription = subscriptions.get(slot);
+            // 选中后到分发前订阅者可能已经取消，槽位也可能被新的订阅者占用
+            if (subscription != null && subscription.getId() == frame.subscriberIds[slot]) {
+                subscription.deliver(frame.channels, frame.channelCount, frame.subscriberMasks[slot],
+                        frame.timestampNanos, frame.captureMonoNanos);
             }
+        }
+        long doneNanos = System.nanoTime();
+        dispatchLatency.record(doneNanos - dispatchNanos);
+        if (frame.captureMonoNanos != 0) {
+            nativeLatency.record(doneNanos - frame.captureMonoNanos);
+        }
+    }
 
-            // 下摇杆
-            if (y < 1500 && y > 1350) {
-                // 1档位
-                return KeyEvent.KEYCODE_NUMPAD_4;
-            }
-            if (y > 1350 && y < 1200) {
-                // 2档位
-                return KeyEvent.KEYCODE_NUMPAD_5;
+    /**
+     * 主线程：分发本批次的按键事件，并按最早到期的按住键重新安排重复
+     */
+    private void flushKeyEvents() {
+        int count = keyTracker.getBatchSize();
+        for (int i = 0; i < count; i++) {
+            KeyEvent event = new KeyEvent(keyTracker.getDownTime(i), keyTracker.getEventTime(i),
+                    keyTracker.getAction(i), keyTracker.getKeyCode(i), keyTracker.getRepeatCount(i),
+                    12, 0, 0, 0, -1);
+            try {
+                activity.dispatchKeyEvent(event);
+            } catch (Exception e) {
+                Log.e(TAG, "Error in dispatchKeyEvent: " + e.getMessage(), e);
             }
-            if (y < 1200 && y >= 1050) {
-                // 3档位
-                return KeyEvent.KEYCODE_NUMPAD_6;
+            RCEventLog.log(RCEventLog.KEY_EVENT, event.getAction(), event.getKeyCode(), event.getRepeatCount());
+        }
+        if (count > 0) {
+            RCEventLog.log(RCEventLog.KEY_BATCH, count);
+        }
+        keyTracker.clearBatch();
+        mainHandler.removeCallbacks(keyRepeatRunnable);
+        long next = keyTracker.nextRepeatMillis();
+        if (next >= 0) {
+            mainHandler.postAtTime(keyRepeatRunnable, next);
+        }
+    }
+
+    /**
+     * 抬起所有按住的键，下一帧重新按当前分区按下
+     */
+    private void releaseKeys() {
+        keyResyncRequested = true;
+        keyTracker.releaseAll(SystemClock.uptimeMillis());
+        flushKeyEvents();
+    }
+
+    /**
+     * 配置摇杆按住时的按键重复，参数为 null 时保持不变
+     * @param repeatDelayMs 按住多久后开始重复
+     * @param repeatIntervalMs 重复间隔，0 表示不重复
+     */
+    public void configureKeyRepeat(Integer repeatDelayMs, Integer repeatIntervalMs) {
+        keyTracker.setRepeat(
+                repeatDelayMs != null ? repeatDelayMs : keyTracker.getRepeatDelayMs(),
+                repeatIntervalMs != null ? repeatIntervalMs : keyTracker.getRepeatIntervalMs());
+        flushKeyEvents();
+    }
+
+    /**
+     * 按键统计：重复配置、当前按住的键、按下 / 重复 / 抬起 / 单击次数和分发批次数
+     */
+    public Map<String, Object> getKeyStats() {
+        return keyTracker.getStats();
+    }
+
+    /**
+     * 主线程：订阅通道帧，帧通过独立的 BasicMessageChannel 推送，通道名为 keyFrames/{id}，帧格式见 RCFrameCodec
+     * 订阅者只在数据源运行时收到帧，与 startKeyChannelStream 的全量推送互不影响
+     * @param channelMask 订阅的通道，bit i 对应通道 i
+     * @param maxRateHz 最高投递频率，0 表示不限制
+     * @param mode 投递方式，见 RCSubscription
+     * @param deadband MODE_ON_CHANGE 时通道变化超过该值才投递
+     * @return 订阅 id
+     */
+    public int subscribeFrames(int channelMask, int maxRateHz, int mode, int deadband) {
+        int id = nextSubscriptionId;
+        RCSubscription subscription = new RCSubscription(id, channelMask, maxRateHz, mode, deadband);
+        BasicMessageChannel<ByteBuffer> channel = new BasicMessageChannel<>(activity.getBinaryMessenger(),
+                activity.getKeyFrameChannelName() + "/" + id, BinaryCodec.INSTANCE_DIRECT);
+        subscription.setOutput((message, onDelivered) -> {
+            if (onDelivered == null) {
+                channel.send(message);
+            } else {
+                channel.send(message, reply -> onDelivered.run());
             }
+        });
+        subscriptions.add(subscription);
+        nextSubscriptionId++;
+        return id;
+    }
+
+    /**
+     * 主线程：取消订阅
+     * @return 订阅是否存在
+     */
+    public boolean unsubscribeFrames(int id) {
+        RCSubscription subscription = subscriptions.remove(id);
+        if (subscription == null) {
+            return false;
+        }
+        subscription.close();
+        return true;
+    }
+
+    /**
+     * 各订阅者的配置和统计：选中、限频丢弃、投递和合并的帧数
+     */
+    public List<Map<String, Object>> getSubscriptionStats() {
+        return subscriptions.getStats();
+    }
 
-            // 上摇杆
-            if (y > 1500 && y < 1650) {
-                // 1档位
-                return KeyEvent.KEYCODE_NUMPAD_1;
+    /**
+     * 添加一个附加设备并立即启动；设备的帧和事件按批次推送到 devices/{id}，格式见 RCDeviceContext，
+     * 数传消息推送到 linkMessages/{id}，格式见 RCLinkBatcher
+     * 遥控器 SDK 只有一个通道采样器，附加设备只能使用回放、合成等数据源；UART0 由主设备使用
+     * @param id 设备 id，1 ~ RCDeviceContext.MAX_DEVICES - 1
+     * @param source 通道数据源，由设备独占
+     * @param port 数传链路，没有数传时为 null
+     * @param edgeProfile 边沿检测配置，为 null 时使用默认配置
+     * @param comboProfile 组合配置，为 null 时不识别组合
+     */
+    public synchronized void addDevice(int id, ChannelSource source, RCLinkPort port,
+                                       RCEdgeDetector.Profile edgeProfile, RCComboRecognizer.Profile comboProfile) {
+        if (id <= RCDeviceContext.PRIMARY_DEVICE_ID || id >= RCDeviceContext.MAX_DEVICES) {
+            throw new IllegalArgumentException("device id out of range: " + id);
+        }
+        if (devices[id] != null) {
+            throw new IllegalArgumentException("device " + id + " already exists");
+        }
+        if (source instanceof RCChannelSampler) {
+            throw new IllegalArgumentException("sdk source is reserved for device 0");
+        }
+        if (port instanceof SdkLinkPort) {
+            Uart uart = ((SdkLinkPort) port).getUart();
+            if (uart == linkPort.getUart()) {
+                throw new IllegalArgumentException(port.getName() + " is reserved for device 0");
             }
-            if (y > 1650 && y < 1800) {
-                // 2档位
-                return KeyEvent.KEYCODE_NUMPAD_2;
+            for (RCDeviceContext device : devices) {
+                if (device != null && device.getLinkPort() instanceof SdkLinkPort
+                        && ((SdkLinkPort) device.getLinkPort()).getUart() == uart) {
+                    throw new IllegalArgumentException(port.getName() + " is used by device " + device.getId());
+                }
             }
-            if (y > 1800 && y <= 1950) {
-                // 3档位
-                return KeyEvent.KEYCODE_NUMPAD_3;
+        }
+        BinaryMessenger messenger = activity.getBinaryMessenger();
+        BasicMessageChannel<ByteBuffer> channel = new BasicMessageChannel<>(messenger,
+                activity.getDeviceChannelName() + "/" + id, BinaryCodec.INSTANCE_DIRECT);
+        RCLinkBatcher batcher = port != null ? new RCLinkBatcher(new BasicMessageChannel<>(messenger,
+                activity.getLinkMessageChannelName() + "/" + id, BinaryCodec.INSTANCE_DIRECT)) : null;
+        RCDeviceContext device = new RCDeviceContext(id, source, port, batcher, (batch, onSent) ->
+                mainHandler.post(() -> {
+                    // send 同步拷贝缓冲区内容，返回后即可交还工作线程
+                    channel.send(batch);
+                    onSent.run();
+                }));
+        device.loadEdgeProfile(edgeProfile != null ? edgeProfile : RCEdgeDetector.Profile.defaultProfile());
+        if (comboProfile != null) {
+            device.loadComboProfile(comboProfile);
+        }
+        for (Map.Entry<Integer, Integer> entry : mavlinkCrcExtras.entrySet()) {
+            device.setMavlinkCrcExtra(entry.getKey(), entry.getValue());
+        }
+        devices[id] = device;
+        device.start();
+        if (port != null && port.needsRcConnection() && connection.getState() == RCConnection.STATE_CONNECTED) {
+            device.connectLink();
+        }
+    }
+
+    /**
+     * 停止并移除附加设备
+     * @return 设备是否存在
+     */
+    public synchronized boolean removeDevice(int id) {
+        if (id <= RCDeviceContext.PRIMARY_DEVICE_ID || id >= RCDeviceContext.MAX_DEVICES || devices[id] == null) {
+            return false;
+        }
+        devices[id].close();
+        devices[id] = null;
+        return true;
+    }
+
+    private synchronized void removeAllDevices() {
+        for (int id = 0; id < devices.length; id++) {
+            if (devices[id] != null) {
+                devices[id].close();
+                devices[id] = null;
             }
+        }
+    }
 
-        } else {
-            // 左摇杆保持原样
-            if (x < 1400) return KeyEvent.KEYCODE_DPAD_LEFT;
-            if (x > 1600) return KeyEvent.KEYCODE_DPAD_RIGHT;
-            if (y < 1400) return KeyEvent.KEYCODE_DPAD_UP;
-            if (y > 1600) return KeyEvent.KEYCODE_DPAD_DOWN;
+    /**
+     * 通过附加设备的数传链路发送数据，见 sendPipelineData
+     * @return 设备没有数传链路或队列已满时返回 false
+     */
+    public synchronized boolean sendDeviceData(int id, byte[] data, Integer tag) {
+        if (id <= RCDeviceContext.PRIMARY_DEVICE_ID || id >= RCDeviceContext.MAX_DEVICES || devices[id] == null) {
+            throw new IllegalArgumentException("unknown device: " + id);
         }
-        return KeyEvent.KEYCODE_UNKNOWN;
+        return devices[id].sendLinkData(data, tag);
     }
 
-    private void sendKeyEvent(long eventTime, int keyCode) {
-        KeyEvent downEvent = new KeyEvent(eventTime, eventTime,
-            KeyEvent.ACTION_DOWN, keyCode, 0,12,0,0,0,-1);
-        boolean downResult = activity.dispatchKeyEvent(downEvent);
-        Log.d(TAG, "Key down event dispatched: " + downResult + " for key: " + keyCode);
-        
-        KeyEvent upEvent = new KeyEvent(eventTime, eventTime,
-            KeyEvent.ACTION_UP, keyCode, 0,12,0,0,0,-1);
-        boolean upResult = activity.dispatchKeyEvent(upEvent);
-        Log.d(TAG, "Key up event dispatched: " + upResult + " for key: " + keyCode);
+    /**
+     * 各附加设备的统计，见 RCDeviceContext.getStats
+     */
+    public synchronized List<Map<String, Object>> getDeviceStats() {
+        List<Map<String, Object>> stats = new ArrayList<>();
+        for (RCDeviceContext device : devices) {
+            if (device != null) {
+                stats.add(device.getStats());
+            }
+        }
+        return stats;
     }
 
     public void disconnect() {
-        RCSDKManager.INSTANCE.disconnectRC();
-        if (rcPipeline != null) {
-            PipelineManager.INSTANCE.disconnectPipeline(rcPipeline);
+        stopKeyChannelStream();
+        removeAllDevices();
+        linkWriter.stop();
+        linkWriter.setOutput(null);
+        flightRecorder.stop();
+        // 在连接线程上断开 SDK 和数传管道，之后结束连接线程
+        connection.release();
+    }
+
+    /**
+     * 通过数传管道发送数据，实际写入在写线程上合并完成
+     * @param data 待发送数据
+     * @param tag 为 null 时按顺序发送；否则同 tag 尚未发送的数据只保留最新一条
+     * @return 队列已满时返回 false
+     */
+    public boolean sendPipelineData(byte[] data, Integer tag) {
+        return linkWriter.send(data, tag);
+    }
+
+    /**
+     * 数传管道上行统计
+     */
+    public Map<String, Object> getPipelineStats() {
+        return linkWriter.getStats();
+    }
+
+    /**
+     * 开始飞行记录，记录遥控器的通道帧（回放和合成数据源的帧不记录）和数传管道收发的数据
+     * @param segmentBytes 单个段文件大小
+     * @param maxBytes 记录文件总大小上限
+     * @return 当前段文件路径，打开失败时返回 null
+     */
+    public String startFlightRecorder(int segmentBytes, long maxBytes) {
+        File file = flightRecorder.start(segmentBytes, maxBytes);
+        return file != null ? file.getAbsolutePath() : null;
+    }
+
+    public void stopFlightRecorder() {
+        flightRecorder.stop();
+    }
+
+    public void flushFlightRecorder() {
+        flightRecorder.flush();
+    }
+
+    public Map<String, Object> getFlightRecorderStats() {
+        return flightRecorder.getStats();
+    }
+
+    public File getFlightRecordDirectory() {
+        return flightRecorder.getDirectory();
+    }
+
+    /**
+     * 回放用的段文件，不包括正在记录的会话（其最后一段仍在写入）
+     * @param path 单个段文件，或目录（按时间顺序包括其中所有会话）；为 null 时为飞行记录目录中最近一次结束的会话
+     */
+    public File[] getReplaySegments(File path) {
+        if (path != null && !path.isDirectory()) {
+            return new File[] {path};
         }
+        File[] segments = RCFlightRecord.listSegments(path != null ? path : flightRecorder.getDirectory(),
+                flightRecorder.getActiveSession());
+        return path != null ? segments : RCFlightRecord.latestSession(segments);
     }
 
-    private CommListener getRCCommListener(int type, String tag) {
-        return new CommListener() {
-            @Override
-            public void onConnectSuccess() {
-                Log.d(TAG, tag + " 连接成功");
-            }
+    /**
+     * 原生端各阶段延迟统计，每个阶段包含 count/mean/p50/p90/p99/p999/max/jitter（纳秒）
+     */
+    public Map<String, Object> getLatencyStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("input", inputLatency.toMap());
+        stats.put("handoff", handoffLatency.toMap());
+        stats.put("dispatch", dispatchLatency.toMap());
+        stats.put("native", nativeLatency.toMap());
+        return stats;
+    }
 
-            @Override
-            public void onConnectFail(SkyException e) {
-                Log.d(TAG, tag + " 连接失败" + e);
-            }
+    public void resetLatencyStats() {
+        inputLatency.reset();
+        handoffLatency.reset();
+        dispatchLatency.reset();
+        nativeLatency.reset();
+    }
 
-            @Override
-            public void onDisconnect() {
-                Log.d(TAG, tag + " 断开连接");
+    /**
+     * 注册 common.xml 之外的 MAVLink 消息（例如 ardupilotmega 方言）的 CRC_EXTRA，
+     * 对主设备和所有附加设备生效，包括之后添加的设备；没有 CRC_EXTRA 的消息会被丢弃
+     * @param crcExtras 消息 ID → CRC_EXTRA，任一项无效时都不生效
+     */
+    public synchronized void setMavlinkCrcExtras(Map<Integer, Integer> crcExtras) {
+        for (Map.Entry<Integer, Integer> entry : crcExtras.entrySet()) {
+            int messageId = entry.getKey();
+            int extra = entry.getValue();
+            if (messageId < 0 || messageId > 0xFFFFFF) {
+                throw new IllegalArgumentException("invalid message id: " + messageId);
             }
-
-            @Override
-            public void onReadData(byte[] bytes) {
-                if (type == 0) {
-                    return;
+            if (extra < 0 || extra > 0xFF) {
+                throw new IllegalArgumentException("invalid crc extra: " + extra);
+            }
+        }
+        for (Map.Entry<Integer, Integer> entry : crcExtras.entrySet()) {
+            linkDecoder.setCrcExtra(entry.getKey(), entry.getValue());
+            for (RCDeviceContext device : devices) {
+                if (device != null) {
+                    device.setMavlinkCrcExtra(entry.getKey(), entry.getValue());
                 }
             }
-        };
+            mavlinkCrcExtras.put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * 数传管道解析统计
+     * unknownMessages 为没有 CRC_EXTRA 而丢弃的帧数，lastUnknownMessageId 为其中最近一帧的消息 ID（没有时为 -1）
+     */
+    public Map<String, Object> getLinkStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("bytesReceived", linkParser.getBytesReceived());
+        stats.put("framesDecoded", linkParser.getFramesDecoded());
+        stats.put("checksumErrors", linkParser.getChecksumErrors());
+        stats.put("unknownMessages", linkParser.getUnknownMessages());
+        stats.put("lastUnknownMessageId", linkDecoder.getLastUnknownMessageId());
+        stats.put("bytesSkipped", linkParser.getBytesSkipped());
+        stats.put("bytesOverflowed", linkParser.getBytesOverflowed());
+        stats.put("messagesBatched", linkBatcher.getMessagesBatched());
+        stats.put("messagesDropped", linkBatcher.getMessagesDropped());
+        stats.put("batchesSent", linkBatcher.getBatchesSent());
+        return stats;
     }
-} 
\ No newline at end of file
+}
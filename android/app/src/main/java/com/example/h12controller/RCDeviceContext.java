@@ -0,0 +1,378 @@
+package com.example.h12controller;
+
+import android.os.SystemClock;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 附加设备（第二台遥控器、外接手柄、另一路串口数传等）的独立输入上下文
+ * 每个设备有自己的通道数据源、解码器（分区 / 边沿 / 组合状态）、变化检测、帧队列和数传链路，
+ * 设备之间不共享任何可变状态；主设备（id 0）仍由 RCControllerManager 直接处理
+ *
+ * 线程：数据源的回调线程解码并发布帧；设备自己的工作线程（rc-device-{id}）把帧编码为带设备 id 的记录，
+ * 按 FLUSH_INTERVAL_MS 合并为一个批次交给 Output，同一时刻最多一个批次在发送中，
+ * 主线程每个设备每个间隔最多处理一次消息；数传链路的收发在链路自己的线程和 RCLinkWriter 的写线程上
+ *
+ * 批次格式（小端），由若干条记录紧密排列：
+ * <pre>
+ *   0  uint16 length    payload 字节数
+ *   2  uint8  type      RECORD_FRAME / RECORD_EDGE_EVENTS / RECORD_COMBOS
+ *   3  uint8  deviceId
+ *   4  uint8[] payload  RECORD_FRAME 为 RCFrameCodec 格式的一帧，其余为 int32 数组
+ * </pre>
+ */
+public class RCDeviceContext {
+    public static final int MAX_DEVICES = 8;
+    public static final int PRIMARY_DEVICE_ID = 0;
+
+    public static final int RECORD_HEADER_BYTES = 4;
+    public static final int RECORD_FRAME = 1;
+    public static final int RECORD_EDGE_EVENTS = 2;
+    public static final int RECORD_COMBOS = 3;
+
+    private static final int FRAME_RING_CAPACITY = 64;
+    private static final int BATCH_CAPACITY = 16 * 1024;
+    private static final long FLUSH_INTERVAL_MS = 10;
+    private static final long FLUSH_INTERVAL_NANOS = FLUSH_INTERVAL_MS * 1_000_000L;
+
+    /**
+     * 批次发送目标
+     */
+    public interface Output {
+        /**
+         * @param batch 批次，position 为长度
+         * @param onSent 批次可以复用时调用，可以在任意线程调用
+         */
+        void send(ByteBuffer batch, Runnable onSent);
+    }
+
+    private final int id;
+    private final ChannelSource source;
+    private final RCLinkPort linkPort;  // 可以为 null
+    private final MavlinkFrameDecoder linkDecoder;  // linkPort 为 null 时为 null
+    private final RCLinkParser linkParser;
+    private final RCLinkWriter linkWriter;
+    private final Output output;
+
+    // 输入线程
+    private final RCInputDecoder inputDecoder = new RCInputDecoder();
+    private final RCChangeDetector changeDetector = new RCChangeDetector();
+    private final RCFrameRing frameRing = new RCFrameRing(FRAME_RING_CAPACITY);
+    private final boolean liveClock;
+    private volatile long framesPublished = 0;
+
+    // 工作线程
+    private final RCFrameCodec frameCodec = new RCFrameCodec();
+    private ByteBuffer filling = newBatch();
+    private ByteBuffer sending = newBatch();
+    private long batchStartNanos;
+    private volatile boolean sendInFlight = false;
+    private volatile long recordsBatched = 0;
+    private volatile long recordsDropped = 0;
+    private volatile long batchesSent = 0;
+    private volatile int batchBytesHighWatermark = 0;
+    private final Runnable sentRunnable = this::onBatchSent;
+
+    private final AtomicBoolean wakeRequested = new AtomicBoolean(false);
+    private volatile Thread worker;
+    private volatile boolean running = false;
+
+    /**
+     * @param id 设备 id，1 ~ MAX_DEVICES - 1
+     * @param source 通道数据源，由设备独占
+     * @param linkPort 数传链路，没有数传时为 null
+     * @param linkSink 数传解析出的消息接收者，linkPort 为 null 时忽略
+     * @param output 批次发送目标
+     */
+    public RCDeviceContext(int id, ChannelSource source, RCLinkPort linkPort,
+                           RCLinkParser.MessageSink linkSink, Output output) {
+        if (id <= PRIMARY_DEVICE_ID || id >= MAX_DEVICES) {
+            throw new IllegalArgumentException("device id out of range: " + id);
+        }
+        this.id = id;
+        this.source = source;
+        this.liveClock = source.isLiveClock();
+        this.output = output;
+        this.linkPort = linkPort;
+        if (linkPort != null) {
+            this.linkDecoder = new MavlinkFrameDecoder();
+            this.linkParser = new RCLinkParser(linkDecoder, linkSink);
+            this.linkWriter = new RCLinkWriter();
+            linkPort.setListener(linkListener);
+        } else {
+            this.linkDecoder = null;
+            this.linkParser = null;
+            this.linkWriter = null;
+        }
+    }
+
+    private static ByteBuffer newBatch() {
+        return ByteBuffer.allocateDirect(BATCH_CAPACITY).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public RCLinkPort getLinkPort() {
+        return linkPort;
+    }
+
+    public void loadEdgeProfile(RCEdgeDetector.Profile profile) {
+        inputDecoder.loadEdgeProfile(profile);
+    }
+
+    public void loadComboProfile(RCComboRecognizer.Profile profile) {
+        inputDecoder.loadComboProfile(profile);
+    }
+
+    /**
+     * 注册数传链路上 MAVLink 消息的 CRC_EXTRA，没有数传时忽略
+     */
+    public void setMavlinkCrcExtra(int messageId, int extra) {
+        if (linkDecoder != null) {
+            linkDecoder.setCrcExtra(messageId, extra);
+        }
+    }
+
+    /**
+     * 启动工作线程和数据源；需要遥控器连接的链路由调用方在连接后调用 connectLink
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        // 丢弃上次 close 时尚未发送的帧和记录，重新从关键帧开始
+        while (frameRing.peek() != null) {
+            frameRing.release();
+        }
+        filling.clear();
+        changeDetector.requestKeyframe();
+        Thread thread = new Thread(this::runWorker, "rc-device-" + id);
+        worker = thread;
+        thread.start();
+        if (linkWriter != null) {
+            linkWriter.start();
+            if (!linkPort.needsRcConnection()) {
+                linkPort.connect();
+            }
+        }
+        source.setFrameListener(this::onChannelFrame);
+        source.start();
+    }
+
+    /**
+     * 停止数据源、断开链路并结束工作线程，尚未发送的记录丢弃
+     */
+    public synchronized void close() {
+        if (!running) {
+            return;
+        }
+        source.stop();
+        source.setFrameListener(null);
+        if (linkWriter != null) {
+            linkWriter.setOutput(null);
+            linkWriter.stop();
+            linkPort.disconnect();
+        }
+        running = false;
+        Thread thread = worker;
+        worker = null;
+        LockSupport.unpark(thread);
+        try {
+            // 之后再次 start 时不会有两个工作线程同时写批次
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public void connectLink() {
+        if (linkPort != null && running) {
+            linkPort.connect();
+        }
+    }
+
+    public void disconnectLink() {
+        if (linkPort != null) {
+            linkPort.disconnect();
+        }
+    }
+
+    /**
+     * 通过设备的数传链路发送数据，见 RCLinkWriter.send
+     * @return 没有数传链路或队列已满时返回 false
+     */
+    public boolean sendLinkData(byte[] data, Integer tag) {
+        return linkWriter != null && linkWriter.send(data, tag);
+    }
+
+    private final RCLinkPort.Listener linkListener = new RCLinkPort.Listener() {
+        @Override
+        public void onConnected() {
+            linkParser.reset();
+            linkWriter.setOutput(linkPort::write);
+        }
+
+        @Override
+        public void onReadData(byte[] bytes) {
+            linkParser.feed(bytes);
+        }
+
+        @Override
+        public void onDisconnected() {
+            linkWriter.setOutput(null);
+        }
+    };
+
+    /**
+     * 输入线程：解码一帧，有需要推送的内容时发布到帧队列并唤醒工作线程
+     */
+    private void onChannelFrame(int[] value, long captureNanos) {
+        RCFrameRing.Frame frame = frameRing.claim();
+        if (frame == null) {
+            // 工作线程积压，丢弃本帧；下一帧发送关键帧让 Flutter 端重新同步
+            changeDetector.requestKeyframe();
+            return;
+        }
+        frame.deviceId = id;
+        frame.timestampNanos = captureNanos;
+        frame.captureMonoNanos = liveClock
+                ? System.nanoTime() - (SystemClock.elapsedRealtimeNanos() - captureNanos) : 0;
+        inputDecoder.decode(value, frame);
+        frame.changedMask = changeDetector.detect(value, captureNanos);
+        frame.decodedMonoNanos = System.nanoTime();
+        frame.subscriberSlots = 0;
+        if (frame.changedMask == 0 && frame.edgeEventCount == 0 && frame.comboEventCount == 0) {
+            return;
+        }
+        frameRing.publish();
+        framesPublished++;
+        if (wakeRequested.compareAndSet(false, true)) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    /**
+     * 工作线程：把帧队列中的帧写入批次，批次满 FLUSH_INTERVAL_MS 且上一个批次已发送完时交给 Output
+     */
+    private void runWorker() {
+        while (running) {
+            wakeRequested.set(false);
+            drainFrames();
+            if (filling.position() == 0) {
+                if (!wakeRequested.get()) {
+                    LockSupport.park(this);
+                }
+                continue;
+            }
+            long wait = batchStartNanos + FLUSH_INTERVAL_NANOS - System.nanoTime();
+            if (wait <= 0 && !sendInFlight) {
+                flush();
+            } else if (!wakeRequested.get()) {
+                // 发送中时等待 onBatchSent 唤醒
+                LockSupport.parkNanos(this, wait > 0 ? wait : FLUSH_INTERVAL_NANOS);
+            }
+        }
+    }
+
+    private void drainFrames() {
+        RCFrameRing.Frame frame;
+        while ((frame = frameRing.peek()) != null) {
+            if (filling.position() == 0) {
+                batchStartNanos = System.nanoTime();
+            }
+            if (frame.changedMask != 0) {
+                ByteBuffer encoded = frameCodec.encode(frame.channels, frame.changedMask, frame.timestampNanos,
+                        frame.captureMonoNanos, System.nanoTime());
+                encoded.flip();
+                if (!putRecord(RECORD_FRAME, encoded.remaining())) {
+                    // 丢弃的帧中可能有变化的通道，下一帧发送关键帧
+                    changeDetector.requestKeyframe();
+                } else {
+                    filling.put(encoded);
+                }
+            }
+            putEvents(RECORD_EDGE_EVENTS, frame.edgeEvents, frame.edgeEventCount);
+            putEvents(RECORD_COMBOS, frame.comboEvents, frame.comboEventCount);
+            frameRing.release();
+        }
+    }
+
+    private void putEvents(int type, int[] events, int count) {
+        if (count > 0 && putRecord(type, count * 4)) {
+            for (int i = 0; i < count; i++) {
+                filling.putInt(events[i]);
+            }
+        }
+    }
+
+    /**
+     * 写入记录头，批次剩余空间不足时返回 false 并计入丢弃
+     */
+    private boolean putRecord(int type, int length) {
+        if (filling.remaining() < RECORD_HEADER_BYTES + length) {
+            recordsDropped++;
+            return false;
+        }
+        filling.putShort((short) length);
+        filling.put((byte) type);
+        filling.put((byte) id);
+        recordsBatched++;
+        return true;
+    }
+
+    private void flush() {
+        ByteBuffer batch = filling;
+        filling = sending;
+        sending = batch;
+        if (batch.position() > batchBytesHighWatermark) {
+            batchBytesHighWatermark = batch.position();
+        }
+        sendInFlight = true;
+        batchesSent++;
+        output.send(batch, sentRunnable);
+    }
+
+    private void onBatchSent() {
+        sending.clear();
+        sendInFlight = false;
+        LockSupport.unpark(worker);
+    }
+
+    /**
+     * 统计：数据源、帧和记录数、批次数、数传解析和上行统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("id", id);
+        stats.put("running", running);
+        stats.put("sourceRunning", source.isRunning());
+        stats.put("rateHz", source.getRateHz());
+        stats.put("framesPublished", framesPublished);
+        stats.put("framesDropped", frameRing.getDroppedFrames());
+        stats.put("recordsBatched", recordsBatched);
+        stats.put("recordsDropped", recordsDropped);
+        stats.put("batchesSent", batchesSent);
+        stats.put("batchBytesHighWatermark", batchBytesHighWatermark);
+        stats.put("combo", inputDecoder.getComboStats());
+        if (linkPort != null) {
+            Map<String, Object> link = new LinkedHashMap<>();
+            link.put("port", linkPort.getName());
+            link.put("bytesReceived", linkParser.getBytesReceived());
+            link.put("framesDecoded", linkParser.getFramesDecoded());
+            link.put("checksumErrors", linkParser.getChecksumErrors());
+            link.put("unknownMessages", linkParser.getUnknownMessages());
+            link.put("lastUnknownMessageId", linkDecoder.getLastUnknownMessageId());
+            link.put("writer", linkWriter.getStats());
+            stats.put("link", link);
+        }
+        return stats;
+    }
+}
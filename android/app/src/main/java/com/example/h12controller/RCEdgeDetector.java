@@ -0,0 +1,440 @@
+package com.example.h12controller;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 通道边沿 / 手势检测器
+ * 一次遍历整帧，把配置过的通道按阈值分为低 / 中 / 高三档，与上一帧的档位比较后输出紧凑的事件：
+ * 按下、松开、长按、双击、拨杆档位变化。取代原来按钮专用的 lastLeftCButtonValue / 1950 / 1050 判断
+ *
+ * 档位状态按每通道 2 位打包在 long 中，按下、长按等状态是 int 位图，检测过程不分配内存；
+ * 事件是打包的 int（类型、通道、档位），用 eventType / eventChannel / eventPosition 解析
+ *
+ * 通道类型：
+ *   KIND_BUTTON  自复位按键，高档为按下；输出 PRESS / RELEASE / LONG_PRESS / DOUBLE_CLICK
+ *   KIND_TOGGLE  每按一次在低档和高档之间切换的按键（原 C 按钮的判断方式），进入低档或高档即为一次 PRESS；
+ *                也输出 DOUBLE_CLICK
+ *   KIND_SWITCH  多档拨杆 / 滚轮，档位稳定变化时输出 SWITCH
+ */
+public class RCEdgeDetector {
+    public static final int KIND_NONE = 0;
+    public static final int KIND_BUTTON = 1;
+    public static final int KIND_TOGGLE = 2;
+    public static final int KIND_SWITCH = 3;
+
+    public static final int POSITION_LOW = 0;
+    public static final int POSITION_MID = 1;
+    public static final int POSITION_HIGH = 2;
+
+    public static final int EVENT_PRESS = 1;
+    public static final int EVENT_RELEASE = 2;
+    public static final int EVENT_LONG_PRESS = 3;
+    public static final int EVENT_DOUBLE_CLICK = 4;
+    public static final int EVENT_SWITCH = 5;
+
+    // 每个通道每帧最多两个事件（PRESS + DOUBLE_CLICK）
+    public static final int MAX_EVENTS = RCFrameCodec.MAX_CHANNELS * 2;
+
+    public static final int DEFAULT_LOW_THRESHOLD = 1300;
+    public static final int DEFAULT_HIGH_THRESHOLD = 1700;
+    public static final int DEFAULT_HYSTERESIS = 20;
+    public static final int DEFAULT_DEBOUNCE_MS = 20;
+    public static final int DEFAULT_LONG_PRESS_MS = 800;
+    public static final int DEFAULT_DOUBLE_CLICK_MS = 400;
+
+    private static final long POSITION_BITS = 3L;
+
+    /**
+     * 检测配置
+     */
+    public static class Profile {
+        private final int[] kinds = new int[RCFrameCodec.MAX_CHANNELS];
+        private final int[] lowThresholds = new int[RCFrameCodec.MAX_CHANNELS];
+        private final int[] highThresholds = new int[RCFrameCodec.MAX_CHANNELS];
+        private int hysteresis = DEFAULT_HYSTERESIS;
+        private int debounceMs = DEFAULT_DEBOUNCE_MS;
+        private int longPressMs = DEFAULT_LONG_PRESS_MS;
+        private int doubleClickMs = DEFAULT_DOUBLE_CLICK_MS;
+
+        public Profile() {
+            Arrays.fill(lowThresholds, DEFAULT_LOW_THRESHOLD);
+            Arrays.fill(highThresholds, DEFAULT_HIGH_THRESHOLD);
+        }
+
+        public Profile setChannel(int channel, int kind) {
+            return setChannel(channel, kind, DEFAULT_LOW_THRESHOLD, DEFAULT_HIGH_THRESHOLD);
+        }
+
+        /**
+         * 配置一个通道
+         * @param channel 通道序号
+         * @param kind KIND_*
+         * @param lowThreshold 低于该值为低档
+         * @param highThreshold 高于该值为高档
+         */
+        public Profile setChannel(int channel, int kind, int lowThreshold, int highThreshold) {
+            if (channel < 0 || channel >= RCFrameCodec.MAX_CHANNELS) {
+                throw new IllegalArgumentException("invalid channel: " + channel);
+            }
+            if (kind < KIND_NONE || kind > KIND_SWITCH) {
+                throw new IllegalArgumentException("invalid kind: " + kind);
+            }
+            if (lowThreshold > highThreshold) {
+                throw new IllegalArgumentException("invalid thresholds: " + lowThreshold + ".." + highThreshold);
+            }
+            kinds[channel] = kind;
+            lowThresholds[channel] = lowThreshold;
+            highThresholds[channel] = highThreshold;
+            return this;
+        }
+
+        public Profile setHysteresis(int hysteresis) {
+            this.hysteresis = Math.max(0, hysteresis);
+            return this;
+        }
+
+        /**
+         * 新档位需要保持 debounceMs 才被接受，0 表示不去抖
+         */
+        public Profile setDebounceMs(int debounceMs) {
+            this.debounceMs = Math.max(0, debounceMs);
+            return this;
+        }
+
+        public Profile setLongPressMs(int longPressMs) {
+            this.longPressMs = Math.max(1, longPressMs);
+            return this;
+        }
+
+        public Profile setDoubleClickMs(int doubleClickMs) {
+            this.doubleClickMs = Math.max(0, doubleClickMs);
+            return this;
+        }
+
+        /**
+         * 默认配置：通道 8 / 9 为左右 C 按钮，4 / 5 为左右拨杆，10 / 11 为左右滚轮
+         */
+        public static Profile defaultProfile() {
+            return new Profile()
+                    .setChannel(4, KIND_SWITCH)
+                    .setChannel(5, KIND_SWITCH)
+                    .setChannel(8, KIND_TOGGLE)
+                    .setChannel(9, KIND_TOGGLE)
+                    .setChannel(10, KIND_SWITCH)
+                    .setChannel(11, KIND_SWITCH);
+        }
+
+        /**
+         * 从 Flutter 传入的配置解析
+         * 格式：{hysteresis: int, debounceMs: int, longPressMs: int, doubleClickMs: int,
+         *        channels: [{channel: int, kind: 'button'|'toggle'|'switch'|'none', low: int, high: int}]}
+         */
+        public static Profile fromMap(Map<?, ?> map) {
+            Profile profile = new Profile();
+            Object value = map.get("hysteresis");
+            if (value instanceof Number) {
+                profile.setHysteresis(((Number) value).intValue());
+            }
+            value = map.get("debounceMs");
+            if (value instanceof Number) {
+                profile.setDebounceMs(((Number) value).intValue());
+            }
+            value = map.get("longPressMs");
+            if (value instanceof Number) {
+                profile.setLongPressMs(((Number) value).intValue());
+            }
+            value = map.get("doubleClickMs");
+            if (value instanceof Number) {
+                profile.setDoubleClickMs(((Number) value).intValue());
+            }
+            Object channels = map.get("channels");
+            if (!(channels instanceof List)) {
+                throw new IllegalArgumentException("channels is required");
+            }
+            for (Object item : (List<?>) channels) {
+                if (!(item instanceof Map)) {
+                    throw new IllegalArgumentException("invalid channel: " + item);
+                }
+                Map<?, ?> channel = (Map<?, ?>) item;
+                Object index = channel.get("channel");
+                if (!(index instanceof Number)) {
+                    throw new IllegalArgumentException("channel is required");
+                }
+                Object low = channel.get("low");
+                Object high = channel.get("high");
+                profile.setChannel(((Number) index).intValue(), parseKind(channel.get("kind")),
+                        low instanceof Number ? ((Number) low).intValue() : DEFAULT_LOW_THRESHOLD,
+                        high instanceof Number ? ((Number) high).intValue() : DEFAULT_HIGH_THRESHOLD);
+            }
+            return profile;
+        }
+
+        private static int parseKind(Object kind) {
+            if ("button".equals(kind)) {
+                return KIND_BUTTON;
+            }
+            if ("toggle".equals(kind)) {
+                return KIND_TOGGLE;
+            }
+            if ("switch".equals(kind)) {
+                return KIND_SWITCH;
+            }
+            if (kind == null || "none".equals(kind)) {
+                return KIND_NONE;
+            }
+            throw new IllegalArgumentException("invalid kind: " + kind);
+        }
+    }
+
+    /**
+     * 编译后的配置，创建后不再修改，可以整体替换
+     */
+    private static final class Table {
+        final int activeMask;  // 参与检测的通道
+        final int buttonMask;
+        final int toggleMask;
+        final int[] lowThresholds;
+        final int[] highThresholds;
+        final int hysteresis;
+        final long debounceNanos;
+        final long longPressNanos;
+        final long doubleClickNanos;
+
+        Table(Profile profile) {
+            int active = 0;
+            int buttons = 0;
+            int toggles = 0;
+            for (int i = 0; i < RCFrameCodec.MAX_CHANNELS; i++) {
+                int kind = profile.kinds[i];
+                if (kind != KIND_NONE) {
+                    active |= 1 << i;
+                }
+                if (kind == KIND_BUTTON) {
+                    buttons |= 1 << i;
+                } else if (kind == KIND_TOGGLE) {
+                    toggles |= 1 << i;
+                }
+            }
+            activeMask = active;
+            buttonMask = buttons;
+            toggleMask = toggles;
+            lowThresholds = profile.lowThresholds.clone();
+            highThresholds = profile.highThresholds.clone();
+            hysteresis = profile.hysteresis;
+            debounceNanos = profile.debounceMs * 1_000_000L;
+            longPressNanos = profile.longPressMs * 1_000_000L;
+            doubleClickNanos = profile.doubleClickMs * 1_000_000L;
+        }
+    }
+
+    private volatile Table table;
+    private Table stateTable;
+
+    // 以下状态仅检测线程使用
+    private long positions = 0;  // 每通道 2 位的稳定档位
+    private long candidates = 0;  // 每通道 2 位的待确认档位
+    private int candidateMask = 0;
+    private int initializedMask = 0;  // 已有基准档位的通道，第一帧只建立基准不输出事件
+    private int pressedMask = 0;
+    private int longPressFiredMask = 0;
+    private int clickPendingMask = 0;  // 双击窗口内有一次按下
+    private final long[] candidateSince = new long[RCFrameCodec.MAX_CHANNELS];
+    private final long[] pressedSince = new long[RCFrameCodec.MAX_CHANNELS];
+    private final long[] lastPressNanos = new long[RCFrameCodec.MAX_CHANNELS];
+
+    private final int[] events = new int[MAX_EVENTS];
+    private int eventCount = 0;
+
+    public RCEdgeDetector() {
+        this(Profile.defaultProfile());
+    }
+
+    public RCEdgeDetector(Profile profile) {
+        load(profile);
+    }
+
+    /**
+     * 加载新配置，可以在采样过程中从其他线程调用；之后的第一帧重新建立基准
+     */
+    public void load(Profile profile) {
+        table = new Table(profile);
+    }
+
+    /**
+     * 检测一帧
+     * @param channels 通道值
+     * @param count 有效通道数
+     * @param nowNanos 帧时间（单调时钟），用于去抖、长按和双击判断
+     * @return 本帧的事件个数，事件通过 getEvent 读取，下一次 detect 前有效
+     */
+    public int detect(int[] channels, int count, long nowNanos) {
+        Table t = table;
+        if (t != stateTable) {
+            stateTable = t;
+            positions = 0;
+            candidateMask = 0;
+            initializedMask = 0;
+            pressedMask = 0;
+            longPressFiredMask = 0;
+            clickPendingMask = 0;
+        }
+        eventCount = 0;
+        int active = t.activeMask & RCFrameCodec.fullMask(Math.min(count, RCFrameCodec.MAX_CHANNELS));
+        long state = positions;
+
+        int remaining = active;
+        while (remaining != 0) {
+            int channel = Integer.numberOfTrailingZeros(remaining);
+            int bit = 1 << channel;
+            remaining &= remaining - 1;
+
+            int shift = channel << 1;
+            int current = (int) (state >>> shift & POSITION_BITS);
+            int position = classify(t, channel, channels[channel], current, (initializedMask & bit) != 0);
+            if ((initializedMask & bit) == 0) {
+                state = (state & ~(POSITION_BITS << shift)) | ((long) position << shift);
+                initializedMask |= bit;
+                if ((t.buttonMask & bit) != 0 && position == POSITION_HIGH) {
+                    // 启动时已按下，不输出 PRESS，也不触发长按
+                    pressedMask |= bit;
+                    longPressFiredMask |= bit;
+                }
+                continue;
+            }
+            if (position == current) {
+                candidateMask &= ~bit;
+                continue;
+            }
+            if (t.debounceNanos > 0) {
+                int candidate = (int) (candidates >>> shift & POSITION_BITS);
+                if ((candidateMask & bit) == 0 || candidate != position) {
+                    candidates = (candidates & ~(POSITION_BITS << shift)) | ((long) position << shift);
+                    candidateMask |= bit;
+                    candidateSince[channel] = nowNanos;
+                    continue;
+                }
+                if (nowNanos - candidateSince[channel] < t.debounceNanos) {
+                    continue;
+                }
+            }
+            candidateMask &= ~bit;
+            state = (state & ~(POSITION_BITS << shift)) | ((long) position << shift);
+            onTransition(t, channel, bit, position, nowNanos);
+        }
+        positions = state;
+
+        // 长按：按下时间超过阈值且尚未触发
+        int held = pressedMask & ~longPressFiredMask & active;
+        while (held != 0) {
+            int channel = Integer.numberOfTrailingZeros(held);
+            held &= held - 1;
+            if (nowNanos - pressedSince[channel] >= t.longPressNanos) {
+                longPressFiredMask |= 1 << channel;
+                clickPendingMask &= ~(1 << channel);
+                emit(EVENT_LONG_PRESS, channel, POSITION_HIGH);
+            }
+        }
+        return eventCount;
+    }
+
+    private void onTransition(Table t, int channel, int bit, int position, long nowNanos) {
+        if ((t.buttonMask & bit) != 0) {
+            boolean pressed = position == POSITION_HIGH;
+            if (pressed == ((pressedMask & bit) != 0)) {
+                // 低档和中档之间的变化对按键没有意义
+                return;
+            }
+            if (pressed) {
+                pressedMask |= bit;
+                longPressFiredMask &= ~bit;
+                pressedSince[channel] = nowNanos;
+                onPress(t, channel, bit, position, nowNanos);
+            } else {
+                pressedMask &= ~bit;
+                emit(EVENT_RELEASE, channel, position);
+            }
+        } else if ((t.toggleMask & bit) != 0) {
+            if (position != POSITION_MID) {
+                onPress(t, channel, bit, position, nowNanos);
+            }
+        } else {
+            emit(EVENT_SWITCH, channel, position);
+        }
+    }
+
+    private void onPress(Table t, int channel, int bit, int position, long nowNanos) {
+        emit(EVENT_PRESS, channel, position);
+        if ((clickPendingMask & bit) != 0 && nowNanos - lastPressNanos[channel] <= t.doubleClickNanos) {
+            // 第三次按下重新开始计数，不会连续输出双击
+            clickPendingMask &= ~bit;
+            emit(EVENT_DOUBLE_CLICK, channel, position);
+        } else {
+            clickPendingMask |= bit;
+            lastPressNanos[channel] = nowNanos;
+        }
+    }
+
+    /**
+     * 按阈值分档；已有稳定档位时需要越过阈值 hysteresis 以上才离开该档
+     */
+    private static int classify(Table t, int channel, int value, int current, boolean initialized) {
+        int low = t.lowThresholds[channel];
+        int high = t.highThresholds[channel];
+        if (initialized) {
+            if (current == POSITION_LOW) {
+                low += t.hysteresis;
+            } else if (current == POSITION_HIGH) {
+                high -= t.hysteresis;
+            } else {
+                low -= t.hysteresis;
+                high += t.hysteresis;
+            }
+        }
+        return value < low ? POSITION_LOW : (value > high ? POSITION_HIGH : POSITION_MID);
+    }
+
+    private void emit(int type, int channel, int position) {
+        if (eventCount < MAX_EVENTS) {
+            events[eventCount++] = packEvent(type, channel, position);
+        }
+    }
+
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * @return 打包的事件，见 packEvent
+     */
+    public int getEvent(int index) {
+        return events[index];
+    }
+
+    /**
+     * 通道当前的稳定档位
+     */
+    public int getPosition(int channel) {
+        return (int) (positions >>> (channel << 1) & POSITION_BITS);
+    }
+
+    /**
+     * 事件格式：bit 0~4 通道，bit 5~6 档位，bit 8~11 类型
+     */
+    public static int packEvent(int type, int channel, int position) {
+        return (type << 8) | (position << 5) | channel;
+    }
+
+    public static int eventType(int event) {
+        return (event >>> 8) & 0xF;
+    }
+
+    public static int eventChannel(int event) {
+        return event & 0x1F;
+    }
+
+    public static int eventPosition(int event) {
+        return (event >>> 5) & 0x3;
+    }
+}
@@ -0,0 +1,332 @@
+package com.example.h12controller;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 输入子系统的二进制事件日志
+ * 每条记录是固定布局的 4 个 long：时间戳、事件头（事件 id、级别、参数个数、线程 id）、最多 4 个 int 参数，
+ * 写入预分配的无锁环形缓冲，热路径上不拼接字符串、不分配内存、不调用 logd；
+ * 只有从 Flutter 导出、进程崩溃或打开回显时才按事件的格式串格式化
+ *
+ * 事件常量的高位是级别，低于当前级别的事件在第一次比较后直接返回
+ *
+ * 多个线程可以同时写：写入位置由原子计数器分配，每个槽位带序号，导出时丢弃正在写或已被覆盖的记录
+ */
+public final class RCEventLog {
+    private static final String TAG = "RCEvent";
+
+    public static final int LEVEL_TRACE = 0;
+    public static final int LEVEL_DEBUG = 1;
+    public static final int LEVEL_INFO = 2;
+    public static final int LEVEL_WARN = 3;
+    public static final int LEVEL_ERROR = 4;
+    public static final int LEVEL_OFF = 5;
+    public static final int DEFAULT_LEVEL = LEVEL_DEBUG;
+
+    private static final String[] LEVEL_NAMES = {"T", "D", "I", "W", "E"};
+
+    public static final int MAX_ARGS = 4;
+    public static final int CAPACITY = 4096;
+
+    // 事件：级别 << 8 | id，格式串中的 {} 依次替换为参数
+    public static final int SAMPLER_STARTED = LEVEL_INFO << 8 | 1;
+    public static final int SAMPLER_STOPPED = LEVEL_INFO << 8 | 2;
+    public static final int READ_FAILED = LEVEL_WARN << 8 | 3;
+    public static final int READ_TIMED_OUT = LEVEL_WARN << 8 | 4;
+    public static final int RATE_CHANGED = LEVEL_DEBUG << 8 | 5;
+    public static final int FRAME_DROPPED = LEVEL_WARN << 8 | 6;
+    public static final int BUTTON_PRESSED = LEVEL_DEBUG << 8 | 7;
+    public static final int EDGE_EVENT = LEVEL_TRACE << 8 | 8;
+    public static final int KEY_EVENT = LEVEL_DEBUG << 8 | 9;
+    public static final int KEY_BATCH = LEVEL_TRACE << 8 | 10;
+    public static final int SOURCE_CHANGED = LEVEL_INFO << 8 | 11;
+    public static final int STREAM_STARTED = LEVEL_INFO << 8 | 12;
+    public static final int STREAM_STOPPED = LEVEL_INFO << 8 | 13;
+    public static final int CONNECT_ATTEMPT = LEVEL_INFO << 8 | 14;
+    public static final int CONNECTED = LEVEL_INFO << 8 | 15;
+    public static final int DISCONNECTED = LEVEL_WARN << 8 | 16;
+    public static final int RECONNECT_SCHEDULED = LEVEL_INFO << 8 | 17;
+    public static final int FIRST_FRAME = LEVEL_INFO << 8 | 18;
+    public static final int COMBO_RECOGNIZED = LEVEL_DEBUG << 8 | 19;
+
+    private static final String[] FORMATS = new String[256];
+
+    static {
+        FORMATS[SAMPLER_STARTED & 0xff] = "sampler started at {}Hz";
+        FORMATS[SAMPLER_STOPPED & 0xff] = "sampler stopped";
+        FORMATS[READ_FAILED & 0xff] = "channel read {} failed";
+        FORMATS[READ_TIMED_OUT & 0xff] = "channel read timed out";
+        FORMATS[RATE_CHANGED & 0xff] = "sampling rate {}Hz -> {}Hz";
+        FORMATS[FRAME_DROPPED & 0xff] = "frame ring full, {} frames dropped";
+        FORMATS[BUTTON_PRESSED & 0xff] = "button pressed on channel {}";
+        FORMATS[EDGE_EVENT & 0xff] = "edge type={} channel={} position={}";
+        FORMATS[KEY_EVENT & 0xff] = "key action={} keyCode={} repeat={}";
+        FORMATS[KEY_BATCH & 0xff] = "{} key events dispatched";
+        FORMATS[SOURCE_CHANGED & 0xff] = "channel source changed, live clock={}";
+        FORMATS[STREAM_STARTED & 0xff] = "key channel stream started at {}Hz";
+        FORMATS[STREAM_STOPPED & 0xff] = "key channel stream stopped";
+        FORMATS[CONNECT_ATTEMPT & 0xff] = "connecting to rc, attempt {}";
+        FORMATS[CONNECTED & 0xff] = "rc connected after {}ms, reconnect={}";
+        FORMATS[DISCONNECTED & 0xff] = "rc disconnected";
+        FORMATS[RECONNECT_SCHEDULED & 0xff] = "reconnecting in {}ms, attempt {}";
+        FORMATS[FIRST_FRAME & 0xff] = "first frame {}ms after connect";
+        FORMATS[COMBO_RECOGNIZED & 0xff] = "combo {} recognized";
+    }
+
+    private static final int RECORD_WORDS = 4;
+    private static final int MASK = CAPACITY - 1;
+
+    private static final AtomicLong cursor = new AtomicLong();
+    private static final AtomicLongArray sequences = new AtomicLongArray(CAPACITY);  // 槽位内记录的序号 + 1，0 表示无效
+    private static final AtomicLongArray records = new AtomicLongArray(CAPACITY * RECORD_WORDS);
+
+    private static volatile int level = DEFAULT_LEVEL;
+    private static volatile boolean echo = false;
+
+    private RCEventLog() {
+    }
+
+    /**
+     * 设置记录级别，低于该级别的事件不记录；LEVEL_OFF 关闭
+     */
+    public static void setLevel(int minLevel) {
+        if (minLevel < LEVEL_TRACE || minLevel > LEVEL_OFF) {
+            throw new IllegalArgumentException("invalid log level: " + minLevel);
+        }
+        level = minLevel;
+    }
+
+    public static int getLevel() {
+        return level;
+    }
+
+    /**
+     * 是否同时格式化输出到 RCLog，仅用于调试
+     */
+    public static void setEcho(boolean enabled) {
+        echo = enabled;
+    }
+
+    public static boolean isEnabled(int event) {
+        return (event >>> 8) >= level;
+    }
+
+    public static void log(int event) {
+        if ((event >>> 8) >= level) {
+            write(event, 0, 0, 0, 0, 0);
+        }
+    }
+
+    public static void log(int event, int a0) {
+        if ((event >>> 8) >= level) {
+            write(event, 1, a0, 0, 0, 0);
+        }
+    }
+
+    public static void log(int event, int a0, int a1) {
+        if ((event >>> 8) >= level) {
+            write(event, 2, a0, a1, 0, 0);
+        }
+    }
+
+    public static void log(int event, int a0, int a1, int a2) {
+        if ((event >>> 8) >= level) {
+            write(event, 3, a0, a1, a2, 0);
+        }
+    }
+
+    public static void log(int event, int a0, int a1, int a2, int a3) {
+        if ((event >>> 8) >= level) {
+            write(event, 4, a0, a1, a2, a3);
+        }
+    }
+
+    private static void write(int event, int argCount, int a0, int a1, int a2, int a3) {
+        long timestamp = System.nanoTime();
+        long index = cursor.getAndIncrement();
+        int slot = (int) (index & MASK);
+        int base = slot * RECORD_WORDS;
+        long header = (event & 0xffffL) | ((long) argCount << 16)
+                | ((Thread.currentThread().getId() & 0xffffffffL) << 32);
+        // 先作废槽位再写内容，最后写入序号；lazySet 之间保持顺序
+        sequences.lazySet(slot, 0);
+        records.lazySet(base, timestamp);
+        records.lazySet(base + 1, header);
+        records.lazySet(base + 2, (a0 & 0xffffffffL) | ((long) a1 << 32));
+        records.lazySet(base + 3, (a2 & 0xffffffffL) | ((long) a3 << 32));
+        sequences.lazySet(slot, index + 1);
+        if (echo) {
+            RCLog.d(TAG, format(event, argCount, a0, a1, a2, a3));
+        }
+    }
+
+    /**
+     * 按时间顺序导出环形缓冲中仍然有效的记录
+     * @param maxRecords 最多导出最近的多少条
+     * @return 每条记录一行：单调时钟毫秒、级别、线程 id、格式化后的内容
+     */
+    public static List<String> dump(int maxRecords) {
+        long end = cursor.get();
+        long start = Math.max(0, end - Math.min(CAPACITY, Math.max(0, maxRecords)));
+        List<String> lines = new ArrayList<>((int) (end - start));
+        StringBuilder line = new StringBuilder(96);
+        for (long index = start; index < end; index++) {
+            int slot = (int) (index & MASK);
+            int base = slot * RECORD_WORDS;
+            if (sequences.get(slot) != index + 1) {
+                continue;
+            }
+            long timestamp = records.get(base);
+            long header = records.get(base + 1);
+            long args01 = records.get(base + 2);
+            long args23 = records.get(base + 3);
+            if (sequences.get(slot) != index + 1) {
+                // 读取过程中被覆盖
+                continue;
+            }
+            int event = (int) (header & 0xffff);
+            int argCount = (int) ((header >>> 16) & 0xf);
+            line.setLength(0);
+            long micros = timestamp / 1000;
+            line.append(micros / 1000).append('.');
+            appendPadded(line, (int) (micros % 1000), 3);
+            line.append(' ').append(LEVEL_NAMES[Math.min(event >>> 8, LEVEL_ERROR)])
+                    .append(" t").append(header >>> 32).append(": ");
+            appendFormatted(line, event, argCount,
+                    (int) args01, (int) (args01 >>> 32), (int) args23, (int) (args23 >>> 32));
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+
+    public static List<String> dump() {
+        return dump(CAPACITY);
+    }
+
+    /**
+     * 导出到文件，例如崩溃时
+     */
+    public static void dumpTo(File file) throws IOException {
+        try (Writer writer = new FileWriter(file)) {
+            for (String line : dump()) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        }
+    }
+
+    /**
+     * 安装未捕获异常处理：崩溃时先把事件日志导出到文件，再交给原来的处理器
+     * @param file 崩溃时的导出文件，每次崩溃覆盖
+     */
+    public static void installCrashDump(File file) {
+        final Thread.UncaughtExceptionHandler previous = Thread.getDefaultUncaughtExceptionHandler();
+        if (previous instanceof CrashDumpHandler) {
+            return;
+        }
+        Thread.setDefaultUncaughtExceptionHandler(new CrashDumpHandler(file, previous));
+    }
+
+    public static Map<String, Object> getStats() {
+        long written = cursor.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("level", level);
+        stats.put("capacity", CAPACITY);
+        stats.put("written", written);
+        stats.put("overwritten", Math.max(0, written - CAPACITY));
+        return stats;
+    }
+
+    /**
+     * 清空缓冲，只在没有并发写入时调用（例如测试或压测前）
+     */
+    public static void clear() {
+        for (int i = 0; i < CAPACITY; i++) {
+            sequences.set(i, 0);
+        }
+    }
+
+    private static String format(int event, int argCount, int a0, int a1, int a2, int a3) {
+        StringBuilder builder = new StringBuilder(64);
+        appendFormatted(builder, event, argCount, a0, a1, a2, a3);
+        return builder.toString();
+    }
+
+    private static void appendFormatted(StringBuilder out, int event, int argCount,
+                                        int a0, int a1, int a2, int a3) {
+        String format = FORMATS[event & 0xff];
+        if (format == null) {
+            out.append("event ").append(event & 0xff);
+            for (int i = 0; i < argCount; i++) {
+                out.append(' ').append(arg(i, a0, a1, a2, a3));
+            }
+            return;
+        }
+        int arg = 0;
+        int from = 0;
+        int at;
+        while ((at = format.indexOf("{}", from)) >= 0) {
+            out.append(format, from, at);
+            if (arg < argCount) {
+                out.append(arg(arg, a0, a1, a2, a3));
+            } else {
+                out.append("{}");
+            }
+            arg++;
+            from = at + 2;
+        }
+        out.append(format, from, format.length());
+    }
+
+    private static int arg(int index, int a0, int a1, int a2, int a3) {
+        switch (index) {
+            case 0:
+                return a0;
+            case 1:
+                return a1;
+            case 2:
+                return a2;
+            default:
+                return a3;
+        }
+    }
+
+    private static void appendPadded(StringBuilder out, int value, int width) {
+        String digits = Integer.toString(value);
+        for (int i = digits.length(); i < width; i++) {
+            out.append('0');
+        }
+        out.append(digits);
+    }
+
+    private static final class CrashDumpHandler implements Thread.UncaughtExceptionHandler {
+        private final File file;
+        private final Thread.UncaughtExceptionHandler previous;
+
+        CrashDumpHandler(File file, Thread.UncaughtExceptionHandler previous) {
+            this.file = file;
+            this.previous = previous;
+        }
+
+        @Override
+        public void uncaughtException(Thread thread, Throwable error) {
+            try {
+                dumpTo(file);
+            } catch (Throwable ignored) {
+                // 导出失败不能影响原来的崩溃处理
+            }
+            if (previous != null) {
+                previous.uncaughtException(thread, error);
+            }
+        }
+    }
+}
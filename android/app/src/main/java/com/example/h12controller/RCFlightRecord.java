@@ -0,0 +1,140 @@
+package com.example.h12controller;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 飞行记录文件格式，由 RCFlightRecorder 写入、ReplayChannelSource 读取
+ *
+ * 段文件格式（小端）：
+ * <pre>
+ *   段头 32 字节
+ *   0  uint32 magic              'RCFR'
+ *   4  uint16 version
+ *   6  uint16 headerLength
+ *   8  uint32 segmentIndex
+ *  12  uint32 reserved
+ *  16  int64  elapsedRealtimeNanos 段创建时的单调时钟
+ *  24  int64  currentTimeMillis    段创建时的墙上时间
+ *
+ *   记录头 12 字节，之后紧跟载荷
+ *   0  uint8  type     0 = 结束，1 = 通道帧，2 = 数传数据
+ *   1  uint8  flags    通道帧：通道数；数传数据：0 = 接收，1 = 发送
+ *   2  uint16 length   载荷长度
+ *   4  int64  timestampNanos  elapsedRealtimeNanos
+ *
+ *   通道帧载荷固定为 32 个 int16 通道值；数传数据载荷为原始字节
+ * </pre>
+ * type 字节在记录其余部分写完后才写入，读取时遇到 0 即为段结束
+ *
+ * 段文件名为 flight-{会话开始的 currentTimeMillis}-{segmentIndex}.rcf，一次 start 到 stop 为一个会话，
+ * 会话的第一段 segmentIndex 为 0；不同会话的时间戳互不连续（中间可能间隔很久，重启后还会倒退）
+ */
+public final class RCFlightRecord {
+    public static final int MAGIC = 0x52464352;  // "RCFR"
+    public static final int VERSION = 1;
+    public static final int SEGMENT_HEADER_BYTES = 32;
+    public static final int RECORD_HEADER_BYTES = 12;
+
+    public static final int RECORD_END = 0;
+    public static final int RECORD_FRAME = 1;
+    public static final int RECORD_PIPELINE = 2;
+
+    public static final int DIRECTION_RX = 0;
+    public static final int DIRECTION_TX = 1;
+
+    public static final int FRAME_RECORD_BYTES = RECORD_HEADER_BYTES + RCFrameCodec.MAX_CHANNELS * 2;
+
+    public static final String SEGMENT_SUFFIX = ".rcf";
+
+    /**
+     * 段文件的时间顺序：按文件名中的会话时间和段序号的数值比较，段序号超过 4 位时按名称排序会出错；
+     * 文件名不是这个格式的排在后面，相互之间按名称排序
+     */
+    public static final Comparator<File> SEGMENT_ORDER = new Comparator<File>() {
+        @Override
+        public int compare(File a, File b) {
+            long[] keyA = segmentKey(a.getName());
+            long[] keyB = segmentKey(b.getName());
+            if (keyA == null || keyB == null) {
+                if (keyA != keyB) {
+                    return keyA == null ? 1 : -1;
+                }
+                return a.getName().compareTo(b.getName());
+            }
+            int result = Long.compare(keyA[0], keyB[0]);
+            return result != 0 ? result : Long.compare(keyA[1], keyB[1]);
+        }
+    };
+
+    public static final long NO_SESSION = -1;
+
+    /**
+     * 目录中的所有段文件，按时间顺序排列
+     * @param excludeSession 不包括的会话（例如正在记录的会话），NO_SESSION 表示不排除
+     */
+    public static File[] listSegments(File directory, long excludeSession) {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(SEGMENT_SUFFIX));
+        if (files == null) {
+            return new File[0];
+        }
+        List<File> segments = new ArrayList<>();
+        for (File file : files) {
+            if (excludeSession == NO_SESSION || sessionOf(file) != excludeSession) {
+                segments.add(file);
+            }
+        }
+        File[] sorted = segments.toArray(new File[0]);
+        Arrays.sort(sorted, SEGMENT_ORDER);
+        return sorted;
+    }
+
+    /**
+     * 按时间顺序排列的段文件中最后一个会话的所有段
+     */
+    public static File[] latestSession(File[] segments) {
+        if (segments.length == 0) {
+            return segments;
+        }
+        long session = sessionOf(segments[segments.length - 1]);
+        int start = segments.length - 1;
+        while (session != NO_SESSION && start > 0 && sessionOf(segments[start - 1]) == session) {
+            start--;
+        }
+        return Arrays.copyOfRange(segments, start, segments.length);
+    }
+
+    /**
+     * 段文件所属的会话（文件名中的会话时间），文件名不是段文件格式时返回 NO_SESSION
+     */
+    public static long sessionOf(File file) {
+        long[] key = segmentKey(file.getName());
+        return key != null ? key[0] : NO_SESSION;
+    }
+
+    /**
+     * 解析段文件名末尾的 "{会话时间}-{段序号}.rcf"
+     * @return {会话时间, 段序号}，格式不符时返回 null
+     */
+    private static long[] segmentKey(String name) {
+        int end = name.endsWith(SEGMENT_SUFFIX) ? name.length() - SEGMENT_SUFFIX.length() : name.length();
+        int indexStart = name.lastIndexOf('-', end - 1) + 1;
+        if (indexStart <= 1) {
+            return null;
+        }
+        int sessionStart = name.lastIndexOf('-', indexStart - 2) + 1;
+        try {
+            return new long[] {
+                    Long.parseLong(name.substring(sessionStart, indexStart - 1)),
+                    Long.parseLong(name.substring(indexStart, end))};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private RCFlightRecord() {
+    }
+}
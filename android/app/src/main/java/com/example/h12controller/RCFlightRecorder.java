@@ -0,0 +1,434 @@
+package com.example.h12controller;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 飞行记录器
+ * 把每一帧通道值和数传管道的每个数据块追加写入内存映射文件，用于飞行后分析
+ *
+ * 写入只是对映射内存的拷贝，每条记录没有系统调用也不分配内存；
+ * 段文件由后台线程提前创建并映射，写满后直接切换到下一段，写入线程不会等待文件操作；
+ * 旧段文件按总大小清理
+ *
+ * 文件格式见 RCFlightRecord
+ */
+public class RCFlightRecorder {
+    private static final String TAG = "RCFlightRecorder";
+
+    // 超过该长度的数传数据块拆分成多条记录
+    public static final int MAX_PIPELINE_CHUNK = 4096;
+
+    public static final int DEFAULT_SEGMENT_BYTES = 4 * 1024 * 1024;
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+    public static final int MIN_SEGMENT_BYTES = 64 * 1024;
+
+    private static final int PAGE_BYTES = 4096;
+
+    private static final String SEGMENT_PREFIX = "flight-";
+
+    /**
+     * 已映射的段文件，buffer 只由持有 lock 的写入线程访问
+     */
+    private static final class Segment {
+        final File file;
+        final RandomAccessFile raf;
+        final MappedByteBuffer buffer;
+
+        Segment(File file, RandomAccessFile raf, MappedByteBuffer buffer) {
+            this.file = file;
+            this.raf = raf;
+            this.buffer = buffer;
+        }
+    }
+
+    private final File directory;
+    private final Object lock = new Object();
+
+    // 以下字段受 lock 保护
+    private Segment current;
+    private Segment next;
+    private boolean nextRequested = false;
+    private long recordsWritten = 0;
+    private long bytesWritten = 0;
+    private long recordsDropped = 0;
+    private long segmentsCreated = 0;
+    private long segmentsPruned = 0;
+
+    private volatile boolean recording = false;
+    private int segmentBytes = DEFAULT_SEGMENT_BYTES;
+    private long maxBytes = DEFAULT_MAX_BYTES;
+    private long sessionMillis;
+    private int segmentIndex;
+
+    private HandlerThread ioThread;
+    private Handler ioHandler;
+
+    private final Runnable prepareRunnable = new Runnable() {
+        @Override
+        public void run() {
+            prepareNextSegment();
+        }
+    };
+
+    public RCFlightRecorder(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * 开始记录，已在记录时不做任何事
+     * @param segmentBytes 单个段文件大小，最小 MIN_SEGMENT_BYTES
+     * @param maxBytes 所有段文件总大小上限，超出时删除最早的段
+     * @return 当前段文件，打开失败时返回 null
+     */
+    public synchronized File start(int segmentBytes, long maxBytes) {
+        if (recording) {
+            return getCurrentFile();
+        }
+        this.segmentBytes = Math.max(MIN_SEGMENT_BYTES, segmentBytes);
+        this.maxBytes = Math.max(this.segmentBytes * 2L, maxBytes);
+        this.sessionMillis = System.currentTimeMillis();
+        this.segmentIndex = 0;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            Log.e(TAG, "Cannot create " + directory);
+            return null;
+        }
+
+        Segment first = openSegment();
+        if (first == null) {
+            return null;
+        }
+        ioThread = new HandlerThread("rc-flight-recorder");
+        ioThread.start();
+        ioHandler = new Handler(ioThread.getLooper());
+        synchronized (lock) {
+            current = first;
+            nextRequested = true;
+        }
+        recording = true;
+        ioHandler.post(prepareRunnable);
+        return first.file;
+    }
+
+    /**
+     * 停止记录，把已写入的数据刷到磁盘，并把最后一段截断到实际长度
+     * 等后台线程处理完已提交的任务后返回，之后的 start 不会受上一次记录的任务影响
+     */
+    public synchronized void stop() {
+        if (!recording) {
+            return;
+        }
+        recording = false;
+        Segment last;
+        Segment unused;
+        synchronized (lock) {
+            last = current;
+            unused = next;
+            current = null;
+            next = null;
+            nextRequested = false;
+        }
+        final Handler handler = ioHandler;
+        final HandlerThread thread = ioThread;
+        ioHandler = null;
+        ioThread = null;
+        handler.post(() -> {
+            closeSegment(last, true);
+            if (unused != null) {
+                closeSegment(unused, false);
+                if (!unused.file.delete()) {
+                    Log.e(TAG, "Cannot delete " + unused.file);
+                }
+            }
+        });
+        thread.quitSafely();
+        if (Thread.currentThread() != thread) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 把当前段已写入的数据刷到磁盘，在后台线程执行
+     */
+    public synchronized void flush() {
+        if (!recording) {
+            return;
+        }
+        ioHandler.post(() -> {
+            Segment segment;
+            synchronized (lock) {
+                segment = current;
+            }
+            if (segment != null) {
+                // force 与写入线程并发是安全的，最多漏掉正在写的记录
+                segment.buffer.force();
+            }
+        });
+    }
+
+    public boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * 记录一帧通道值，记录长度固定，多于 32 个的通道被忽略
+     */
+    public void recordFrame(int[] channels, long timestampNanos) {
+        if (!recording) {
+            return;
+        }
+        int count = Math.min(channels.length, RCFrameCodec.MAX_CHANNELS);
+        synchronized (lock) {
+            MappedByteBuffer buffer = reserve(RCFlightRecord.FRAME_RECORD_BYTES);
+            if (buffer == null) {
+                return;
+            }
+            int start = buffer.position();
+            int offset = start + RCFlightRecord.RECORD_HEADER_BYTES;
+            for (int i = 0; i < RCFrameCodec.MAX_CHANNELS; i++) {
+                buffer.putShort(offset + i * 2, (short) (i < count ? channels[i] : 0));
+            }
+            commit(buffer, start, RCFlightRecord.RECORD_FRAME, count, RCFrameCodec.MAX_CHANNELS * 2, timestampNanos);
+        }
+    }
+
+    /**
+     * 记录一个数传数据块
+     * @param direction RCFlightRecord.DIRECTION_RX 或 DIRECTION_TX
+     */
+    public void recordPipeline(int direction, byte[] bytes) {
+        if (!recording || bytes == null) {
+            return;
+        }
+        long timestampNanos = SystemClock.elapsedRealtimeNanos();
+        synchronized (lock) {
+            for (int offset = 0; offset < bytes.length; offset += MAX_PIPELINE_CHUNK) {
+                int length = Math.min(MAX_PIPELINE_CHUNK, bytes.length - offset);
+                MappedByteBuffer buffer = reserve(RCFlightRecord.RECORD_HEADER_BYTES + length);
+                if (buffer == null) {
+                    return;
+                }
+                int start = buffer.position();
+                buffer.position(start + RCFlightRecord.RECORD_HEADER_BYTES);
+                buffer.put(bytes, offset, length);
+                commit(buffer, start, RCFlightRecord.RECORD_PIPELINE, direction, length, timestampNanos);
+            }
+        }
+    }
+
+    /**
+     * 在当前段中预留空间，当前段写满时切换到已准备好的下一段
+     * @return 可写入的缓冲，position 为记录起点；没有可用段时返回 null 并计入丢弃数
+     */
+    private MappedByteBuffer reserve(int size) {
+        Segment segment = current;
+        if (segment == null) {
+            recordsDropped++;
+            return null;
+        }
+        if (segment.buffer.remaining() < size) {
+            if (next == null) {
+                // 后台线程还没准备好下一段，丢弃记录而不是在写入线程上创建文件
+                recordsDropped++;
+                requestNextSegment();
+                return null;
+            }
+            final Segment full = segment;
+            current = next;
+            next = null;
+            requestNextSegment();
+            ioHandler.post(() -> closeSegment(full, false));
+            segment = current;
+        }
+        return segment.buffer;
+    }
+
+    private void commit(MappedByteBuffer buffer, int start, int type, int flags, int length, long timestampNanos) {
+        buffer.put(start + 1, (byte) flags);
+        buffer.putShort(start + 2, (short) length);
+        buffer.putLong(start + 4, timestampNanos);
+        // type 最后写入，读取方看到非 0 的 type 时记录已完整
+        buffer.put(start, (byte) type);
+        buffer.position(start + RCFlightRecord.RECORD_HEADER_BYTES + length);
+        recordsWritten++;
+        bytesWritten += RCFlightRecord.RECORD_HEADER_BYTES + length;
+    }
+
+    private void requestNextSegment() {
+        if (!nextRequested) {
+            nextRequested = true;
+            ioHandler.post(prepareRunnable);
+        }
+    }
+
+    /**
+     * 后台线程：创建并映射下一段，然后清理旧段
+     */
+    private void prepareNextSegment() {
+        if (!recording) {
+            return;
+        }
+        Segment segment = openSegment();
+        synchronized (lock) {
+            nextRequested = false;
+            if (segment != null && recording && next == null) {
+                next = segment;
+                segment = null;
+            }
+        }
+        if (segment != null) {
+            // 期间已停止记录，丢弃这个空段
+            closeSegment(segment, false);
+            if (!segment.file.delete()) {
+                Log.e(TAG, "Cannot delete " + segment.file);
+            }
+        }
+        pruneSegments();
+    }
+
+    private Segment openSegment() {
+        File file = new File(directory, String.format("%s%d-%04d%s",
+                SEGMENT_PREFIX, sessionMillis, segmentIndex, RCFlightRecord.SEGMENT_SUFFIX));
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(file, "rw");
+            raf.setLength(segmentBytes);
+            MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            // 预先写入每一页，缺页和磁盘块分配发生在后台线程而不是写入线程
+            for (int i = 0; i < segmentBytes; i += PAGE_BYTES) {
+                buffer.put(i, (byte) 0);
+            }
+            buffer.putInt(0, RCFlightRecord.MAGIC);
+            buffer.putShort(4, (short) RCFlightRecord.VERSION);
+            buffer.putShort(6, (short) RCFlightRecord.SEGMENT_HEADER_BYTES);
+            buffer.putInt(8, segmentIndex);
+            buffer.putLong(16, SystemClock.elapsedRealtimeNanos());
+            buffer.putLong(24, System.currentTimeMillis());
+            buffer.position(RCFlightRecord.SEGMENT_HEADER_BYTES);
+            segmentIndex++;
+            synchronized (lock) {
+                segmentsCreated++;
+            }
+            return new Segment(file, raf, buffer);
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot open segment " + file + ": " + e.getMessage(), e);
+            if (raf != null) {
+                try {
+                    raf.close();
+                } catch (IOException ignored) {
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 后台线程：刷盘并关闭段文件，映射内存在缓冲被回收后释放
+     * @param truncate 是否截断到实际写入长度，只用于不会再被访问的最后一段
+     */
+    private void closeSegment(Segment segment, boolean truncate) {
+        if (segment == null) {
+            return;
+        }
+        try {
+            segment.buffer.force();
+            if (truncate) {
+                segment.raf.setLength(segment.buffer.position());
+            }
+            segment.raf.close();
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot close segment " + segment.file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 后台线程：段文件总大小超出上限时从最早的开始删除，正在使用的段不会被删除
+     */
+    private void pruneSegments() {
+        File[] files = directory.listFiles((dir, name) ->
+                name.startsWith(SEGMENT_PREFIX) && name.endsWith(RCFlightRecord.SEGMENT_SUFFIX));
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, RCFlightRecord.SEGMENT_ORDER);
+        long total = 0;
+        for (File file : files) {
+            total += file.length();
+        }
+        File active;
+        File pending;
+        synchronized (lock) {
+            active = current != null ? current.file : null;
+            pending = next != null ? next.file : null;
+        }
+        for (File file : files) {
+            if (total <= maxBytes) {
+                break;
+            }
+            if (file.equals(active) || file.equals(pending)) {
+                continue;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                total -= length;
+                synchronized (lock) {
+                    segmentsPruned++;
+                }
+            }
+        }
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * 正在记录的会话（段文件名中的会话时间），没有在记录时返回 RCFlightRecord.NO_SESSION
+     */
+    public synchronized long getActiveSession() {
+        return recording ? sessionMillis : RCFlightRecord.NO_SESSION;
+    }
+
+    public File getCurrentFile() {
+        synchronized (lock) {
+            return current != null ? current.file : null;
+        }
+    }
+
+    /**
+     * 统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (lock) {
+            stats.put("recording", recording);
+            stats.put("directory", directory.getAbsolutePath());
+            stats.put("currentFile", current != null ? current.file.getName() : null);
+            stats.put("segmentBytes", segmentBytes);
+            stats.put("maxBytes", maxBytes);
+            stats.put("recordsWritten", recordsWritten);
+            stats.put("bytesWritten", bytesWritten);
+            stats.put("recordsDropped", recordsDropped);
+            stats.put("segmentsCreated", segmentsCreated);
+            stats.put("segmentsPruned", segmentsPruned);
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.h12controller;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 遥控器通道帧二进制编码器
+ *
+ * 帧格式（小端）：
+ * <pre>
+ *   0  uint32 sequence        帧序号
+ *   4  uint32 channelMask     bit i 为 1 表示帧内包含通道 i
+ *   8  int64  timestampNanos  通道源给出的采集时间戳（纳秒）
+ *  16  int64  captureMonoNanos 采集时刻换算到 CLOCK_MONOTONIC 的时间（纳秒），非实时数据源为 0
+ *  24  int64  sendMonoNanos    发送前的 CLOCK_MONOTONIC 时间（纳秒），与 Dart 的 Timeline.now 同一时钟
+ *  32  int16[] values         按通道序号升序排列的通道值，个数等于 channelMask 中 1 的个数
+ * </pre>
+ * 编码复用同一个 direct ByteBuffer，不产生任何装箱或临时对象。
+ * 配合 Flutter 的 BinaryCodec 使用：编码后 position 即为消息长度，不需要 flip。
+ */
+public class RCFrameCodec {
+    public static final int HEADER_BYTES = 32;
+    public static final int MAX_CHANNELS = 32;
+    public static final int MAX_FRAME_BYTES = HEADER_BYTES + MAX_CHANNELS * 2;
+
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(MAX_FRAME_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    private int sequence = 0;
+
+    /**
+     * 生成包含前 count 个通道的掩码
+     */
+    public static int fullMask(int count) {
+        return count >= MAX_CHANNELS ? -1 : (1 << count) - 1;
+    }
+
+    /**
+     * 编码一帧
+     * @param channels 通道值数组
+     * @param channelMask 需要写入的通道掩码，超出 channels 长度的位会被忽略
+     * @param timestampNanos 单调时钟时间戳
+     * @return 复用的缓冲区，position 为帧长度；下一次 encode 前有效
+     */
+    public ByteBuffer encode(int[] channels, int channelMask, long timestampNanos) {
+        return encode(channels, channelMask, timestampNanos, 0, 0);
+    }
+
+    /**
+     * 编码一帧，附带延迟统计用的单调时钟时间戳
+     * @param captureMonoNanos 采集时刻的 CLOCK_MONOTONIC 时间，未知时为 0
+     * @param sendMonoNanos 发送前的 CLOCK_MONOTONIC 时间，未知时为 0
+     */
+    public ByteBuffer encode(int[] channels, int channelMask, long timestampNanos,
+                             long captureMonoNanos, long sendMonoNanos) {
+        int mask = channelMask & fullMask(Math.min(channels.length, MAX_CHANNELS));
+        buffer.clear();
+        buffer.putInt(sequence++);
+        buffer.putInt(mask);
+        buffer.putLong(timestampNanos);
+        buffer.putLong(captureMonoNanos);
+        buffer.putLong(sendMonoNanos);
+        int remaining = mask;
+        while (remaining != 0) {
+            int channel = Integer.numberOfTrailingZeros(remaining);
+            buffer.putShort(toShort(channels[channel]));
+            remaining &= remaining - 1;
+        }
+        return buffer;
+    }
+
+    /**
+     * 已编码的帧数，即下一帧的序号
+     */
+    public int getSequence() {
+        return sequence;
+    }
+
+    private static short toShort(int value) {
+        if (value > Short.MAX_VALUE) {
+            return Short.MAX_VALUE;
+        }
+        if (value < Short.MIN_VALUE) {
+            return Short.MIN_VALUE;
+        }
+        return (short) value;
+    }
+}
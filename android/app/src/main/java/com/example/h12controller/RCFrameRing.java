@@ -0,0 +1,113 @@
+package com.example.h12controller;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单生产者 / 单消费者的无锁帧环形队列
+ * 所有帧对象在创建时预分配，生产者填充后发布，消费者处理后释放，运行过程中不分配内存
+ *
+ * 生产者：输入线程（解码后的帧）
+ * 消费者：主线程（按键分发、推送到 Flutter）；附加设备为设备的工作线程，见 RCDeviceContext
+ */
+public class RCFrameRing {
+
+    /**
+     * 解码后的一帧，只包含基本类型字段
+     */
+    public static final class Frame {
+        public int deviceId;  // 设备 id，主设备为 0，见 RCDeviceContext
+        public final int[] channels = new int[RCFrameCodec.MAX_CHANNELS];
+        public int channelCount;
+        public long timestampNanos;  // 单调时钟（纳秒）
+        public long captureMonoNanos;  // 采集时刻换算到 System.nanoTime 的时间，非实时数据源为 0
+        public long decodedMonoNanos;  // 解码完成、发布前的 System.nanoTime
+        public long eventTime;  // 按键事件时间（uptimeMillis）
+        public int changedMask;  // 需要推送到 Flutter 的通道，0 表示无需推送
+        public int leftKeyCode;  // 左摇杆当前分区的按键码，回中为 KEYCODE_UNKNOWN
+        public int rightKeyCode;
+        public int buttonFlags;  // BUTTON_LEFT_PRESSED / BUTTON_RIGHT_PRESSED
+        public final int[] edgeEvents = new int[RCEdgeDetector.MAX_EVENTS];  // 打包的边沿事件，见 RCEdgeDetector
+        public int edgeEventCount;
+        public final int[] comboEvents = new int[RCComboRecognizer.MAX_EVENTS];  // 识别出的组合 id
+        public int comboEventCount;
+        public final int[] subscriberMasks = new int[RCSubscriptionRegistry.MAX_SUBSCRIBERS];  // 各订阅者要投递的通道
+        public final int[] subscriberIds = new int[RCSubscriptionRegistry.MAX_SUBSCRIBERS];
+        public int subscriberSlots;  // 需要投递的订阅者槽位，见 RCSubscriptionRegistry.select
+    }
+
+    public static final int BUTTON_LEFT_PRESSED = 1;
+    public static final int BUTTON_RIGHT_PRESSED = 1 << 1;
+
+    private final Frame[] frames;
+    private final int mask;
+
+    // head 由生产者写，tail 由消费者写；lazySet 保证发布顺序且没有完整的内存屏障开销
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private long cachedTail = 0;  // 仅生产者使用
+    private long cachedHead = 0;  // 仅消费者使用
+    private final AtomicLong droppedFrames = new AtomicLong();
+
+    /**
+     * @param capacity 容量，会向上取整为 2 的幂
+     */
+    public RCFrameRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        frames = new Frame[size];
+        for (int i = 0; i < size; i++) {
+            frames[i] = new Frame();
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * 生产者获取一个可写的帧，队列已满时返回 null 并计入丢帧
+     */
+    public Frame claim() {
+        long h = head.get();
+        if (h - cachedTail >= frames.length) {
+            cachedTail = tail.get();
+            if (h - cachedTail >= frames.length) {
+                droppedFrames.incrementAndGet();
+                return null;
+            }
+        }
+        return frames[(int) (h & mask)];
+    }
+
+    /**
+     * 生产者发布最近一次 claim 得到的帧
+     */
+    public void publish() {
+        head.lazySet(head.get() + 1);
+    }
+
+    /**
+     * 消费者读取最早的一帧，队列为空时返回 null
+     */
+    public Frame peek() {
+        long t = tail.get();
+        if (t >= cachedHead) {
+            cachedHead = head.get();
+            if (t >= cachedHead) {
+                return null;
+            }
+        }
+        return frames[(int) (t & mask)];
+    }
+
+    /**
+     * 消费者释放最近一次 peek 得到的帧
+     */
+    public void release() {
+        tail.lazySet(tail.get() + 1);
+    }
+
+    public int capacity() {
+        return frames.length;
+    }
+
+    public long getDroppedFrames() {
+        return droppedFrames.get();
+    }
+}
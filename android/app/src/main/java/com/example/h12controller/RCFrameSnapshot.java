@@ -0,0 +1,175 @@
+package com.example.h12controller;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 共享内存中的最新一帧，用顺序锁（seqlock）保护
+ * 采样线程每帧覆盖写入，Dart 端通过 dart:ffi 映射同一块内存后同步读取，不经过平台通道和平台线程
+ *
+ * 布局（本机字节序）：
+ *   0  int   MAGIC
+ *   4  int   VERSION
+ *   8  long  sequence，奇数表示正在写
+ *   16 long  timestampNanos（数据源时间戳）
+ *   24 long  captureMonoNanos（换算到 System.nanoTime 的采集时间，非实时数据源为 0）
+ *   32 long  writeMonoNanos（写入时的 System.nanoTime）
+ *   40 int   通道数
+ *   44 int   校验和
+ *   48 int[MAX_CHANNELS] 通道值
+ *
+ * 读者先读 sequence，再读内容，再读一次 sequence，两次相同且为偶数时内容有效，否则重试。
+ * Dart 没有读屏障，弱内存序的 CPU 上读取可能被重排，所以内容另带校验和，校验不通过同样重试
+ *
+ * 只有一个写线程（当前数据源的采样线程）；Java 端的 read 把结果保存在实例字段中，只在一个线程调用
+ */
+public class RCFrameSnapshot {
+    public static final int MAGIC = 0x52435353;  // "RCSS"
+    public static final int VERSION = 1;
+
+    public static final int OFFSET_MAGIC = 0;
+    public static final int OFFSET_VERSION = 4;
+    public static final int OFFSET_SEQUENCE = 8;
+    public static final int OFFSET_TIMESTAMP = 16;
+    public static final int OFFSET_CAPTURE_MONO = 24;
+    public static final int OFFSET_WRITE_MONO = 32;
+    public static final int OFFSET_CHANNEL_COUNT = 40;
+    public static final int OFFSET_CHECKSUM = 44;
+    public static final int OFFSET_CHANNELS = 48;
+    public static final int SIZE = OFFSET_CHANNELS + RCFrameCodec.MAX_CHANNELS * 4;
+
+    public static final int MAX_READ_RETRIES = 16;
+
+    private static final int CHECKSUM_SEED = 0x811c9dc5;
+    private static final int CHECKSUM_PRIME = 0x01000193;
+
+    private final ByteBuffer buffer;
+    private long sequence = 0;  // 仅写线程
+    private volatile int fence;
+    private int fenceSink;
+
+    // 读取结果，只对最近一次成功的 read 有效
+    private int readChannelCount;
+    private long readTimestampNanos;
+    private long readCaptureMonoNanos;
+    private long readWriteMonoNanos;
+
+    /**
+     * @param buffer 至少 SIZE 字节的直接缓冲区，通常是映射到共享内存的文件
+     */
+    public RCFrameSnapshot(ByteBuffer buffer) {
+        if (buffer.capacity() < SIZE) {
+            throw new IllegalArgumentException("snapshot buffer too small: " + buffer.capacity());
+        }
+        this.buffer = buffer.order(ByteOrder.nativeOrder());
+        buffer.putLong(OFFSET_SEQUENCE, 0);
+        buffer.putInt(OFFSET_CHANNEL_COUNT, 0);
+        buffer.putInt(OFFSET_CHECKSUM, checksum(0, 0, 0, null));
+        buffer.putInt(OFFSET_VERSION, VERSION);
+        fullFence();
+        buffer.putInt(OFFSET_MAGIC, MAGIC);
+    }
+
+    /**
+     * 写线程：覆盖写入最新一帧
+     */
+    public void write(int[] channels, long timestampNanos, long captureMonoNanos) {
+        int count = Math.min(channels.length, RCFrameCodec.MAX_CHANNELS);
+        long next = sequence + 1;
+        buffer.putLong(OFFSET_SEQUENCE, next);
+        // ByteBuffer 的读写没有内存序，用一对 volatile 写读充当全屏障，保证奇数序号先于内容可见
+        fullFence();
+        buffer.putLong(OFFSET_TIMESTAMP, timestampNanos);
+        buffer.putLong(OFFSET_CAPTURE_MONO, captureMonoNanos);
+        buffer.putLong(OFFSET_WRITE_MONO, System.nanoTime());
+        buffer.putInt(OFFSET_CHANNEL_COUNT, count);
+        for (int i = 0; i < count; i++) {
+            buffer.putInt(OFFSET_CHANNELS + i * 4, channels[i]);
+        }
+        buffer.putInt(OFFSET_CHECKSUM, checksum(next + 1, timestampNanos, count, channels));
+        fullFence();
+        sequence = next + 1;
+        buffer.putLong(OFFSET_SEQUENCE, sequence);
+    }
+
+    /**
+     * 读取最新一帧，遇到正在写或校验不通过时重试
+     * @param out 通道值输出，长度至少为通道数
+     * @return 帧序号（从未写入时为 0），重试 MAX_READ_RETRIES 次仍未读到完整的一帧时返回 -1；
+     *         通道数见 getChannelCount
+     */
+    public long read(int[] out) {
+        for (int attempt = 0; attempt < MAX_READ_RETRIES; attempt++) {
+            long before = buffer.getLong(OFFSET_SEQUENCE);
+            if ((before & 1) != 0) {
+                continue;
+            }
+            fullFence();
+            long timestamp = buffer.getLong(OFFSET_TIMESTAMP);
+            long captureMono = buffer.getLong(OFFSET_CAPTURE_MONO);
+            long writeMono = buffer.getLong(OFFSET_WRITE_MONO);
+            int count = Math.min(buffer.getInt(OFFSET_CHANNEL_COUNT), Math.min(out.length, RCFrameCodec.MAX_CHANNELS));
+            for (int i = 0; i < count; i++) {
+                out[i] = buffer.getInt(OFFSET_CHANNELS + i * 4);
+            }
+            int stored = buffer.getInt(OFFSET_CHECKSUM);
+            fullFence();
+            long after = buffer.getLong(OFFSET_SEQUENCE);
+            if (before != after || stored != checksum(before, timestamp, count, out)) {
+                continue;
+            }
+            readTimestampNanos = timestamp;
+            readCaptureMonoNanos = captureMono;
+            readWriteMonoNanos = writeMono;
+            readChannelCount = count;
+            return before;
+        }
+        return -1;
+    }
+
+    public int getChannelCount() {
+        return readChannelCount;
+    }
+
+    public long getTimestampNanos() {
+        return readTimestampNanos;
+    }
+
+    public long getCaptureMonoNanos() {
+        return readCaptureMonoNanos;
+    }
+
+    public long getWriteMonoNanos() {
+        return readWriteMonoNanos;
+    }
+
+    /**
+     * 已写入的帧数
+     */
+    public long getFramesWritten() {
+        return sequence / 2;
+    }
+
+    /**
+     * FNV-1a，按 int 混入序号、时间戳和通道值；Dart 端按同样方式计算
+     */
+    static int checksum(long sequence, long timestampNanos, int count, int[] channels) {
+        int h = CHECKSUM_SEED;
+        h = (h ^ (int) sequence) * CHECKSUM_PRIME;
+        h = (h ^ (int) timestampNanos) * CHECKSUM_PRIME;
+        h = (h ^ (int) (timestampNanos >>> 32)) * CHECKSUM_PRIME;
+        h = (h ^ count) * CHECKSUM_PRIME;
+        for (int i = 0; i < count; i++) {
+            h = (h ^ channels[i]) * CHECKSUM_PRIME;
+        }
+        return h;
+    }
+
+    /**
+     * volatile 写之后的 volatile 读不能被重排到写之前，前后的普通读写也不能越过这一对操作
+     */
+    private void fullFence() {
+        fence = 0;
+        fenceSink = fence;
+    }
+}
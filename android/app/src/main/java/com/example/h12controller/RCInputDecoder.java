@@ -0,0 +1,117 @@
+package com.example.h12controller;
+
+import java.util.Map;
+
+/**
+ * 遥控器输入解码器
+ * 把一帧通道值解码为左右摇杆当前分区的按键码、左右 C 按钮事件、各通道的边沿事件（见 RCEdgeDetector）
+ * 和识别出的组合（见 RCComboRecognizer），
+ * 结果写入预分配的 RCFrameRing.Frame，由主线程统一分发；解码本身运行在输入线程上
+ *
+ * 解码使用预分配的帧缓冲和基本类型字段，不装箱、不创建临时对象；
+ * 日志写入 RCEventLog 的二进制缓冲，不拼接字符串
+ */
+public class RCInputDecoder {
+    public static final int MIN_CHANNELS = 12;
+    public static final int LEFT_C_BUTTON_CHANNEL = 8;
+    public static final int RIGHT_C_BUTTON_CHANNEL = 9;
+
+    private final RCZoneQuantizer zoneQuantizer = new RCZoneQuantizer();
+    private final RCEdgeDetector edgeDetector = new RCEdgeDetector();
+    private final RCComboRecognizer comboRecognizer = new RCComboRecognizer();
+
+    // 预分配的帧缓冲，避免持有 SDK 回调传入的数组
+    private final int[] frame = new int[RCFrameCodec.MAX_CHANNELS];
+    private int frameLength = 0;
+
+    /**
+     * 替换摇杆分区配置，采样过程中也可以调用
+     */
+    public void loadZoneProfile(RCZoneQuantizer.Profile profile) {
+        zoneQuantizer.load(profile);
+    }
+
+    /**
+     * 替换边沿检测配置，采样过程中也可以调用
+     */
+    public void loadEdgeProfile(RCEdgeDetector.Profile profile) {
+        edgeDetector.load(profile);
+    }
+
+    /**
+     * 替换组合配置，采样过程中也可以调用
+     */
+    public void loadComboProfile(RCComboRecognizer.Profile profile) {
+        comboRecognizer.load(profile);
+    }
+
+    /**
+     * 组合识别统计，见 RCComboRecognizer.getStats
+     */
+    public Map<String, Object> getComboStats() {
+        return comboRecognizer.getStats();
+    }
+
+    /**
+     * 解码一帧通道值
+     * @param value 通道值
+     * @param out 输出帧，写入通道值、左右摇杆按键码、按钮事件和边沿事件；timestampNanos 需要已经填好
+     * @return 通道少于 MIN_CHANNELS 个时返回 false，此时只写入了通道值
+     */
+    public boolean decode(int[] value, RCFrameRing.Frame out) {
+        frameLength = Math.min(value.length, frame.length);
+        System.arraycopy(value, 0, frame, 0, frameLength);
+        System.arraycopy(value, 0, out.channels, 0, frameLength);
+        out.channelCount = frameLength;
+        out.leftKeyCode = RCKeyCodes.KEYCODE_UNKNOWN;
+        out.rightKeyCode = RCKeyCodes.KEYCODE_UNKNOWN;
+        out.buttonFlags = 0;
+        out.edgeEventCount = 0;
+        out.comboEventCount = 0;
+        if (frameLength < MIN_CHANNELS) {
+            return false;
+        }
+
+        int leftX = frame[3];
+        int leftY = frame[1];
+        int rightX = frame[0];
+        int rightY = frame[2];
+
+        int leftKeyCode = zoneQuantizer.keyCode(RCZoneQuantizer.STICK_LEFT, leftX, leftY);  // 左摇杆
+        int rightKeyCode = zoneQuantizer.keyCode(RCZoneQuantizer.STICK_RIGHT, rightX, rightY);  // 右摇杆
+
+        int eventCount = edgeDetector.detect(frame, frameLength, out.timestampNanos);
+        for (int i = 0; i < eventCount; i++) {
+            int event = edgeDetector.getEvent(i);
+            out.edgeEvents[i] = event;
+            RCEventLog.log(RCEventLog.EDGE_EVENT, RCEdgeDetector.eventType(event),
+                    RCEdgeDetector.eventChannel(event), RCEdgeDetector.eventPosition(event));
+            if (RCEdgeDetector.eventType(event) != RCEdgeDetector.EVENT_PRESS) {
+                continue;
+            }
+            // 左右 C 按钮按下，由主线程作为 L2 / R2 单击分发，不占用摇杆的按键槽位
+            int channel = RCEdgeDetector.eventChannel(event);
+            if (channel == LEFT_C_BUTTON_CHANNEL) {
+                out.buttonFlags |= RCFrameRing.BUTTON_LEFT_PRESSED;
+            } else if (channel == RIGHT_C_BUTTON_CHANNEL) {
+                out.buttonFlags |= RCFrameRing.BUTTON_RIGHT_PRESSED;
+            } else {
+                continue;
+            }
+            RCEventLog.log(RCEventLog.BUTTON_PRESSED, channel);
+        }
+        out.edgeEventCount = eventCount;
+
+        int comboCount = comboRecognizer.advance(frame, frameLength, out.timestampNanos);
+        for (int i = 0; i < comboCount; i++) {
+            int combo = comboRecognizer.getEvent(i);
+            out.comboEvents[i] = combo;
+            RCEventLog.log(RCEventLog.COMBO_RECOGNIZED, combo);
+        }
+        out.comboEventCount = comboCount;
+
+        out.leftKeyCode = leftKeyCode;
+        out.rightKeyCode = rightKeyCode;
+        return true;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.h12controller;
+
+/**
+ * 输入路径用到的按键码，取值与 android.view.KeyEvent 中的同名常量一致
+ * 解码和分区逻辑只依赖这里的常量，不依赖 Android 框架，可以在普通 JVM 上运行和压测
+ */
+public final class RCKeyCodes {
+    public static final int KEYCODE_UNKNOWN = 0;
+
+    public static final int KEYCODE_DPAD_UP = 19;
+    public static final int KEYCODE_DPAD_DOWN = 20;
+    public static final int KEYCODE_DPAD_LEFT = 21;
+    public static final int KEYCODE_DPAD_RIGHT = 22;
+
+    public static final int KEYCODE_BUTTON_L2 = 104;
+    public static final int KEYCODE_BUTTON_R2 = 105;
+
+    public static final int KEYCODE_NUMPAD_1 = 145;
+    public static final int KEYCODE_NUMPAD_2 = 146;
+    public static final int KEYCODE_NUMPAD_3 = 147;
+    public static final int KEYCODE_NUMPAD_4 = 148;
+    public static final int KEYCODE_NUMPAD_5 = 149;
+    public static final int KEYCODE_NUMPAD_6 = 150;
+    public static final int KEYCODE_NUMPAD_7 = 151;
+    public static final int KEYCODE_NUMPAD_8 = 152;
+    public static final int KEYCODE_NUMPAD_9 = 153;
+    public static final int KEYCODE_NUMPAD_DIVIDE = 154;
+    public static final int KEYCODE_NUMPAD_MULTIPLY = 155;
+    public static final int KEYCODE_NUMPAD_SUBTRACT = 156;
+
+    private RCKeyCodes() {
+    }
+}
@@ -0,0 +1,231 @@
+package com.example.h12controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 按键状态跟踪：把每帧的分区按键码转换为真正的按下 / 重复 / 抬起序列
+ * 每个槽位（左摇杆、右摇杆）同一时刻最多按住一个键：进入分区时发送一次 DOWN，
+ * 按住超过 repeatDelayMs 后每隔 repeatIntervalMs 发送一次带 repeatCount 的 DOWN，离开分区时发送 UP；
+ * 换到另一个分区时先抬起旧键再按下新键
+ *
+ * 产生的事件先放入批次，由调用方在一次主线程分发中统一取出；时间使用 uptimeMillis，与 KeyEvent 一致
+ * 只在主线程使用，不做同步；不依赖 Android 框架
+ */
+public class RCKeyStateTracker {
+    public static final int SLOT_LEFT_STICK = 0;
+    public static final int SLOT_RIGHT_STICK = 1;
+    public static final int SLOT_COUNT = 2;
+
+    public static final int ACTION_DOWN = 0;  // 与 KeyEvent.ACTION_DOWN / ACTION_UP 取值一致
+    public static final int ACTION_UP = 1;
+
+    public static final int DEFAULT_REPEAT_DELAY_MS = 500;
+    public static final int DEFAULT_REPEAT_INTERVAL_MS = 50;
+
+    // 一帧最多产生的事件：每个槽位抬起 + 按下，加上左右 C 按钮各一次单击
+    public static final int MAX_FRAME_EVENTS = SLOT_COUNT * 2 + 4;
+    public static final int MAX_BATCH = 32;
+
+    private int repeatDelayMs = DEFAULT_REPEAT_DELAY_MS;
+    private int repeatIntervalMs = DEFAULT_REPEAT_INTERVAL_MS;  // 0 表示不重复
+
+    // 各槽位当前按住的键
+    private final int[] heldKeyCodes = new int[SLOT_COUNT];
+    private final long[] downTimes = new long[SLOT_COUNT];
+    private final int[] repeatCounts = new int[SLOT_COUNT];
+    private final long[] nextRepeatTimes = new long[SLOT_COUNT];
+
+    // 待分发的事件批次
+    private final int[] batchActions = new int[MAX_BATCH];
+    private final int[] batchKeyCodes = new int[MAX_BATCH];
+    private final int[] batchRepeatCounts = new int[MAX_BATCH];
+    private final long[] batchDownTimes = new long[MAX_BATCH];
+    private final long[] batchEventTimes = new long[MAX_BATCH];
+    private int batchSize = 0;
+
+    private long downs = 0;
+    private long repeats = 0;
+    private long ups = 0;
+    private long taps = 0;
+    private long batches = 0;
+    private long overflows = 0;
+
+    public RCKeyStateTracker() {
+        for (int i = 0; i < SLOT_COUNT; i++) {
+            heldKeyCodes[i] = RCKeyCodes.KEYCODE_UNKNOWN;
+        }
+    }
+
+    /**
+     * @param repeatDelayMs 按住多久后开始重复
+     * @param repeatIntervalMs 重复间隔，0 表示按住期间不重复
+     */
+    public void setRepeat(int repeatDelayMs, int repeatIntervalMs) {
+        if (repeatDelayMs < 0 || repeatIntervalMs < 0) {
+            throw new IllegalArgumentException("invalid key repeat: " + repeatDelayMs + "/" + repeatIntervalMs);
+        }
+        this.repeatDelayMs = repeatDelayMs;
+        this.repeatIntervalMs = repeatIntervalMs;
+        // 已按住的键按新配置重新计时
+        for (int i = 0; i < SLOT_COUNT; i++) {
+            if (heldKeyCodes[i] != RCKeyCodes.KEYCODE_UNKNOWN) {
+                nextRepeatTimes[i] = downTimes[i] + repeatDelayMs;
+            }
+        }
+    }
+
+    public int getRepeatDelayMs() {
+        return repeatDelayMs;
+    }
+
+    public int getRepeatIntervalMs() {
+        return repeatIntervalMs;
+    }
+
+    /**
+     * 更新一个槽位当前所在分区的按键码
+     * @param slot 槽位
+     * @param keyCode 按键码，KEYCODE_UNKNOWN 表示回到中心
+     * @param nowMillis uptimeMillis
+     */
+    public void update(int slot, int keyCode, long nowMillis) {
+        int held = heldKeyCodes[slot];
+        if (held == keyCode) {
+            return;
+        }
+        if (held != RCKeyCodes.KEYCODE_UNKNOWN) {
+            add(ACTION_UP, held, 0, downTimes[slot], nowMillis);
+            ups++;
+        }
+        heldKeyCodes[slot] = keyCode;
+        if (keyCode != RCKeyCodes.KEYCODE_UNKNOWN) {
+            downTimes[slot] = nowMillis;
+            repeatCounts[slot] = 0;
+            nextRepeatTimes[slot] = nowMillis + repeatDelayMs;
+            add(ACTION_DOWN, keyCode, 0, nowMillis, nowMillis);
+            downs++;
+        }
+    }
+
+    /**
+     * 不占用槽位的单击键，例如 C 按钮：同一批次内按下并抬起
+     */
+    public void tap(int keyCode, long nowMillis) {
+        add(ACTION_DOWN, keyCode, 0, nowMillis, nowMillis);
+        add(ACTION_UP, keyCode, 0, nowMillis, nowMillis);
+        taps++;
+    }
+
+    /**
+     * 为到期的按住键产生重复事件；主线程暂停期间错过的重复不补发，只发一次并重新计时
+     */
+    public void pollRepeats(long nowMillis) {
+        if (repeatIntervalMs <= 0) {
+            return;
+        }
+        for (int i = 0; i < SLOT_COUNT; i++) {
+            int held = heldKeyCodes[i];
+            if (held == RCKeyCodes.KEYCODE_UNKNOWN || nowMillis < nextRepeatTimes[i]) {
+                continue;
+            }
+            int count = ++repeatCounts[i];
+            add(ACTION_DOWN, held, count, downTimes[i], nowMillis);
+            repeats++;
+            long next = nextRepeatTimes[i] + repeatIntervalMs;
+            nextRepeatTimes[i] = next > nowMillis ? next : nowMillis + repeatIntervalMs;
+        }
+    }
+
+    /**
+     * 下一次重复的时间，没有按住的键或不重复时返回 -1
+     */
+    public long nextRepeatMillis() {
+        if (repeatIntervalMs <= 0) {
+            return -1;
+        }
+        long next = -1;
+        for (int i = 0; i < SLOT_COUNT; i++) {
+            if (heldKeyCodes[i] != RCKeyCodes.KEYCODE_UNKNOWN && (next < 0 || nextRepeatTimes[i] < next)) {
+                next = nextRepeatTimes[i];
+            }
+        }
+        return next;
+    }
+
+    /**
+     * 抬起所有按住的键，例如数据源停止时
+     */
+    public void releaseAll(long nowMillis) {
+        for (int i = 0; i < SLOT_COUNT; i++) {
+            update(i, RCKeyCodes.KEYCODE_UNKNOWN, nowMillis);
+        }
+    }
+
+    public int getHeldKeyCode(int slot) {
+        return heldKeyCodes[slot];
+    }
+
+    private void add(int action, int keyCode, int repeatCount, long downTime, long eventTime) {
+        if (batchSize == MAX_BATCH) {
+            // 调用方在剩余空间不足 MAX_FRAME_EVENTS 时会先分发，正常不会发生
+            overflows++;
+            return;
+        }
+        batchActions[batchSize] = action;
+        batchKeyCodes[batchSize] = keyCode;
+        batchRepeatCounts[batchSize] = repeatCount;
+        batchDownTimes[batchSize] = downTime;
+        batchEventTimes[batchSize] = eventTime;
+        batchSize++;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getAction(int index) {
+        return batchActions[index];
+    }
+
+    public int getKeyCode(int index) {
+        return batchKeyCodes[index];
+    }
+
+    public int getRepeatCount(int index) {
+        return batchRepeatCounts[index];
+    }
+
+    public long getDownTime(int index) {
+        return batchDownTimes[index];
+    }
+
+    public long getEventTime(int index) {
+        return batchEventTimes[index];
+    }
+
+    /**
+     * 批次分发完成后清空
+     */
+    public void clearBatch() {
+        if (batchSize > 0) {
+            batches++;
+        }
+        batchSize = 0;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("repeatDelayMs", repeatDelayMs);
+        stats.put("repeatIntervalMs", repeatIntervalMs);
+        stats.put("leftHeld", heldKeyCodes[SLOT_LEFT_STICK]);
+        stats.put("rightHeld", heldKeyCodes[SLOT_RIGHT_STICK]);
+        stats.put("downs", downs);
+        stats.put("repeats", repeats);
+        stats.put("ups", ups);
+        stats.put("taps", taps);
+        stats.put("batches", batches);
+        stats.put("overflows", overflows);
+        return stats;
+    }
+}
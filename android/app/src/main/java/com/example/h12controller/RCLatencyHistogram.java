@@ -0,0 +1,135 @@
+package com.example.h12controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 无锁的对数-线性延迟直方图（纳秒）
+ * 每个 2 的幂区间再线性分为 32 个桶，相对误差约 3%，最大可记录约 18 分钟；
+ * 记录只有几次原子自增，不加锁、不分配内存，可以在任意线程调用
+ *
+ * 抖动按 RFC 3550 的方式对相邻两次延迟之差做平滑（1/16），假定每个阶段只由一个线程记录
+ */
+public class RCLatencyHistogram {
+    // 每个 2 的幂区间的桶数为 2^(SUB_BUCKET_BITS - 1)
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKET_HALF = 1 << (SUB_BUCKET_BITS - 1);
+    private static final int MAX_VALUE_BITS = 40;
+    private static final long MAX_VALUE = (1L << MAX_VALUE_BITS) - 1;
+    private static final int BUCKET_COUNT =
+            (MAX_VALUE_BITS - SUB_BUCKET_BITS + 1) * SUB_BUCKET_HALF + 2 * SUB_BUCKET_HALF;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    // 抖动，仅记录线程写入
+    private long lastNanos = -1;
+    private volatile long jitterNanosX16 = 0;
+
+    /**
+     * 记录一次延迟，负值按 0 计，超出范围按最大值计
+     */
+    public void record(long nanos) {
+        long value = nanos < 0 ? 0 : Math.min(nanos, MAX_VALUE);
+        counts.getAndIncrement(bucketIndex(value));
+        totalCount.getAndIncrement();
+        totalNanos.getAndAdd(value);
+        long max;
+        while (value > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, value)) {
+            // 重试
+        }
+        if (lastNanos >= 0) {
+            long delta = value - lastNanos;
+            long jitter = jitterNanosX16;
+            jitterNanosX16 = jitter + (delta < 0 ? -delta : delta) - ((jitter + 8) >> 4);
+        }
+        lastNanos = value;
+    }
+
+    static int bucketIndex(long value) {
+        if (value < 2 * SUB_BUCKET_HALF) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return exponent * SUB_BUCKET_HALF + (int) (value >>> exponent);
+    }
+
+    /**
+     * 桶内的最大值，作为该桶记录值的代表
+     */
+    static long bucketUpperBound(int index) {
+        if (index < 2 * SUB_BUCKET_HALF) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKET_HALF - 1;
+        long mantissa = index - (long) exponent * SUB_BUCKET_HALF;
+        return ((mantissa + 1) << exponent) - 1;
+    }
+
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    public long getMeanNanos() {
+        long count = totalCount.get();
+        return count > 0 ? totalNanos.get() / count : 0;
+    }
+
+    public long getJitterNanos() {
+        return jitterNanosX16 >> 4;
+    }
+
+    /**
+     * 分位数，与记录并发调用时结果是近似值
+     * @param quantile 0~1，例如 0.99
+     */
+    public long getPercentileNanos(double quantile) {
+        long count = totalCount.get();
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(bucketUpperBound(i), maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        totalCount.set(0);
+        totalNanos.set(0);
+        maxNanos.set(0);
+        jitterNanosX16 = 0;
+    }
+
+    /**
+     * 统计快照，单位纳秒
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("count", getCount());
+        stats.put("mean", getMeanNanos());
+        stats.put("p50", getPercentileNanos(0.50));
+        stats.put("p90", getPercentileNanos(0.90));
+        stats.put("p99", getPercentileNanos(0.99));
+        stats.put("p999", getPercentileNanos(0.999));
+        stats.put("max", getMaxNanos());
+        stats.put("jitter", getJitterNanos());
+        return stats;
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.h12controller;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import io.flutter.plugin.common.BasicMessageChannel;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 数传消息批量推送
+ * 解析出的消息先写入批次缓冲，每隔 FLUSH_INTERVAL_MS 在主线程一次性推送给 Flutter，
+ * 避免每条消息都经过一次平台通道
+ *
+ * 批次格式（小端），由若干条记录紧密排列：
+ * <pre>
+ *   0  uint8  protocol      1 = MAVLink v1, 2 = MAVLink v2
+ *   1  uint8  sequence
+ *   2  uint8  systemId
+ *   3  uint8  componentId
+ *   4  uint32 messageId
+ *   8  uint16 payloadLength
+ *  10  uint8[] payload
+ * </pre>
+ */
+public class RCLinkBatcher implements RCLinkParser.MessageSink {
+    public static final int RECORD_HEADER_BYTES = 10;
+    private static final int BATCH_CAPACITY = 16 * 1024;
+    private static final long FLUSH_INTERVAL_MS = 20;
+
+    private final BasicMessageChannel<ByteBuffer> channel;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // 解析线程写 filling，主线程发送 sending，交换时加锁
+    private final Object lock = new Object();
+    private ByteBuffer filling = newBatch();
+    private ByteBuffer sending = newBatch();
+    private boolean flushScheduled = false;
+
+    private long messagesBatched = 0;
+    private long messagesDropped = 0;
+    private long batchesSent = 0;
+
+    private final Runnable flushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    public RCLinkBatcher(BasicMessageChannel<ByteBuffer> channel) {
+        this.channel = channel;
+    }
+
+    private static ByteBuffer newBatch() {
+        return ByteBuffer.allocateDirect(BATCH_CAPACITY).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Override
+    public void onMessage(int protocol, int sequence, int systemId, int componentId, int messageId,
+                          ByteBuffer ring, int mask, long payloadStart, int payloadLength) {
+        synchronized (lock) {
+            if (filling.remaining() < RECORD_HEADER_BYTES + payloadLength) {
+                // 主线程来不及发送，丢弃该消息
+                messagesDropped++;
+                return;
+            }
+            filling.put((byte) protocol);
+            filling.put((byte) sequence);
+            filling.put((byte) systemId);
+            filling.put((byte) componentId);
+            filling.putInt(messageId);
+            filling.putShort((short) payloadLength);
+            for (int i = 0; i < payloadLength; i++) {
+                filling.put(ring.get((int) ((payloadStart + i) & mask)));
+            }
+            messagesBatched++;
+            if (!flushScheduled) {
+                flushScheduled = true;
+                mainHandler.postDelayed(flushRunnable, FLUSH_INTERVAL_MS);
+            }
+        }
+    }
+
+    /**
+     * 主线程：推送当前批次
+     */
+    private void flush() {
+        ByteBuffer batch;
+        synchronized (lock) {
+            flushScheduled = false;
+            if (filling.position() == 0) {
+                return;
+            }
+            batch = filling;
+            filling = sending;
+            sending = batch;
+            batchesSent++;
+        }
+        // BinaryCodec 以 position 作为消息长度；send 同步拷贝，返回后即可复用
+        channel.send(batch);
+        batch.clear();
+    }
+
+    /**
+     * 丢弃尚未发送的消息
+     */
+    public void clear() {
+        synchronized (lock) {
+            filling.clear();
+        }
+    }
+
+    public long getMessagesBatched() {
+        synchronized (lock) {
+            return messagesBatched;
+        }
+    }
+
+    public long getMessagesDropped() {
+        synchronized (lock) {
+            return messagesDropped;
+        }
+    }
+
+    public long getBatchesSent() {
+        synchronized (lock) {
+            return batchesSent;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.h12controller;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 数传管道流式帧解析器
+ * onReadData 收到的数据块追加到一个复用的 direct ByteBuffer 环形缓冲中，
+ * 解析直接在环形缓冲上进行，帧可以跨越任意数据块边界，解析过程不拷贝数据；
+ * 具体的帧格式由可替换的 FrameDecoder 决定
+ *
+ * 非线程安全，feed 需要在同一个线程上调用
+ */
+public class RCLinkParser {
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    /**
+     * 帧格式解码器
+     */
+    public interface FrameDecoder {
+        /** decode 的结果：帧已发布 */
+        int DECODED = 0;
+        /** decode 的结果：校验失败 */
+        int CHECKSUM_ERROR = 1;
+        /** decode 的结果：帧结构完整，但不认识这种消息、无法校验 */
+        int UNKNOWN_MESSAGE = 2;
+
+        /**
+         * 判断从 start 开始的数据能否构成一帧
+         * @param ring 环形缓冲，按 (position & mask) 访问
+         * @param mask 环形缓冲容量减一
+         * @param start 帧起点的逻辑位置
+         * @param available 从 start 开始可读的字节数
+         * @return 帧总长度；-1 表示数据不足；0 表示该位置不是有效的帧起点
+         */
+        int frameLength(ByteBuffer ring, int mask, long start, int available);
+
+        /**
+         * 校验并发布一个完整的帧
+         * @return DECODED、CHECKSUM_ERROR 或 UNKNOWN_MESSAGE；后两者解析器会跳过起始字节重新同步
+         */
+        int decode(ByteBuffer ring, int mask, long start, int length, MessageSink sink);
+    }
+
+    /**
+     * 解析出的消息接收者，payload 直接指向环形缓冲，只在回调期间有效
+     */
+    public interface MessageSink {
+        void onMessage(int protocol, int sequence, int systemId, int componentId, int messageId,
+                       ByteBuffer ring, int mask, long payloadStart, int payloadLength);
+    }
+
+    private final ByteBuffer ring;
+    private final int mask;
+    private final FrameDecoder decoder;
+    private final MessageSink sink;
+
+    private long readPosition = 0;
+    private long writePosition = 0;
+
+    // 统计
+    private long bytesReceived = 0;
+    private long framesDecoded = 0;
+    private long checksumErrors = 0;
+    private long unknownMessages = 0;
+    private long bytesSkipped = 0;
+    private long bytesOverflowed = 0;
+
+    public RCLinkParser(FrameDecoder decoder, MessageSink sink) {
+        this(DEFAULT_CAPACITY, decoder, sink);
+    }
+
+    /**
+     * @param capacity 环形缓冲容量，会向上取整为 2 的幂，需要大于最大帧长度
+     */
+    public RCLinkParser(int capacity, FrameDecoder decoder, MessageSink sink) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.ring = ByteBuffer.allocateDirect(size);
+        this.mask = size - 1;
+        this.decoder = decoder;
+        this.sink = sink;
+    }
+
+    /**
+     * 追加一个数据块并解析出其中所有完整的帧
+     */
+    public void feed(byte[] bytes) {
+        if (bytes == null) {
+            return;
+        }
+        feed(bytes, 0, bytes.length);
+    }
+
+    public void feed(byte[] bytes, int offset, int length) {
+        bytesReceived += length;
+        int capacity = mask + 1;
+        while (length > 0) {
+            int free = capacity - (int) (writePosition - readPosition);
+            if (free == 0) {
+                // 缓冲区满仍无法组成帧，丢弃最早的一个字节后继续
+                readPosition++;
+                bytesOverflowed++;
+                free = 1;
+            }
+            int count = Math.min(length, free);
+            int index = (int) (writePosition & mask);
+            int first = Math.min(count, capacity - index);
+            ring.position(index);
+            ring.put(bytes, offset, first);
+            if (count > first) {
+                ring.position(0);
+                ring.put(bytes, offset + first, count - first);
+            }
+            writePosition += count;
+            offset += count;
+            length -= count;
+            parse();
+        }
+    }
+
+    private void parse() {
+        while (writePosition > readPosition) {
+            int available = (int) (writePosition - readPosition);
+            int length = decoder.frameLength(ring, mask, readPosition, available);
+            if (length < 0) {
+                return;
+            }
+            if (length == 0) {
+                readPosition++;
+                bytesSkipped++;
+                continue;
+            }
+            int result = decoder.decode(ring, mask, readPosition, length, sink);
+            if (result != FrameDecoder.DECODED) {
+                readPosition++;
+                if (result == FrameDecoder.UNKNOWN_MESSAGE) {
+                    unknownMessages++;
+                } else {
+                    checksumErrors++;
+                }
+                continue;
+            }
+            readPosition += length;
+            framesDecoded++;
+        }
+    }
+
+    /**
+     * 丢弃缓冲中尚未解析的数据，例如管道重连时
+     */
+    public void reset() {
+        readPosition = writePosition;
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    public long getFramesDecoded() {
+        return framesDecoded;
+    }
+
+    public long getChecksumErrors() {
+        return checksumErrors;
+    }
+
+    /**
+     * 因不认识消息而无法校验、被丢弃的帧数，不计入 checksumErrors
+     */
+    public long getUnknownMessages() {
+        return unknownMessages;
+    }
+
+    public long getBytesSkipped() {
+        return bytesSkipped;
+    }
+
+    public long getBytesOverflowed() {
+        return bytesOverflowed;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.h12controller;
+
+/**
+ * 数传链路
+ * 设备的数传收发只通过该接口进行，实际链路可以是遥控器 SDK 的串口管道（SdkLinkPort），
+ * 也可以是本地环回（LoopbackLinkPort），用于没有硬件时验证多设备的数传路径
+ */
+public interface RCLinkPort {
+
+    /**
+     * 链路回调，回调线程由实现决定，同一时刻只在一个线程上回调
+     */
+    interface Listener {
+        void onConnected();
+
+        /**
+         * @param bytes 收到的数据，回调返回后不再使用
+         */
+        void onReadData(byte[] bytes);
+
+        void onDisconnected();
+    }
+
+    void setListener(Listener listener);
+
+    /**
+     * 连接链路，重复调用无副作用
+     */
+    void connect();
+
+    void disconnect();
+
+    /**
+     * 写入数据，未连接时丢弃
+     */
+    void write(byte[] data);
+
+    /**
+     * 是否要等遥控器连接后才能连接，例如 SDK 的串口管道
+     */
+    boolean needsRcConnection();
+
+    /**
+     * 链路名称，用于日志和统计，例如 uart0 / loopback
+     */
+    String getName();
+}
@@ -0,0 +1,272 @@
+package com.example.h12controller;
+
+import android.util.Log;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 数传管道上行写入
+ * Flutter 发来的数据先进入有界队列，由独立的写线程合并为不超过 MTU 的数据块后再写入管道，
+ * 避免高频小消息每条都触发一次底层写入
+ *
+ * 带 tag 的消息（例如周期性的设定值）按“最新值优先”合并：同一个 tag 在写出之前只保留最后一条；
+ * 队列满时拒绝新消息并计入丢弃数，调用方据此做背压
+ */
+public class RCLinkWriter {
+    private static final String TAG = "RCLinkWriter";
+
+    public static final int DEFAULT_MTU = 256;
+    public static final int DEFAULT_CAPACITY = 32 * 1024;
+    public static final int MAX_TAGS = 64;
+
+    // 收到第一条数据后稍等片刻，让后续消息有机会合并到同一次写入
+    private static final long LINGER_MS = 2;
+    // 管道未连接时的重试间隔
+    private static final long OUTPUT_RETRY_MS = 50;
+
+    /**
+     * 写入目标，通常是 Pipeline.writeData
+     */
+    public interface Output {
+        void write(byte[] data);
+    }
+
+    private final int mtu;
+    private final int capacity;
+    private final byte[] packet;
+
+    private final Object lock = new Object();
+    private final ArrayDeque<byte[]> queue = new ArrayDeque<>();
+    private final LinkedHashMap<Integer, byte[]> tagged = new LinkedHashMap<>();
+    private int headOffset = 0;  // 队首消息已写出的字节数（超过 MTU 的消息会被拆分）
+    private int queuedBytes = 0;
+    private volatile Output output;
+    private Thread writerThread;
+    private volatile boolean running = false;
+
+    // 统计，受 lock 保护
+    private long messagesAccepted = 0;
+    private long messagesCoalesced = 0;
+    private long messagesDropped = 0;
+    private long bytesWritten = 0;
+    private long writes = 0;
+    private int queuedBytesHighWatermark = 0;
+
+    public RCLinkWriter() {
+        this(DEFAULT_MTU, DEFAULT_CAPACITY);
+    }
+
+    public RCLinkWriter(int mtu, int capacity) {
+        this.mtu = mtu;
+        this.capacity = capacity;
+        this.packet = new byte[mtu];
+    }
+
+    /**
+     * 设置写入目标，为 null 时数据保留在队列中直到队列满
+     */
+    public void setOutput(Output output) {
+        this.output = output;
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+    }
+
+    public synchronized void start() {
+        if (writerThread != null) {
+            return;
+        }
+        running = true;
+        writerThread = new Thread(this::runWriter, "rc-link-writer");
+        writerThread.start();
+    }
+
+    /**
+     * 停止写线程，返回后不会再调用 Output；队列中的数据保留
+     */
+    public synchronized void stop() {
+        if (writerThread == null) {
+            return;
+        }
+        running = false;
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+        Thread thread = writerThread;
+        thread.interrupt();
+        writerThread = null;
+        // 等正在进行的写入结束，返回后不会再写入管道，之后的 start 也不会有两个写线程
+        if (Thread.currentThread() != thread) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 提交一条上行数据
+     * @param data 数据，提交后不可再修改
+     * @param tag 为 null 时按顺序发送；否则同 tag 的未发送数据会被替换为最新一条
+     * @return 队列已满时返回 false，数据被丢弃
+     */
+    public boolean send(byte[] data, Integer tag) {
+        if (data == null || data.length == 0) {
+            return true;
+        }
+        synchronized (lock) {
+            byte[] previous = tag != null ? tagged.get(tag) : null;
+            int delta = data.length - (previous != null ? previous.length : 0);
+            if (queuedBytes + delta > capacity || (tag != null && previous == null && tagged.size() >= MAX_TAGS)) {
+                messagesDropped++;
+                return false;
+            }
+            if (tag == null) {
+                queue.addLast(data);
+            } else {
+                if (previous != null) {
+                    messagesCoalesced++;
+                }
+                tagged.put(tag, data);
+            }
+            queuedBytes += delta;
+            queuedBytesHighWatermark = Math.max(queuedBytesHighWatermark, queuedBytes);
+            messagesAccepted++;
+            lock.notifyAll();
+            return true;
+        }
+    }
+
+    private void runWriter() {
+        while (running) {
+            try {
+                synchronized (lock) {
+                    while (running && queuedBytes == 0) {
+                        lock.wait();
+                    }
+                }
+                Output out = output;
+                if (out == null) {
+                    Thread.sleep(OUTPUT_RETRY_MS);
+                    continue;
+                }
+                Thread.sleep(LINGER_MS);
+                int length;
+                while (running && (length = fillPacket()) > 0) {
+                    byte[] data = length == mtu ? packet.clone() : Arrays.copyOf(packet, length);
+                    out.write(data);
+                }
+            } catch (InterruptedException e) {
+                // stop() 会中断写线程
+            } catch (Exception e) {
+                Log.e(TAG, "Error in writer: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 把待发送的消息打包进 packet，带 tag 的消息优先
+     * @return 打包的字节数，为 0 表示没有待发送数据
+     */
+    private int fillPacket() {
+        synchronized (lock) {
+            int length = 0;
+            Iterator<Map.Entry<Integer, byte[]>> iterator = tagged.entrySet().iterator();
+            while (iterator.hasNext()) {
+                byte[] data = iterator.next().getValue();
+                if (length + data.length > mtu && length > 0) {
+                    break;
+                }
+                if (data.length > mtu) {
+                    // 超过 MTU 的带 tag 消息不再合并，转入普通队列按拆分方式发送；
+                    // 队首消息已写出一部分时排在它之后，headOffset 仍属于队首消息
+                    if (headOffset > 0) {
+                        byte[] head = queue.pollFirst();
+                        queue.addFirst(data);
+                        queue.addFirst(head);
+                    } else {
+                        queue.addFirst(data);
+                    }
+                    iterator.remove();
+                    continue;
+                }
+                System.arraycopy(data, 0, packet, length, data.length);
+                length += data.length;
+                iterator.remove();
+            }
+            while (length < mtu && !queue.isEmpty()) {
+                byte[] data = queue.peekFirst();
+                int remaining = data.length - headOffset;
+                if (remaining > mtu - length) {
+                    if (length > 0 && remaining <= mtu) {
+                        // 放不下且无需拆分，留到下一次写入
+                        break;
+                    }
+                    int count = mtu - length;
+                    System.arraycopy(data, headOffset, packet, length, count);
+                    headOffset += count;
+                    length += count;
+                    break;
+                }
+                System.arraycopy(data, headOffset, packet, length, remaining);
+                length += remaining;
+                headOffset = 0;
+                queue.pollFirst();
+            }
+            queuedBytes -= length;
+            if (length > 0) {
+                bytesWritten += length;
+                writes++;
+            }
+            return length;
+        }
+    }
+
+    /**
+     * 丢弃所有未发送的数据
+     */
+    public void clear() {
+        synchronized (lock) {
+            queue.clear();
+            tagged.clear();
+            headOffset = 0;
+            queuedBytes = 0;
+        }
+    }
+
+    /**
+     * 统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (lock) {
+            stats.put("mtu", mtu);
+            stats.put("capacity", capacity);
+            stats.put("queuedBytes", queuedBytes);
+            stats.put("queuedBytesHighWatermark", queuedBytesHighWatermark);
+            stats.put("messagesAccepted", messagesAccepted);
+            stats.put("messagesCoalesced", messagesCoalesced);
+            stats.put("messagesDropped", messagesDropped);
+            stats.put("bytesWritten", bytesWritten);
+            stats.put("writes", writes);
+        }
+        return stats;
+    }
+
+    public int getQueuedBytes() {
+        synchronized (lock) {
+            return queuedBytes;
+        }
+    }
+
+    public long getMessagesDropped() {
+        synchronized (lock) {
+            return messagesDropped;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.h12controller;
+
+/**
+ * 输入路径使用的日志入口
+ * 默认输出到标准输出，应用启动时替换为 android.util.Log（见 AndroidLogSink），
+ * 使解码逻辑不直接依赖 Android 框架
+ */
+public final class RCLog {
+
+    /**
+     * 日志输出目标
+     */
+    public interface Sink {
+        void d(String tag, String message);
+
+        void e(String tag, String message, Throwable error);
+    }
+
+    private static final Sink STDOUT = new Sink() {
+        @Override
+        public void d(String tag, String message) {
+            System.out.println(tag + ": " + message);
+        }
+
+        @Override
+        public void e(String tag, String message, Throwable error) {
+            System.err.println(tag + ": " + message);
+            if (error != null) {
+                error.printStackTrace();
+            }
+        }
+    };
+
+    private static volatile Sink sink = STDOUT;
+
+    private RCLog() {
+    }
+
+    /**
+     * 替换日志输出目标，为 null 时恢复为标准输出
+     */
+    public static void setSink(Sink target) {
+        sink = target != null ? target : STDOUT;
+    }
+
+    public static void d(String tag, String message) {
+        sink.d(tag, message);
+    }
+
+    public static void e(String tag, String message, Throwable error) {
+        sink.e(tag, message, error);
+    }
+}
@@ -0,0 +1,427 @@
+package com.example.h12controller;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 通道信号调理链，在输入线程上对每帧原始通道值依次执行：
+ *   校准     按端点和中点把 [min, center, max] 线性映射到 [1000, 1500, 2000]，两侧分别缩放
+ *   死区     中点附近 deadzone 以内输出中点，死区外重新缩放，输出仍然连续
+ *   指数曲线 expo 为 0~100，按 (1 - e)·x + e·x³ 混合，中点附近更细腻
+ *   平滑     EMA（固定截止频率）或 one-euro（截止频率随变化速度升高，静止时去抖，快速移动时低延迟）
+ *   限速     每秒最大变化量
+ * 没有配置的通道原样输出；平滑和限速按帧时间间隔计算系数，采样频率变化（自适应采样）时效果不变
+ *
+ * 全部使用整数定点运算：系数为 Q16，平滑状态为 Q8；状态数组预分配，每帧不分配内存
+ * 调理后的值替代原始值进入快照、解码、变化检测和订阅，摇杆在中点附近的噪声不再产生变化推送；
+ * 飞行记录仍然保存原始值，回放时按当时的配置重新调理
+ */
+public class RCSignalConditioner {
+    public static final int OUTPUT_CENTER = 1500;
+    public static final int OUTPUT_HALF_RANGE = 500;
+
+    public static final int SMOOTHING_NONE = 0;
+    public static final int SMOOTHING_EMA = 1;
+    public static final int SMOOTHING_ONE_EURO = 2;
+
+    public static final int MAX_CUTOFF_MILLI_HZ = 1_000_000;  // 1000Hz
+    public static final int DEFAULT_CUTOFF_MILLI_HZ = 5_000;
+    // one-euro 中速度估计的截止频率
+    private static final int DERIVATIVE_CUTOFF_MILLI_HZ = 1_000;
+    // 帧间隔超过该值（或时间戳回退）时重新建立基准，避免数据源切换后的跳变被平滑或限速拖慢
+    private static final long MAX_GAP_NANOS = 1_000_000_000L;
+
+    // 速度估计的上限（单位/秒），避免极短帧间隔下定点运算溢出
+    private static final long MAX_VELOCITY = 10_000_000L;
+
+    private static final long TWO_PI_Q16 = 411_775;  // 2π · 65536
+    private static final long DERIVATIVE_CUTOFF_FACTOR = TWO_PI_Q16 * DERIVATIVE_CUTOFF_MILLI_HZ / 1000;
+    private static final long ONE_Q16 = 1 << 16;
+
+    /**
+     * 调理配置
+     */
+    public static class Profile {
+        private int configuredMask = 0;
+        private int calibratedMask = 0;
+        private final int[] mins = new int[RCFrameCodec.MAX_CHANNELS];
+        private final int[] centers = new int[RCFrameCodec.MAX_CHANNELS];
+        private final int[] maxs = new int[RCFrameCodec.MAX_CHANNELS];
+        private final int[] deadzones = new int[RCFrameCodec.MAX_CHANNELS];
+        private final int[] expos = new int[RCFrameCodec.MAX_CHANNELS];
+        private final int[] smoothings = new int[RCFrameCodec.MAX_CHANNELS];
+        private final int[] cutoffs = new int[RCFrameCodec.MAX_CHANNELS];
+        private final int[] betas = new int[RCFrameCodec.MAX_CHANNELS];
+        private final int[] rateLimits = new int[RCFrameCodec.MAX_CHANNELS];
+
+        public Profile() {
+            for (int i = 0; i < RCFrameCodec.MAX_CHANNELS; i++) {
+                mins[i] = OUTPUT_CENTER - OUTPUT_HALF_RANGE;
+                centers[i] = OUTPUT_CENTER;
+                maxs[i] = OUTPUT_CENTER + OUTPUT_HALF_RANGE;
+            }
+        }
+
+        /**
+         * 端点和中点校准，输出限制在 1000~2000
+         */
+        public Profile setCalibration(int channel, int min, int center, int max) {
+            checkChannel(channel);
+            if (min >= center || center >= max) {
+                throw new IllegalArgumentException("invalid calibration: " + min + "/" + center + "/" + max);
+            }
+            mins[channel] = min;
+            centers[channel] = center;
+            maxs[channel] = max;
+            calibratedMask |= 1 << channel;
+            configuredMask |= 1 << channel;
+            return this;
+        }
+
+        /**
+         * @param deadzone 中点两侧的死区宽度，0~499
+         */
+        public Profile setDeadzone(int channel, int deadzone) {
+            checkChannel(channel);
+            if (deadzone < 0 || deadzone >= OUTPUT_HALF_RANGE) {
+                throw new IllegalArgumentException("invalid deadzone: " + deadzone);
+            }
+            deadzones[channel] = deadzone;
+            configuredMask |= 1 << channel;
+            return this;
+        }
+
+        /**
+         * @param expo 指数曲线比例，0~100
+         */
+        public Profile setExpo(int channel, int expo) {
+            checkChannel(channel);
+            if (expo < 0 || expo > 100) {
+                throw new IllegalArgumentException("invalid expo: " + expo);
+            }
+            expos[channel] = expo;
+            configuredMask |= 1 << channel;
+            return this;
+        }
+
+        /**
+         * @param smoothing SMOOTHING_*
+         * @param cutoffMilliHz 截止频率（毫赫兹）；one-euro 时为静止时的最低截止频率
+         * @param betaMilliHz one-euro 的速度系数：每 1 单位/秒的变化速度提高的截止频率（毫赫兹）
+         */
+        public Profile setSmoothing(int channel, int smoothing, int cutoffMilliHz, int betaMilliHz) {
+            checkChannel(channel);
+            if (smoothing < SMOOTHING_NONE || smoothing > SMOOTHING_ONE_EURO) {
+                throw new IllegalArgumentException("invalid smoothing: " + smoothing);
+            }
+            if (cutoffMilliHz <= 0 || cutoffMilliHz > MAX_CUTOFF_MILLI_HZ) {
+                throw new IllegalArgumentException("invalid cutoff: " + cutoffMilliHz);
+            }
+            if (betaMilliHz < 0) {
+                throw new IllegalArgumentException("invalid beta: " + betaMilliHz);
+            }
+            smoothings[channel] = smoothing;
+            cutoffs[channel] = cutoffMilliHz;
+            betas[channel] = betaMilliHz;
+            configuredMask |= 1 << channel;
+            return this;
+        }
+
+        /**
+         * @param unitsPerSecond 每秒最大变化量，0 表示不限速
+         */
+        public Profile setRateLimit(int channel, int unitsPerSecond) {
+            checkChannel(channel);
+            if (unitsPerSecond < 0) {
+                throw new IllegalArgumentException("invalid rate limit: " + unitsPerSecond);
+            }
+            rateLimits[channel] = unitsPerSecond;
+            configuredMask |= 1 << channel;
+            return this;
+        }
+
+        private static void checkChannel(int channel) {
+            if (channel < 0 || channel >= RCFrameCodec.MAX_CHANNELS) {
+                throw new IllegalArgumentException("invalid channel: " + channel);
+            }
+        }
+
+        /**
+         * 默认配置：不调理，所有通道原样输出
+         */
+        public static Profile defaultProfile() {
+            return new Profile();
+        }
+
+        /**
+         * 从 Flutter 传入的配置解析
+         * 格式：{channels: [{channel: int, min: int, center: int, max: int, deadzone: int, expo: int,
+         *        smoothing: 'none'|'ema'|'oneEuro', cutoffHz: num, beta: num, rateLimit: int}]}
+         * 每个通道只需要给出用到的阶段；min / center / max 需要同时给出；beta 的单位为 Hz / (单位/秒)
+         */
+        public static Profile fromMap(Map<?, ?> map) {
+            Profile profile = new Profile();
+            Object channels = map.get("channels");
+            if (!(channels instanceof List)) {
+                throw new IllegalArgumentException("channels is required");
+            }
+            for (Object item : (List<?>) channels) {
+                if (!(item instanceof Map)) {
+                    throw new IllegalArgumentException("invalid channel: " + item);
+                }
+                Map<?, ?> channel = (Map<?, ?>) item;
+                Object index = channel.get("channel");
+                if (!(index instanceof Number)) {
+                    throw new IllegalArgumentException("channel is required");
+                }
+                int c = ((Number) index).intValue();
+                Object min = channel.get("min");
+                Object center = channel.get("center");
+                Object max = channel.get("max");
+                if (min != null || center != null || max != null) {
+                    if (!(min instanceof Number) || !(center instanceof Number) || !(max instanceof Number)) {
+                        throw new IllegalArgumentException("min, center and max are required together");
+                    }
+                    profile.setCalibration(c, ((Number) min).intValue(), ((Number) center).intValue(),
+                            ((Number) max).intValue());
+                }
+                Object value = channel.get("deadzone");
+                if (value instanceof Number) {
+                    profile.setDeadzone(c, ((Number) value).intValue());
+                }
+                value = channel.get("expo");
+                if (value instanceof Number) {
+                    profile.setExpo(c, ((Number) value).intValue());
+                }
+                value = channel.get("smoothing");
+                if (value != null) {
+                    Object cutoff = channel.get("cutoffHz");
+                    Object beta = channel.get("beta");
+                    profile.setSmoothing(c, parseSmoothing(value),
+                            cutoff instanceof Number
+                                    ? (int) Math.round(((Number) cutoff).doubleValue() * 1000) : DEFAULT_CUTOFF_MILLI_HZ,
+                            beta instanceof Number ? (int) Math.round(((Number) beta).doubleValue() * 1000) : 0);
+                }
+                value = channel.get("rateLimit");
+                if (value instanceof Number) {
+                    profile.setRateLimit(c, ((Number) value).intValue());
+                }
+            }
+            return profile;
+        }
+
+        private static int parseSmoothing(Object smoothing) {
+            if ("none".equals(smoothing)) {
+                return SMOOTHING_NONE;
+            }
+            if ("ema".equals(smoothing)) {
+                return SMOOTHING_EMA;
+            }
+            if ("oneEuro".equals(smoothing)) {
+                return SMOOTHING_ONE_EURO;
+            }
+            throw new IllegalArgumentException("invalid smoothing: " + smoothing);
+        }
+    }
+
+    /**
+     * 编译后的配置，创建后不再修改，可以整体替换
+     */
+    private static final class Table {
+        final int configuredMask;
+        final int calibratedMask;
+        final int[] centers;
+        final int[] outputCenters;  // 校准的通道输出以 1500 为中点，否则保持原中点
+        final long[] lowScales;  // Q16，中点以下的校准缩放
+        final long[] highScales;
+        final int[] deadzones;
+        final long[] deadzoneScales;  // Q16，死区外的重新缩放
+        final int[] expos;
+        final long[] linearWeights;  // Q16，(100 - expo) / 100
+        final long[] cubicWeights;  // Q32，expo / 100 / 500²
+        final int[] smoothings;
+        final int[] cutoffs;
+        final long[] cutoffFactors;  // 2π · fc，Q16 · 赫兹
+        final int[] betas;
+        final int[] rateLimits;
+
+        Table(Profile profile) {
+            configuredMask = profile.configuredMask;
+            calibratedMask = profile.calibratedMask;
+            centers = profile.centers.clone();
+            outputCenters = new int[RCFrameCodec.MAX_CHANNELS];
+            lowScales = new long[RCFrameCodec.MAX_CHANNELS];
+            highScales = new long[RCFrameCodec.MAX_CHANNELS];
+            deadzones = profile.deadzones.clone();
+            deadzoneScales = new long[RCFrameCodec.MAX_CHANNELS];
+            expos = profile.expos.clone();
+            linearWeights = new long[RCFrameCodec.MAX_CHANNELS];
+            cubicWeights = new long[RCFrameCodec.MAX_CHANNELS];
+            smoothings = profile.smoothings.clone();
+            cutoffs = profile.cutoffs.clone();
+            cutoffFactors = new long[RCFrameCodec.MAX_CHANNELS];
+            betas = profile.betas.clone();
+            rateLimits = profile.rateLimits.clone();
+            for (int i = 0; i < RCFrameCodec.MAX_CHANNELS; i++) {
+                boolean calibrated = (calibratedMask & 1 << i) != 0;
+                outputCenters[i] = calibrated ? OUTPUT_CENTER : centers[i];
+                lowScales[i] = scale(OUTPUT_HALF_RANGE, profile.centers[i] - profile.mins[i]);
+                highScales[i] = scale(OUTPUT_HALF_RANGE, profile.maxs[i] - profile.centers[i]);
+                deadzoneScales[i] = scale(OUTPUT_HALF_RANGE, OUTPUT_HALF_RANGE - deadzones[i]);
+                linearWeights[i] = scale(100 - expos[i], 100);
+                cubicWeights[i] = ((long) expos[i] << 32) / (100L * OUTPUT_HALF_RANGE * OUTPUT_HALF_RANGE);
+                cutoffFactors[i] = TWO_PI_Q16 * profile.cutoffs[i] / 1000;
+            }
+        }
+
+        /**
+         * to / from，Q16，四舍五入
+         */
+        private static long scale(int to, int from) {
+            return (to * ONE_Q16 + from / 2) / from;
+        }
+    }
+
+    private volatile Table table;
+    private Table stateTable;
+
+    // 以下状态仅输入线程使用
+    private final long[] smoothed = new long[RCFrameCodec.MAX_CHANNELS];  // Q8，相对中点
+    private final long[] derivatives = new long[RCFrameCodec.MAX_CHANNELS];  // Q8，单位/秒
+    private final int[] lastOutputs = new int[RCFrameCodec.MAX_CHANNELS];  // 相对中点
+    private boolean primed = false;
+    private long lastNanos;
+    private int[] output = new int[0];
+
+    public RCSignalConditioner() {
+        this(Profile.defaultProfile());
+    }
+
+    public RCSignalConditioner(Profile profile) {
+        load(profile);
+    }
+
+    /**
+     * 加载新配置，可以在采样过程中从其他线程调用；之后的第一帧重新建立平滑和限速的基准
+     */
+    public void load(Profile profile) {
+        table = new Table(profile);
+    }
+
+    /**
+     * 调理一帧
+     * @param channels 原始通道值，不会被修改
+     * @param nowNanos 帧时间（单调时钟）
+     * @return 调理后的通道值，长度与输入相同，下一次 condition 前有效；没有配置任何通道时直接返回输入
+     */
+    public int[] condition(int[] channels, long nowNanos) {
+        Table t = table;
+        if (t != stateTable) {
+            stateTable = t;
+            primed = false;
+        }
+        if (t.configuredMask == 0) {
+            return channels;
+        }
+        int count = channels.length;
+        if (output.length != count) {
+            // 只在通道数变化时重新分配
+            output = new int[count];
+        }
+        int[] out = output;
+        System.arraycopy(channels, 0, out, 0, count);
+
+        long dtNanos = nowNanos - lastNanos;
+        boolean reset = !primed || dtNanos <= 0 || dtNanos > MAX_GAP_NANOS;
+        primed = true;
+        lastNanos = nowNanos;
+
+        int remaining = t.configuredMask & RCFrameCodec.fullMask(Math.min(count, RCFrameCodec.MAX_CHANNELS));
+        while (remaining != 0) {
+            int c = Integer.numberOfTrailingZeros(remaining);
+            remaining &= remaining - 1;
+
+            long x = channels[c] - t.centers[c];
+            if ((t.calibratedMask & 1 << c) != 0) {
+                long scaled = Math.min(OUTPUT_HALF_RANGE,
+                        mulQ16(Math.abs(x), x < 0 ? t.lowScales[c] : t.highScales[c]));
+                x = x < 0 ? -scaled : scaled;
+            }
+
+            int deadzone = t.deadzones[c];
+            if (deadzone > 0) {
+                long magnitude = Math.abs(x);
+                if (magnitude <= deadzone) {
+                    x = 0;
+                } else {
+                    long scaled = mulQ16(magnitude - deadzone, t.deadzoneScales[c]);
+                    x = x < 0 ? -scaled : scaled;
+                }
+            }
+
+            if (t.expos[c] > 0) {
+                // 按绝对值计算保证正负对称
+                long magnitude = Math.abs(x);
+                long curved = mulQ16(magnitude, t.linearWeights[c])
+                        + ((magnitude * magnitude * magnitude * t.cubicWeights[c] + (1L << 31)) >> 32);
+                x = x < 0 ? -curved : curved;
+            }
+
+            int smoothing = t.smoothings[c];
+            if (smoothing != SMOOTHING_NONE) {
+                long target = x << 8;
+                if (reset) {
+                    smoothed[c] = target;
+                    derivatives[c] = 0;
+                } else {
+                    long cutoffFactor = t.cutoffFactors[c];
+                    if (smoothing == SMOOTHING_ONE_EURO) {
+                        long velocity = (target - smoothed[c]) * 1_000_000_000L / dtNanos;
+                        velocity = Math.max(-(MAX_VELOCITY << 8), Math.min(MAX_VELOCITY << 8, velocity));
+                        long derivative = derivatives[c];
+                        derivative += ((velocity - derivative) * alpha(DERIVATIVE_CUTOFF_FACTOR, dtNanos)) >> 16;
+                        derivatives[c] = derivative;
+                        long cutoff = Math.min(MAX_CUTOFF_MILLI_HZ,
+                                t.cutoffs[c] + t.betas[c] * (Math.abs(derivative) >> 8));
+                        cutoffFactor = TWO_PI_Q16 * cutoff / 1000;
+                    }
+                    smoothed[c] += ((target - smoothed[c]) * alpha(cutoffFactor, dtNanos)) >> 16;
+                }
+                x = (smoothed[c] + 128) >> 8;
+            }
+
+            int rateLimit = t.rateLimits[c];
+            if (rateLimit > 0 && !reset) {
+                long maxStep = Math.max(1, rateLimit * dtNanos / 1_000_000_000L);
+                long last = lastOutputs[c];
+                x = Math.max(last - maxStep, Math.min(last + maxStep, x));
+            }
+            lastOutputs[c] = (int) x;
+            out[c] = t.outputCenters[c] + (int) x;
+        }
+        return out;
+    }
+
+    /**
+     * 非负数乘以 Q16 系数，四舍五入
+     */
+    private static long mulQ16(long magnitude, long factor) {
+        return (magnitude * factor + (1 << 15)) >> 16;
+    }
+
+    /**
+     * 一阶低通的平滑系数 α = w / (1 + w)，w = 2π · fc · dt，结果为 Q16
+     * @param cutoffFactor 2π · fc，Q16 · 赫兹
+     */
+    private static long alpha(long cutoffFactor, long dtNanos) {
+        long w = cutoffFactor * dtNanos / 1_000_000_000L;
+        return (w << 16) / (ONE_Q16 + w);
+    }
+
+    /**
+     * 当前配置是否调理任何通道
+     */
+    public boolean isActive() {
+        return table.configuredMask != 0;
+    }
+}
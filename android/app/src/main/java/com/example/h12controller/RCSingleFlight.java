@@ -0,0 +1,123 @@
+package com.example.h12controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 单飞请求管理：同一时刻最多一个未完成的 SDK 读取
+ * 每个请求分配递增的序号，回调时用序号判断是否仍是当前请求；
+ * 超时的请求不再等待，之后迟到的响应作为过期响应丢弃，保证送出的数据不会比已送出的旧
+ *
+ * 发起和完成可以在不同线程，方法都很短，用对象锁保护
+ */
+public class RCSingleFlight {
+    public static final long NO_REQUEST = -1;
+
+    private final long timeoutNanos;
+    private final RCLatencyHistogram latency = new RCLatencyHistogram();
+
+    private long sequence = 0;  // 最近一次发起的请求序号
+    private boolean inFlight = false;
+    private long startNanos;
+
+    private long issued = 0;
+    private long completed = 0;
+    private long failed = 0;
+    private long timedOut = 0;
+    private long dropped = 0;  // 过期响应
+    private long skipped = 0;  // 因已有请求未完成而跳过的发起
+
+    /**
+     * @param timeoutMs 单个请求的超时时间
+     */
+    public RCSingleFlight(long timeoutMs) {
+        if (timeoutMs <= 0) {
+            throw new IllegalArgumentException("invalid timeout: " + timeoutMs);
+        }
+        this.timeoutNanos = timeoutMs * 1_000_000L;
+    }
+
+    /**
+     * 尝试发起新请求；当前请求未完成且未超时时返回 NO_REQUEST
+     * @return 新请求的序号
+     */
+    public synchronized long tryBegin(long nowNanos) {
+        if (inFlight) {
+            if (nowNanos - startNanos < timeoutNanos) {
+                skipped++;
+                return NO_REQUEST;
+            }
+            timedOut++;
+        }
+        inFlight = true;
+        startNanos = nowNanos;
+        issued++;
+        return ++sequence;
+    }
+
+    /**
+     * 请求成功返回
+     * @return false 表示是超时或被替代的请求的迟到响应，应丢弃
+     */
+    public synchronized boolean complete(long requestSequence, long nowNanos) {
+        if (!inFlight || requestSequence != sequence) {
+            dropped++;
+            return false;
+        }
+        inFlight = false;
+        completed++;
+        latency.record(nowNanos - startNanos);
+        return true;
+    }
+
+    /**
+     * 请求失败返回
+     * @return false 表示是过期请求的失败，可以忽略
+     */
+    public synchronized boolean fail(long requestSequence) {
+        if (!inFlight || requestSequence != sequence) {
+            dropped++;
+            return false;
+        }
+        inFlight = false;
+        failed++;
+        return true;
+    }
+
+    /**
+     * 当前请求已超时则放弃等待
+     * @return 是否有请求因此超时
+     */
+    public synchronized boolean expire(long nowNanos) {
+        if (inFlight && nowNanos - startNanos >= timeoutNanos) {
+            inFlight = false;
+            timedOut++;
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized boolean isInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * 放弃当前请求且不计入超时，例如停止采样时
+     */
+    public synchronized void cancel() {
+        inFlight = false;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("inFlight", inFlight ? 1 : 0);
+        stats.put("issued", issued);
+        stats.put("completed", completed);
+        stats.put("failed", failed);
+        stats.put("timedOut", timedOut);
+        stats.put("dropped", dropped);
+        stats.put("skipped", skipped);
+        stats.put("latency", latency.toMap());
+        return stats;
+    }
+}
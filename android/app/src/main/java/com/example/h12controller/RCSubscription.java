@@ -0,0 +1,226 @@
+package com.example.h12controller;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 一个通道帧订阅者：只接收关心的通道，按自己的最高频率和投递方式接收
+ * 每个订阅者在 Flutter 端有独立的消息通道，原生端先按订阅者筛选和降频，再跨越平台边界，
+ * 10Hz 的 HUD 不会为 100Hz 的控制流付出代价
+ *
+ * 投递方式：
+ *   MODE_EVERY_FRAME  每帧都投递订阅的全部通道，超过最高频率的帧丢弃
+ *   MODE_LATEST       同上，但同一时刻最多一条消息未被 Dart 端处理完，期间的新帧只保留最新一帧
+ *   MODE_ON_CHANGE    只投递相对上次投递变化超过 deadband 的通道；受频率限制推迟的变化在下一个时间窗口投递
+ *
+ * select 在输入线程调用，deliver / onDelivered 在主线程调用，两边的状态互不共享
+ */
+public class RCSubscription {
+    public static final int MODE_EVERY_FRAME = 0;
+    public static final int MODE_LATEST = 1;
+    public static final int MODE_ON_CHANGE = 2;
+
+    private static final String[] MODE_NAMES = {"everyFrame", "latest", "onChange"};
+
+    public static final int MAX_RATE_HZ = 1000;
+
+    /**
+     * 消息输出，通常是该订阅者的 BasicMessageChannel
+     */
+    public interface Output {
+        /**
+         * @param message 编码后的帧，position 为长度，返回后即可复用
+         * @param onDelivered 不为 null 时，Dart 端处理完后在主线程调用
+         */
+        void send(ByteBuffer message, Runnable onDelivered);
+    }
+
+    private final int id;
+    private final int channelMask;
+    private final int maxRateHz;
+    private final long minIntervalNanos;
+    private final int mode;
+    private final int deadband;
+    private Output output;
+
+    // 输入线程
+    private final int[] lastSelected = new int[RCFrameCodec.MAX_CHANNELS];
+    private int lastCount = -1;
+    private long nextDueNanos;
+    private volatile long selected = 0;
+    private volatile long rateLimited = 0;
+
+    // 主线程
+    private final RCFrameCodec codec = new RCFrameCodec();
+    private final Runnable deliveredRunnable = this::onDelivered;
+    private boolean inFlight = false;
+    private boolean pending = false;
+    private final int[] pendingChannels = new int[RCFrameCodec.MAX_CHANNELS];
+    private int pendingCount;
+    private int pendingMask;
+    private long pendingTimestampNanos;
+    private long pendingCaptureMonoNanos;
+    private long delivered = 0;
+    private long coalesced = 0;
+
+    /**
+     * @param channelMask 订阅的通道，bit i 对应通道 i
+     * @param maxRateHz 最高投递频率，0 表示不限制
+     * @param mode 投递方式
+     * @param deadband MODE_ON_CHANGE 时通道变化超过该值才投递
+     */
+    public RCSubscription(int id, int channelMask, int maxRateHz, int mode, int deadband) {
+        if (channelMask == 0) {
+            throw new IllegalArgumentException("empty channel mask");
+        }
+        if (maxRateHz < 0 || maxRateHz > MAX_RATE_HZ) {
+            throw new IllegalArgumentException("invalid max rate: " + maxRateHz);
+        }
+        if (mode < MODE_EVERY_FRAME || mode > MODE_ON_CHANGE) {
+            throw new IllegalArgumentException("invalid delivery mode: " + mode);
+        }
+        if (deadband < 0) {
+            throw new IllegalArgumentException("invalid deadband: " + deadband);
+        }
+        this.id = id;
+        this.channelMask = channelMask;
+        this.maxRateHz = maxRateHz;
+        this.minIntervalNanos = maxRateHz > 0 ? 1_000_000_000L / maxRateHz : 0;
+        this.mode = mode;
+        this.deadband = deadband;
+    }
+
+    /**
+     * 主线程：设置输出，注册前调用
+     */
+    public void setOutput(Output output) {
+        this.output = output;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * 输入线程：决定这一帧投递哪些通道
+     * @return 要投递的通道掩码，0 表示这一帧不投递
+     */
+    public int select(int[] channels, int count, long nowNanos) {
+        int available = channelMask & RCFrameCodec.fullMask(count);
+        if (available == 0) {
+            return 0;
+        }
+        int mask;
+        if (mode == MODE_ON_CHANGE && count == lastCount) {
+            mask = 0;
+            int remaining = available;
+            while (remaining != 0) {
+                int channel = Integer.numberOfTrailingZeros(remaining);
+                int delta = channels[channel] - lastSelected[channel];
+                if (delta > deadband || -delta > deadband) {
+                    mask |= 1 << channel;
+                }
+                remaining &= remaining - 1;
+            }
+            if (mask == 0) {
+                return 0;
+            }
+        } else {
+            // 首帧和通道数变化时按关键帧投递全部订阅通道
+            mask = available;
+        }
+        if (minIntervalNanos > 0) {
+            long wait = nextDueNanos - nowNanos;
+            if (wait > 0 && wait <= minIntervalNanos) {
+                rateLimited++;
+                return 0;
+            }
+            // 按固定节拍推进，采样周期不是投递周期的整数倍时平均频率仍然准确；
+            // 落后一个周期以上或时间戳回退（切换数据源）时重新计时
+            nextDueNanos = wait > 0 ? nowNanos + minIntervalNanos : nextDueNanos + minIntervalNanos;
+            if (nextDueNanos <= nowNanos) {
+                nextDueNanos = nowNanos + minIntervalNanos;
+            }
+        }
+        if (mode == MODE_ON_CHANGE) {
+            int remaining = mask;
+            while (remaining != 0) {
+                int channel = Integer.numberOfTrailingZeros(remaining);
+                lastSelected[channel] = channels[channel];
+                remaining &= remaining - 1;
+            }
+            lastCount = count;
+        }
+        selected++;
+        return mask;
+    }
+
+    /**
+     * 主线程：投递一帧；MODE_LATEST 下上一条消息未处理完时只保留为待发送
+     */
+    public void deliver(int[] channels, int count, int mask, long timestampNanos, long captureMonoNanos) {
+        if (mode == MODE_LATEST && inFlight) {
+            if (pending) {
+                coalesced++;
+            }
+            System.arraycopy(channels, 0, pendingChannels, 0, count);
+            pendingCount = count;
+            pendingMask = mask;
+            pendingTimestampNanos = timestampNanos;
+            pendingCaptureMonoNanos = captureMonoNanos;
+            pending = true;
+            return;
+        }
+        send(channels, count, mask, timestampNanos, captureMonoNanos);
+    }
+
+    private void send(int[] channels, int count, int mask, long timestampNanos, long captureMonoNanos) {
+        Output target = output;
+        if (target == null) {
+            return;
+        }
+        ByteBuffer message = codec.encode(channels, mask & RCFrameCodec.fullMask(count), timestampNanos,
+                captureMonoNanos, System.nanoTime());
+        if (mode == MODE_LATEST) {
+            inFlight = true;
+            target.send(message, deliveredRunnable);
+        } else {
+            target.send(message, null);
+        }
+        delivered++;
+    }
+
+    /**
+     * 主线程：Dart 端处理完一条 MODE_LATEST 的消息
+     */
+    private void onDelivered() {
+        inFlight = false;
+        if (pending) {
+            pending = false;
+            send(pendingChannels, pendingCount, pendingMask, pendingTimestampNanos, pendingCaptureMonoNanos);
+        }
+    }
+
+    /**
+     * 主线程：取消订阅后丢弃待发送的帧
+     */
+    public void close() {
+        output = null;
+        pending = false;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("id", id);
+        stats.put("channelMask", channelMask);
+        stats.put("maxRateHz", maxRateHz);
+        stats.put("mode", MODE_NAMES[mode]);
+        stats.put("deadband", deadband);
+        stats.put("selected", selected);
+        stats.put("rateLimited", rateLimited);
+        stats.put("delivered", delivered);
+        stats.put("coalesced", coalesced);
+        return stats;
+    }
+}
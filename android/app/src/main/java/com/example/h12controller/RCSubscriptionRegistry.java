@@ -0,0 +1,101 @@
+package com.example.h12controller;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 通道帧订阅者注册表
+ * 订阅者按槽位保存在数组中，增删时整体替换数组，输入线程每帧读取一次即可，不需要加锁
+ */
+public class RCSubscriptionRegistry {
+    public static final int MAX_SUBSCRIBERS = 8;
+
+    private volatile RCSubscription[] slots = new RCSubscription[MAX_SUBSCRIBERS];
+
+    /**
+     * 添加订阅者
+     * @return 槽位
+     * @throws IllegalStateException 订阅者已满
+     */
+    public synchronized int add(RCSubscription subscription) {
+        RCSubscription[] current = slots;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == null) {
+                RCSubscription[] next = current.clone();
+                next[i] = subscription;
+                slots = next;
+                return i;
+            }
+        }
+        throw new IllegalStateException("too many subscriptions: " + MAX_SUBSCRIBERS);
+    }
+
+    /**
+     * 移除订阅者
+     * @return 被移除的订阅者，不存在时返回 null
+     */
+    public synchronized RCSubscription remove(int id) {
+        RCSubscription[] current = slots;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] != null && current[i].getId() == id) {
+                RCSubscription removed = current[i];
+                RCSubscription[] next = current.clone();
+                next[i] = null;
+                slots = next;
+                return removed;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 槽位上的订阅者，可能为 null
+     */
+    public RCSubscription get(int slot) {
+        return slots[slot];
+    }
+
+    public boolean isEmpty() {
+        for (RCSubscription subscription : slots) {
+            if (subscription != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 输入线程：为每个订阅者选出这一帧要投递的通道
+     * @param masks 输出，各槽位要投递的通道掩码
+     * @param ids 输出，各槽位订阅者的 id，主线程据此确认订阅者没有被替换
+     * @return 需要投递的槽位掩码
+     */
+    public int select(int[] channels, int count, long nowNanos, int[] masks, int[] ids) {
+        RCSubscription[] current = slots;
+        int selectedSlots = 0;
+        for (int i = 0; i < current.length; i++) {
+            RCSubscription subscription = current[i];
+            if (subscription == null) {
+                continue;
+            }
+            int mask = subscription.select(channels, count, nowNanos);
+            if (mask != 0) {
+                masks[i] = mask;
+                ids[i] = subscription.getId();
+                selectedSlots |= 1 << i;
+            }
+        }
+        return selectedSlots;
+    }
+
+    public List<Map<String, Object>> getStats() {
+        List<Map<String, Object>> stats = new ArrayList<>();
+        for (RCSubscription subscription : slots) {
+            if (subscription != null) {
+                stats.add(subscription.getStats());
+            }
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.h12controller;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 摇杆分区量化器
+ * 把分区配置（每个摇杆、每个轴的区间 → 按键码）编译为覆盖 1050~1950 的查找表，
+ * 每个轴的分类只需要一次数组读取，取代原来 determineKeyCode 中的多段 if 判断
+ *
+ * 支持滞回：当前已处于某个分区时，数值需要超出该分区边界 hysteresis 以上才会切换，
+ * 避免在分区边界附近来回抖动
+ */
+public class RCZoneQuantizer {
+    public static final int RANGE_MIN = 1050;
+    public static final int RANGE_MAX = 1950;
+    private static final int TABLE_SIZE = RANGE_MAX - RANGE_MIN + 1;
+
+    public static final int STICK_LEFT = 0;
+    public static final int STICK_RIGHT = 1;
+    public static final int AXIS_X = 0;
+    public static final int AXIS_Y = 1;
+    private static final int SLOT_COUNT = 4;
+
+    public static final int DEFAULT_HYSTERESIS = 10;
+
+    // 分区 0 表示不在任何分区内
+    private static final int NO_ZONE = 0;
+
+    /**
+     * 分区配置
+     */
+    public static class Profile {
+        private final List<int[]> zones = new ArrayList<>();
+        private int hysteresis = 0;
+
+        /**
+         * 添加一个分区
+         * @param stick STICK_LEFT 或 STICK_RIGHT
+         * @param axis AXIS_X 或 AXIS_Y
+         * @param min 区间下限（含）
+         * @param max 区间上限（含）
+         * @param keyCode 落在区间内时输出的按键码
+         */
+        public Profile addZone(int stick, int axis, int min, int max, int keyCode) {
+            if (stick != STICK_LEFT && stick != STICK_RIGHT) {
+                throw new IllegalArgumentException("invalid stick: " + stick);
+            }
+            if (axis != AXIS_X && axis != AXIS_Y) {
+                throw new IllegalArgumentException("invalid axis: " + axis);
+            }
+            if (min > max) {
+                throw new IllegalArgumentException("invalid range: " + min + ".." + max);
+            }
+            zones.add(new int[] {stick, axis, min, max, keyCode});
+            return this;
+        }
+
+        public Profile setHysteresis(int hysteresis) {
+            this.hysteresis = Math.max(0, hysteresis);
+            return this;
+        }
+
+        /**
+         * 默认配置，对应原 determineKeyCode 的分区，补上了边界值的空隙以及
+         * 右摇杆 NUMPAD_5 永远无法命中的区间
+         */
+        public static Profile defaultProfile() {
+            Profile profile = new Profile().setHysteresis(DEFAULT_HYSTERESIS);
+            // 左摇杆
+            profile.addZone(STICK_LEFT, AXIS_X, RANGE_MIN, 1399, RCKeyCodes.KEYCODE_DPAD_LEFT);
+            profile.addZone(STICK_LEFT, AXIS_X, 1601, RANGE_MAX, RCKeyCodes.KEYCODE_DPAD_RIGHT);
+            profile.addZone(STICK_LEFT, AXIS_Y, RANGE_MIN, 1399, RCKeyCodes.KEYCODE_DPAD_UP);
+            profile.addZone(STICK_LEFT, AXIS_Y, 1601, RANGE_MAX, RCKeyCodes.KEYCODE_DPAD_DOWN);
+            // 右摇杆 左 / 右，1~3 档位
+            profile.addZone(STICK_RIGHT, AXIS_X, 1350, 1499, RCKeyCodes.KEYCODE_NUMPAD_7);
+            profile.addZone(STICK_RIGHT, AXIS_X, 1200, 1349, RCKeyCodes.KEYCODE_NUMPAD_8);
+            profile.addZone(STICK_RIGHT, AXIS_X, RANGE_MIN, 1199, RCKeyCodes.KEYCODE_NUMPAD_9);
+            profile.addZone(STICK_RIGHT, AXIS_X, 1501, 1650, RCKeyCodes.KEYCODE_NUMPAD_DIVIDE);
+            profile.addZone(STICK_RIGHT, AXIS_X, 1651, 1800, RCKeyCodes.KEYCODE_NUMPAD_MULTIPLY);
+            profile.addZone(STICK_RIGHT, AXIS_X, 1801, RANGE_MAX, RCKeyCodes.KEYCODE_NUMPAD_SUBTRACT);
+            // 右摇杆 下 / 上，1~3 档位
+            profile.addZone(STICK_RIGHT, AXIS_Y, 1350, 1499, RCKeyCodes.KEYCODE_NUMPAD_4);
+            profile.addZone(STICK_RIGHT, AXIS_Y, 1200, 1349, RCKeyCodes.KEYCODE_NUMPAD_5);
+            profile.addZone(STICK_RIGHT, AXIS_Y, RANGE_MIN, 1199, RCKeyCodes.KEYCODE_NUMPAD_6);
+            profile.addZone(STICK_RIGHT, AXIS_Y, 1501, 1650, RCKeyCodes.KEYCODE_NUMPAD_1);
+            profile.addZone(STICK_RIGHT, AXIS_Y, 1651, 1800, RCKeyCodes.KEYCODE_NUMPAD_2);
+            profile.addZone(STICK_RIGHT, AXIS_Y, 1801, RANGE_MAX, RCKeyCodes.KEYCODE_NUMPAD_3);
+            return profile;
+        }
+
+        /**
+         * 从 Flutter 传入的配置解析
+         * 格式：{hysteresis: int, zones: [{stick: 'left'|'right', axis: 'x'|'y', min: int, max: int, keyCode: int}]}
+         */
+        public static Profile fromMap(Map<?, ?> map) {
+            Profile profile = new Profile();
+            Object hysteresis = map.get("hysteresis");
+            if (hysteresis instanceof Number) {
+                profile.setHysteresis(((Number) hysteresis).intValue());
+            }
+            Object zones = map.get("zones");
+            if (!(zones instanceof List)) {
+                throw new IllegalArgumentException("zones is required");
+            }
+            for (Object item : (List<?>) zones) {
+                if (!(item instanceof Map)) {
+                    throw new IllegalArgumentException("invalid zone: " + item);
+                }
+                Map<?, ?> zone = (Map<?, ?>) item;
+                profile.addZone(
+                        "right".equals(zone.get("stick")) ? STICK_RIGHT : STICK_LEFT,
+                        "y".equals(zone.get("axis")) ? AXIS_Y : AXIS_X,
+                        getInt(zone, "min"),
+                        getInt(zone, "max"),
+                        getInt(zone, "keyCode"));
+            }
+            return profile;
+        }
+
+        private static int getInt(Map<?, ?> map, String key) {
+            Object value = map.get(key);
+            if (!(value instanceof Number)) {
+                throw new IllegalArgumentException(key + " is required");
+            }
+            return ((Number) value).intValue();
+        }
+    }
+
+    /**
+     * 编译后的查找表，创建后不再修改，可以整体替换
+     */
+    private static final class Table {
+        final byte[][] zoneBySlot = new byte[SLOT_COUNT][TABLE_SIZE];
+        final int[] keyCodes;
+        final int[] zoneMin;
+        final int[] zoneMax;
+        final int hysteresis;
+
+        Table(Profile profile) {
+            int count = profile.zones.size() + 1;
+            if (count > Byte.MAX_VALUE) {
+                throw new IllegalArgumentException("too many zones: " + profile.zones.size());
+            }
+            keyCodes = new int[count];
+            zoneMin = new int[count];
+            zoneMax = new int[count];
+            keyCodes[NO_ZONE] = RCKeyCodes.KEYCODE_UNKNOWN;
+            hysteresis = profile.hysteresis;
+
+            // 后添加的分区覆盖先添加的分区
+            for (int i = 1; i < count; i++) {
+                int[] zone = profile.zones.get(i - 1);
+                int slot = zone[0] * 2 + zone[1];
+                keyCodes[i] = zone[4];
+                zoneMin[i] = zone[2];
+                zoneMax[i] = zone[3];
+                int from = Math.max(zone[2], RANGE_MIN) - RANGE_MIN;
+                int to = Math.min(zone[3], RANGE_MAX) - RANGE_MIN;
+                for (int v = from; v <= to; v++) {
+                    zoneBySlot[slot][v] = (byte) i;
+                }
+            }
+        }
+    }
+
+    private volatile Table table;
+    private Table stateTable;
+    private final int[] currentZones = new int[SLOT_COUNT];
+
+    public RCZoneQuantizer() {
+        this(Profile.defaultProfile());
+    }
+
+    public RCZoneQuantizer(Profile profile) {
+        load(profile);
+    }
+
+    /**
+     * 加载新的分区配置，可以在采样过程中从其他线程调用
+     */
+    public void load(Profile profile) {
+        table = new Table(profile);
+    }
+
+    /**
+     * 对一个摇杆分类，X 轴优先于 Y 轴
+     * @return 按键码，不在任何分区内时为 KEYCODE_UNKNOWN
+     */
+    public int keyCode(int stick, int x, int y) {
+        Table t = table;
+        if (t != stateTable) {
+            // 配置被替换后旧的分区编号已经无效
+            stateTable = t;
+            for (int i = 0; i < SLOT_COUNT; i++) {
+                currentZones[i] = NO_ZONE;
+            }
+        }
+        int xZone = classify(t, stick * 2 + AXIS_X, x);
+        int yZone = classify(t, stick * 2 + AXIS_Y, y);
+        return xZone != NO_ZONE ? t.keyCodes[xZone] : t.keyCodes[yZone];
+    }
+
+    private int classify(Table t, int slot, int value) {
+        int clamped = value < RANGE_MIN ? RANGE_MIN : (value > RANGE_MAX ? RANGE_MAX : value);
+        int zone = t.zoneBySlot[slot][clamped - RANGE_MIN];
+        int current = currentZones[slot];
+        if (zone != current && current != NO_ZONE
+                && value >= t.zoneMin[current] - t.hysteresis
+                && value <= t.zoneMax[current] + t.hysteresis) {
+            zone = current;
+        }
+        currentZones[slot] = zone;
+        return zone;
+    }
+}
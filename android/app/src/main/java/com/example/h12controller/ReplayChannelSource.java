@@ -0,0 +1,258 @@
+package com.example.h12controller;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 飞行记录回放数据源
+ * 按记录顺序输出 RCFlightRecorder 写入的通道帧，数传记录被跳过；
+ * 同一份记录每次回放得到的帧序列和时间戳完全相同，与回放倍速无关
+ *
+ * 输出的时间戳从记录中的原始时间开始，并在记录中断处重新对齐：新会话的第一段、时间戳倒退（例如重启后的会话）
+ * 或帧间隔超过 MAX_FRAME_GAP_NANOS（两次会话之间、遥控器断开期间）时，下一帧紧接上一帧、相隔一个平均帧间隔，
+ * 不会在中断处停顿，也不会因为时间倒退而不限速地输出；循环回放时每一轮同样紧接上一轮，时间戳单调递增
+ */
+public class ReplayChannelSource extends PacedChannelSource {
+    // 记录中只有一帧或时间戳异常时使用的帧间隔
+    private static final long DEFAULT_FRAME_PERIOD_NANOS = 10_000_000L;
+    // 相邻两帧的间隔超过该值视为记录中断；最低采样频率下帧间隔为 200ms
+    public static final long MAX_FRAME_GAP_NANOS = 1_000_000_000L;
+
+    private final MappedByteBuffer[] segments;
+    private final boolean[] sessionStarts;  // 段是否为一个会话的第一段
+    private final boolean loop;
+    private final long frameCount;
+    private final long firstTimestampNanos;
+    private final long durationNanos;
+    private final long framePeriodNanos;
+
+    // 以下字段只在输出线程上访问
+    private final int[][] buffersByCount = new int[RCFrameCodec.MAX_CHANNELS + 1][];
+    private int[] current;
+    private int segmentIndex;
+    private int position;
+    private boolean started;
+    private boolean continuous;  // 下一帧与上一帧之间没有中断
+    private long previousRecordedNanos;
+    private long previousNanos;
+
+    /**
+     * @param path 单个段文件，或包含段文件的目录（按时间顺序回放其中所有会话）
+     * @param speed 回放倍速，1 为原始速度，小于等于 0 为不限速
+     * @param loop 回放结束后是否从头开始
+     * @throws IOException 文件不存在、无法读取或不是飞行记录
+     */
+    public ReplayChannelSource(File path, double speed, boolean loop) throws IOException {
+        this(path.isDirectory() ? RCFlightRecord.listSegments(path, RCFlightRecord.NO_SESSION) : new File[] {path},
+                speed, loop);
+    }
+
+    /**
+     * @param files 按时间顺序排列的段文件，例如 RCFlightRecord.latestSession 给出的一次会话
+     * @param speed 回放倍速，1 为原始速度，小于等于 0 为不限速
+     * @param loop 回放结束后是否从头开始
+     * @throws IOException 没有段文件、无法读取或不是飞行记录
+     */
+    public ReplayChannelSource(File[] files, double speed, boolean loop) throws IOException {
+        super("rc-replay-source", speed);
+        this.loop = loop;
+        if (files.length == 0) {
+            throw new IOException("No flight records");
+        }
+        this.segments = mapSegments(files);
+        this.sessionStarts = new boolean[segments.length];
+        for (int i = 0; i < segments.length; i++) {
+            sessionStarts[i] = segments[i].getInt(8) == 0;
+        }
+
+        // 预先扫描一遍，得到帧数、平均帧间隔（不含中断处）和对齐后的时长
+        long count = 0;
+        long first = 0;
+        long previous = 0;
+        long gapSum = 0;
+        long gapCount = 0;
+        long breaks = 0;
+        for (int s = 0; s < segments.length; s++) {
+            MappedByteBuffer segment = segments[s];
+            boolean newSession = sessionStarts[s];
+            int pos = RCFlightRecord.SEGMENT_HEADER_BYTES;
+            int type;
+            while ((type = recordType(segment, pos)) != RCFlightRecord.RECORD_END) {
+                if (type == RCFlightRecord.RECORD_FRAME) {
+                    long timestamp = segment.getLong(pos + 4);
+                    if (count == 0) {
+                        first = timestamp;
+                    } else if (newSession || isBreak(timestamp - previous)) {
+                        breaks++;
+                    } else {
+                        gapSum += timestamp - previous;
+                        gapCount++;
+                    }
+                    newSession = false;
+                    previous = timestamp;
+                    count++;
+                }
+                pos += RCFlightRecord.RECORD_HEADER_BYTES + (segment.getShort(pos + 2) & 0xFFFF);
+            }
+        }
+        if (count == 0) {
+            throw new IOException("No channel frames in " + files[0].getParent());
+        }
+        this.frameCount = count;
+        this.firstTimestampNanos = first;
+        this.framePeriodNanos = gapCount > 0 && gapSum >= gapCount ? gapSum / gapCount : DEFAULT_FRAME_PERIOD_NANOS;
+        this.durationNanos = gapSum + breaks * framePeriodNanos;
+    }
+
+    private static boolean isBreak(long gapNanos) {
+        return gapNanos < 0 || gapNanos > MAX_FRAME_GAP_NANOS;
+    }
+
+    private static MappedByteBuffer[] mapSegments(File[] files) throws IOException {
+        List<MappedByteBuffer> mapped = new ArrayList<>();
+        for (File file : files) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+                MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                if (buffer.limit() < RCFlightRecord.SEGMENT_HEADER_BYTES
+                        || buffer.getInt(0) != RCFlightRecord.MAGIC) {
+                    throw new IOException("Not a flight record: " + file);
+                }
+                if ((buffer.getShort(4) & 0xFFFF) != RCFlightRecord.VERSION) {
+                    throw new IOException("Unsupported flight record version: " + file);
+                }
+                mapped.add(buffer);
+            }
+        }
+        return mapped.toArray(new MappedByteBuffer[0]);
+    }
+
+    /**
+     * 读取 pos 处的记录类型，剩余空间不足一条记录时视为段结束
+     */
+    private static int recordType(MappedByteBuffer segment, int pos) {
+        if (pos + RCFlightRecord.RECORD_HEADER_BYTES > segment.limit()) {
+            return RCFlightRecord.RECORD_END;
+        }
+        int type = segment.get(pos) & 0xFF;
+        int length = segment.getShort(pos + 2) & 0xFFFF;
+        if (pos + RCFlightRecord.RECORD_HEADER_BYTES + length > segment.limit()) {
+            return RCFlightRecord.RECORD_END;
+        }
+        return type;
+    }
+
+    @Override
+    protected void rewind() {
+        segmentIndex = 0;
+        position = RCFlightRecord.SEGMENT_HEADER_BYTES;
+        started = false;
+        continuous = false;
+    }
+
+    @Override
+    protected long advance() {
+        while (true) {
+            if (segmentIndex >= segments.length) {
+                if (!loop) {
+                    return END_OF_FRAMES;
+                }
+                segmentIndex = 0;
+                position = RCFlightRecord.SEGMENT_HEADER_BYTES;
+                continuous = false;
+            }
+            MappedByteBuffer segment = segments[segmentIndex];
+            if (position == RCFlightRecord.SEGMENT_HEADER_BYTES && sessionStarts[segmentIndex]) {
+                continuous = false;
+            }
+            int type = recordType(segment, position);
+            if (type == RCFlightRecord.RECORD_END) {
+                segmentIndex++;
+                position = RCFlightRecord.SEGMENT_HEADER_BYTES;
+                continue;
+            }
+            int pos = position;
+            position += RCFlightRecord.RECORD_HEADER_BYTES + (segment.getShort(pos + 2) & 0xFFFF);
+            if (type != RCFlightRecord.RECORD_FRAME) {
+                continue;
+            }
+            int count = Math.min(segment.get(pos + 1) & 0xFF, RCFrameCodec.MAX_CHANNELS);
+            int[] channels = buffersByCount[count];
+            if (channels == null) {
+                channels = new int[count];
+                buffersByCount[count] = channels;
+            }
+            int offset = pos + RCFlightRecord.RECORD_HEADER_BYTES;
+            for (int i = 0; i < count; i++) {
+                channels[i] = segment.getShort(offset + i * 2);
+            }
+            current = channels;
+            long recorded = segment.getLong(pos + 4);
+            long timestamp;
+            if (!started) {
+                timestamp = recorded;
+            } else if (continuous && !isBreak(recorded - previousRecordedNanos)) {
+                timestamp = previousNanos + (recorded - previousRecordedNanos);
+            } else {
+                // 记录中断，紧接上一帧输出
+                timestamp = previousNanos + framePeriodNanos;
+            }
+            started = true;
+            continuous = true;
+            previousRecordedNanos = recorded;
+            previousNanos = timestamp;
+            return timestamp;
+        }
+    }
+
+    @Override
+    protected int[] currentChannels() {
+        return current;
+    }
+
+    /**
+     * 回放频率由记录决定，忽略设置
+     */
+    @Override
+    public void setRateHz(int rateHz) {
+    }
+
+    /**
+     * 按记录的平均帧间隔估算的频率
+     */
+    @Override
+    public int getRateHz() {
+        return (int) Math.round(1e9 / framePeriodNanos);
+    }
+
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    public long getFirstTimestampNanos() {
+        return firstTimestampNanos;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * 在基类统计之外加上记录的帧数、第一帧时间戳和对齐中断后的时长
+     */
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = super.getStats();
+        stats.put("frameCount", getFrameCount());
+        stats.put("firstTimestampNanos", getFirstTimestampNanos());
+        stats.put("durationNanos", getDurationNanos());
+        return stats;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.h12controller;
+
+import android.util.Log;
+
+import com.skydroid.rcsdk.PipelineManager;
+import com.skydroid.rcsdk.comm.CommListener;
+import com.skydroid.rcsdk.common.Uart;
+import com.skydroid.rcsdk.common.error.SkyException;
+import com.skydroid.rcsdk.common.pipeline.Pipeline;
+
+/**
+ * 遥控器 SDK 的串口数传管道
+ * 管道在第一次 connect 时创建，之后的重连复用同一个管道；回调在 SDK 回调线程上执行
+ */
+public class SdkLinkPort implements RCLinkPort {
+    private static final String TAG = "SdkLinkPort";
+
+    private final Uart uart;
+    private final String name;
+    private volatile Listener listener;
+    private volatile Pipeline pipeline;
+
+    public SdkLinkPort(Uart uart) {
+        this.uart = uart;
+        this.name = uart.name().toLowerCase();
+    }
+
+    public Uart getUart() {
+        return uart;
+    }
+
+    @Override
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public synchronized void connect() {
+        Pipeline current = pipeline;
+        if (current == null) {
+            current = PipelineManager.INSTANCE.createPipeline(uart);
+            current.setOnCommListener(commListener);
+            pipeline = current;
+        }
+        PipelineManager.INSTANCE.connectPipeline(current);
+    }
+
+    @Override
+    public synchronized void disconnect() {
+        Pipeline current = pipeline;
+        if (current != null) {
+            PipelineManager.INSTANCE.disconnectPipeline(current);
+        }
+    }
+
+    @Override
+    public void write(byte[] data) {
+        Pipeline current = pipeline;
+        if (current != null) {
+            current.writeData(data);
+        }
+    }
+
+    @Override
+    public boolean needsRcConnection() {
+        return true;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    private final CommListener commListener = new CommListener() {
+        @Override
+        public void onConnectSuccess() {
+            Log.d(TAG, name + " 数传管道连接成功");
+            Listener target = listener;
+            if (target != null) {
+                target.onConnected();
+            }
+        }
+
+        @Override
+        public void onConnectFail(SkyException e) {
+            Log.d(TAG, name + " 数传管道连接失败" + e);
+        }
+
+        @Override
+        public void onDisconnect() {
+            Log.d(TAG, name + " 数传管道断开连接");
+            Listener target = listener;
+            if (target != null) {
+                target.onDisconnected();
+            }
+        }
+
+        @Override
+        public void onReadData(byte[] bytes) {
+            Listener target = listener;
+            if (target != null) {
+                target.onReadData(bytes);
+            }
+        }
+    };
+}
@@ -4,22 +4,19 @@ import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
 import android.util.Log;
+import android.view.Choreographer;
 import android.widget.TextView;
 
 import androidx.appcompat.app.AppCompatActivity;
 
+import com.skydroid.rcsdk.PipelineManager;
 import com.skydroid.rcsdk.RCSDKManager;
-import com.skydroid.rcsdk.common.callback.CompletionCallbackWith;
-import com.skydroid.rcsdk.common.callback.SDKManagerCallBack;
+import com.skydroid.rcsdk.SDKManagerCallBack;
 import com.skydroid.rcsdk.common.error.SkyException;
 import com.skydroid.rcsdk.common.pipeline.Pipeline;
-import com.skydroid.rcsdk.common.pipeline.PipelineManager;
 import com.skydroid.rcsdk.common.Uart;
-import com.skydroid.rcsdk.key.KeyManager;
-import com.skydroid.rcsdk.key.RemoteControllerKey;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * 简单的 Android 原生 RC 控制器示例
@@ -27,46 +24,64 @@ import java.util.List;
  * 
  * 功能：
  * 1. 初始化 RC SDK（类似 Flutter 的 setupRc）
- * 2. 定时获取遥控器值（类似 Flutter 的 startKeyChannelPolling，每 300ms）
+ * 2. 采样线程按自适应频率读取遥控器值：拨动摇杆时全速，静止一段时间后降到空闲频率
  * 3. 监听按钮事件
  * 4. 在 UI 上显示所有值（摇杆、拨杆、滚轮、按钮）
+ *
+ * 渲染与采样解耦：采样线程只把最新一帧写入槽位，主线程在每个 Choreographer 帧回调中取一次，
+ * 只更新数值变化的 TextView；无论采样多快，主线程每个显示帧最多处理一次
  */
 public class SimpleRCActivity extends AppCompatActivity {
     private static final String TAG = "SimpleRCActivity";
-    
+
+    // 渲染统计的刷新间隔
+    private static final long RENDER_STATS_INTERVAL_NANOS = 1_000_000_000L;
+
     // ========== UI 组件 ==========
-    private TextView tvLeftTrigger;
-    private TextView tvRightTrigger;
-    private TextView tvScaleTrigger;
-    private TextView tvAudioVolume;
-    private TextView tvLeftX;
-    private TextView tvLeftY;
-    private TextView tvRightX;
-    private TextView tvRightY;
-    private TextView tvLeftButton;
-    private TextView tvRightButton;
-    
+    private ValueText tvLeftTrigger;
+    private ValueText tvRightTrigger;
+    private ValueText tvScaleTrigger;
+    private ValueText tvAudioVolume;
+    private ValueText tvLeftX;
+    private ValueText tvLeftY;
+    private ValueText tvRightX;
+    private ValueText tvRightY;
+    private ValueText tvLeftButton;
+    private ValueText tvRightButton;
+    private TextView tvRenderStats;
+
     // ========== RC 控制器相关 ==========
+    // 只在主线程访问：SDK 回调不在主线程执行，连接/断开回调切换到主线程处理
     private Pipeline rcPipeline;
-    private Handler handler;
-    private Runnable pollingRunnable;
-    private static final long POLLING_INTERVAL_MS = 300; // 300ms，与 Flutter 保持一致
-    
-    // ========== 存储当前值（类似 Flutter 的 State 变量）==========
-    private int leftTrigger = 0;
-    private int rightTrigger = 0;
-    private int scaleTrigger = 0;
-    private int audioVolume = 0;
-    private double leftX = 0.0;
-    private double leftY = 0.0;
-    private double rightX = 0.0;
-    private double rightY = 0.0;
-    private int leftButtonPressed = 0;
-    private int rightButtonPressed = 0;
-    
-    // 用于检测按钮状态变化
-    private int lastLeftCButtonValue = 0;
-    private int lastRightCButtonValue = 0;
+    private boolean destroyed = false;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final RCChannelSampler channelSource = new RCChannelSampler();
+    private final RCAdaptiveRate adaptiveRate = new RCAdaptiveRate();
+
+    // ========== 采样线程 → 主线程：最新一帧 ==========
+    // 按钮按下次数在采样线程逐帧累计，多帧合并为一次渲染时不会丢失按下事件
+    private final Object slotLock = new Object();
+    private final int[] slotValues = new int[RCFrameCodec.MAX_CHANNELS];
+    private int slotLeftPressed = 0;
+    private int slotRightPressed = 0;
+    private final AtomicBoolean renderScheduled = new AtomicBoolean(false);
+    private Choreographer choreographer;
+    private final Choreographer.FrameCallback renderCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            renderFrame(frameTimeNanos);
+        }
+    };
+
+    // 按钮边沿检测，与 RCControllerManager 使用同一套默认配置，仅采样线程使用
+    private final RCEdgeDetector edgeDetector = new RCEdgeDetector();
+
+    // ========== 主线程：渲染 ==========
+    private final int[] renderValues = new int[RCFrameCodec.MAX_CHANNELS];
+    private final RCLatencyHistogram renderCost = new RCLatencyHistogram();
+    private final StringBuilder renderStatsBuilder = new StringBuilder(64);
+    private char[] renderStatsChars = new char[64];
+    private long lastRenderStatsNanos = 0;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -75,31 +90,30 @@ public class SimpleRCActivity extends AppCompatActivity {
         
         // 绑定 UI 组件（类似 Flutter 的 Widget）
         bindViews();
-        
-        // 初始化 Handler（用于定时轮询）
-        handler = new Handler(Looper.getMainLooper());
+        choreographer = Choreographer.getInstance();
         
         // 初始化 RC 控制器（类似 Flutter 的 setupRc）
         initRCController();
         
-        // 开始定时获取遥控器值（类似 Flutter 的 startKeyChannelPolling）
-        startPolling();
+        // 开始采样（类似 Flutter 的 startKeyChannelStream）
+        startSampling();
     }
     
     /**
-     * 绑定 UI 组件
+     * 绑定 UI 组件，文本格式与 layout 中的初始文本一致
      */
     private void bindViews() {
-        tvLeftTrigger = findViewById(R.id.tv_left_trigger);
-        tvRightTrigger = findViewById(R.id.tv_right_trigger);
-        tvScaleTrigger = findViewById(R.id.tv_scale_trigger);
-        tvAudioVolume = findViewById(R.id.tv_audio_volume);
-        tvLeftX = findViewById(R.id.tv_left_x);
-        tvLeftY = findViewById(R.id.tv_left_y);
-        tvRightX = findViewById(R.id.tv_right_x);
-        tvRightY = findViewById(R.id.tv_right_y);
-        tvLeftButton = findViewById(R.id.tv_left_button);
-        tvRightButton = findViewById(R.id.tv_right_button);
+        tvLeftTrigger = new ValueText(findViewById(R.id.tv_left_trigger), "左拨杆值: ", "");
+        tvRightTrigger = new ValueText(findViewById(R.id.tv_right_trigger), "右拨杆值: ", "");
+        tvScaleTrigger = new ValueText(findViewById(R.id.tv_scale_trigger), "右滚轮值: ", "");
+        tvAudioVolume = new ValueText(findViewById(R.id.tv_audio_volume), "左滚轮值: ", "");
+        tvLeftX = new ValueText(findViewById(R.id.tv_left_x), "左摇杆X: ", ".0");
+        tvLeftY = new ValueText(findViewById(R.id.tv_left_y), "左摇杆Y: ", ".0");
+        tvRightX = new ValueText(findViewById(R.id.tv_right_x), "右摇杆X: ", ".0");
+        tvRightY = new ValueText(findViewById(R.id.tv_right_y), "右摇杆Y: ", ".0");
+        tvLeftButton = new ValueText(findViewById(R.id.tv_left_button), "左按键: ", " 次");
+        tvRightButton = new ValueText(findViewById(R.id.tv_right_button), "右按键: ", " 次");
+        tvRenderStats = findViewById(R.id.tv_render_stats);
     }
     
     /**
@@ -114,9 +128,14 @@ public class SimpleRCActivity extends AppCompatActivity {
             @Override
             public void onRcConnected() {
                 Log.d(TAG, "RC 连接成功");
-                // 创建并连接 Pipeline
-                rcPipeline = PipelineManager.INSTANCE.createPipeline(Uart.UART0);
-                PipelineManager.INSTANCE.connectPipeline(rcPipeline);
+                mainHandler.post(() -> {
+                    if (destroyed || rcPipeline != null) {
+                        return;
+                    }
+                    // 创建并连接 Pipeline
+                    rcPipeline = PipelineManager.INSTANCE.createPipeline(Uart.UART0);
+                    PipelineManager.INSTANCE.connectPipeline(rcPipeline);
+                });
             }
 
             @Override
@@ -127,167 +146,205 @@ public class SimpleRCActivity extends AppCompatActivity {
             @Override
             public void onRcDisconnect() {
                 Log.d(TAG, "RC 断开连接");
-                if (rcPipeline != null) {
-                    PipelineManager.INSTANCE.disconnectPipeline(rcPipeline);
-                    rcPipeline = null;
-                }
+                mainHandler.post(SimpleRCActivity.this::disconnectPipeline);
             }
         });
 
-        RCSDKManager.INSTANCE.setMainThreadCallBack(true);
+        // SDK 回调不切换到主线程（对整个进程生效），onSuccess 中只把数据交给 UI 线程更新界面，
+        // 连接/断开回调自行切换到主线程
+        RCSDKManager.INSTANCE.setMainThreadCallBack(false);
         RCSDKManager.INSTANCE.connectToRC();
     }
     
     /**
-     * 开始定时轮询获取遥控器值
-     * 对应 Flutter 的 startKeyChannelPolling() 方法
-     * Flutter 使用 Timer.periodic(Duration(milliseconds: 300))
-     * Android 使用 Handler.postDelayed()
+     * 开始采样
+     * 原来每 300ms 固定轮询一次，遥控器静止时也一直唤醒；现在由采样线程按自适应频率读取，
+     * 摇杆动作时全速刷新，静止后降到空闲频率
      */
-    private void startPolling() {
-        if (pollingRunnable != null) {
-            handler.removeCallbacks(pollingRunnable);
-        }
-        
-        pollingRunnable = new Runnable() {
-            @Override
-            public void run() {
-                // 获取遥控器按键通道值（类似 Flutter 的 getRemoteControllerKeyChannel()）
-                getRemoteControllerKeyChannel();
-                // 继续下一次轮询
-                handler.postDelayed(this, POLLING_INTERVAL_MS);
-            }
-        };
-        
-        handler.post(pollingRunnable);
+    private void startSampling() {
+        channelSource.setAdaptiveRate(adaptiveRate);
+        channelSource.setFrameListener(this::onChannelFrame);
+        channelSource.start();
     }
-    
+
     /**
-     * 停止轮询
-     * 对应 Flutter 的 stopKeyChannelPolling()
+     * 停止采样
+     * 对应 Flutter 的 stopKeyChannelStream()
      */
-    private void stopPolling() {
-        if (pollingRunnable != null) {
-            handler.removeCallbacks(pollingRunnable);
-            pollingRunnable = null;
-        }
+    private void stopSampling() {
+        channelSource.stop();
+        channelSource.setFrameListener(null);
+        choreographer.removeFrameCallback(renderCallback);
+        renderScheduled.set(false);
     }
-    
+
     /**
-     * 获取遥控器按键通道值
-     * 对应 Flutter 的 getRemoteControllerKeyChannel() 方法
+     * 采样线程：处理遥控器按键通道数据，写入最新值槽位并请求下一个显示帧渲染
+     * 对应 Flutter 的 onRcKeyChannels 回调处理
      */
-    private void getRemoteControllerKeyChannel() {
-        try {
-            KeyManager.INSTANCE.get(RemoteControllerKey.INSTANCE.getKeyChannels(), 
-                new CompletionCallbackWith<int[]>() {
-                    @Override
-                    public void onSuccess(int[] values) {
-                        // 在主线程更新 UI（类似 Flutter 的 setState）
-                        runOnUiThread(() -> {
-                            handleRCKeyChannels(values);
-                        });
-                    }
+    private void onChannelFrame(int[] values, long captureNanos) {
+        if (values.length < 12) {
+            return;
+        }
+        int count = Math.min(values.length, RCFrameCodec.MAX_CHANNELS);
+        int eventCount = edgeDetector.detect(values, count, captureNanos);
+        synchronized (slotLock) {
+            System.arraycopy(values, 0, slotValues, 0, count);
 
-                    @Override
-                    public void onFailure(SkyException e) {
-                        Log.e(TAG, "获取遥控器按键通道失败: " + e.getMessage(), e);
-                    }
-                });
-        } catch (Exception e) {
-            Log.e(TAG, "获取遥控器按键通道异常: " + e.getMessage(), e);
+            // 检测按钮按下（类似 Flutter 的 LeftButtonPressedEvent / RightButtonPressedEvent）
+            for (int i = 0; i < eventCount; i++) {
+                int event = edgeDetector.getEvent(i);
+                if (RCEdgeDetector.eventType(event) != RCEdgeDetector.EVENT_PRESS) {
+                    continue;
+                }
+                int channel = RCEdgeDetector.eventChannel(event);
+                if (channel == RCInputDecoder.LEFT_C_BUTTON_CHANNEL) {
+                    slotLeftPressed++;
+                    RCEventLog.log(RCEventLog.BUTTON_PRESSED, channel);
+                } else if (channel == RCInputDecoder.RIGHT_C_BUTTON_CHANNEL) {
+                    slotRightPressed++;
+                    RCEventLog.log(RCEventLog.BUTTON_PRESSED, channel);
+                }
+            }
+        }
+        // 同一个显示帧内的多次采样只渲染最后一次
+        if (renderScheduled.compareAndSet(false, true)) {
+            choreographer.postFrameCallback(renderCallback);
         }
     }
-    
+
     /**
-     * 处理遥控器按键通道数据
-     * 对应 Flutter 的 onRcKeyChannels 回调处理
-     * 类似 Flutter 中 platform.setMethodCallHandler 的 'onRcKeyChannels' 分支
+     * 主线程：每个显示帧最多执行一次，只更新数值变化的 TextView
+     * 对应 Flutter 的 setState() 方法
      */
-    private void handleRCKeyChannels(int[] values) {
-        if (values == null || values.length < 12) {
-            return;
+    private void renderFrame(long frameTimeNanos) {
+        renderScheduled.set(false);
+        long startNanos = System.nanoTime();
+        int leftButtonPressed;
+        int rightButtonPressed;
+        synchronized (slotLock) {
+            System.arraycopy(slotValues, 0, renderValues, 0, renderValues.length);
+            leftButtonPressed = slotLeftPressed;
+            rightButtonPressed = slotRightPressed;
         }
-        
-        // 解析摇杆值（与 Flutter 端保持一致）
+
+        // 摇杆值（与 Flutter 端保持一致）
         // values[0]: 右摇杆X ⬅️ ➡️
         // values[1]: 左摇杆Y ⬆️ ⬇️
         // values[2]: 右摇杆Y ⬆️ ⬇️
         // values[3]: 左摇杆X ⬅️ ➡️
-        rightX = values[0];
-        leftY = values[1];
-        rightY = values[2];
-        leftX = values[3];
-        
-        // 解析拨杆和滚轮值
-        leftTrigger = values[4];   // 左拨杆
-        rightTrigger = values[5];  // 右拨杆
-        audioVolume = values[10];   // 左滚轮（音频音量）
-        scaleTrigger = values[11];  // 右滚轮（缩放）
-        
-        // 检测按钮按下（类似 Flutter 的 onLeftButtonPressed / onRightButtonPressed）
-        int leftCButton = values[8];
-        int rightCButton = values[9];
-        
-        // 左按钮按下检测（类似 Flutter 的 LeftButtonPressedEvent）
-        if (leftCButton != lastLeftCButtonValue) {
-            if (leftCButton == 1950 || leftCButton == 1050) {
-                leftButtonPressed++;
-                Log.d(TAG, "左按钮按下，总计: " + leftButtonPressed);
-            }
-            lastLeftCButtonValue = leftCButton;
-        }
-        
-        // 右按钮按下检测（类似 Flutter 的 RightButtonPressedEvent）
-        if (rightCButton != lastRightCButtonValue) {
-            if (rightCButton == 1950 || rightCButton == 1050) {
-                rightButtonPressed++;
-                Log.d(TAG, "右按钮按下，总计: " + rightButtonPressed);
-            }
-            lastRightCButtonValue = rightCButton;
+        tvRightX.set(renderValues[0]);
+        tvLeftY.set(renderValues[1]);
+        tvRightY.set(renderValues[2]);
+        tvLeftX.set(renderValues[3]);
+
+        // 拨杆和滚轮值
+        tvLeftTrigger.set(renderValues[4]);
+        tvRightTrigger.set(renderValues[5]);
+        tvAudioVolume.set(renderValues[10]);
+        tvScaleTrigger.set(renderValues[11]);
+
+        // 按钮计数
+        tvLeftButton.set(leftButtonPressed);
+        tvRightButton.set(rightButtonPressed);
+
+        renderCost.record(System.nanoTime() - startNanos);
+        if (frameTimeNanos - lastRenderStatsNanos >= RENDER_STATS_INTERVAL_NANOS) {
+            lastRenderStatsNanos = frameTimeNanos;
+            showRenderStats();
         }
-        
-        // 更新 UI（类似 Flutter 的 setState）
-        updateUI();
     }
-    
+
     /**
-     * 更新 UI 显示
-     * 对应 Flutter 的 setState() 方法
+     * 显示每个渲染帧的主线程耗时
      */
-    private void updateUI() {
-        // 更新摇杆值（类似 Flutter 的 myEventBus.on<MoveCommand>()）
-        tvLeftX.setText("左摇杆X: " + leftX);
-        tvLeftY.setText("左摇杆Y: " + leftY);
-        tvRightX.setText("右摇杆X: " + rightX);
-        tvRightY.setText("右摇杆Y: " + rightY);
-        
-        // 更新拨杆值（类似 Flutter 的 myEventBus.on<LeftTriggerEvent>() 等）
-        tvLeftTrigger.setText("左拨杆值: " + leftTrigger);
-        tvRightTrigger.setText("右拨杆值: " + rightTrigger);
-        
-        // 更新滚轮值（类似 Flutter 的 myEventBus.on<ScaleTriggerEvent>() 等）
-        tvScaleTrigger.setText("右滚轮值: " + scaleTrigger);
-        tvAudioVolume.setText("左滚轮值: " + audioVolume);
-        
-        // 更新按钮计数（类似 Flutter 的 myEventBus.on<LeftButtonPressedEvent>() 等）
-        tvLeftButton.setText("左按键: " + leftButtonPressed + " 次");
-        tvRightButton.setText("右按键: " + rightButtonPressed + " 次");
+    private void showRenderStats() {
+        StringBuilder sb = renderStatsBuilder;
+        sb.setLength(0);
+        sb.append("渲染: ").append(renderCost.getCount())
+                .append(" 帧, 平均 ").append(renderCost.getMeanNanos() / 1000)
+                .append("µs, p99 ").append(renderCost.getPercentileNanos(0.99) / 1000)
+                .append("µs, 最大 ").append(renderCost.getMaxNanos() / 1000).append("µs");
+        if (renderStatsChars.length < sb.length()) {
+            renderStatsChars = new char[sb.length() * 2];
+        }
+        sb.getChars(0, sb.length(), renderStatsChars, 0);
+        tvRenderStats.setText(renderStatsChars, 0, sb.length());
     }
     
     @Override
     protected void onDestroy() {
         super.onDestroy();
         
-        // 停止轮询（类似 Flutter 的 dispose()）
-        stopPolling();
+        // 停止采样（类似 Flutter 的 dispose()）
+        stopSampling();
         
-        // 断开 RC 连接
+        // 断开 RC 连接；之后才到达的连接回调不再创建 Pipeline
+        destroyed = true;
+        mainHandler.removeCallbacksAndMessages(null);
         RCSDKManager.INSTANCE.disconnectRC();
+        disconnectPipeline();
+    }
+
+    private void disconnectPipeline() {
         if (rcPipeline != null) {
             PipelineManager.INSTANCE.disconnectPipeline(rcPipeline);
             rcPipeline = null;
         }
     }
-}
 
+    /**
+     * 显示 "前缀 + 整数 + 后缀" 的 TextView
+     * 数值不变时不调用 setText；文本写入复用的 char 数组并通过 setText(char[], int, int) 显示，不创建 String
+     */
+    private static final class ValueText {
+        private final TextView view;
+        private final char[] chars;
+        private final int prefixLength;
+        private final String suffix;
+        private int value;
+        private boolean rendered = false;
+
+        ValueText(TextView view, String prefix, String suffix) {
+            this.view = view;
+            this.prefixLength = prefix.length();
+            this.suffix = suffix;
+            // 整数最多 11 个字符（含负号）
+            this.chars = new char[prefixLength + 11 + suffix.length()];
+            prefix.getChars(0, prefixLength, chars, 0);
+        }
+
+        void set(int newValue) {
+            if (rendered && newValue == value) {
+                return;
+            }
+            value = newValue;
+            rendered = true;
+            int length = writeInt(chars, prefixLength, newValue);
+            suffix.getChars(0, suffix.length(), chars, length);
+            // 只在下一次 setText 之前修改 chars，符合 setText(char[], int, int) 的约定
+            view.setText(chars, 0, length + suffix.length());
+        }
+
+        /**
+         * @return 写入后的结束位置
+         */
+        private static int writeInt(char[] out, int offset, int value) {
+            long v = value;
+            if (v < 0) {
+                out[offset++] = '-';
+                v = -v;
+            }
+            int digits = 1;
+            for (long t = v; t >= 10; t /= 10) {
+                digits++;
+            }
+            int end = offset + digits;
+            for (int i = end - 1; i >= offset; i--) {
+                out[i] = (char) ('0' + v % 10);
+                v /= 10;
+            }
+            return end;
+        }
+    }
+}
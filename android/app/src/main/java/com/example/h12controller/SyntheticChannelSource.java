@@ -0,0 +1,236 @@
+package com.example.h12controller;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 合成通道数据源
+ * 每个通道由一个发生器按时间计算取值，用于在没有遥控器的情况下压测和回归测试输入路径
+ *
+ * 第 i 帧的时间戳固定为 i * 帧间隔，输出只取决于发生器配置和频率，与运行速度无关
+ */
+public class SyntheticChannelSource extends PacedChannelSource {
+    public static final int DEFAULT_CHANNEL_COUNT = 16;
+    public static final int CENTER = 1500;
+    public static final int MIN_VALUE = 1050;
+    public static final int MAX_VALUE = 1950;
+    public static final int DEFAULT_RATE_HZ = 100;
+    public static final int MAX_RATE_HZ = 1000;
+
+    /**
+     * 通道值发生器
+     */
+    public interface Generator {
+        /**
+         * @param timeNanos 从第一帧开始的时间
+         * @return 该时刻的通道值
+         */
+        int valueAt(long timeNanos);
+    }
+
+    private final Generator[] generators;
+    private final int[] channels;
+    private volatile long periodNanos;
+
+    // 只在输出线程上访问
+    private long frameIndex;
+    private long timeNanos;
+
+    public SyntheticChannelSource() {
+        this(DEFAULT_CHANNEL_COUNT, DEFAULT_RATE_HZ, 1.0);
+    }
+
+    /**
+     * @param channelCount 通道数，未设置发生器的通道固定为 CENTER
+     * @param rateHz 输出频率，最高 MAX_RATE_HZ
+     * @param speed 运行倍速，1 为实时，小于等于 0 为不限速
+     */
+    public SyntheticChannelSource(int channelCount, int rateHz, double speed) {
+        super("rc-synthetic-source", speed);
+        int count = Math.max(1, Math.min(RCFrameCodec.MAX_CHANNELS, channelCount));
+        this.generators = new Generator[count];
+        this.channels = new int[count];
+        for (int i = 0; i < count; i++) {
+            generators[i] = constant(CENTER);
+        }
+        setRateHz(rateHz);
+    }
+
+    /**
+     * 设置通道的发生器，需在 start 之前调用
+     */
+    public SyntheticChannelSource setGenerator(int channel, Generator generator) {
+        if (channel < 0 || channel >= generators.length) {
+            throw new IllegalArgumentException("invalid channel: " + channel);
+        }
+        generators[channel] = generator;
+        return this;
+    }
+
+    @Override
+    public void setRateHz(int rateHz) {
+        periodNanos = 1_000_000_000L / Math.max(1, Math.min(MAX_RATE_HZ, rateHz));
+    }
+
+    @Override
+    public int getRateHz() {
+        return (int) (1_000_000_000L / periodNanos);
+    }
+
+    @Override
+    protected void rewind() {
+        frameIndex = 0;
+        timeNanos = 0;
+    }
+
+    @Override
+    protected long advance() {
+        if (frameIndex > 0) {
+            // 按当前帧间隔累加，运行中调整频率不会使时间戳回退
+            timeNanos += periodNanos;
+        }
+        frameIndex++;
+        for (int i = 0; i < channels.length; i++) {
+            channels[i] = generators[i].valueAt(timeNanos);
+        }
+        return timeNanos;
+    }
+
+    @Override
+    protected int[] currentChannels() {
+        return channels;
+    }
+
+    // ========== 发生器 ==========
+
+    public static Generator constant(int value) {
+        return timeNanos -> value;
+    }
+
+    /**
+     * 正弦波，适合模拟摇杆连续往复
+     */
+    public static Generator sine(int center, int amplitude, int periodMs, double phase) {
+        double omega = 2 * Math.PI / (Math.max(1, periodMs) * 1_000_000.0);
+        return timeNanos -> center + (int) Math.round(amplitude * Math.sin(omega * timeNanos + phase));
+    }
+
+    /**
+     * 方波，适合模拟按钮和两段拨杆
+     * @param duty 高电平占空比，0~1
+     */
+    public static Generator square(int low, int high, int periodMs, double duty) {
+        long period = Math.max(1, periodMs) * 1_000_000L;
+        long highNanos = (long) (period * Math.max(0, Math.min(1, duty)));
+        return timeNanos -> (timeNanos % period) < highNanos ? high : low;
+    }
+
+    /**
+     * 锯齿波，从 min 线性增加到 max 后跳回 min
+     */
+    public static Generator ramp(int min, int max, int periodMs) {
+        long period = Math.max(1, periodMs) * 1_000_000L;
+        return timeNanos -> min + (int) ((max - min) * (timeNanos % period) / period);
+    }
+
+    /**
+     * 阶梯，每隔 stepMs 依次切换到下一个值，适合模拟三段拨杆
+     */
+    public static Generator steps(int[] values, int stepMs) {
+        if (values.length == 0) {
+            throw new IllegalArgumentException("steps requires at least one value");
+        }
+        int[] copy = values.clone();
+        long step = Math.max(1, stepMs) * 1_000_000L;
+        return timeNanos -> copy[(int) ((timeNanos / step) % copy.length)];
+    }
+
+    /**
+     * 从 Flutter 传来的 Map 创建数据源
+     * 格式：{'channelCount': 16, 'rateHz': 100, 'speed': 1.0,
+     *        'generators': [{'channel': 0, 'type': 'sine', 'center': 1500, 'amplitude': 450, 'periodMs': 2000, 'phase': 0},
+     *                       {'channel': 8, 'type': 'square', 'low': 1500, 'high': 1950, 'periodMs': 1000, 'duty': 0.2},
+     *                       {'channel': 4, 'type': 'steps', 'values': [1050, 1500, 1950], 'stepMs': 500},
+     *                       {'channel': 10, 'type': 'ramp', 'min': 1050, 'max': 1950, 'periodMs': 3000},
+     *                       {'channel': 11, 'type': 'constant', 'value': 1500}]}
+     * @throws IllegalArgumentException 配置格式不正确
+     */
+    public static SyntheticChannelSource fromMap(Map<?, ?> map) {
+        SyntheticChannelSource source = new SyntheticChannelSource(
+                intValue(map, "channelCount", DEFAULT_CHANNEL_COUNT),
+                intValue(map, "rateHz", DEFAULT_RATE_HZ),
+                doubleValue(map, "speed", 1.0));
+        Object list = map.get("generators");
+        if (list == null) {
+            return source;
+        }
+        if (!(list instanceof List)) {
+            throw new IllegalArgumentException("generators must be a list");
+        }
+        for (Object item : (List<?>) list) {
+            if (!(item instanceof Map)) {
+                throw new IllegalArgumentException("generator must be a map");
+            }
+            Map<?, ?> config = (Map<?, ?>) item;
+            Object type = config.get("type");
+            Generator generator;
+            if ("constant".equals(type)) {
+                generator = constant(intValue(config, "value", CENTER));
+            } else if ("sine".equals(type)) {
+                generator = sine(intValue(config, "center", CENTER), intValue(config, "amplitude", MAX_VALUE - CENTER),
+                        intValue(config, "periodMs", 1000), doubleValue(config, "phase", 0));
+            } else if ("square".equals(type)) {
+                generator = square(intValue(config, "low", MIN_VALUE), intValue(config, "high", MAX_VALUE),
+                        intValue(config, "periodMs", 1000), doubleValue(config, "duty", 0.5));
+            } else if ("ramp".equals(type)) {
+                generator = ramp(intValue(config, "min", MIN_VALUE), intValue(config, "max", MAX_VALUE),
+                        intValue(config, "periodMs", 1000));
+            } else if ("steps".equals(type)) {
+                generator = steps(intArray(config, "values"), intValue(config, "stepMs", 1000));
+            } else {
+                throw new IllegalArgumentException("unknown generator type: " + type);
+            }
+            source.setGenerator(intValue(config, "channel", -1), generator);
+        }
+        return source;
+    }
+
+    private static int intValue(Map<?, ?> map, String key, int defaultValue) {
+        Object value = map.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (!(value instanceof Number)) {
+            throw new IllegalArgumentException(key + " must be a number");
+        }
+        return ((Number) value).intValue();
+    }
+
+    private static double doubleValue(Map<?, ?> map, String key, double defaultValue) {
+        Object value = map.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (!(value instanceof Number)) {
+            throw new IllegalArgumentException(key + " must be a number");
+        }
+        return ((Number) value).doubleValue();
+    }
+
+    private static int[] intArray(Map<?, ?> map, String key) {
+        Object value = map.get(key);
+        if (!(value instanceof List)) {
+            throw new IllegalArgumentException(key + " must be a list");
+        }
+        List<?> list = (List<?>) value;
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            Object item = list.get(i);
+            if (!(item instanceof Number)) {
+                throw new IllegalArgumentException(key + " must contain numbers");
+            }
+            array[i] = ((Number) item).intValue();
+        }
+        return array;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.h12controller.benchmark;
+
+import com.example.h12controller.RCChangeDetector;
+import com.example.h12controller.RCComboRecognizer;
+import com.example.h12controller.RCFrameRing;
+import com.example.h12controller.RCInputDecoder;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/**
+ * 输入线程每帧不分配内存的检查：预热后在各帧集合上连续处理 FRAMES 帧（RCInputDecoder.decode + RCChangeDetector.detect，
+ * 含边沿检测和组合识别），用 ThreadMXBean 读取本线程分配的字节数，连续 ROUNDS 轮都有分配时以非零状态退出
+ * JMH 的 -prof gc 只报告数值，这里作为 gradle check 的一部分，分配回归时构建失败
+ *
+ * 预热后刚进入的少见分支会让 C2 去优化，去优化时重新分配被标量替换的对象，计入一次性的几百字节
+ * （-Xint 或只用 C1 时为 0）；每帧都分配时每一轮都不为 0
+ *
+ * 用法：gradle allocationCheck，或 java -cp build/libs/h12controller-benchmark-jmh.jar \
+ *     com.example.h12controller.benchmark.AllocationCheck [frameSet...]
+ */
+public final class AllocationCheck {
+    private static final long FRAME_PERIOD_NANOS = 10_000_000L;
+    private static final int WARMUP_FRAMES = 50_000;
+    private static final int FRAMES = 100_000;
+    private static final int ROUNDS = 5;
+    private static final int COMBOS = 64;
+
+    private AllocationCheck() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String[] frameSets = args.length > 0 ? args : new String[] {"idle", "sticks", "buttons"};
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            System.err.println("thread allocation accounting is not supported by this JVM");
+            System.exit(2);
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+        long threadId = Thread.currentThread().getId();
+        // 读取计数本身的开销，从结果中扣除
+        long overhead = threads.getThreadAllocatedBytes(threadId);
+        overhead = threads.getThreadAllocatedBytes(threadId) - overhead;
+
+        boolean failed = false;
+        for (String frameSet : frameSets) {
+            Path path = new Path(FrameSets.load(frameSet));
+            path.run(WARMUP_FRAMES);
+            long allocated = 0;
+            for (int round = 1; round <= ROUNDS; round++) {
+                long before = threads.getThreadAllocatedBytes(threadId);
+                path.run(FRAMES);
+                allocated = threads.getThreadAllocatedBytes(threadId) - before - overhead;
+                System.out.printf("%-8s round %d frames=%d allocated=%d bytes (%.3f bytes/frame)%n",
+                        frameSet, round, FRAMES, allocated, (double) allocated / FRAMES);
+                if (allocated <= 0) {
+                    break;
+                }
+            }
+            failed |= allocated > 0;
+        }
+        if (failed) {
+            System.err.println("input path allocates per frame");
+            System.exit(1);
+        }
+    }
+
+    private static final class Path {
+        private final int[][] frames;
+        private final RCInputDecoder decoder = new RCInputDecoder();
+        private final RCChangeDetector changeDetector = new RCChangeDetector();
+        private final RCFrameRing.Frame frame = new RCFrameRing(2).claim();
+        private int index;
+        private long timestampNanos;
+        private long checksum;
+
+        Path(int[][] frames) {
+            this.frames = frames;
+            int[][][] definitions = ComboBenchmark.generate(COMBOS, new Random(42));
+            RCComboRecognizer.Profile profile = new RCComboRecognizer.Profile();
+            for (int id = 0; id < definitions.length; id++) {
+                RCComboRecognizer.Step[] steps = new RCComboRecognizer.Step[definitions[id].length];
+                for (int s = 0; s < steps.length; s++) {
+                    steps[s] = new RCComboRecognizer.Step();
+                    int[] terms = definitions[id][s];
+                    for (int t = 0; t < terms.length; t += 2) {
+                        steps[s].require(terms[t], terms[t + 1]);
+                    }
+                }
+                profile.addCombo(id, steps);
+            }
+            decoder.loadComboProfile(profile);
+        }
+
+        void run(int count) {
+            for (int i = 0; i < count; i++) {
+                int[] value = frames[index];
+                if (++index == frames.length) {
+                    index = 0;
+                }
+                timestampNanos += FRAME_PERIOD_NANOS;
+                frame.timestampNanos = timestampNanos;
+                decoder.decode(value, frame);
+                frame.changedMask = changeDetector.detect(value, timestampNanos);
+                checksum += frame.changedMask + frame.edgeEventCount + frame.comboEventCount + frame.leftKeyCode;
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.h12controller.benchmark;
+
+import com.example.h12controller.RCComboRecognizer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * 组合识别：每次调用推进一帧，combos 为注册的组合数
+ * 组合随机生成（固定种子）：第一步是拨杆 / 按钮上的修饰档位，之后 1~2 步在修饰档位之上加摇杆或滚轮档位，
+ * 多个组合共享同一修饰前缀，与实际的操作组合相近
+ *
+ * compiled：RCComboRecognizer；naive：每个组合独立检查（NaiveComboMatcher）
+ */
+@State(Scope.Thread)
+public class ComboBenchmark {
+    private static final long PERIOD_NANOS = 10_000_000L;
+    private static final int WITHIN_MS = 1000;
+    // 修饰通道：左右拨杆、左右 C 按钮；其余步骤使用摇杆和滚轮
+    private static final int[] MODIFIER_CHANNELS = {4, 5, 8, 9};
+    private static final int[] ACTION_CHANNELS = {0, 1, 2, 3, 10, 11};
+
+    @Param({"sticks", "buttons"})
+    public String frameSet;
+
+    @Param({"16", "256", "1024"})
+    public int combos;
+
+    private int[][] frames;
+    private int index;
+    private long nowNanos;
+    private RCComboRecognizer recognizer;
+    private NaiveComboMatcher naive;
+
+    @Setup
+    public void setup() throws Exception {
+        frames = FrameSets.load(frameSet);
+        int[][][] definitions = generate(combos, new Random(42));
+        RCComboRecognizer.Profile profile = new RCComboRecognizer.Profile();
+        for (int id = 0; id < definitions.length; id++) {
+            RCComboRecognizer.Step[] steps = new RCComboRecognizer.Step[definitions[id].length];
+            for (int s = 0; s < steps.length; s++) {
+                steps[s] = new RCComboRecognizer.Step().setWithinMs(WITHIN_MS);
+                int[] terms = definitions[id][s];
+                for (int t = 0; t < terms.length; t += 2) {
+                    steps[s].require(terms[t], terms[t + 1]);
+                }
+            }
+            profile.addCombo(id, steps);
+        }
+        recognizer = new RCComboRecognizer(profile);
+        naive = new NaiveComboMatcher(definitions, WITHIN_MS * 1_000_000L);
+    }
+
+    /**
+     * 生成 count 个互不相同的组合，combos[i][step] 为 {channel, position, ...}
+     */
+    static int[][][] generate(int count, Random random) {
+        int[][][] result = new int[count][][];
+        Set<String> seen = new HashSet<>();
+        int generated = 0;
+        while (generated < count) {
+            int modifier = MODIFIER_CHANNELS[random.nextInt(MODIFIER_CHANNELS.length)];
+            int modifierPosition = random.nextBoolean() ? 0 : 2;
+            int[][] steps = new int[2 + random.nextInt(2)][];
+            steps[0] = new int[] {modifier, modifierPosition};
+            for (int s = 1; s < steps.length; s++) {
+                int action = ACTION_CHANNELS[random.nextInt(ACTION_CHANNELS.length)];
+                steps[s] = new int[] {modifier, modifierPosition, action, random.nextInt(3)};
+            }
+            StringBuilder key = new StringBuilder();
+            for (int[] step : steps) {
+                key.append(Arrays.toString(step));
+            }
+            if (seen.add(key.toString())) {
+                result[generated++] = steps;
+            }
+        }
+        return result;
+    }
+
+    private int[] next() {
+        int[] frame = frames[index];
+        if (++index == frames.length) {
+            index = 0;
+        }
+        nowNanos += PERIOD_NANOS;
+        return frame;
+    }
+
+    @Benchmark
+    public int compiled() {
+        int[] frame = next();
+        return recognizer.advance(frame, frame.length, nowNanos);
+    }
+
+    @Benchmark
+    public int naive() {
+        int[] frame = next();
+        return naive.advance(frame, frame.length, nowNanos);
+    }
+}
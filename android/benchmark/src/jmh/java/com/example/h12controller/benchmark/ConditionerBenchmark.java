@@ -0,0 +1,58 @@
+package com.example.h12controller.benchmark;
+
+import com.example.h12controller.RCSignalConditioner;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 通道调理链：每次调用调理一帧，前 12 个通道都配置了 chain 指定的阶段
+ * none：不调理（直接返回输入）；shape：校准 + 死区 + 指数曲线；ema：shape + EMA 平滑；full：shape + one-euro + 限速
+ */
+@State(Scope.Thread)
+public class ConditionerBenchmark {
+    private static final int CHANNELS = 12;
+    private static final long PERIOD_NANOS = 10_000_000L;
+
+    @Param({"idle", "sticks"})
+    public String frameSet;
+
+    @Param({"none", "shape", "ema", "full"})
+    public String chain;
+
+    private int[][] frames;
+    private int index;
+    private long nowNanos;
+    private RCSignalConditioner conditioner;
+
+    @Setup
+    public void setup() throws Exception {
+        frames = FrameSets.load(frameSet);
+        RCSignalConditioner.Profile profile = new RCSignalConditioner.Profile();
+        if (!"none".equals(chain)) {
+            for (int c = 0; c < CHANNELS; c++) {
+                profile.setCalibration(c, 1050, 1500, 1950).setDeadzone(c, 20).setExpo(c, 30);
+                if ("ema".equals(chain)) {
+                    profile.setSmoothing(c, RCSignalConditioner.SMOOTHING_EMA, 5_000, 0);
+                } else if ("full".equals(chain)) {
+                    profile.setSmoothing(c, RCSignalConditioner.SMOOTHING_ONE_EURO, 1_000, 20)
+                            .setRateLimit(c, 3_000);
+                }
+            }
+        }
+        conditioner = new RCSignalConditioner(profile);
+    }
+
+    @Benchmark
+    public int[] condition() {
+        int[] frame = frames[index];
+        if (++index == frames.length) {
+            index = 0;
+        }
+        nowNanos += PERIOD_NANOS;
+        return conditioner.condition(frame, nowNanos);
+    }
+}
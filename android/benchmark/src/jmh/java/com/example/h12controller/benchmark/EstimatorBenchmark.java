@@ -0,0 +1,63 @@
+package com.example.h12controller.benchmark;
+
+import com.example.h12controller.RCChannelEstimator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 通道值估计：record 保存一帧（含帧间隔和一步预测误差统计）；
+ * interpolate / extrapolate 在历史已满时估计上一帧与最新一帧之间 / 最新一帧之后 20ms 的通道值
+ */
+@State(Scope.Thread)
+public class EstimatorBenchmark {
+    private static final long PERIOD_NANOS = 10_000_000L;
+
+    @Param({"sticks"})
+    public String frameSet;
+
+    private int[][] frames;
+    private int index;
+    private long nowNanos;
+    private RCChannelEstimator estimator;
+    private final int[] out = new int[32];
+
+    @Setup
+    public void setup() throws Exception {
+        frames = FrameSets.load(frameSet);
+        estimator = new RCChannelEstimator();
+        for (int i = 0; i < RCChannelEstimator.HISTORY; i++) {
+            next();
+        }
+    }
+
+    private int[] next() {
+        int[] frame = frames[index];
+        if (++index == frames.length) {
+            index = 0;
+        }
+        nowNanos += PERIOD_NANOS;
+        estimator.record(frame, frame.length, nowNanos);
+        return frame;
+    }
+
+    @Benchmark
+    public int[] record() {
+        return next();
+    }
+
+    @Benchmark
+    public int[] interpolate() {
+        estimator.estimate(nowNanos - PERIOD_NANOS / 2, out);
+        return out;
+    }
+
+    @Benchmark
+    public int[] extrapolate() {
+        estimator.estimate(nowNanos + 2 * PERIOD_NANOS, out);
+        return out;
+    }
+}
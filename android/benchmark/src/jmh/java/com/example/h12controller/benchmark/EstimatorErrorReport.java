@@ -0,0 +1,87 @@
+package com.example.h12controller.benchmark;
+
+import com.example.h12controller.RCChannelEstimator;
+import com.example.h12controller.RCLatencyHistogram;
+
+/**
+ * 通道值估计误差：帧集合按 100Hz 采集，只把每 decimation 帧中的一帧交给估计器，
+ * 用被跳过的帧作为真实值，分别统计
+ *   hold         直接使用最近一帧（不估计）
+ *   extrapolate  下一帧到达前，按最近两帧外推到被跳过帧的时刻
+ *   interpolate  下一帧到达后，在前后两帧之间插值
+ * 的误差（摇杆通道 0~3 中的最大绝对误差，通道值单位）
+ *
+ * 用法：java -cp build/libs/h12controller-benchmark-jmh.jar \
+ *     [-Drc.recording=<飞行记录>] com.example.h12controller.benchmark.EstimatorErrorReport [frameSet] [decimation...]
+ */
+public final class EstimatorErrorReport {
+    private static final long PERIOD_NANOS = 10_000_000L;
+    private static final int STICK_CHANNELS = 4;
+
+    private EstimatorErrorReport() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String frameSet = args.length > 0 ? args[0] : "sticks";
+        int[] decimations = {2, 3, 5};
+        if (args.length > 1) {
+            decimations = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) {
+                decimations[i - 1] = Integer.parseInt(args[i]);
+            }
+        }
+        int[][] frames = FrameSets.load(frameSet);
+        System.out.printf("frameSet=%s frames=%d%n", frameSet, frames.length);
+        System.out.printf("%-12s %-12s %8s %6s %6s %6s %6s%n", "input", "method", "mean", "p50", "p90", "p99", "max");
+        for (int decimation : decimations) {
+            report(frames, decimation);
+        }
+    }
+
+    private static void report(int[][] frames, int decimation) {
+        RCChannelEstimator estimator = new RCChannelEstimator();
+        estimator.setMaxExtrapolationNanos(decimation * PERIOD_NANOS);
+        RCLatencyHistogram hold = new RCLatencyHistogram();
+        RCLatencyHistogram extrapolate = new RCLatencyHistogram();
+        RCLatencyHistogram interpolate = new RCLatencyHistogram();
+        int[] out = new int[frames[0].length];
+
+        int fed = 0;
+        estimator.record(frames[0], frames[0].length, 0);
+        for (int next = decimation; next < frames.length; next += decimation) {
+            for (int j = fed + 1; j < next; j++) {
+                hold.record(error(frames[fed], frames[j]));
+                if (estimator.estimate(j * PERIOD_NANOS, out) > 0
+                        && estimator.getLastResult() == RCChannelEstimator.RESULT_EXTRAPOLATED) {
+                    extrapolate.record(error(out, frames[j]));
+                }
+            }
+            estimator.record(frames[next], frames[next].length, next * PERIOD_NANOS);
+            for (int j = fed + 1; j < next; j++) {
+                if (estimator.estimate(j * PERIOD_NANOS, out) > 0) {
+                    interpolate.record(error(out, frames[j]));
+                }
+            }
+            fed = next;
+        }
+
+        String input = (100 / decimation) + "Hz";
+        print(input, "hold", hold);
+        print(input, "extrapolate", extrapolate);
+        print(input, "interpolate", interpolate);
+    }
+
+    private static long error(int[] estimated, int[] actual) {
+        long max = 0;
+        for (int c = 0; c < STICK_CHANNELS; c++) {
+            max = Math.max(max, Math.abs((long) estimated[c] - actual[c]));
+        }
+        return max;
+    }
+
+    private static void print(String input, String method, RCLatencyHistogram errors) {
+        System.out.printf("%-12s %-12s %8d %6d %6d %6d %6d%n", input, method, errors.getMeanNanos(),
+                errors.getPercentileNanos(0.50), errors.getPercentileNanos(0.90), errors.getPercentileNanos(0.99),
+                errors.getMaxNanos());
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.h12controller.benchmark;
+
+import com.example.h12controller.RCEventLog;
+import com.example.h12controller.RCLog;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * 事件日志一条记录的开销，与原来在热路径上拼接字符串再调用 Log.d 对比
+ * legacy 的输出目标什么也不做，只计算格式化和分配，不包含 logd 系统调用本身
+ */
+@State(Scope.Thread)
+public class EventLogBenchmark {
+    private static final RCLog.Sink DISCARD = new RCLog.Sink() {
+        @Override
+        public void d(String tag, String message) {
+        }
+
+        @Override
+        public void e(String tag, String message, Throwable error) {
+        }
+    };
+
+    private int keyCode;
+
+    @State(Scope.Thread)
+    public static class Enabled {
+        @Setup(Level.Trial)
+        public void setup() {
+            RCEventLog.clear();
+            RCEventLog.setLevel(RCEventLog.LEVEL_TRACE);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            RCEventLog.setLevel(RCEventLog.DEFAULT_LEVEL);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Disabled {
+        @Setup(Level.Trial)
+        public void setup() {
+            RCEventLog.setLevel(RCEventLog.LEVEL_OFF);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            RCEventLog.setLevel(RCEventLog.DEFAULT_LEVEL);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Legacy {
+        @Setup(Level.Trial)
+        public void setup() {
+            RCLog.setSink(DISCARD);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            RCLog.setSink(null);
+        }
+    }
+
+    @Benchmark
+    public int enabled(Enabled state) {
+        RCEventLog.log(RCEventLog.KEY_EVENT, 0, keyCode++, 0);
+        return keyCode;
+    }
+
+    @Benchmark
+    public int disabled(Disabled state) {
+        RCEventLog.log(RCEventLog.KEY_EVENT, 0, keyCode++, 0);
+        return keyCode;
+    }
+
+    @Benchmark
+    public int legacy(Legacy state) {
+        RCLog.d("RCControllerManager", "Key down event dispatched: " + true + " for key: " + keyCode++);
+        return keyCode;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.h12controller.benchmark;
+
+import com.example.h12controller.RCChangeDetector;
+import com.example.h12controller.RCFrameCodec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 推送给 Flutter 的帧编码
+ * full：每帧编码全部通道；delta：经过变化检测后只编码超出死区的通道；
+ * boxedList：原实现中 int[] → List&lt;Integer&gt; 的转换，作为对比
+ */
+@State(Scope.Thread)
+public class FrameCodecBenchmark {
+    private static final long FRAME_PERIOD_NANOS = 10_000_000L;
+
+    @Param({"idle", "sticks", "buttons"})
+    public String frameSet;
+
+    private int[][] frames;
+    private int index;
+    private long timestampNanos;
+    private RCFrameCodec codec;
+    private RCChangeDetector changeDetector;
+
+    @Setup
+    public void setup() throws Exception {
+        frames = FrameSets.load(frameSet);
+        codec = new RCFrameCodec();
+        changeDetector = new RCChangeDetector();
+    }
+
+    private int[] nextFrame() {
+        int[] frame = frames[index];
+        if (++index == frames.length) {
+            index = 0;
+        }
+        timestampNanos += FRAME_PERIOD_NANOS;
+        return frame;
+    }
+
+    @Benchmark
+    public int full() {
+        int[] frame = nextFrame();
+        return codec.encode(frame, RCFrameCodec.fullMask(frame.length), timestampNanos).position();
+    }
+
+    @Benchmark
+    public int delta() {
+        int[] frame = nextFrame();
+        int mask = changeDetector.detect(frame, timestampNanos);
+        return mask != 0 ? codec.encode(frame, mask, timestampNanos).position() : 0;
+    }
+
+    @Benchmark
+    public void boxedList(Blackhole blackhole) {
+        int[] frame = nextFrame();
+        List<Integer> result = new ArrayList<>();
+        for (int i : frame) {
+            result.add(i);
+        }
+        blackhole.consume(result);
+    }
+}
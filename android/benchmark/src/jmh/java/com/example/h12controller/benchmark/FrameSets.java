@@ -0,0 +1,75 @@
+package com.example.h12controller.benchmark;
+
+import com.example.h12controller.ReplayChannelSource;
+import com.example.h12controller.SyntheticChannelSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 压测用的通道帧集合
+ * idle：摇杆回中、按钮不动，对应悬停时的绝大多数帧
+ * sticks：四个摇杆以不同周期连续往复，拨杆按阶梯切换
+ * buttons：在 sticks 的基础上左右 C 按钮频繁按下
+ * recorded：回放 -Drc.recording 指定的飞行记录（文件或目录）
+ */
+final class FrameSets {
+    static final int DEFAULT_FRAME_COUNT = 4096;
+    private static final int RATE_HZ = 100;
+    private static final int CHANNEL_COUNT = 16;
+
+    private FrameSets() {
+    }
+
+    static int[][] load(String name) throws IOException, InterruptedException {
+        if ("recorded".equals(name)) {
+            return recorded(System.getProperty("rc.recording"));
+        }
+        SyntheticChannelSource.Generator[] generators = new SyntheticChannelSource.Generator[CHANNEL_COUNT];
+        for (int i = 0; i < CHANNEL_COUNT; i++) {
+            generators[i] = SyntheticChannelSource.constant(SyntheticChannelSource.CENTER);
+        }
+        if ("sticks".equals(name) || "buttons".equals(name)) {
+            generators[0] = SyntheticChannelSource.sine(1500, 450, 2300, 0);
+            generators[1] = SyntheticChannelSource.sine(1500, 450, 3100, 1);
+            generators[2] = SyntheticChannelSource.sine(1500, 450, 1700, 2);
+            generators[3] = SyntheticChannelSource.sine(1500, 450, 2900, 3);
+            generators[4] = SyntheticChannelSource.steps(new int[] {1050, 1500, 1950}, 800);
+            generators[5] = SyntheticChannelSource.steps(new int[] {1950, 1500, 1050}, 1300);
+            generators[10] = SyntheticChannelSource.ramp(1050, 1950, 5000);
+            generators[11] = SyntheticChannelSource.ramp(1950, 1050, 7000);
+        } else if (!"idle".equals(name)) {
+            throw new IllegalArgumentException("unknown frame set: " + name);
+        }
+        if ("buttons".equals(name)) {
+            generators[8] = SyntheticChannelSource.square(1500, 1950, 200, 0.5);
+            generators[9] = SyntheticChannelSource.square(1050, 1500, 300, 0.5);
+        }
+
+        long periodNanos = 1_000_000_000L / RATE_HZ;
+        int[][] frames = new int[DEFAULT_FRAME_COUNT][CHANNEL_COUNT];
+        for (int i = 0; i < frames.length; i++) {
+            for (int c = 0; c < CHANNEL_COUNT; c++) {
+                frames[i][c] = generators[c].valueAt(i * periodNanos);
+            }
+        }
+        return frames;
+    }
+
+    private static int[][] recorded(String path) throws IOException, InterruptedException {
+        if (path == null) {
+            throw new IllegalArgumentException("frameSet=recorded requires -Drc.recording=<file or directory>");
+        }
+        ReplayChannelSource source = new ReplayChannelSource(new File(path), 0, false);
+        List<int[]> frames = new ArrayList<>();
+        source.setFrameListener((channels, captureNanos) -> frames.add(channels.clone()));
+        source.start();
+        while (source.isRunning()) {
+            Thread.sleep(10);
+        }
+        source.stop();
+        return frames.toArray(new int[0][]);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.h12controller.benchmark;
+
+import com.example.h12controller.RCChangeDetector;
+import com.example.h12controller.RCFrameCodec;
+import com.example.h12controller.RCFrameRing;
+import com.example.h12controller.RCInputDecoder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 每帧输入处理的开销，每次调用处理一帧，结果即 ns/帧；配合 -prof gc 的 gc.alloc.rate.norm 即每帧分配字节数
+ *
+ * legacy：原实现（装箱转换 + 分支判断 + 每个按键两个 KeyEvent 和日志字符串）
+ * current：当前输入线程 + 主线程的完整路径（帧队列、解码、变化检测、二进制编码），不含 Android 分发本身
+ * decode：只有 RCInputDecoder.decode
+ */
+@State(Scope.Thread)
+public class InputPathBenchmark {
+    private static final long FRAME_PERIOD_NANOS = 10_000_000L;
+
+    @Param({"idle", "sticks", "buttons"})
+    public String frameSet;
+
+    private int[][] frames;
+    private int index;
+    private long timestampNanos;
+
+    private LegacyInputPath legacy;
+
+    private RCInputDecoder decoder;
+    private RCFrameRing ring;
+    private RCChangeDetector changeDetector;
+    private RCFrameCodec codec;
+    private RCFrameRing.Frame decodeFrame;
+
+    @Setup
+    public void setup(Blackhole blackhole) throws Exception {
+        frames = FrameSets.load(frameSet);
+        legacy = new LegacyInputPath(blackhole::consume, blackhole::consume);
+        decoder = new RCInputDecoder();
+        ring = new RCFrameRing(64);
+        changeDetector = new RCChangeDetector();
+        codec = new RCFrameCodec();
+        decodeFrame = new RCFrameRing(2).claim();
+    }
+
+    private int[] nextFrame() {
+        int[] frame = frames[index];
+        if (++index == frames.length) {
+            index = 0;
+        }
+        timestampNanos += FRAME_PERIOD_NANOS;
+        return frame;
+    }
+
+    @Benchmark
+    public void legacy() {
+        int[] frame = nextFrame();
+        legacy.onChannels(frame, timestampNanos / 1_000_000L);
+    }
+
+    @Benchmark
+    public void current(Blackhole blackhole) {
+        int[] frame = nextFrame();
+        // 输入线程
+        RCFrameRing.Frame out = ring.claim();
+        out.timestampNanos = timestampNanos;
+        out.eventTime = timestampNanos / 1_000_000L;
+        decoder.decode(frame, out);
+        out.changedMask = changeDetector.detect(frame, timestampNanos);
+        ring.publish();
+        // 主线程
+        RCFrameRing.Frame in = ring.peek();
+        blackhole.consume(in.leftKeyCode);
+        blackhole.consume(in.rightKeyCode);
+        blackhole.consume(in.buttonFlags);
+        blackhole.consume(in.edgeEventCount);
+        if (in.changedMask != 0) {
+            ByteBuffer buffer = codec.encode(in.channels, in.changedMask, in.timestampNanos);
+            blackhole.consume(buffer.position());
+        }
+        ring.release();
+    }
+
+    @Benchmark
+    public boolean decode() {
+        int[] frame = nextFrame();
+        decodeFrame.timestampNanos = timestampNanos;
+        return decoder.decode(frame, decodeFrame);
+    }
+}
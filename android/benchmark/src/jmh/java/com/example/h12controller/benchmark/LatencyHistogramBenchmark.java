@@ -0,0 +1,44 @@
+package com.example.h12controller.benchmark;
+
+import com.example.h12controller.RCLatencyHistogram;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * 延迟直方图的记录开销，输入路径每帧记录 4 次
+ */
+@State(Scope.Thread)
+public class LatencyHistogramBenchmark {
+    private static final int SAMPLES = 4096;
+
+    private final RCLatencyHistogram histogram = new RCLatencyHistogram();
+    private long[] samples;
+    private int index;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            // 对数正态分布，中位数约 200µs
+            samples[i] = (long) (Math.exp(random.nextGaussian()) * 200_000);
+            histogram.record(samples[i]);
+        }
+    }
+
+    @Benchmark
+    public long record() {
+        histogram.record(samples[index++ & (SAMPLES - 1)]);
+        return histogram.getCount();
+    }
+
+    @Benchmark
+    public long percentile() {
+        return histogram.getPercentileNanos(0.99);
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.h12controller.benchmark;
+
+import com.example.h12controller.RCKeyCodes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 原 RCControllerManager 中每帧执行的逻辑，作为对比基准：
+ * int[] → List&lt;Integer&gt; 装箱转换、determineKeyCode 多段 if 判断、C 按钮边沿检测，
+ * 以及 sendKeyEvent 中每个按键创建两个 KeyEvent 并无条件拼接日志字符串
+ *
+ * KeyEvent 用字段相同的 LegacyKeyEvent 代替，Log.d 用 logSink 代替，使其可以在普通 JVM 上运行
+ */
+final class LegacyInputPath {
+
+    /**
+     * 与 android.view.KeyEvent(downTime, eventTime, action, code, repeat, metaState, deviceId, scancode, flags, source)
+     * 字段相同的对象，用于还原原实现的分配量
+     */
+    static final class LegacyKeyEvent {
+        final long downTime;
+        final long eventTime;
+        final int action;
+        final int keyCode;
+        final int repeat;
+        final int metaState;
+        final int deviceId;
+        final int scanCode;
+        final int flags;
+        final int source;
+
+        LegacyKeyEvent(long downTime, long eventTime, int action, int keyCode, int repeat,
+                       int metaState, int deviceId, int scanCode, int flags, int source) {
+            this.downTime = downTime;
+            this.eventTime = eventTime;
+            this.action = action;
+            this.keyCode = keyCode;
+            this.repeat = repeat;
+            this.metaState = metaState;
+            this.deviceId = deviceId;
+            this.scanCode = scanCode;
+            this.flags = flags;
+            this.source = source;
+        }
+    }
+
+    private static final int ACTION_DOWN = 0;
+    private static final int ACTION_UP = 1;
+
+    private final Consumer<Object> dispatchSink;
+    private final Consumer<String> logSink;
+    private int lastLeftCButtonValue = 0;
+    private int lastRightCButtonValue = 0;
+
+    /**
+     * @param dispatchSink 接收 KeyEvent 和推送给 Flutter 的 List，代替 dispatchKeyEvent / invokeMethod
+     * @param logSink 接收日志字符串，代替 Log.d
+     */
+    LegacyInputPath(Consumer<Object> dispatchSink, Consumer<String> logSink) {
+        this.dispatchSink = dispatchSink;
+        this.logSink = logSink;
+    }
+
+    /**
+     * 原 onSuccess 回调：转换为 List 推送，再执行 handleRCInput
+     */
+    void onChannels(int[] value, long eventTime) {
+        List<Integer> result = new ArrayList<>();
+        for (int i : value) {
+            result.add(i);
+        }
+        if (value.length >= 12) {
+            handleRCInput(value, eventTime);
+        }
+        dispatchSink.accept(result);
+    }
+
+    void handleRCInput(int[] value, long eventTime) {
+        int leftX = value[3];
+        int leftY = value[1];
+        int rightX = value[0];
+        int rightY = value[2];
+
+        int leftCButton = value[8];
+        int rightCButton = value[9];
+
+        int keyCode = determineKeyCode(leftX, leftY, false);
+        int rightKeyCode = determineKeyCode(rightX, rightY, true);
+
+        if (leftCButton != lastLeftCButtonValue) {
+            if (leftCButton == 1950 || leftCButton == 1050) {
+                keyCode = RCKeyCodes.KEYCODE_BUTTON_L2;
+                logSink.accept("click event keycode: " + keyCode);
+            }
+            lastLeftCButtonValue = leftCButton;
+        }
+
+        if (rightCButton != lastRightCButtonValue) {
+            if (rightCButton == 1950 || rightCButton == 1050) {
+                keyCode = RCKeyCodes.KEYCODE_BUTTON_R2;
+                logSink.accept("click event keycode: " + keyCode);
+            }
+            lastRightCButtonValue = rightCButton;
+        }
+
+        if (keyCode != RCKeyCodes.KEYCODE_UNKNOWN) {
+            sendKeyEvent(eventTime, keyCode);
+        }
+        if (rightKeyCode != RCKeyCodes.KEYCODE_UNKNOWN) {
+            sendKeyEvent(eventTime, rightKeyCode);
+        }
+    }
+
+    /**
+     * 原实现原样保留，包括 y > 1350 && y < 1200 永远不成立的分支
+     */
+    static int determineKeyCode(int x, int y, boolean isRightJoystick) {
+        if (isRightJoystick) {
+            if (x < 1500 && x > 1350) {
+                return RCKeyCodes.KEYCODE_NUMPAD_7;
+            }
+            if (x < 1350 && x > 1200) {
+                return RCKeyCodes.KEYCODE_NUMPAD_8;
+            }
+            if (x < 1200 && x >= 1050) {
+                return RCKeyCodes.KEYCODE_NUMPAD_9;
+            }
+            if (x > 1500 && x < 1650) {
+                return RCKeyCodes.KEYCODE_NUMPAD_DIVIDE;
+            }
+            if (x > 1650 && x < 1800) {
+                return RCKeyCodes.KEYCODE_NUMPAD_MULTIPLY;
+            }
+            if (x > 1800 && x <= 1950) {
+                return RCKeyCodes.KEYCODE_NUMPAD_SUBTRACT;
+            }
+            if (y < 1500 && y > 1350) {
+                return RCKeyCodes.KEYCODE_NUMPAD_4;
+            }
+            if (y > 1350 && y < 1200) {
+                return RCKeyCodes.KEYCODE_NUMPAD_5;
+            }
+            if (y < 1200 && y >= 1050) {
+                return RCKeyCodes.KEYCODE_NUMPAD_6;
+            }
+            if (y > 1500 && y < 1650) {
+                return RCKeyCodes.KEYCODE_NUMPAD_1;
+            }
+            if (y > 1650 && y < 1800) {
+                return RCKeyCodes.KEYCODE_NUMPAD_2;
+            }
+            if (y > 1800 && y <= 1950) {
+                return RCKeyCodes.KEYCODE_NUMPAD_3;
+            }
+        } else {
+            if (x < 1400) return RCKeyCodes.KEYCODE_DPAD_LEFT;
+            if (x > 1600) return RCKeyCodes.KEYCODE_DPAD_RIGHT;
+            if (y < 1400) return RCKeyCodes.KEYCODE_DPAD_UP;
+            if (y > 1600) return RCKeyCodes.KEYCODE_DPAD_DOWN;
+        }
+        return RCKeyCodes.KEYCODE_UNKNOWN;
+    }
+
+    private void sendKeyEvent(long eventTime, int keyCode) {
+        LegacyKeyEvent downEvent = new LegacyKeyEvent(eventTime, eventTime, ACTION_DOWN, keyCode, 0, 12, 0, 0, 0, -1);
+        boolean downResult = dispatchKeyEvent(downEvent);
+        logSink.accept("Key down event dispatched: " + downResult + " for key: " + keyCode);
+
+        LegacyKeyEvent upEvent = new LegacyKeyEvent(eventTime, eventTime, ACTION_UP, keyCode, 0, 12, 0, 0, 0, -1);
+        boolean upResult = dispatchKeyEvent(upEvent);
+        logSink.accept("Key up event dispatched: " + upResult + " for key: " + keyCode);
+    }
+
+    private boolean dispatchKeyEvent(LegacyKeyEvent event) {
+        dispatchSink.accept(event);
+        return event.keyCode != RCKeyCodes.KEYCODE_UNKNOWN;
+    }
+}
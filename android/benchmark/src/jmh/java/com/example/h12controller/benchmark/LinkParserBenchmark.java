@@ -0,0 +1,80 @@
+package com.example.h12controller.benchmark;
+
+import com.example.h12controller.MavlinkFrameDecoder;
+import com.example.h12controller.RCLinkParser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * 数传管道帧解析，每次调用把 FRAMES 个 MAVLink v2 帧按 chunkSize 分块喂给解析器，结果为 ns/帧
+ */
+@State(Scope.Thread)
+public class LinkParserBenchmark {
+    private static final int FRAMES = 256;
+
+    // HEARTBEAT, SYS_STATUS, ATTITUDE, GLOBAL_POSITION_INT, RC_CHANNELS, VFR_HUD
+    private static final int[] MESSAGE_IDS = {0, 1, 30, 33, 65, 74};
+    private static final int[] PAYLOAD_LENGTHS = {9, 31, 28, 28, 42, 20};
+    private static final int[] CRC_EXTRAS = {50, 124, 39, 104, 118, 20};
+
+    @Param({"16", "64", "512"})
+    public int chunkSize;
+
+    private byte[] stream;
+    private RCLinkParser parser;
+    private long payloadBytes;
+
+    @Setup
+    public void setup() {
+        stream = buildStream(FRAMES, new Random(42));
+        parser = new RCLinkParser(new MavlinkFrameDecoder(),
+                (protocol, sequence, systemId, componentId, messageId, ring, mask, payloadStart, payloadLength) ->
+                        payloadBytes += payloadLength);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public long parse() {
+        for (int offset = 0; offset < stream.length; offset += chunkSize) {
+            parser.feed(stream, offset, Math.min(chunkSize, stream.length - offset));
+        }
+        return payloadBytes;
+    }
+
+    private static byte[] buildStream(int frames, Random random) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < frames; i++) {
+            int type = i % MESSAGE_IDS.length;
+            byte[] payload = new byte[PAYLOAD_LENGTHS[type]];
+            random.nextBytes(payload);
+            ByteBuffer frame = ByteBuffer.allocate(10 + payload.length + 2);
+            frame.put((byte) 0xFD).put((byte) payload.length).put((byte) 0).put((byte) 0)
+                    .put((byte) i).put((byte) 1).put((byte) 1)
+                    .put((byte) MESSAGE_IDS[type]).put((byte) 0).put((byte) 0)
+                    .put(payload);
+            int crc = 0xFFFF;
+            for (int j = 1; j < 10 + payload.length; j++) {
+                crc = accumulate(crc, frame.get(j) & 0xFF);
+            }
+            crc = accumulate(crc, CRC_EXTRAS[type]);
+            frame.put((byte) crc).put((byte) (crc >> 8));
+            out.write(frame.array(), 0, frame.position());
+        }
+        return out.toByteArray();
+    }
+
+    private static int accumulate(int crc, int b) {
+        int tmp = (b ^ crc) & 0xFF;
+        tmp = (tmp ^ (tmp << 4)) & 0xFF;
+        return ((crc >> 8) ^ (tmp << 8) ^ (tmp << 3) ^ (tmp >> 4)) & 0xFFFF;
+    }
+}
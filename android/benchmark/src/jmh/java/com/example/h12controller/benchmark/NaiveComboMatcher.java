@@ -0,0 +1,66 @@
+package com.example.h12controller.benchmark;
+
+/**
+ * 对比基准：每个组合独立保存进度，每帧逐个检查当前这一步的档位组合是否刚刚满足，
+ * 即在 handleRCInput 中为每个组合各写一段 if 判断的做法；开销随组合数线性增长
+ *
+ * 组合格式与 ComboBenchmark 相同：combos[i][step] 为 {channel, position, channel, position, ...}，
+ * 不支持定时和弦，步骤之间的时限固定
+ */
+final class NaiveComboMatcher {
+    private static final int LOW_THRESHOLD = 1300;
+    private static final int HIGH_THRESHOLD = 1700;
+
+    private final int[][][] combos;
+    private final long withinNanos;
+    private final int[] progress;
+    private final long[] stepNanos;
+    private final int[] positions = new int[32];
+    private final int[] previous = new int[32];
+
+    NaiveComboMatcher(int[][][] combos, long withinNanos) {
+        this.combos = combos;
+        this.withinNanos = withinNanos;
+        this.progress = new int[combos.length];
+        this.stepNanos = new long[combos.length];
+    }
+
+    /**
+     * @return 本帧识别出的组合个数
+     */
+    int advance(int[] channels, int count, long nowNanos) {
+        System.arraycopy(positions, 0, previous, 0, count);
+        for (int c = 0; c < count; c++) {
+            int value = channels[c];
+            positions[c] = value < LOW_THRESHOLD ? 0 : (value > HIGH_THRESHOLD ? 2 : 1);
+        }
+        int recognized = 0;
+        for (int i = 0; i < combos.length; i++) {
+            int[][] steps = combos[i];
+            int step = progress[i];
+            if (step > 0 && nowNanos - stepNanos[i] > withinNanos) {
+                step = 0;
+            }
+            int[] terms = steps[step];
+            if (matches(terms, positions) && !matches(terms, previous)) {
+                step++;
+                stepNanos[i] = nowNanos;
+                if (step == steps.length) {
+                    recognized++;
+                    step = 0;
+                }
+            }
+            progress[i] = step;
+        }
+        return recognized;
+    }
+
+    private static boolean matches(int[] terms, int[] positions) {
+        for (int t = 0; t < terms.length; t += 2) {
+            if (positions[terms[t]] != terms[t + 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.h12controller.benchmark;
+
+import com.example.h12controller.RCFrameCodec;
+import com.example.h12controller.RCFrameSnapshot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 共享内存快照与平台通道读取最新帧的对比
+ * write：采样线程每帧写入快照；read：读取一次快照（Dart 端通过 dart:ffi 读取同样的内存）；
+ * contended：一个线程持续写、一个线程持续读；
+ * channel：原 onRcKeyChannels 路径在原生端的工作，int[] → List&lt;Integer&gt; 再按 StandardMessageCodec 的格式编码。
+ * channel 不包含平台线程切换和 Dart 端解码，这部分用 RcController.benchmarkFrameSnapshot 在设备上测量
+ */
+@State(Scope.Thread)
+public class SnapshotBenchmark {
+    private static final long FRAME_PERIOD_NANOS = 10_000_000L;
+
+    @Param({"sticks"})
+    public String frameSet;
+
+    private int[][] frames;
+    private RCFrameSnapshot snapshot;
+
+    @Setup
+    public void setup() throws Exception {
+        frames = FrameSets.load(frameSet);
+        snapshot = new RCFrameSnapshot(ByteBuffer.allocateDirect(RCFrameSnapshot.SIZE));
+        snapshot.write(frames[0], 0, 0);
+    }
+
+    /**
+     * contended 组内两个线程共享的快照
+     */
+    @State(Scope.Group)
+    public static class Shared {
+        int[][] frames;
+        RCFrameSnapshot snapshot;
+
+        @Setup
+        public void setup() throws Exception {
+            frames = FrameSets.load("sticks");
+            snapshot = new RCFrameSnapshot(ByteBuffer.allocateDirect(RCFrameSnapshot.SIZE));
+            snapshot.write(frames[0], 0, 0);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Writer {
+        int index;
+        long timestampNanos;
+
+        int[] next(int[][] frames) {
+            int[] frame = frames[index];
+            if (++index == frames.length) {
+                index = 0;
+            }
+            timestampNanos += FRAME_PERIOD_NANOS;
+            return frame;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Reader {
+        final int[] out = new int[RCFrameCodec.MAX_CHANNELS];
+    }
+
+    @Benchmark
+    public void write(Writer writer) {
+        snapshot.write(writer.next(frames), writer.timestampNanos, writer.timestampNanos);
+    }
+
+    @Benchmark
+    public long read(Reader reader) {
+        return snapshot.read(reader.out);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public void contendedWrite(Shared shared, Writer writer) {
+        shared.snapshot.write(writer.next(shared.frames), writer.timestampNanos, writer.timestampNanos);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public long contendedRead(Shared shared, Reader reader) {
+        return shared.snapshot.read(reader.out);
+    }
+
+    @Benchmark
+    public void channel(Writer writer, Blackhole blackhole) {
+        int[] frame = writer.next(frames);
+        List<Integer> values = new ArrayList<>();
+        for (int value : frame) {
+            values.add(value);
+        }
+        // StandardMessageCodec：LIST 类型、长度、每个元素 INT 类型 + 4 字节
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        stream.write(12);
+        stream.write(values.size());
+        for (Integer value : values) {
+            int v = value;
+            stream.write(3);
+            stream.write(v);
+            stream.write(v >> 8);
+            stream.write(v >> 16);
+            stream.write(v >> 24);
+        }
+        blackhole.consume(ByteBuffer.allocateDirect(stream.size()).put(stream.toByteArray()));
+    }
+}
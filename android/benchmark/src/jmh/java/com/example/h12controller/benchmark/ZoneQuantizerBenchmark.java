@@ -0,0 +1,50 @@
+package com.example.h12controller.benchmark;
+
+import com.example.h12controller.RCZoneQuantizer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 摇杆分区判断：查找表（RCZoneQuantizer）与原 determineKeyCode 分支链，每次调用判断一帧的左右两个摇杆
+ */
+@State(Scope.Thread)
+public class ZoneQuantizerBenchmark {
+    @Param({"idle", "sticks", "buttons"})
+    public String frameSet;
+
+    private int[][] frames;
+    private int index;
+    private RCZoneQuantizer quantizer;
+
+    @Setup
+    public void setup() throws Exception {
+        frames = FrameSets.load(frameSet);
+        quantizer = new RCZoneQuantizer();
+    }
+
+    private int[] nextFrame() {
+        int[] frame = frames[index];
+        if (++index == frames.length) {
+            index = 0;
+        }
+        return frame;
+    }
+
+    @Benchmark
+    public int table() {
+        int[] frame = nextFrame();
+        return quantizer.keyCode(RCZoneQuantizer.STICK_LEFT, frame[3], frame[1])
+                + quantizer.keyCode(RCZoneQuantizer.STICK_RIGHT, frame[0], frame[2]);
+    }
+
+    @Benchmark
+    public int branches() {
+        int[] frame = nextFrame();
+        return LegacyInputPath.determineKeyCode(frame[3], frame[1], false)
+                + LegacyInputPath.determineKeyCode(frame[0], frame[2], true);
+    }
+}
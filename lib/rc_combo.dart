@@ -0,0 +1,49 @@
+import 'package:h12controller/rc_edge.dart';
+
+/// 组合中的一步：[require] 中的通道档位必须同时满足
+/// [holdMs] 大于 0 时需要连续保持该时间（定时和弦）；[withinMs] 为上一步完成后进入这一步的时限，对第一步无效
+class RcComboStep {
+  final Map<int, RcChannelPosition> require;
+  final int holdMs;
+  final int withinMs;
+
+  const RcComboStep(this.require, {this.holdMs = 0, this.withinMs = 1000});
+
+  Map<String, dynamic> toMap() => {
+        'require': [
+          for (final entry in require.entries)
+            {'channel': entry.key, 'position': entry.value.name},
+        ],
+        'holdMs': holdMs,
+        'withinMs': withinMs,
+      };
+}
+
+/// 组合键 / 序列，识别后原生端推送 [id]（0~65535）
+/// 例如按住左 C 再把右摇杆推到顶：
+///   RcCombo(1, [RcComboStep({8: RcChannelPosition.high}),
+///               RcComboStep({8: RcChannelPosition.high, 2: RcChannelPosition.low})])
+class RcCombo {
+  final int id;
+  final List<RcComboStep> steps;
+
+  const RcCombo(this.id, this.steps);
+
+  Map<String, dynamic> toMap() => {
+        'id': id,
+        'steps': [for (final step in steps) step.toMap()],
+      };
+
+  /// 组合配置，对应原生端 RCComboRecognizer.Profile.fromMap
+  /// [thresholds] 按通道覆盖分档阈值（低于 low 为低档，高于 high 为高档），默认 1300 / 1700
+  static Map<String, dynamic> profile(List<RcCombo> combos,
+          {Map<int, (int, int)> thresholds = const {}, int? hysteresis}) =>
+      {
+        if (hysteresis != null) 'hysteresis': hysteresis,
+        'channels': [
+          for (final entry in thresholds.entries)
+            {'channel': entry.key, 'low': entry.value.$1, 'high': entry.value.$2},
+        ],
+        'combos': [for (final combo in combos) combo.toMap()],
+      };
+}
@@ -1,28 +1,124 @@
 import 'package:flutter/material.dart';
 import 'package:flutter/services.dart';
 import 'package:h12controller/global_event.dart';
+import 'package:h12controller/rc_combo.dart';
+import 'package:h12controller/rc_device.dart';
+import 'package:h12controller/rc_edge.dart';
+import 'package:h12controller/rc_frame.dart';
+import 'package:h12controller/rc_latency.dart';
+import 'package:h12controller/rc_link.dart';
+import 'package:h12controller/rc_snapshot.dart';
+import 'package:h12controller/rc_subscription.dart';
 import 'dart:async';
+import 'dart:typed_data';
+
+/// 原生事件日志级别，顺序与 RCEventLog.LEVEL_* 一致
+enum RcEventLogLevel { trace, debug, info, warn, error, off }
 
 /// 通过EventBus转发左右摇杆的移动位置，虽然内容简短但不直接将其嵌入在相关页面内主要原因如下：
 /// 1. MethodChannel在被多次读取时似乎只会使得第一个接收的读取到，即会拦截掉其他的
 /// 2. 将其与页面操纵略微做解耦，便于修改
+/// 只关心部分通道或更低频率的接收者（HUD、控制循环、记录）用 [subscribe] 单独订阅，原生端按订阅者筛选和降频，
+/// 不必为每一帧唤醒 EventBus 上的所有监听者
 class RcController {
   static const platform = MethodChannel('com.skydroid2.rcsdk2');
 
+  /// 原生采样线程推送的二进制通道帧，每帧只经过一次平台通道，格式见 [RcFrame]
+  static const keyFrameChannel = BasicMessageChannel<ByteData>(
+      'com.skydroid2.rcsdk2/keyFrames', BinaryCodec());
+
+  /// 数传管道解析出的 MAVLink 消息，原生端按批次推送，格式见 [RcLinkMessage]
+  static const linkMessageChannel = BasicMessageChannel<ByteData>(
+      'com.skydroid2.rcsdk2/linkMessages', BinaryCodec());
+
+  /// 默认采样频率（Hz），原生端会限制在 50~200Hz
+  static const int defaultKeyChannelRateHz = 100;
+
   List<double> location = [];
   String _status = "disconnected";
-  Timer? _keyChannelTimer;
+  bool _keyChannelStreaming = false;
+  RcFrame? _lastFrame;
+  final RcChannelState _channels = RcChannelState();
+  final RcLatencyTracker _latency = RcLatencyTracker();
+  final StreamController<List<RcLinkMessage>> _linkMessages =
+      StreamController<List<RcLinkMessage>>.broadcast();
+  final StreamController<List<RcEdgeEvent>> _edgeEvents =
+      StreamController<List<RcEdgeEvent>>.broadcast();
+  final StreamController<List<int>> _combos =
+      StreamController<List<int>>.broadcast();
   List<int> _joystickValues = [0, 0, 0, 0]; // 存储摇杆值
+  RcFrameSnapshot? _snapshot;
+  final Map<int, RcDevice> _devices = {};
 
   // 添加状态获取方法
+  /// 连接状态，由原生端 onRcStatus 推送：idle / connecting / connected / backoff / closed
   String get status => _status;
   List<int> get joystickValues => _joystickValues;
+  RcFrame? get lastFrame => _lastFrame;
+
+  /// 数传消息流，每个事件是原生端推送的一个批次
+  Stream<List<RcLinkMessage>> get linkMessages => _linkMessages.stream;
+
+  /// 按键、拨杆、滚轮的边沿事件流，每个事件是原生端同一帧内检测到的事件
+  Stream<List<RcEdgeEvent>> get edgeEvents => _edgeEvents.stream;
+
+  /// 识别出的组合 id 流（见 [loadComboProfile]），每个事件是原生端同一帧内识别出的组合
+  Stream<List<int>> get combos => _combos.stream;
 
   RcController() {
+    linkMessageChannel.setMessageHandler((data) async {
+      if (data != null && _linkMessages.hasListener) {
+        _linkMessages.add(RcLinkMessage.decodeBatch(data));
+      }
+      return null;
+    });
     setupRc();
-    startKeyChannelPolling();
+    startKeyChannelStream();
+  }
+
+  // 各事件关心的通道掩码
+  static const int _stickMask = 0x000F; // 通道 0~3：摇杆
+  static const int _leftTriggerMask = 1 << 4;
+  static const int _rightTriggerMask = 1 << 5;
+  static const int _audioVolumeMask = 1 << 10;
+  static const int _scaleTriggerMask = 1 << 11;
+
+  /// 只针对真正变化的通道发送事件，摇杆静止时不会触发任何 setState
+  void _handleChangedChannels(int changed) {
+    final values = _channels.values;
+    if (changed == 0 || _channels.count < 12) {
+      return;
+    }
+    if ((changed & _stickMask) != 0) {
+      // 将RC Controller的通道值转换为摇杆值
+      _joystickValues = [
+        values[0], // 右摇杆X ⬅️ ➡️
+        values[1], // 左摇杆Y ⬆️ ⬇️
+        values[2], // 右摇杆Y ⬆️ ⬇️ (反转)
+        values[3], // 左摇杆X ⬅️ ➡️
+      ];
+      myEventBus.fire(MoveCommand(
+          _joystickValues[3].toDouble(), // 左X
+          _joystickValues[1].toDouble(), // 左Y
+          _joystickValues[0].toDouble(), // 右X
+          _joystickValues[2].toDouble() // 右Y
+          ));
+    }
+    if ((changed & _leftTriggerMask) != 0) {
+      myEventBus.fire(LeftTriggerEvent(values[4]));
+    }
+    if ((changed & _rightTriggerMask) != 0) {
+      myEventBus.fire(RightTriggerEvent(values[5]));
+    }
+    if ((changed & _scaleTriggerMask) != 0) {
+      myEventBus.fire(ScaleTriggerEvent(values[11]));
+    }
+    if ((changed & _audioVolumeMask) != 0) {
+      myEventBus.fire(AudioVolumeEvent(values[10]));
+    }
   }
 
+  /// 注册原生回调并确认连接；原生端在引擎启动时已开始连接，重复调用没有副作用
   Future<void> setupRc() async {
     try {
       platform.setMethodCallHandler((call) async {
@@ -32,35 +128,15 @@ class RcController {
           _status = call.arguments as String;
         } else if (call.method == 'onRcKeyChannels') {
           final List<dynamic> rawValues = List<dynamic>.from(call.arguments);
-          final List<int> values = rawValues.map((e) => e as int).toList();
-          debugPrint("onRcKeyChannels: $values");
-          // 处理摇杆值
-          if (values.length >= 12) {
-            // 将RC Controller的通道值转换为摇杆值
-            // 假设前4个通道是摇杆值，需要归一化到[-1, 1]范围
-            _joystickValues = [
-              values[0], // 右摇杆X ⬅️ ➡️
-              values[1], // 左摇杆Y ⬆️ ⬇️
-              values[2], // 右摇杆Y ⬆️ ⬇️ (反转)
-              values[3], // 左摇杆X ⬅️ ➡️
-            ];
-            MoveCommand command = MoveCommand(
-                _joystickValues[3].toDouble(), // 左X
-                _joystickValues[1].toDouble(), // 左Y
-                _joystickValues[0].toDouble(), // 右X
-                _joystickValues[2].toDouble() // 右Y
-                );
-
-            final leftTrigger = values[4];
-            final rightTrigger = values[5];
-            final scaleTrigger = values[11];
-            final audioVolume = values[10];
-
-            myEventBus.fire(command);
-            myEventBus.fire(LeftTriggerEvent(leftTrigger));
-            myEventBus.fire(RightTriggerEvent(rightTrigger));
-            myEventBus.fire(ScaleTriggerEvent(scaleTrigger));
-            myEventBus.fire(AudioVolumeEvent(audioVolume));
+          _handleChangedChannels(
+              _channels.applyValues(rawValues.map((e) => e as int).toList()));
+        } else if (call.method == 'onRcEdgeEvents') {
+          if (_edgeEvents.hasListener && call.arguments is Int32List) {
+            _edgeEvents.add(RcEdgeEvent.decodeAll(call.arguments as Int32List));
+          }
+        } else if (call.method == 'onRcCombos') {
+          if (_combos.hasListener && call.arguments is Int32List) {
+            _combos.add(call.arguments as Int32List);
           }
         } else if (call.method == 'onLeftButtonPressed') {
           myEventBus.fire(LeftButtonPressedEvent());
@@ -74,7 +150,76 @@ class RcController {
     }
   }
 
+  /// 配置断开后的自动重连退避，参数为 null 时保持不变；实际等待时间在上限的一半到上限之间随机
+  Future<void> configureReconnect({int? initialBackoffMs, int? maxBackoffMs}) async {
+    try {
+      await platform.invokeMethod('configureReconnect', {
+        'initialBackoffMs': initialBackoffMs,
+        'maxBackoffMs': maxBackoffMs,
+      });
+    } on PlatformException catch (e) {
+      debugPrint("Failed to configure RC reconnect: '${e.message}'.");
+    }
+  }
+
+  /// 连接统计：state、connectRequests、attempts、failures、disconnects、reconnects、lastBackoffMs、sdkInitMs，
+  /// 以及冷启动和最近一次重连的连接用时、首帧用时 coldConnectMs / coldFirstFrameMs / lastConnectMs / lastFirstFrameMs（-1 表示尚未发生）
+  Future<Map<String, dynamic>> getConnectionStats() async {
+    try {
+      final result = await platform.invokeMethod('getConnectionStats');
+      if (result is Map) {
+        return result.map((k, v) => MapEntry(k as String, v));
+      }
+    } on PlatformException catch (e) {
+      debugPrint("Failed to get RC connection stats: '${e.message}'.");
+    }
+    return {};
+  }
+
+  /// 估计原生端当前时刻之后 aheadMs 毫秒的通道值（调理后）：在最近的帧之间插值，晚于最新一帧时按斜率外推，
+  /// 外推距离不超过配置的上限；按自己节奏运行的控制循环用它补偿帧间隔抖动和传输延迟。还没有收到任何帧时返回空列表
+  Future<List<int>> estimateChannels({double aheadMs = 0}) async {
+    try {
+      final result = await platform.invokeMethod('estimateChannels', {'aheadMs': aheadMs});
+      if (result is List) {
+        return result.map((e) => e is int ? e : 0).toList();
+      }
+    } on PlatformException catch (e) {
+      debugPrint("Failed to estimate RC channels: '${e.message}'.");
+    }
+    return [];
+  }
+
+  /// 配置通道值估计，参数为 null 时保持不变；同时清空估计统计
+  /// [maxExtrapolationMs] 最大外推距离，默认 50；[errorChannelMask] 统计一步预测误差的通道，默认 0xF（摇杆）
+  Future<void> configureEstimator({int? maxExtrapolationMs, int? errorChannelMask}) async {
+    try {
+      await platform.invokeMethod('configureEstimator', {
+        'maxExtrapolationMs': maxExtrapolationMs,
+        'errorChannelMask': errorChannelMask,
+      });
+    } on PlatformException catch (e) {
+      debugPrint("Failed to configure RC estimator: '${e.message}'.");
+    }
+  }
+
+  /// 通道值估计统计：intervals（帧间隔，纳秒，含 jitter）、predictionError（一步预测的最大通道误差）、
+  /// resets、interpolated、extrapolated、horizonClamped、held、readRetries
+  /// 回放飞行记录时 predictionError 即为估计器在该记录上的误差
+  Future<Map<String, dynamic>> getEstimatorStats() async {
+    try {
+      final result = await platform.invokeMethod('getEstimatorStats');
+      if (result is Map) {
+        return result.map((k, v) => MapEntry(k as String, v));
+      }
+    } on PlatformException catch (e) {
+      debugPrint("Failed to get RC estimator stats: '${e.message}'.");
+    }
+    return {};
+  }
+
   /// 获取遥控器按键通道
+  /// 原生端同一时刻只有一个 SDK 读取，并发调用会得到同一次读取的结果；读取失败或超时（100ms）返回空列表
   Future<List<int>> getRemoteControllerKeyChannel() async {
     try {
       final result =
@@ -86,7 +231,11 @@ class RcController {
       // 确保结果是 List 类型
       if (result is List) {
         // 将 List<dynamic> 转换为 List<int>
-        return result.map((e) => e is int ? e : 0).toList();
+        final values = result.map((e) => e is int ? e : 0).toList();
+        if (values.isNotEmpty) {
+          _handleChangedChannels(_channels.applyValues(values));
+        }
+        return values;
       }
 
       return [];
@@ -96,45 +245,582 @@ class RcController {
     }
   }
 
-  /// 启动定时获取遥控器按键通道
-  void startKeyChannelPolling() {
-    // 取消可能存在的旧定时器
-    _keyChannelTimer?.cancel();
-
-    // 降低轮询频率从300ms到500ms，减少JNI调用频率
-    _keyChannelTimer =
-        Timer.periodic(const Duration(milliseconds: 300), (timer) {
-      try {
-        getRemoteControllerKeyChannel();
-      } catch (e) {
-        debugPrint("RC polling error: $e");
-        // 如果连续出错，暂时停止轮询
-        if (_consecutiveErrors > 5) {
-          debugPrint("Too many RC errors, stopping polling temporarily");
-          timer.cancel();
-          // 10秒后重试
-          Timer(const Duration(seconds: 10), () {
-            _consecutiveErrors = 0;
-            startKeyChannelPolling();
-          });
-        } else {
-          _consecutiveErrors++;
-        }
+  /// 开始接收原生推送的遥控器按键通道帧
+  /// 采样在原生独立线程上完成，Dart 端不再定时轮询
+  Future<void> startKeyChannelStream(
+      {int rateHz = defaultKeyChannelRateHz}) async {
+    keyFrameChannel.setMessageHandler((data) async {
+      if (data == null) {
+        return null;
       }
+      final arrivalNanos = RcLatencyTracker.nowNanos();
+      final frame = RcFrame.decode(data);
+      if (frame != null) {
+        _lastFrame = frame;
+        _handleChangedChannels(_channels.applyFrame(frame));
+        _latency.recordFrame(frame, arrivalNanos, RcLatencyTracker.nowNanos());
+      }
+      return null;
     });
+    _keyChannelStreaming = true;
+    try {
+      await platform
+          .invokeMethod('startKeyChannelStream', {'rateHz': rateHz});
+    } on PlatformException catch (e) {
+      debugPrint("Failed to start RC key channel stream: '${e.message}'.");
+    }
+  }
+
+  /// 配置原生端的变化检测
+  /// [deadbands] 为各通道死区阈值，[keyframeIntervalMs] 为全量关键帧间隔
+  Future<void> configureChangeDetector(
+      {List<int>? deadbands, int? keyframeIntervalMs}) async {
+    try {
+      await platform.invokeMethod('configureChangeDetector', {
+        'deadbands': deadbands,
+        'keyframeIntervalMs': keyframeIntervalMs,
+      });
+    } on PlatformException catch (e) {
+      debugPrint("Failed to configure RC change detector: '${e.message}'.");
+    }
+  }
+
+  /// 加载摇杆分区配置，[profile] 为 null 时恢复默认配置
+  /// 格式：{'hysteresis': 10, 'zones': [{'stick': 'left', 'axis': 'x', 'min': 1050, 'max': 1399, 'keyCode': 21}]}
+  Future<void> loadZoneProfile(Map<String, dynamic>? profile) async {
+    try {
+      await platform.invokeMethod('loadZoneProfile', profile);
+    } on PlatformException catch (e) {
+      debugPrint("Failed to load RC zone profile: '${e.message}'.");
+    }
+  }
+
+  /// 加载原生端的通道调理配置，[profile] 为 null 时恢复默认（不调理）；采样过程中可以随时替换
+  /// 各阶段依次为校准、死区、指数曲线、平滑、限速，每个通道只需给出用到的阶段，例如：
+  /// {'channels': [{'channel': 0, 'min': 1050, 'center': 1500, 'max': 1950, 'deadzone': 20, 'expo': 30,
+  ///                'smoothing': 'ema'|'oneEuro'|'none', 'cutoffHz': 5.0, 'beta': 0.01, 'rateLimit': 2000}]}
+  /// 调理后的值同时用于摇杆分区、边沿检测、变化推送和订阅；beta 为每 1 单位/秒提高的截止频率（Hz）
+  Future<void> loadConditioningProfile(Map<String, dynamic>? profile) async {
+    try {
+      await platform.invokeMethod('loadConditioningProfile', profile);
+    } on PlatformException catch (e) {
+      debugPrint("Failed to load RC conditioning profile: '${e.message}'.");
+    }
+  }
+
+  /// 切换原生端的通道数据源，[config] 为 null 时恢复为遥控器 SDK
+  /// {'type': 'sdk'}：遥控器 SDK
+  /// {'type': 'replay', 'path': '...', 'speed': 10.0, 'loop': false}：回放飞行记录，path 为段文件或目录（其中所有会话），
+  /// 默认为飞行记录目录中最近一次结束的会话；正在记录的会话不参与回放
+  /// {'type': 'synthetic', 'rateHz': 100, 'speed': 1.0, 'generators': [{'channel': 0, 'type': 'sine', 'periodMs': 2000}]}：
+  /// 合成数据，发生器类型有 constant / sine / square / ramp / steps
+  Future<void> setChannelSource(Map<String, dynamic>? config) async {
+    try {
+      await platform.invokeMethod('setChannelSource', config);
+    } on PlatformException catch (e) {
+      debugPrint("Failed to set RC channel source: '${e.message}'.");
+    }
+  }
+
+  /// 调整回放或合成数据源的倍速，1 为原始速度，小于等于 0 为不限速
+  /// 当前数据源是遥控器 SDK 时返回 false
+  Future<bool> setSourceSpeed(double speed) async {
+    try {
+      return await platform.invokeMethod('setSourceSpeed', speed) == true;
+    } on PlatformException catch (e) {
+      debugPrint("Failed to set RC source speed: '${e.message}'.");
+    }
+    return false;
+  }
+
+  /// 通过数传管道发送数据
+  /// 原生端先入队，由写线程合并为 MTU 大小的数据块再写入；
+  /// 指定 [tag] 时同 tag 尚未发送的数据只保留最新一条（适合周期性设定值）
+  /// 返回 false 表示原生队列已满、数据被丢弃，调用方应降低发送频率
+  Future<bool> sendPipelineData(Uint8List data, {int? tag}) async {
+    try {
+      final result = await platform
+          .invokeMethod('sendPipelineData', {'data': data, 'tag': tag});
+      if (result is Map) {
+        return result['accepted'] == true;
+      }
+    } on PlatformException catch (e) {
+      debugPrint("Failed to send pipeline data: '${e.message}'.");
+    }
+    return false;
+  }
+
+  /// 获取数传管道上行统计（队列字节数、合并数、丢弃数等）
+  Future<Map<String, int>> getPipelineStats() async {
+    try {
+      final result = await platform.invokeMethod('getPipelineStats');
+      if (result is Map) {
+        return result.map((k, v) => MapEntry(k as String, v as int));
+      }
+    } on PlatformException catch (e) {
+      debugPrint("Failed to get pipeline stats: '${e.message}'.");
+    }
+    return {};
+  }
+
+  /// 注册 common.xml 之外的 MAVLink 消息（例如 ardupilotmega 方言）的 CRC_EXTRA，{消息 ID: CRC_EXTRA}
+  /// 原生端内置 common.xml 的全部消息，没有 CRC_EXTRA 的消息无法校验，会被丢弃；
+  /// 对主设备和所有附加设备生效
+  Future<void> setMavlinkCrcExtras(Map<int, int> crcExtras) async {
+    try {
+      await platform.invokeMethod('setMavlinkCrcExtras', crcExtras);
+    } on PlatformException catch (e) {
+      debugPrint("Failed to set MAVLink CRC extras: '${e.message}'.");
+    }
+  }
+
+  /// 获取数传管道解析统计
+  /// unknownMessages 为没有 CRC_EXTRA 而丢弃的帧数，lastUnknownMessageId 为其中最近一帧的消息 ID（没有时为 -1），
+  /// 同一个 ID 反复出现时用 [setMavlinkCrcExtras] 注册
+  Future<Map<String, int>> getLinkStats() async {
+    try {
+      final result = await platform.invokeMethod('getLinkStats');
+      if (result is Map) {
+        return result.map((k, v) => MapEntry(k as String, v as int));
+      }
+    } on PlatformException catch (e) {
+      debugPrint("Failed to get RC link stats: '${e.message}'.");
+    }
+    return {};
+  }
+
+  /// 开始飞行记录，原生端把遥控器的每一帧通道值和数传管道收发的数据写入分段文件；
+  /// 回放和合成数据源的帧不记录
+  /// [segmentBytes] 为单个段文件大小，[maxBytes] 为所有段文件总大小上限
+  /// 返回当前段文件路径，失败时返回 null
+  Future<String?> startFlightRecorder({int? segmentBytes, int? maxBytes}) async {
+    try {
+      return await platform.invokeMethod<String>('startFlightRecorder', {
+        'segmentBytes': segmentBytes,
+        'maxBytes': maxBytes,
+      });
+    } on PlatformException catch (e) {
+      debugPrint("Failed to start flight recorder: '${e.message}'.");
+    }
+    return null;
+  }
+
+  /// 停止飞行记录，已写入的数据会刷到磁盘
+  Future<void> stopFlightRecorder() async {
+    try {
+      await platform.invokeMethod('stopFlightRecorder');
+    } on PlatformException catch (e) {
+      debugPrint("Failed to stop flight recorder: '${e.message}'.");
+    }
+  }
+
+  /// 把已记录的数据刷到磁盘，不影响记录
+  Future<void> flushFlightRecorder() async {
+    try {
+      await platform.invokeMethod('flushFlightRecorder');
+    } on PlatformException catch (e) {
+      debugPrint("Failed to flush flight recorder: '${e.message}'.");
+    }
+  }
+
+  /// 获取飞行记录统计（记录数、丢弃数、段文件数等）
+  Future<Map<String, dynamic>> getFlightRecorderStats() async {
+    try {
+      final result = await platform.invokeMethod('getFlightRecorderStats');
+      if (result is Map) {
+        return result.map((k, v) => MapEntry(k as String, v));
+      }
+    } on PlatformException catch (e) {
+      debugPrint("Failed to get flight recorder stats: '${e.message}'.");
+    }
+    return {};
+  }
+
+  /// 配置原生端的自适应采样频率，参数为 null 时保持不变
+  /// 通道变化超过 [threshold] 时立即升到 [activeRateHz]；安静 [quietMs] 后每隔 [decayStepMs] 减半，直到 [idleRateHz]
+  Future<void> configureAdaptiveSampling(
+      {bool? enabled,
+      int? idleRateHz,
+      int? activeRateHz,
+      int? threshold,
+      int? quietMs,
+      int? decayStepMs}) async {
+    try {
+      await platform.invokeMethod('configureAdaptiveSampling', {
+        'enabled': enabled,
+        'idleRateHz': idleRateHz,
+        'activeRateHz': activeRateHz,
+        'threshold': threshold,
+        'quietMs': quietMs,
+        'decayStepMs': decayStepMs,
+      });
+    } on PlatformException catch (e) {
+      debugPrint("Failed to configure adaptive sampling: '${e.message}'.");
+    }
   }
 
-  // 添加错误计数器
-  int _consecutiveErrors = 0;
+  /// 获取采样频率统计（当前状态 active/decaying/idle、频率、各状态累计时间等）
+  /// 'reads' 为 SDK 读取统计：inFlight、issued、completed、failed、timedOut、dropped（过期响应）、skipped、latency
+  /// 'source' 为回放或合成数据源的统计：speed、running、framesEmitted；回放时还有 frameCount、firstTimestampNanos、durationNanos
+  Future<Map<String, dynamic>> getSamplingStats() async {
+    try {
+      final result = await platform.invokeMethod('getSamplingStats');
+      if (result is Map) {
+        return result.map((k, v) => MapEntry(k as String, v));
+      }
+    } on PlatformException catch (e) {
+      debugPrint("Failed to get sampling stats: '${e.message}'.");
+    }
+    return {};
+  }
+
+  /// 配置摇杆按住时的按键重复：进入分区发送一次按下，按住 [repeatDelayMs] 后
+  /// 每隔 [repeatIntervalMs] 重复一次（repeatCount 递增），离开分区时抬起；间隔为 0 时不重复
+  Future<void> configureKeyRepeat({int? repeatDelayMs, int? repeatIntervalMs}) async {
+    try {
+      await platform.invokeMethod('configureKeyRepeat', {
+        'repeatDelayMs': repeatDelayMs,
+        'repeatIntervalMs': repeatIntervalMs,
+      });
+    } on PlatformException catch (e) {
+      debugPrint("Failed to configure key repeat: '${e.message}'.");
+    }
+  }
+
+  /// 获取按键统计：repeatDelayMs、repeatIntervalMs、leftHeld/rightHeld（当前按住的键码）、
+  /// downs、repeats、ups、taps（C 按钮单击）、batches（主线程分发批次）
+  Future<Map<String, dynamic>> getKeyStats() async {
+    try {
+      final result = await platform.invokeMethod('getKeyStats');
+      if (result is Map) {
+        return result.map((k, v) => MapEntry(k as String, v));
+      }
+    } on PlatformException catch (e) {
+      debugPrint("Failed to get key stats: '${e.message}'.");
+    }
+    return {};
+  }
+
+  /// 输入路径各阶段的延迟统计（纳秒），每个阶段包含 count/mean/p50/p90/p99/p999/max/jitter
+  /// 原生阶段：input（采集 → 解码）、handoff（解码 → 主线程）、dispatch（主线程分发 → 推送返回）、native（采集 → 推送返回）
+  /// Dart 阶段：channel（原生推送 → Dart 收到）、dart（收到 → 事件分发完成）、endToEnd（采集 → 事件分发完成）
+  Future<Map<String, Map<String, int>>> getRcLatencyStats() async {
+    final stats = <String, Map<String, int>>{};
+    try {
+      final result = await platform.invokeMethod('getRcLatencyStats');
+      if (result is Map) {
+        result.forEach((stage, values) {
+          stats[stage as String] = (values as Map)
+              .map((k, v) => MapEntry(k as String, (v as num).toInt()));
+        });
+      }
+    } on PlatformException catch (e) {
+      debugPrint("Failed to get RC latency stats: '${e.message}'.");
+    }
+    stats.addAll(_latency.toMap());
+    return stats;
+  }
+
+  /// 清空原生端和 Dart 端的延迟统计
+  Future<void> resetRcLatencyStats() async {
+    _latency.reset();
+    try {
+      await platform.invokeMethod('resetRcLatencyStats');
+    } on PlatformException catch (e) {
+      debugPrint("Failed to reset RC latency stats: '${e.message}'.");
+    }
+  }
+
+  /// 按 [period] 周期输出延迟统计快照，供调试浮层使用；取消订阅即停止
+  Stream<Map<String, Map<String, int>>> latencySnapshots(
+      {Duration period = const Duration(seconds: 1)}) {
+    return Stream<void>.periodic(period).asyncMap((_) => getRcLatencyStats());
+  }
+
+  /// 加载边沿检测配置，[profile] 为 null 时恢复默认配置
+  /// 格式：{'debounceMs': 20, 'longPressMs': 800, 'doubleClickMs': 400, 'hysteresis': 20,
+  ///        'channels': [{'channel': 8, 'kind': 'button'|'toggle'|'switch'|'none', 'low': 1300, 'high': 1700}]}
+  Future<void> loadEdgeProfile(Map<String, dynamic>? profile) async {
+    try {
+      await platform.invokeMethod('loadEdgeProfile', profile);
+    } on PlatformException catch (e) {
+      debugPrint("Failed to load RC edge profile: '${e.message}'.");
+    }
+  }
+
+  /// 加载组合键 / 序列，替换之前加载的全部组合；[combos] 为空时清除。识别结果见 [combos]
+  /// 所有组合在原生端编译为一个状态机，每帧开销与组合数无关；最多 1024 个组合，每个最多 8 步
+  Future<void> loadComboProfile(List<RcCombo> combos,
+      {Map<int, (int, int)> thresholds = const {}, int? hysteresis}) async {
+    try {
+      await platform.invokeMethod('loadComboProfile',
+          RcCombo.profile(combos, thresholds: thresholds, hysteresis: hysteresis));
+    } on PlatformException catch (e) {
+      debugPrint("Failed to load RC combo profile: '${e.message}'.");
+    }
+  }
+
+  /// 组合识别统计：combos、nodes（状态树节点数）、channelMask、recognized、peakActive、activeOverflows、eventOverflows
+  Future<Map<String, dynamic>> getComboStats() async {
+    try {
+      final result = await platform.invokeMethod('getComboStats');
+      if (result is Map) {
+        return result.map((k, v) => MapEntry(k as String, v));
+      }
+    } on PlatformException catch (e) {
+      debugPrint("Failed to get RC combo stats: '${e.message}'.");
+    }
+    return {};
+  }
+
+  /// 开关原生输入路径上的调试日志，默认关闭；打开时记录所有级别的事件并同时输出到 logcat
+  Future<void> setDebugLogging(bool enabled) async {
+    try {
+      await platform.invokeMethod('setDebugLogging', enabled);
+    } on PlatformException catch (e) {
+      debugPrint("Failed to set RC debug logging: '${e.message}'.");
+    }
+  }
 
-  /// 停止定时获取遥控器按键通道
-  void stopKeyChannelPolling() {
-    _keyChannelTimer?.cancel();
-    _keyChannelTimer = null;
+  /// 设置原生事件日志级别，低于该级别的事件不记录；默认 debug
+  Future<void> setEventLogLevel(RcEventLogLevel level) async {
+    try {
+      await platform.invokeMethod('setEventLogLevel', level.index);
+    } on PlatformException catch (e) {
+      debugPrint("Failed to set RC event log level: '${e.message}'.");
+    }
+  }
+
+  /// 导出原生事件日志，每条记录一行（单调时钟毫秒、级别、线程、内容）
+  /// [crash] 为 true 时返回上次崩溃时导出的日志
+  Future<List<String>> dumpEventLog({bool crash = false}) async {
+    try {
+      final result = await platform.invokeMethod('dumpEventLog', {'crash': crash});
+      if (result is List) {
+        return result.cast<String>();
+      }
+    } on PlatformException catch (e) {
+      debugPrint("Failed to dump RC event log: '${e.message}'.");
+    }
+    return [];
+  }
+
+  /// 事件日志统计：level、capacity、written、overwritten、crashDump（是否有崩溃日志）
+  Future<Map<String, dynamic>> getEventLogStats() async {
+    try {
+      final result = await platform.invokeMethod('getEventLogStats');
+      if (result is Map) {
+        return result.map((k, v) => MapEntry(k as String, v));
+      }
+    } on PlatformException catch (e) {
+      debugPrint("Failed to get RC event log stats: '${e.message}'.");
+    }
+    return {};
+  }
+
+  /// 映射原生端共享内存中的最新帧，之后可以在控制循环中用 [RcFrameSnapshot.read] 同步读取
+  /// 只映射一次；失败时返回 null
+  Future<RcFrameSnapshot?> attachFrameSnapshot() async {
+    if (_snapshot != null) {
+      return _snapshot;
+    }
+    try {
+      final handle = await platform.invokeMethod('attachFrameSnapshot');
+      if (handle is Map) {
+        _snapshot = RcFrameSnapshot.map(handle['fd'] as int, handle['size'] as int);
+      }
+    } on PlatformException catch (e) {
+      debugPrint("Failed to attach RC frame snapshot: '${e.message}'.");
+    }
+    return _snapshot;
+  }
+
+  /// 对比读取最新帧的延迟（纳秒）：'ffi' 为直接读取共享内存，'channel' 为经平台通道读取同一份快照，
+  /// 即 onRcKeyChannels / getRemoteControllerKeyChannel 这类路径的通道开销；各项为 count/mean/p50/p90/p99/p999/max/jitter
+  Future<Map<String, Map<String, int>>> benchmarkFrameSnapshot(
+      {int iterations = 1000}) async {
+    final snapshot = await attachFrameSnapshot();
+    if (snapshot == null) {
+      return {};
+    }
+    final out = Int32List(RcFrameSnapshot.maxChannels);
+    final ffi = RcLatencyHistogram();
+    final channel = RcLatencyHistogram();
+    final stopwatch = Stopwatch();
+    final nanosPerTick = 1000000000 / Stopwatch().frequency;
+    for (var i = 0; i < iterations; i++) {
+      stopwatch
+        ..reset()
+        ..start();
+      snapshot.read(out);
+      stopwatch.stop();
+      ffi.record((stopwatch.elapsedTicks * nanosPerTick).round());
+    }
+    try {
+      for (var i = 0; i < iterations; i++) {
+        stopwatch
+          ..reset()
+          ..start();
+        await platform.invokeMethod('readFrameSnapshot');
+        stopwatch.stop();
+        channel.record((stopwatch.elapsedTicks * nanosPerTick).round());
+      }
+    } on PlatformException catch (e) {
+      debugPrint("Failed to read RC frame snapshot: '${e.message}'.");
+    }
+    return {'ffi': ffi.toMap(), 'channel': channel.toMap()};
+  }
+
+  /// 订阅通道帧，原生端按订阅者筛选通道和降频后再推送；数据源运行时（见 [startKeyChannelStream]）才有帧
+  /// [channelMask] bit i 对应通道 i；[maxRateHz] 为 0 表示不限制，最高 1000；
+  /// [deadband] 只对 [RcDeliveryMode.onChange] 生效。参数无效或订阅者已满（8 个）时返回 null
+  Future<RcSubscription?> subscribe(
+      {int channelMask = 0xFFFFFFFF,
+      int maxRateHz = 0,
+      RcDeliveryMode mode = RcDeliveryMode.everyFrame,
+      int deadband = 0}) async {
+    try {
+      final id = await platform.invokeMethod('subscribeFrames', {
+        'channelMask': channelMask,
+        'maxRateHz': maxRateHz,
+        'mode': mode.index,
+        'deadband': deadband,
+      });
+      if (id is int) {
+        // 方法调用的结果先于该订阅的第一帧到达，这里同步注册处理函数不会漏帧
+        return RcSubscription(
+            id, channelMask, '${keyFrameChannel.name}/$id', _unsubscribe);
+      }
+    } on PlatformException catch (e) {
+      debugPrint("Failed to subscribe RC frames: '${e.message}'.");
+    }
+    return null;
+  }
+
+  Future<void> _unsubscribe(int id) async {
+    try {
+      await platform.invokeMethod('unsubscribeFrames', id);
+    } on PlatformException catch (e) {
+      debugPrint("Failed to unsubscribe RC frames: '${e.message}'.");
+    }
+  }
+
+  /// 各订阅者的统计：id、channelMask、maxRateHz、mode、deadband、selected、rateLimited、delivered、coalesced
+  Future<List<Map<String, dynamic>>> getSubscriptionStats() async {
+    try {
+      final result = await platform.invokeMethod('getSubscriptionStats');
+      if (result is List) {
+        return result
+            .map((e) => (e as Map).map((k, v) => MapEntry(k as String, v)))
+            .toList();
+      }
+    } on PlatformException catch (e) {
+      debugPrint("Failed to get RC subscription stats: '${e.message}'.");
+    }
+    return [];
+  }
+
+  /// 添加附加设备（id 1~7），原生端为其创建独立的输入线程和工作线程，立即开始输出
+  /// [source] 格式同 setChannelSource，不能是 sdk（SDK 采样器只属于主设备）；
+  /// [link] 为 'uart1'（随遥控器连接）、'loopback'（本地环回，用于测试）或 null；
+  /// [edgeProfile] 格式见 [loadEdgeProfile]，[combos] 见 [loadComboProfile]。参数无效或 id 已存在时返回 null
+  Future<RcDevice?> addDevice(int id, Map<String, dynamic> source,
+      {String? link,
+      Map<String, dynamic>? edgeProfile,
+      List<RcCombo> combos = const []}) async {
+    if (_devices.containsKey(id)) {
+      return null;
+    }
+    // 先注册处理函数，原生端添加后立即开始推送
+    final device = RcDevice(id, 'com.skydroid2.rcsdk2/devices/$id',
+        '${linkMessageChannel.name}/$id', _removeDevice);
+    try {
+      await platform.invokeMethod('addDevice', {
+        'id': id,
+        'source': source,
+        'link': link,
+        'edgeProfile': edgeProfile,
+        'comboProfile': combos.isEmpty ? null : RcCombo.profile(combos),
+      });
+      _devices[id] = device;
+      return device;
+    } on PlatformException catch (e) {
+      debugPrint("Failed to add RC device $id: '${e.message}'.");
+    }
+    await device.close();
+    return null;
+  }
+
+  Future<void> _removeDevice(int id) async {
+    _devices.remove(id);
+    try {
+      await platform.invokeMethod('removeDevice', id);
+    } on PlatformException catch (e) {
+      debugPrint("Failed to remove RC device $id: '${e.message}'.");
+    }
+  }
+
+  /// 通过附加设备的数传链路发送数据，语义同 [sendPipelineData]
+  Future<bool> sendDeviceData(int id, Uint8List data, {int? tag}) async {
+    try {
+      final result = await platform
+          .invokeMethod('sendDeviceData', {'id': id, 'data': data, 'tag': tag});
+      return result == true;
+    } on PlatformException catch (e) {
+      debugPrint("Failed to send RC device data: '${e.message}'.");
+    }
+    return false;
+  }
+
+  /// 各附加设备的统计：id、framesPublished、framesDropped、recordsBatched、recordsDropped、batchesSent、combo、link
+  Future<List<Map<String, dynamic>>> getDeviceStats() async {
+    try {
+      final result = await platform.invokeMethod('getDeviceStats');
+      if (result is List) {
+        return result
+            .map((e) => (e as Map).map((k, v) => MapEntry(k as String, v)))
+            .toList();
+      }
+    } on PlatformException catch (e) {
+      debugPrint("Failed to get RC device stats: '${e.message}'.");
+    }
+    return [];
+  }
+
+  /// 运行时调整原生采样频率
+  Future<void> setKeyChannelRate(int rateHz) async {
+    try {
+      await platform.invokeMethod('setKeyChannelRate', {'rateHz': rateHz});
+    } on PlatformException catch (e) {
+      debugPrint("Failed to set RC key channel rate: '${e.message}'.");
+    }
+  }
+
+  /// 停止接收遥控器按键通道帧，原生端随之停止采样
+  void stopKeyChannelStream() {
+    if (!_keyChannelStreaming) {
+      return;
+    }
+    _keyChannelStreaming = false;
+    keyFrameChannel.setMessageHandler(null);
+    platform.invokeMethod('stopKeyChannelStream').catchError((error) {
+      debugPrint("Failed to stop RC key channel stream: $error");
+    });
   }
 
   /// 释放资源
   void dispose() {
-    stopKeyChannelPolling();
+    stopKeyChannelStream();
+    linkMessageChannel.setMessageHandler(null);
+    _linkMessages.close();
+    _edgeEvents.close();
+    _combos.close();
+    _snapshot?.close();
+    _snapshot = null;
+    // 通知原生端停止各设备的数据源和工作线程，否则它们会继续向已无处理函数的通道推送
+    for (final device in _devices.values.toList()) {
+      device.remove();
+    }
+    _devices.clear();
   }
 }
@@ -0,0 +1,121 @@
+import 'dart:async';
+import 'dart:typed_data';
+
+import 'package:flutter/services.dart';
+import 'package:h12controller/rc_edge.dart';
+import 'package:h12controller/rc_frame.dart';
+import 'package:h12controller/rc_link.dart';
+
+/// 附加设备批次中的记录类型，对应原生端 RCDeviceContext.RECORD_*
+class RcDeviceRecordType {
+  static const int frame = 1;
+  static const int edgeEvents = 2;
+  static const int combos = 3;
+}
+
+/// 一个附加设备（第二台遥控器、外接手柄、另一路数传等），由 [RcController.addDevice] 创建
+/// 原生端每个设备有独立的输入线程、解码状态和工作线程，帧和事件按批次通过 devices/{id} 推送，
+/// 批次由若干条记录组成（小端）：
+///
+///   0  uint16 length    payload 字节数
+///   2  uint8  type      [RcDeviceRecordType]
+///   3  uint8  deviceId
+///   4  uint8[] payload  frame 为 [RcFrame] 格式，其余为 int32 数组
+class RcDevice {
+  static const int recordHeaderBytes = 4;
+
+  final int id;
+  final BasicMessageChannel<ByteData> _channel;
+  final BasicMessageChannel<ByteData> _linkChannel;
+  final StreamController<RcFrame> _frames = StreamController<RcFrame>.broadcast();
+  final StreamController<List<RcEdgeEvent>> _edgeEvents =
+      StreamController<List<RcEdgeEvent>>.broadcast();
+  final StreamController<List<int>> _combos = StreamController<List<int>>.broadcast();
+  final StreamController<List<RcLinkMessage>> _linkMessages =
+      StreamController<List<RcLinkMessage>>.broadcast();
+  final Future<void> Function(int id) _onRemove;
+
+  /// 合并后的通道值，在 [frames] 的事件之前更新
+  final RcChannelState state = RcChannelState();
+
+  RcDevice(this.id, String channelName, String linkChannelName, this._onRemove)
+      : _channel = BasicMessageChannel<ByteData>(channelName, const BinaryCodec()),
+        _linkChannel =
+            BasicMessageChannel<ByteData>(linkChannelName, const BinaryCodec()) {
+    _channel.setMessageHandler((data) async {
+      if (data != null) {
+        _decodeBatch(data);
+      }
+      return null;
+    });
+    _linkChannel.setMessageHandler((data) async {
+      if (data != null && _linkMessages.hasListener) {
+        _linkMessages.add(RcLinkMessage.decodeBatch(data));
+      }
+      return null;
+    });
+  }
+
+  /// 设备的通道帧，只包含超出死区的通道
+  Stream<RcFrame> get frames => _frames.stream;
+
+  /// 设备的边沿事件，每个事件是原生端同一帧内检测到的事件
+  Stream<List<RcEdgeEvent>> get edgeEvents => _edgeEvents.stream;
+
+  /// 设备上识别出的组合 id
+  Stream<List<int>> get combos => _combos.stream;
+
+  /// 设备数传链路上解析出的 MAVLink 消息
+  Stream<List<RcLinkMessage>> get linkMessages => _linkMessages.stream;
+
+  /// 解码一个批次，遇到不完整或不属于本设备的记录时停止
+  void _decodeBatch(ByteData data) {
+    var offset = 0;
+    while (offset + recordHeaderBytes <= data.lengthInBytes) {
+      final length = data.getUint16(offset, Endian.little);
+      final type = data.getUint8(offset + 2);
+      final end = offset + recordHeaderBytes + length;
+      if (end > data.lengthInBytes || data.getUint8(offset + 3) != id) {
+        break;
+      }
+      final payload =
+          ByteData.sublistView(data, offset + recordHeaderBytes, end);
+      if (type == RcDeviceRecordType.frame) {
+        final frame = RcFrame.decode(payload);
+        if (frame != null) {
+          state.applyFrame(frame);
+          _frames.add(frame);
+        }
+      } else if (type == RcDeviceRecordType.edgeEvents) {
+        _edgeEvents.add(RcEdgeEvent.decodeAll(_int32List(payload)));
+      } else if (type == RcDeviceRecordType.combos) {
+        _combos.add(_int32List(payload));
+      }
+      offset = end;
+    }
+  }
+
+  static Int32List _int32List(ByteData payload) {
+    final values = Int32List(payload.lengthInBytes >> 2);
+    for (var i = 0; i < values.length; i++) {
+      values[i] = payload.getInt32(i * 4, Endian.little);
+    }
+    return values;
+  }
+
+  /// 停止并移除设备
+  Future<void> remove() async {
+    await close();
+    await _onRemove(id);
+  }
+
+  /// 只释放 Dart 端的处理函数和流，不通知原生端
+  Future<void> close() async {
+    _channel.setMessageHandler(null);
+    _linkChannel.setMessageHandler(null);
+    await _frames.close();
+    await _edgeEvents.close();
+    await _combos.close();
+    await _linkMessages.close();
+  }
+}
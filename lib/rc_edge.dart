@@ -0,0 +1,45 @@
+import 'dart:typed_data';
+
+/// 边沿事件类型，对应原生端 RCEdgeDetector.EVENT_*
+enum RcEdgeEventType { press, release, longPress, doubleClick, switchPosition }
+
+/// 通道档位，对应原生端 RCEdgeDetector.POSITION_*
+enum RcChannelPosition { low, mid, high }
+
+/// 按键 / 拨杆 / 滚轮的边沿事件
+/// 原生端打包为 int：bit 0~4 通道，bit 5~6 档位，bit 8~11 类型
+class RcEdgeEvent {
+  final RcEdgeEventType type;
+  final int channel;
+  final RcChannelPosition position;
+
+  const RcEdgeEvent(this.type, this.channel, this.position);
+
+  /// 解析打包的事件，未知类型返回 null
+  static RcEdgeEvent? decode(int packed) {
+    final type = (packed >> 8) & 0xF;
+    final position = (packed >> 5) & 0x3;
+    if (type < 1 ||
+        type > RcEdgeEventType.values.length ||
+        position >= RcChannelPosition.values.length) {
+      return null;
+    }
+    return RcEdgeEvent(RcEdgeEventType.values[type - 1], packed & 0x1F,
+        RcChannelPosition.values[position]);
+  }
+
+  /// 解析原生端一帧的全部事件
+  static List<RcEdgeEvent> decodeAll(Int32List packed) {
+    final events = <RcEdgeEvent>[];
+    for (final value in packed) {
+      final event = decode(value);
+      if (event != null) {
+        events.add(event);
+      }
+    }
+    return events;
+  }
+
+  @override
+  String toString() => 'RcEdgeEvent($type, channel $channel, $position)';
+}
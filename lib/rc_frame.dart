@@ -0,0 +1,110 @@
+import 'dart:typed_data';
+
+/// 遥控器通道帧，对应原生端 RCFrameCodec 的二进制格式（小端）：
+///
+///   0  uint32 sequence        帧序号
+///   4  uint32 channelMask     bit i 为 1 表示帧内包含通道 i
+///   8  int64  timestampNanos  通道源给出的采集时间戳（纳秒）
+///  16  int64  captureMonoNanos 采集时刻的 CLOCK_MONOTONIC 时间（纳秒），非实时数据源为 0
+///  24  int64  sendMonoNanos    原生发送前的 CLOCK_MONOTONIC 时间（纳秒）
+///  32  int16[] values         按通道序号升序排列的通道值
+class RcFrame {
+  static const int headerBytes = 32;
+
+  final int sequence;
+  final int channelMask;
+  final int timestampNanos;
+  final int captureMonoNanos;
+  final int sendMonoNanos;
+
+  /// 直接指向消息内存的视图，不做逐元素拷贝
+  final Int16List values;
+
+  RcFrame(this.sequence, this.channelMask, this.timestampNanos,
+      this.captureMonoNanos, this.sendMonoNanos, this.values);
+
+  /// 帧内包含的通道个数
+  int get channelCount => values.length;
+
+  /// 解码一帧，数据长度不足时返回 null
+  static RcFrame? decode(ByteData data) {
+    if (data.lengthInBytes < headerBytes) {
+      return null;
+    }
+    final sequence = data.getUint32(0, Endian.little);
+    final channelMask = data.getUint32(4, Endian.little);
+    final timestampNanos = data.getInt64(8, Endian.little);
+    final captureMonoNanos = data.getInt64(16, Endian.little);
+    final sendMonoNanos = data.getInt64(24, Endian.little);
+    final count = (data.lengthInBytes - headerBytes) >> 1;
+    final offset = data.offsetInBytes + headerBytes;
+
+    Int16List values;
+    if (offset % Int16List.bytesPerElement == 0 && Endian.host == Endian.little) {
+      values = data.buffer.asInt16List(offset, count);
+    } else {
+      // 未对齐或大端主机时退化为拷贝
+      values = Int16List(count);
+      for (var i = 0; i < count; i++) {
+        values[i] = data.getInt16(headerBytes + i * 2, Endian.little);
+      }
+    }
+    return RcFrame(sequence, channelMask, timestampNanos, captureMonoNanos,
+        sendMonoNanos, values);
+  }
+}
+
+/// 接收端的通道状态
+/// 原生端只发送超出死区的通道，这里把增量帧合并为完整的通道值
+class RcChannelState {
+  static const int maxChannels = 32;
+
+  final Int32List values = Int32List(maxChannels);
+
+  /// 已知的通道个数，由收到的最高通道号决定
+  int count = 0;
+
+  /// 合并一帧，返回值确实发生变化的通道掩码
+  int applyFrame(RcFrame frame) {
+    var changed = 0;
+    var remaining = frame.channelMask;
+    var index = 0;
+    while (remaining != 0 && index < frame.values.length) {
+      final channel = _lowestBit(remaining);
+      final value = frame.values[index++];
+      if (values[channel] != value || channel >= count) {
+        values[channel] = value;
+        changed |= 1 << channel;
+      }
+      if (channel >= count) {
+        count = channel + 1;
+      }
+      remaining &= remaining - 1;
+    }
+    return changed;
+  }
+
+  /// 合并一组完整的通道值，返回值确实发生变化的通道掩码
+  int applyValues(List<int> newValues) {
+    var changed = 0;
+    final n = newValues.length < maxChannels ? newValues.length : maxChannels;
+    for (var i = 0; i < n; i++) {
+      if (values[i] != newValues[i] || i >= count) {
+        values[i] = newValues[i];
+        changed |= 1 << i;
+      }
+    }
+    if (n > count) {
+      count = n;
+    }
+    return changed;
+  }
+
+  static int _lowestBit(int mask) {
+    var bit = 0;
+    while ((mask & (1 << bit)) == 0) {
+      bit++;
+    }
+    return bit;
+  }
+}
@@ -0,0 +1,138 @@
+import 'dart:developer';
+import 'dart:typed_data';
+
+import 'package:h12controller/rc_frame.dart';
+
+/// 对数-线性延迟直方图（纳秒），分桶方式与原生端 RCLatencyHistogram 相同：
+/// 每个 2 的幂区间线性分为 32 个桶，相对误差约 3%
+/// Dart 端只在 UI isolate 上记录，不需要同步
+class RcLatencyHistogram {
+  static const int _subBucketBits = 6;
+  static const int _subBucketHalf = 1 << (_subBucketBits - 1);
+  static const int _maxValueBits = 40;
+  static const int _maxValue = (1 << _maxValueBits) - 1;
+  static const int _bucketCount =
+      (_maxValueBits - _subBucketBits + 1) * _subBucketHalf +
+          2 * _subBucketHalf;
+
+  final Uint32List _counts = Uint32List(_bucketCount);
+  int _count = 0;
+  int _totalNanos = 0;
+  int _maxNanos = 0;
+  int _lastNanos = -1;
+  int _jitterNanosX16 = 0;
+
+  /// 记录一次延迟，负值按 0 计（跨时钟的微秒截断可能产生很小的负值）
+  void record(int nanos) {
+    final value = nanos < 0 ? 0 : (nanos > _maxValue ? _maxValue : nanos);
+    _counts[_bucketIndex(value)]++;
+    _count++;
+    _totalNanos += value;
+    if (value > _maxNanos) {
+      _maxNanos = value;
+    }
+    if (_lastNanos >= 0) {
+      final delta = (value - _lastNanos).abs();
+      _jitterNanosX16 += delta - ((_jitterNanosX16 + 8) >> 4);
+    }
+    _lastNanos = value;
+  }
+
+  static int _bucketIndex(int value) {
+    if (value < 2 * _subBucketHalf) {
+      return value;
+    }
+    final exponent = value.bitLength - _subBucketBits;
+    return exponent * _subBucketHalf + (value >> exponent);
+  }
+
+  static int _bucketUpperBound(int index) {
+    if (index < 2 * _subBucketHalf) {
+      return index;
+    }
+    final exponent = index ~/ _subBucketHalf - 1;
+    final mantissa = index - exponent * _subBucketHalf;
+    return ((mantissa + 1) << exponent) - 1;
+  }
+
+  int get count => _count;
+
+  /// 分位数，[quantile] 取 0~1
+  int percentile(double quantile) {
+    if (_count == 0) {
+      return 0;
+    }
+    var target = (quantile * _count).ceil();
+    if (target < 1) {
+      target = 1;
+    }
+    var seen = 0;
+    for (var i = 0; i < _bucketCount; i++) {
+      seen += _counts[i];
+      if (seen >= target) {
+        final upper = _bucketUpperBound(i);
+        return upper < _maxNanos ? upper : _maxNanos;
+      }
+    }
+    return _maxNanos;
+  }
+
+  void reset() {
+    _counts.fillRange(0, _bucketCount, 0);
+    _count = 0;
+    _totalNanos = 0;
+    _maxNanos = 0;
+    _lastNanos = -1;
+    _jitterNanosX16 = 0;
+  }
+
+  /// 与原生端 toMap 相同的字段，单位纳秒
+  Map<String, int> toMap() => {
+        'count': _count,
+        'mean': _count > 0 ? _totalNanos ~/ _count : 0,
+        'p50': percentile(0.50),
+        'p90': percentile(0.90),
+        'p99': percentile(0.99),
+        'p999': percentile(0.999),
+        'max': _maxNanos,
+        'jitter': _jitterNanosX16 >> 4,
+      };
+}
+
+/// Dart 端各阶段延迟
+///   channel   原生发送 → Dart 收到消息
+///   dart      Dart 收到消息 → 事件分发完成
+///   endToEnd  遥控器采集 → Dart 事件分发完成（仅实时数据源）
+///
+/// 时间取自 Timeline.now（CLOCK_MONOTONIC，微秒），与原生端 System.nanoTime 是同一时钟
+class RcLatencyTracker {
+  final RcLatencyHistogram channel = RcLatencyHistogram();
+  final RcLatencyHistogram dart = RcLatencyHistogram();
+  final RcLatencyHistogram endToEnd = RcLatencyHistogram();
+
+  /// 当前单调时钟时间（纳秒）
+  static int nowNanos() => Timeline.now * 1000;
+
+  /// 记录一帧，[arrivalNanos] 和 [handledNanos] 由 [nowNanos] 取得
+  void recordFrame(RcFrame frame, int arrivalNanos, int handledNanos) {
+    if (frame.sendMonoNanos != 0) {
+      channel.record(arrivalNanos - frame.sendMonoNanos);
+    }
+    dart.record(handledNanos - arrivalNanos);
+    if (frame.captureMonoNanos != 0) {
+      endToEnd.record(handledNanos - frame.captureMonoNanos);
+    }
+  }
+
+  void reset() {
+    channel.reset();
+    dart.reset();
+    endToEnd.reset();
+  }
+
+  Map<String, Map<String, int>> toMap() => {
+        'channel': channel.toMap(),
+        'dart': dart.toMap(),
+        'endToEnd': endToEnd.toMap(),
+      };
+}
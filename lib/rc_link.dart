@@ -0,0 +1,50 @@
+import 'dart:typed_data';
+
+/// 数传管道解析出的一条 MAVLink 消息，对应原生端 RCLinkBatcher 的记录格式（小端）：
+///
+///   0  uint8  protocol      1 = MAVLink v1, 2 = MAVLink v2
+///   1  uint8  sequence
+///   2  uint8  systemId
+///   3  uint8  componentId
+///   4  uint32 messageId
+///   8  uint16 payloadLength
+///  10  uint8[] payload
+class RcLinkMessage {
+  static const int recordHeaderBytes = 10;
+
+  final int protocol;
+  final int sequence;
+  final int systemId;
+  final int componentId;
+  final int messageId;
+
+  /// 直接指向批次内存的视图，不做拷贝
+  final Uint8List payload;
+
+  RcLinkMessage(this.protocol, this.sequence, this.systemId, this.componentId,
+      this.messageId, this.payload);
+
+  /// 解码一个批次中的所有消息，遇到不完整的记录时停止
+  static List<RcLinkMessage> decodeBatch(ByteData data) {
+    final messages = <RcLinkMessage>[];
+    var offset = 0;
+    while (offset + recordHeaderBytes <= data.lengthInBytes) {
+      final payloadLength = data.getUint16(offset + 8, Endian.little);
+      final end = offset + recordHeaderBytes + payloadLength;
+      if (end > data.lengthInBytes) {
+        break;
+      }
+      messages.add(RcLinkMessage(
+        data.getUint8(offset),
+        data.getUint8(offset + 1),
+        data.getUint8(offset + 2),
+        data.getUint8(offset + 3),
+        data.getUint32(offset + 4, Endian.little),
+        data.buffer.asUint8List(
+            data.offsetInBytes + offset + recordHeaderBytes, payloadLength),
+      ));
+      offset = end;
+    }
+    return messages;
+  }
+}
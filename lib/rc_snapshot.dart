@@ -0,0 +1,140 @@
+import 'dart:ffi';
+import 'dart:io';
+import 'dart:typed_data';
+
+typedef _MmapNative = Pointer<Void> Function(
+    Pointer<Void>, IntPtr, Int32, Int32, Int32, IntPtr);
+typedef _Mmap = Pointer<Void> Function(Pointer<Void>, int, int, int, int, int);
+typedef _MunmapNative = Int32 Function(Pointer<Void>, IntPtr);
+typedef _Munmap = int Function(Pointer<Void>, int);
+
+/// 共享内存中的最新一帧（原生端 RCFrameSnapshot），通过 dart:ffi 直接映射读取
+/// 读取是同步的，不经过平台通道和平台线程，也不分配内存；原生端每帧覆盖写入，用顺序锁和校验和判断是否读到完整的一帧
+///
+/// 布局与 RCFrameSnapshot 一致（本机字节序）
+class RcFrameSnapshot {
+  static const int magic = 0x52435353;
+  static const int version = 1;
+  static const int maxChannels = 32;
+  static const int maxReadRetries = 16;
+
+  // 以 int32 / int64 为单位的下标
+  static const int _magicIndex32 = 0;
+  static const int _versionIndex32 = 1;
+  static const int _sequenceIndex64 = 1;
+  static const int _timestampIndex64 = 2;
+  static const int _captureMonoIndex64 = 3;
+  static const int _writeMonoIndex64 = 4;
+  static const int _channelCountIndex32 = 10;
+  static const int _checksumIndex32 = 11;
+  static const int _channelsIndex32 = 12;
+
+  static const int _protRead = 1;
+  static const int _mapShared = 1;
+
+  static const int _checksumSeed = 0x811c9dc5;
+  static const int _checksumPrime = 0x01000193;
+
+  static final DynamicLibrary _libc = Platform.isAndroid
+      ? DynamicLibrary.open('libc.so')
+      : DynamicLibrary.process();
+  static final _Mmap _mmap = _libc.lookupFunction<_MmapNative, _Mmap>('mmap');
+  static final _Munmap _munmap =
+      _libc.lookupFunction<_MunmapNative, _Munmap>('munmap');
+
+  final Pointer<Void> _address;
+  final int _size;
+  final Int32List _ints;
+  final Int64List _longs;
+  bool _closed = false;
+
+  int _channelCount = 0;
+  int _timestampNanos = 0;
+  int _captureMonoNanos = 0;
+  int _writeMonoNanos = 0;
+
+  RcFrameSnapshot._(this._address, this._size)
+      : _ints = _address.cast<Int32>().asTypedList(_size ~/ 4),
+        _longs = _address.cast<Int64>().asTypedList(_size ~/ 8);
+
+  /// 映射原生端 attachFrameSnapshot 返回的文件描述符，失败时返回 null
+  static RcFrameSnapshot? map(int fd, int size) {
+    final address = _mmap(nullptr, size, _protRead, _mapShared, fd, 0);
+    final raw = address.address;
+    if (raw == 0 || raw == -1 || raw == 0xFFFFFFFF) {
+      return null;
+    }
+    final snapshot = RcFrameSnapshot._(address, size);
+    if (snapshot._ints[_magicIndex32] != magic ||
+        snapshot._ints[_versionIndex32] != version) {
+      snapshot.close();
+      return null;
+    }
+    return snapshot;
+  }
+
+  /// 读取最新一帧到 [out]（长度至少为通道数，建议 [maxChannels]）
+  /// 返回帧序号，从未写入时为 0；连续 [maxReadRetries] 次读到正在写或不完整的数据时返回 -1
+  int read(Int32List out) {
+    if (_closed) {
+      return -1;
+    }
+    for (var attempt = 0; attempt < maxReadRetries; attempt++) {
+      final before = _longs[_sequenceIndex64];
+      if (before.isOdd) {
+        continue;
+      }
+      final timestamp = _longs[_timestampIndex64];
+      final captureMono = _longs[_captureMonoIndex64];
+      final writeMono = _longs[_writeMonoIndex64];
+      final count = _ints[_channelCountIndex32];
+      if (count < 0 || count > maxChannels || count > out.length) {
+        continue;
+      }
+      for (var i = 0; i < count; i++) {
+        out[i] = _ints[_channelsIndex32 + i];
+      }
+      final stored = _ints[_checksumIndex32];
+      final after = _longs[_sequenceIndex64];
+      if (before != after ||
+          stored != _checksum(before, timestamp, count, out)) {
+        continue;
+      }
+      _channelCount = count;
+      _timestampNanos = timestamp;
+      _captureMonoNanos = captureMono;
+      _writeMonoNanos = writeMono;
+      return before;
+    }
+    return -1;
+  }
+
+  /// 以下字段对应最近一次成功的 [read]
+  int get channelCount => _channelCount;
+  int get timestampNanos => _timestampNanos;
+  int get captureMonoNanos => _captureMonoNanos;
+  int get writeMonoNanos => _writeMonoNanos;
+
+  /// 与原生端 RCFrameSnapshot.checksum 相同的 FNV-1a，结果按 int32 比较
+  static int _checksum(int sequence, int timestamp, int count, Int32List channels) {
+    var h = _checksumSeed;
+    h = _mix(h, sequence);
+    h = _mix(h, timestamp);
+    h = _mix(h, timestamp >> 32);
+    h = _mix(h, count);
+    for (var i = 0; i < count; i++) {
+      h = _mix(h, channels[i]);
+    }
+    return h.toSigned(32);
+  }
+
+  static int _mix(int h, int value) =>
+      ((h ^ (value & 0xFFFFFFFF)) * _checksumPrime) & 0xFFFFFFFF;
+
+  void close() {
+    if (!_closed) {
+      _closed = true;
+      _munmap(_address, _size);
+    }
+  }
+}
@@ -0,0 +1,53 @@
+import 'dart:async';
+import 'dart:typed_data';
+
+import 'package:flutter/services.dart';
+import 'package:h12controller/rc_frame.dart';
+
+/// 订阅的投递方式，顺序与 RCSubscription.MODE_* 一致
+/// - [everyFrame] 每帧投递订阅的全部通道，超过最高频率的帧在原生端丢弃
+/// - [latest] 同上，但上一帧未处理完时原生端只保留最新一帧，适合处理较慢的订阅者
+/// - [onChange] 只投递变化超过 deadband 的通道
+enum RcDeliveryMode { everyFrame, latest, onChange }
+
+/// 一个通道帧订阅，由 [RcController.subscribe] 创建
+/// 原生端按订阅的通道、频率和投递方式筛选后，通过独立的消息通道推送，不经过全局 EventBus
+class RcSubscription {
+  final int id;
+  final int channelMask;
+  final BasicMessageChannel<ByteData> _channel;
+  final StreamController<RcFrame> _frames = StreamController<RcFrame>.broadcast();
+  final Future<void> Function(int id) _onCancel;
+
+  /// 合并后的通道值，在 [frames] 的事件之前更新
+  final RcChannelState state = RcChannelState();
+
+  /// 最近一帧中值确实发生变化的通道
+  int changedMask = 0;
+
+  RcSubscription(this.id, this.channelMask, String channelName, this._onCancel)
+      : _channel = BasicMessageChannel<ByteData>(channelName, const BinaryCodec()) {
+    _channel.setMessageHandler((data) async {
+      if (data == null) {
+        return null;
+      }
+      final frame = RcFrame.decode(data);
+      if (frame != null) {
+        changedMask = state.applyFrame(frame);
+        _frames.add(frame);
+      }
+      // 返回即表示处理完，latest 方式下原生端收到回复后才发送下一帧
+      return null;
+    });
+  }
+
+  /// 原生端投递的帧，帧内只包含订阅的通道（onChange 方式下只包含变化的通道）
+  Stream<RcFrame> get frames => _frames.stream;
+
+  /// 取消订阅
+  Future<void> cancel() async {
+    _channel.setMessageHandler(null);
+    await _frames.close();
+    await _onCancel(id);
+  }
+}